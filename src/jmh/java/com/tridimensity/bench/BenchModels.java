@@ -0,0 +1,58 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.gen.SyntheticModelGenerator;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark models, made with {@link SyntheticModelGenerator} from a fixed seed.
+ */
+public final class BenchModels {
+    private static final long SEED = 42;
+
+    /**
+     * Shape of the group hierarchy.
+     */
+    public enum Shape {
+        /** One root with every other group as its direct child. */
+        WIDE,
+        /** A single chain. */
+        DEEP,
+        /** A complete binary tree; use 2^n - 1 groups for an exact count. */
+        BALANCED
+    }
+
+    private BenchModels() {
+    }
+
+    /**
+     * @return A generator for a hierarchy of the given shape with at least {@code groups} groups.
+     */
+    static SyntheticModelGenerator generator(Shape shape, int groups) {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator().setSeed(SEED);
+        return switch (shape) {
+            case WIDE -> groups == 1 ? generator.setDepth(1) : generator.setDepth(2).setFanOut(groups - 1);
+            case DEEP -> generator.setFanOut(1).setDepth(groups);
+            case BALANCED -> generator.setFanOut(2).setDepth(32 - Integer.numberOfLeadingZeros(groups));
+        };
+    }
+
+    /**
+     * @return A generator for {@code elements} elements over a 4-level tree of fan-out 4 (85 groups).
+     */
+    static SyntheticModelGenerator generator(int elements) {
+        return new SyntheticModelGenerator().setSeed(SEED).setDepth(4).setFanOut(4).setElements(elements);
+    }
+
+    static byte[] bytes(SyntheticModelGenerator generator) {
+        return generator.generate().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static Model load(SyntheticModelGenerator generator) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(bytes(generator)), ParserOptions.strict());
+    }
+}
@@ -0,0 +1,122 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.spatial.CubeBvh;
+import com.tridimensity.spatial.RayHit;
+import com.tridimensity.util.Aabb;
+import org.joml.Intersectionf;
+import org.joml.Vector2f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CubeBvh} ray and box queries against a brute-force scan of every cube's world box.
+ * The brute-force ray test stops at the box, so it does slightly less work per cube than the BVH.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CubeBvhBenchmark {
+    private static final int QUERIES = 256;
+
+    @Param({"64", "512", "4096"})
+    public int cubes;
+
+    private CubeBvh bvh;
+    private final RayHit hit = new RayHit();
+    private final Aabb box = new Aabb();
+    private final Vector2f near = new Vector2f();
+    private final int[] results = new int[4096];
+    private float[] rays;
+    private Aabb[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        ModelInstance instance = BenchModels.load(BenchModels.generator(cubes)).instantiate();
+        instance.updateWorldTransforms();
+        bvh = new CubeBvh(instance.getModel());
+        bvh.refit(instance);
+
+        Aabb bounds = bvh.getBounds(new Aabb());
+        SplittableRandom random = new SplittableRandom(42);
+        rays = new float[QUERIES * 6];
+        queries = new Aabb[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            // From a point above the model towards a random point inside it
+            float tx = lerp(bounds.minX, bounds.maxX, random.nextFloat());
+            float ty = lerp(bounds.minY, bounds.maxY, random.nextFloat());
+            float tz = lerp(bounds.minZ, bounds.maxZ, random.nextFloat());
+            float ox = lerp(bounds.minX, bounds.maxX, random.nextFloat());
+            float oz = lerp(bounds.minZ, bounds.maxZ, random.nextFloat());
+            float oy = bounds.maxY + 4f;
+            int r = q * 6;
+            rays[r] = ox;
+            rays[r + 1] = oy;
+            rays[r + 2] = oz;
+            rays[r + 3] = tx - ox;
+            rays[r + 4] = ty - oy;
+            rays[r + 5] = tz - oz;
+            float half = 0.25f;
+            queries[q] = new Aabb(tx - half, ty - half, tz - half, tx + half, ty + half, tz + half);
+        }
+    }
+
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+
+    @Benchmark
+    public boolean raycastBvh() {
+        int r = (next++ & (QUERIES - 1)) * 6;
+        return bvh.raycast(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], rays[r + 5], 256f, hit);
+    }
+
+    @Benchmark
+    public int raycastBruteForce() {
+        int r = (next++ & (QUERIES - 1)) * 6;
+        float best = Float.POSITIVE_INFINITY;
+        int bestCube = -1;
+        for (int i = 0, n = bvh.getCubeCount(); i < n; i++) {
+            bvh.getCubeWorldBounds(i, box);
+            if (Intersectionf.intersectRayAab(rays[r], rays[r + 1], rays[r + 2], rays[r + 3], rays[r + 4], rays[r + 5],
+                    box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ, near) && near.x < best) {
+                best = near.x;
+                bestCube = i;
+            }
+        }
+        return bestCube;
+    }
+
+    @Benchmark
+    public int overlapsBvh() {
+        return bvh.overlaps(queries[next++ & (QUERIES - 1)], results);
+    }
+
+    @Benchmark
+    public int overlapsBruteForce() {
+        Aabb query = queries[next++ & (QUERIES - 1)];
+        int found = 0;
+        for (int i = 0, n = bvh.getCubeCount(); i < n; i++) {
+            if (bvh.getCubeWorldBounds(i, box).intersects(query)) {
+                results[found++] = i;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,61 @@
+package com.tridimensity.bench;
+
+import com.google.gson.JsonParser;
+import com.tridimensity.io.ast.ModelAst;
+import com.tridimensity.io.fix.ElementRotationFixer;
+import com.tridimensity.io.fix.FixReport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ElementRotationFixer} on a wide model where every element carries a rotation. The fixer
+ * rewrites the tree, so each invocation gets a freshly parsed copy (parsing is not measured).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElementRotationFixerBenchmark {
+
+    @Param({"100", "1000", "4000"})
+    public int elements;
+
+    private String raw;
+    private ModelAst ast;
+    private final ElementRotationFixer fixer = new ElementRotationFixer();
+
+    @Setup
+    public void setUp() {
+        // 4 elements per group, every group directly under the root
+        raw = BenchModels.generator(BenchModels.Shape.WIDE, Math.max(2, elements / 4))
+                .setElements(elements)
+                .setRotatedFraction(1f)
+                .generate();
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() {
+        ast = ModelAst.fromJson(JsonParser.parseString(raw).getAsJsonObject(), raw);
+    }
+
+    @Benchmark
+    public FixReport fix() {
+        FixReport report = new FixReport();
+        fixer.apply(ast, report);
+        return report;
+    }
+}
@@ -0,0 +1,106 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.model.IkChain;
+import com.tridimensity.model.IkSolver;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IK solves on a straight chain of 2 to 20 joints. Each operation aims at the next of a ring of
+ * targets within reach, so every solve starts from the previous pose and has work to do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IkBenchmark {
+    private static final int TARGETS = 64;
+
+    @Param({"2", "5", "10", "20"})
+    public int joints;
+
+    private ModelInstance instance;
+    private IkChain chain;
+    private final IkSolver solver = new IkSolver();
+    private final Vector3f[] targets = new Vector3f[TARGETS];
+    private final Vector3f pole = new Vector3f();
+    private final Matrix4f matrix = new Matrix4f();
+    private int next;
+
+    @Setup
+    public void setUp() {
+        // A limb hanging down from a body, 4 pixels per joint
+        ModelNode body = new ModelNode("body", new Vector3f(0, joints * 4, 0), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        ModelNode parent = body;
+        for (int k = 0; k < joints; k++) {
+            ModelNode joint = new ModelNode("joint" + k, new Vector3f(0, (joints - k) * 4, 0), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+            parent.addChild(joint);
+            parent = joint;
+        }
+        Model model = new Model();
+        model.addRoot(body);
+        instance = model.instantiate();
+        chain = new IkChain(model.getHierarchy(), sequence(1, joints));
+        for (int k = 1; k < joints; k++) {
+            chain.limit(k, -150, -45, -45, 150, 45, 45);
+        }
+
+        instance.updateWorldTransforms();
+        Vector3f root = pivot(model, 1);
+        float reach = root.distance(pivot(model, joints));
+        for (int t = 0; t < TARGETS; t++) {
+            double angle = 2 * Math.PI * t / TARGETS;
+            targets[t] = new Vector3f(root).add((float) Math.cos(angle) * reach * 0.5f, -reach * 0.6f, (float) Math.sin(angle) * reach * 0.5f);
+        }
+        pole.set(root).add(0, -reach * 0.5f, reach);
+    }
+
+    private Vector3f pivot(Model model, int node) {
+        Vector3f origin = model.getHierarchy().getNode(node).getOrigin().mul(1 / 16f);
+        return instance.getWorldTransform(node, new Matrix4f()).transformPosition(origin);
+    }
+
+    private static int[] sequence(int first, int count) {
+        int[] nodes = new int[count];
+        for (int k = 0; k < count; k++) {
+            nodes[k] = first + k;
+        }
+        return nodes;
+    }
+
+    /**
+     * The solve alone, writing pose rotations.
+     */
+    @Benchmark
+    public float solve() {
+        return solver.solve(instance, chain, targets[next++ & (TARGETS - 1)], pole);
+    }
+
+    /**
+     * A solve followed by the world transform update that applies it.
+     */
+    @Benchmark
+    public Matrix4f solveAndUpdate() {
+        solver.solve(instance, chain, targets[next++ & (TARGETS - 1)], pole);
+        instance.updateWorldTransforms();
+        return instance.getWorldTransform(joints, matrix);
+    }
+}
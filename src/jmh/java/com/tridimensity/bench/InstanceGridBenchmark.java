@@ -0,0 +1,113 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.spatial.InstanceGrid;
+import com.tridimensity.spatial.SpatialSink;
+import com.tridimensity.util.Aabb;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link InstanceGrid} with 10k to 100k instances of 1-3 blocks spread at constant density (one per
+ * 64 square blocks of ground), compared with scanning every box.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstanceGridBenchmark {
+    private static final int QUERIES = 1024;
+    private static final float RADIUS = 32f;
+
+    @Param({"10000", "30000", "100000"})
+    public int instances;
+
+    private InstanceGrid<Integer> grid;
+    private float[] boxes;
+    private int[] handles;
+    private float[] centers;
+    private float extent;
+    private int next;
+    private int matches;
+    private final Aabb box = new Aabb();
+    private final SpatialSink<Integer> sink = (handle, value) -> matches++;
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(7);
+        extent = (float) Math.sqrt(instances * 64.0);
+        grid = new InstanceGrid<>(4f);
+        boxes = new float[instances * 6];
+        handles = new int[instances];
+        for (int i = 0; i < instances; i++) {
+            float x = random.nextFloat() * extent;
+            float z = random.nextFloat() * extent;
+            float size = 1f + random.nextFloat() * 2f;
+            box.set(x, 0f, z, x + size, size, z + size);
+            box.get(boxes, i * 6);
+            handles[i] = grid.insert(i, box);
+        }
+        centers = new float[QUERIES * 2];
+        for (int q = 0; q < centers.length; q++) {
+            centers[q] = random.nextFloat() * extent;
+        }
+    }
+
+    @Benchmark
+    public int queryRadius() {
+        int q = (next++ & (QUERIES - 1)) * 2;
+        matches = 0;
+        grid.queryRadius(centers[q], 1f, centers[q + 1], RADIUS, sink);
+        return matches;
+    }
+
+    @Benchmark
+    public int queryRadiusBruteForce() {
+        int q = (next++ & (QUERIES - 1)) * 2;
+        float cx = centers[q];
+        float cy = 1f;
+        float cz = centers[q + 1];
+        float r2 = RADIUS * RADIUS;
+        int found = 0;
+        for (int i = 0; i < instances; i++) {
+            int o = i * 6;
+            float dx = Math.max(Math.max(boxes[o] - cx, 0f), cx - boxes[o + 3]);
+            float dy = Math.max(Math.max(boxes[o + 1] - cy, 0f), cy - boxes[o + 4]);
+            float dz = Math.max(Math.max(boxes[o + 2] - cz, 0f), cz - boxes[o + 5]);
+            if (dx * dx + dy * dy + dz * dz <= r2) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Moves one instance by up to a block, as a walking entity would each tick.
+     */
+    @Benchmark
+    public void move() {
+        int i = random.nextInt(instances);
+        int o = i * 6;
+        float dx = random.nextFloat() * 2f - 1f;
+        float dz = random.nextFloat() * 2f - 1f;
+        boxes[o] += dx;
+        boxes[o + 3] += dx;
+        boxes[o + 2] += dz;
+        boxes[o + 5] += dz;
+        grid.move(handles[i], box.set(boxes, o));
+    }
+}
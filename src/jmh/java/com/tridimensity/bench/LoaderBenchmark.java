@@ -0,0 +1,68 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BlockbenchLoader#load} on models of 64, 1024 and 16384 elements over 85 groups, with and
+ * without the auto-fix pass, and with lazy geometry. All modes load the same bytes, so
+ * {@code autofix} shows the cost of running the fixers over a model that needs no fixing and
+ * {@code lazy} the cost of the hierarchy alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoaderBenchmark {
+
+    public enum Size {
+        SMALL(64), MEDIUM(1024), HUGE(16384);
+
+        final int elements;
+
+        Size(int elements) {
+            this.elements = elements;
+        }
+    }
+
+    @Param
+    public Size size;
+
+    @Param({"strict", "autofix", "lazy"})
+    public String mode;
+
+    private byte[] data;
+    private ParserOptions options;
+
+    @Setup
+    public void setUp() {
+        data = BenchModels.bytes(BenchModels.generator(size.elements));
+        options = switch (mode) {
+            case "autofix" -> new ParserOptions(true);
+            case "lazy" -> ParserOptions.builder().lazyGeometry(true).build();
+            default -> ParserOptions.strict();
+        };
+    }
+
+    @Benchmark
+    public Model load() {
+        return BlockbenchLoader.load(new ByteArrayInputStream(data), options);
+    }
+}
@@ -0,0 +1,81 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.mesh.Mesh;
+import com.tridimensity.mesh.MeshBuilder;
+import com.tridimensity.mesh.MeshSkinner;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelInstance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesh building with a reused {@link MeshBuilder}, and skinning of 1k to 100k vertices with
+ * {@link MeshSkinner} on the calling thread and in parallel. Every cube has six faces, so a model
+ * has 24 vertices per cube.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int vertices;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Model model;
+    private ModelInstance instance;
+    private MeshBuilder builder;
+    private Mesh mesh;
+    private MeshSkinner skinner;
+    private FloatBuffer skinned;
+    private float angle;
+
+    @Setup
+    public void setUp() {
+        model = BenchModels.load(BenchModels.generator((vertices + 23) / 24));
+        instance = model.instantiate();
+        builder = new MeshBuilder();
+        mesh = builder.build(model);
+        skinner = new MeshSkinner();
+        if (!parallel) {
+            skinner.setChunkSize(Integer.MAX_VALUE);
+        }
+        skinned = ByteBuffer.allocateDirect(mesh.getVertexCount() * Mesh.VERTEX_STRIDE_BYTES)
+                .order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    /**
+     * Rebuilds into the builder's pooled buffers; independent of {@code parallel}.
+     */
+    @Benchmark
+    public Mesh build() {
+        return builder.build(model);
+    }
+
+    @Benchmark
+    public FloatBuffer skin() {
+        instance.setPoseRotation(0, 0, angle++, 0);
+        instance.updateWorldTransforms();
+        skinner.skin(mesh, instance, skinned);
+        return skinned;
+    }
+}
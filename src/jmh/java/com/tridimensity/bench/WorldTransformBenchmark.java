@@ -0,0 +1,66 @@
+package com.tridimensity.bench;
+
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * World transform evaluation on wide, deep and balanced hierarchies. Every operation rotates the
+ * root first, so the whole hierarchy is recomputed rather than served from the dirty tracking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorldTransformBenchmark {
+
+    @Param
+    public BenchModels.Shape shape;
+
+    @Param({"63", "1023"})
+    public int nodes;
+
+    private ModelInstance instance;
+    private final Matrix4f matrix = new Matrix4f();
+    private float angle;
+
+    @Setup
+    public void setUp() {
+        instance = BenchModels.load(BenchModels.generator(shape, nodes).setElements(nodes)).instantiate();
+    }
+
+    /**
+     * The map-returning API, including its per-node allocations.
+     */
+    @Benchmark
+    public Map<ModelNode, Matrix4f> computeWorldTransforms() {
+        instance.setPoseRotation(0, 0, angle++, 0);
+        return instance.computeWorldTransforms();
+    }
+
+    /**
+     * The allocation-free path: update in place and read one matrix back.
+     */
+    @Benchmark
+    public Matrix4f updateWorldTransforms() {
+        instance.setPoseRotation(0, 0, angle++, 0);
+        instance.updateWorldTransforms();
+        return instance.getWorldTransform(nodes - 1, matrix);
+    }
+}
@@ -0,0 +1,40 @@
+package com.tridimensity.exception;
+
+/**
+ * Thrown when a model exceeds one of the limits set in
+ * {@link com.tridimensity.io.options.ParserOptions}. Loading stops as soon as the limit is crossed.
+ */
+public class ModelLimitExceededException extends ModelParseException {
+
+    /**
+     * The limit that was exceeded.
+     */
+    public enum Limit {
+        INPUT_BYTES,
+        ELEMENTS,
+        NODES,
+        OUTLINER_DEPTH,
+        FACES_PER_ELEMENT,
+        PARSE_TIME
+    }
+
+    private final Limit limit;
+    private final long maximum;
+
+    public ModelLimitExceededException(Limit limit, long maximum, String message) {
+        super(message);
+        this.limit = limit;
+        this.maximum = maximum;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return The configured maximum; nanoseconds for {@link Limit#PARSE_TIME}.
+     */
+    public long getMaximum() {
+        return maximum;
+    }
+}
@@ -11,18 +11,30 @@ import com.tridimensity.io.dto.ElementDto;
 import com.tridimensity.io.fix.ElementRotationFixer;
 import com.tridimensity.io.fix.FixReport;
 import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.jfr.ModelLoadEvent;
+import com.tridimensity.jfr.ModelValidationFailureEvent;
+import com.tridimensity.metrics.LoadPhase;
+import com.tridimensity.metrics.MetricsRegistry;
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.GeometryStore;
 import com.tridimensity.model.Model;
 import com.tridimensity.model.ModelCube;
-import com.tridimensity.model.ModelFace;
+import com.tridimensity.model.ModelLocator;
 import com.tridimensity.model.ModelNode;
+import com.tridimensity.model.ModelTexture;
 import org.joml.Vector3f;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -44,46 +56,110 @@ public class BlockbenchLoader {
     }
 
     public static Model load(InputStream inputStream, ParserOptions options) {
+        return load(inputStream, options, null);
+    }
+
+    /**
+     * Loads a model, sharing cubes and subtrees identical to those of models loaded earlier
+     * through the same interner.
+     *
+     * @param interner The interner to share structure through, or null to load independently.
+     */
+    public static Model load(InputStream inputStream, ParserOptions options, ModelInterner interner) {
+        LoadTimer timer = LoadTimer.start(MetricsRegistry.get());
+        ModelLoadEvent event = new ModelLoadEvent();
+        event.begin();
+        String name = null;
+        long size = 0;
         try {
-            String raw = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
-            JsonObject root = JsonParser.parseString(raw).getAsJsonObject();
-            prepare(root, options, raw);
-            return parse(root, raw);
-        } catch (Exception e) {
-            if (e instanceof ModelParseException) {
-                throw (ModelParseException) e;
+            LoadLimits limits = LoadLimits.start(options);
+            byte[] bytes = limits.read(inputStream);
+            size = bytes.length;
+            String raw = new String(bytes, StandardCharsets.UTF_8);
+            timer.phase(LoadPhase.READ);
+            limits.scan(raw);
+            LazyElements lazy = options != null && options.isLazyGeometry() ? LazyElements.scan(raw) : null;
+            if (lazy != null && options.isAutoFixTransforms() && lazy.hasElementTransforms()) {
+                // The fixers rewrite elements in the JSON tree
+                lazy = null;
             }
-            throw new ModelParseException("Failed to parse JSON", e);
+            JsonObject root = (lazy != null ? JsonParser.parseReader(lazy.withoutElements()) : JsonParser.parseString(raw)).getAsJsonObject();
+            name = stringField(root, "name");
+            limits.checkTime();
+            timer.phase(LoadPhase.JSON_PARSE);
+            ModelAst ast = ModelAst.fromJson(root, raw);
+            timer.phase(LoadPhase.AST_BUILD);
+            int fixes = prepare(ast, options, timer);
+            limits.checkTime();
+            ModelInterner.Session interning = interner != null ? interner.begin() : null;
+            Model model = parse(root, ast, lazy, interning, timer, limits);
+            limits.checkHierarchy(model.getHierarchy());
+            if (interning != null) {
+                // Only a model that loaded completely is shared with later loads
+                interning.commit();
+            }
+            int elements = lazy != null ? lazy.size() : root.getAsJsonArray("elements").size();
+            int nodes = model.getHierarchy().size();
+            timer.finish(elements, nodes, fixes, size);
+            event.complete(name, size, elements, nodes, fixes);
+            return model;
+        } catch (Exception e) {
+            ModelParseException failure = e instanceof ModelParseException
+                    ? (ModelParseException) e
+                    : new ModelParseException("Failed to parse JSON", e);
+            new ModelValidationFailureEvent().complete(name, failure.getMessage(), failure.getLine(), failure.getPointer(), size);
+            throw failure;
         }
     }
 
-    private static void prepare(JsonObject root, ParserOptions options, String raw) {
-        if (options != null && options.isAutoFixTransforms()) {
-            FixReport report = new FixReport();
-            ModelAst ast = ModelAst.fromJson(root, raw);
-            new com.tridimensity.io.fix.ElementOriginFixer().apply(ast, report);
-            new ElementRotationFixer().apply(ast, report);
-            ast.validateNoElementRotations();
-            for (String w : report.warnings()) {
-                log.warn(w);
-            }
+    /**
+     * @return The number of fixes applied.
+     */
+    private static int prepare(ModelAst ast, ParserOptions options, LoadTimer timer) {
+        if (options == null || !options.isAutoFixTransforms()) {
+            return 0;
+        }
+        FixReport report = new FixReport();
+        new com.tridimensity.io.fix.ElementOriginFixer().apply(ast, report);
+        new ElementRotationFixer().apply(ast, report);
+        ast.validateNoElementRotations();
+        for (String w : report.warnings()) {
+            log.warn(w);
         }
+        timer.phase(LoadPhase.AUTO_FIX);
+        return report.warnings().size();
     }
 
-    private static Model parse(JsonObject root, String raw) {
-        ModelAst ast = ModelAst.fromJson(root, raw);
-        
+    private static Model parse(JsonObject root, ModelAst ast, LazyElements lazy, ModelInterner.Session interning, LoadTimer timer, LoadLimits limits) {
         // 1. Parse Elements (Cubes)
         if (!root.has("elements")) {
             throw new ModelParseException("Missing 'elements' array", ast.lineOfKey("elements"), "/elements");
         }
         
         Map<UUID, ModelCube> elementMap = new HashMap<>();
+        Map<UUID, ModelLocator> locatorMap = new HashMap<>();
         JsonArray elementsArray = root.getAsJsonArray("elements");
+        GeometryStore.Builder geometry = lazy != null ? GeometryStore.withDeferredFaces(lazy.size()) : GeometryStore.builder(elementsArray.size());
+        if (lazy != null) {
+            parseLazyElements(lazy, geometry, elementMap, locatorMap, ast, limits);
+        }
+        List<ModelInterner.CubeKey> newKeys = new ArrayList<>();
+        List<ModelCube> newCubes = new ArrayList<>();
         
+        int parsed = 0;
         for (JsonElement el : elementsArray) {
+            if ((++parsed & 255) == 0) {
+                limits.checkTime();
+            }
             ElementDto dto = gson.fromJson(el, ElementDto.class);
             JsonObject elObj = el.getAsJsonObject();
+
+            if (ModelAst.isLocatorType(dto.type)) {
+                float[] position = floatsField(elObj, "position");
+                ModelLocator locator = locator(dto, position != null ? position : dto.from, floatsField(elObj, "rotation"), ast);
+                putLocator(locator, elementMap, locatorMap, ast);
+                continue;
+            }
             
             if (elObj.has("origin")) {
                 int line = dto.uuid != null ? ast.lineOfUuid(dto.uuid) : -1;
@@ -125,39 +201,48 @@ public class BlockbenchLoader {
             validateElement(dto, ast);
             
             UUID uuid = UUID.fromString(dto.uuid);
-            if (elementMap.containsKey(uuid)) {
+            if (elementMap.containsKey(uuid) || locatorMap.containsKey(uuid)) {
                 int line = ast.lineOfUuid(uuid.toString());
                 throw new ModelParseException("Duplicate element UUID: " + uuid, line, "/elements/" + uuid);
             }
             
-            Vector3f from = new Vector3f(dto.from[0], dto.from[1], dto.from[2]);
-            Vector3f to = new Vector3f(dto.to[0], dto.to[1], dto.to[2]);
-            
-            Map<String, ModelFace> faces = new HashMap<>();
-            if (dto.faces != null) {
-                for (Map.Entry<String, ElementDto.FaceDto> entry : dto.faces.entrySet()) {
-                    ElementDto.FaceDto f = entry.getValue();
-                    String texture = f.texture != null ? f.texture : "";
-                    faces.put(entry.getKey(), new ModelFace(f.uv, texture, f.rotation));
+            ModelInterner.CubeKey key = null;
+            if (interning != null) {
+                key = cubeKey(uuid, dto);
+                ModelCube shared = interning.findCube(key);
+                if (shared != null) {
+                    elementMap.put(uuid, shared);
+                    continue;
                 }
             }
-            
-            ModelCube cube = new ModelCube(
-                uuid,
-                dto.name,
-                from,
-                to,
-                faces
-            );
+
+            int index = geometry.add(uuid, dto.name, dto.from[0], dto.from[1], dto.from[2], dto.to[0], dto.to[1], dto.to[2]);
+            setFaces(geometry, index, dto);
+            ModelCube cube = geometry.getStore().getCube(index);
             elementMap.put(uuid, cube);
+            if (key != null) {
+                newKeys.add(key);
+                newCubes.add(cube);
+            }
         }
 
+        timer.phase(LoadPhase.ELEMENTS);
+
         // 2. Parse Outliner (Hierarchy)
         if (!root.has("outliner")) {
             throw new ModelParseException("Missing 'outliner' array", ast.lineOfKey("outliner"), "/outliner");
         }
 
-        Model model = new Model();
+        if (lazy != null) {
+            geometry.deferFaces(lazy.faces());
+        }
+        GeometryStore store = geometry.build();
+        if (interning != null) {
+            // Published when the load commits, by which time the store is final
+            interning.addCubes(newKeys, newCubes);
+        }
+        Model model = new Model(store);
+        model.setTextures(parseTextures(root));
         JsonArray outlinerArray = root.getAsJsonArray("outliner");
 
         Map<String, JsonObject> groupMap = new HashMap<>();
@@ -172,10 +257,12 @@ public class BlockbenchLoader {
         }
 
         Set<UUID> usedCubes = new HashSet<>();
+        Set<ModelNode> usedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        NodeStack stack = new NodeStack(limits);
 
         for (JsonElement nodeJson : outlinerArray) {
             if (nodeJson.isJsonObject()) {
-                ModelNode node = parseNode(nodeJson.getAsJsonObject(), elementMap, groupMap, usedCubes, ast);
+                ModelNode node = parseNode(nodeJson.getAsJsonObject(), elementMap, locatorMap, groupMap, usedCubes, ast, interning, usedNodes, limits, stack);
                 model.addRoot(node);
             } else if (nodeJson.isJsonPrimitive() && nodeJson.getAsJsonPrimitive().isString()) {
                 // Allow root entries that are direct element UUIDs
@@ -188,18 +275,20 @@ public class BlockbenchLoader {
                     throw new ModelParseException("Invalid UUID format: " + uuidStr, line, "/outliner/" + uuidStr);
                 }
 
+                ModelLocator locator = locatorMap.get(uuid);
+                if (locator != null) {
+                    ModelNode synthetic = outlinerRoot();
+                    addLocator(synthetic, locator, usedCubes, ast);
+                    model.addRoot(synthetic);
+                    continue;
+                }
+
                 if (!elementMap.containsKey(uuid)) {
                     int line = ast.lineOfUuid(uuidStr);
                     throw new ModelParseException("Reference to nonexistent cube UUID: " + uuid, line, "/outliner/" + uuidStr);
                 }
 
-                ModelNode synthetic = new ModelNode(
-                    "<outliner-root>", 
-                    new Vector3f(0, 0, 0),
-                    new Vector3f(0, 0, 0), 
-                    new Vector3f(0, 0, 0), 
-                    new Vector3f(1, 1, 1)
-                );
+                ModelNode synthetic = outlinerRoot();
                 synthetic.addCube(elementMap.get(uuid));
                 
                 if (usedCubes.contains(uuid)) {
@@ -216,10 +305,171 @@ public class BlockbenchLoader {
         if (model.getRoots().isEmpty()) {
             throw new ModelParseException("Model has no root nodes", ast.lineOfKey("outliner"), "/outliner");
         }
-        
+
+        // Precompute the node index and cached bounds while the model is still confined to this thread
+        model.getHierarchy();
+        timer.phase(LoadPhase.OUTLINER);
+
         return model;
     }
 
+    /**
+     * Reads texture metadata. Embedded sources are kept as strings, canonicalised across loads by
+     * {@link TextureSources}; their base64 payloads are only decoded when a texture is acquired from
+     * a {@code TexturePool}.
+     */
+    private static List<ModelTexture> parseTextures(JsonObject root) {
+        List<ModelTexture> textures = new ArrayList<>();
+        if (!root.has("textures") || !root.get("textures").isJsonArray()) {
+            return textures;
+        }
+        for (JsonElement te : root.getAsJsonArray("textures")) {
+            if (!te.isJsonObject()) {
+                continue;
+            }
+            JsonObject t = te.getAsJsonObject();
+            int width = intField(t, "width", 0);
+            int height = intField(t, "height", 0);
+            textures.add(new ModelTexture(
+                stringField(t, "name"),
+                stringField(t, "id"),
+                stringField(t, "uuid"),
+                width,
+                height,
+                intField(t, "uv_width", width > 0 ? width : 16),
+                intField(t, "uv_height", height > 0 ? height : 16),
+                TextureSources.canonical(stringField(t, "source"))
+            ));
+        }
+        return textures;
+    }
+
+    /**
+     * @return A synthetic root for an element UUID listed directly in the outliner.
+     */
+    private static ModelNode outlinerRoot() {
+        return new ModelNode(
+            "<outliner-root>",
+            new Vector3f(0, 0, 0),
+            new Vector3f(0, 0, 0),
+            new Vector3f(0, 0, 0),
+            new Vector3f(1, 1, 1)
+        );
+    }
+
+    private static String stringField(JsonObject json, String key) {
+        JsonElement value = json.get(key);
+        return value != null && value.isJsonPrimitive() ? value.getAsString() : null;
+    }
+
+    private static int intField(JsonObject json, String key, int fallback) {
+        JsonElement value = json.get(key);
+        return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber() ? value.getAsInt() : fallback;
+    }
+
+    private static float[] floatsField(JsonObject json, String key) {
+        JsonElement value = json.get(key);
+        return value != null && value.isJsonArray() ? gson.fromJson(value, float[].class) : null;
+    }
+
+    /**
+     * Creates a locator or null object. Older files keep a locator's position in {@code from}; null
+     * objects have no orientation, so their rotation is ignored.
+     */
+    private static ModelLocator locator(ElementDto dto, float[] position, float[] rotation, ModelAst ast) {
+        if (dto.uuid == null) {
+            throw new ModelParseException("Element missing UUID", ast.lineOfKey("elements"), "/elements");
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(dto.uuid);
+        } catch (IllegalArgumentException e) {
+            throw new ModelParseException("Invalid UUID format: " + dto.uuid, ast.lineOfUuid(dto.uuid), "/elements/" + dto.uuid);
+        }
+        ModelLocator.Kind kind = "null_object".equals(dto.type) ? ModelLocator.Kind.NULL_OBJECT : ModelLocator.Kind.LOCATOR;
+        Vector3f p = position != null && position.length == 3 ? new Vector3f(position[0], position[1], position[2]) : null;
+        Vector3f r = kind == ModelLocator.Kind.LOCATOR && rotation != null && rotation.length == 3
+                ? new Vector3f(rotation[0], rotation[1], rotation[2]) : null;
+        return new ModelLocator(uuid, dto.name, kind, p, r);
+    }
+
+    private static void putLocator(ModelLocator locator, Map<UUID, ModelCube> elementMap, Map<UUID, ModelLocator> locatorMap, ModelAst ast) {
+        UUID uuid = locator.getUuid();
+        if (elementMap.containsKey(uuid) || locatorMap.containsKey(uuid)) {
+            throw new ModelParseException("Duplicate element UUID: " + uuid, ast.lineOfUuid(uuid.toString()), "/elements/" + uuid);
+        }
+        locatorMap.put(uuid, locator);
+    }
+
+    private static void addLocator(ModelNode node, ModelLocator locator, Set<UUID> usedElements, ModelAst ast) {
+        UUID uuid = locator.getUuid();
+        if (!usedElements.add(uuid)) {
+            throw new ModelParseException("Locator referenced more than once: " + uuid, ast.lineOfUuid(uuid.toString()), "/outliner/" + uuid);
+        }
+        node.addLocator(locator);
+    }
+
+    /**
+     * Adds the cubes of a lazy load with their UUIDs and bounds, applying the same checks as the
+     * eager path, and its locators in full. Cubes are added in element order, which is how the faces
+     * are matched up later.
+     */
+    private static void parseLazyElements(LazyElements lazy, GeometryStore.Builder geometry, Map<UUID, ModelCube> elementMap,
+                                          Map<UUID, ModelLocator> locatorMap, ModelAst ast, LoadLimits limits) {
+        for (int i = 0; i < lazy.size(); i++) {
+            if (((i + 1) & 255) == 0) {
+                limits.checkTime();
+            }
+            ElementDto dto = lazy.get(i);
+            if (lazy.isLocator(i)) {
+                float[] position = lazy.getLocatorPosition(i);
+                putLocator(locator(dto, position != null ? position : dto.from, lazy.getLocatorRotation(i), ast), elementMap, locatorMap, ast);
+                continue;
+            }
+            if (lazy.hasOrigin(i)) {
+                int line = dto.uuid != null ? ast.lineOfUuid(dto.uuid) : -1;
+                throw new ModelParseException("Element-level origin is not supported; use group origin", line, dto.uuid != null ? "/elements/" + dto.uuid : null);
+            }
+            if (lazy.isRotated(i)) {
+                int line = dto.uuid != null ? ast.lineOfUuid(dto.uuid) : -1;
+                throw new ModelParseException("Element-level transforms are not supported; use group rotation", line, dto.uuid != null ? "/elements/" + dto.uuid : null);
+            }
+            float[] from = dto.from;
+            float[] to = dto.to;
+            if (from != null && to != null && from.length == 3 && to.length == 3
+                    && (from[0] > to[0] || from[1] > to[1] || from[2] > to[2])) {
+                dto.from = new float[] {Math.min(from[0], to[0]), Math.min(from[1], to[1]), Math.min(from[2], to[2])};
+                dto.to = new float[] {Math.max(from[0], to[0]), Math.max(from[1], to[1]), Math.max(from[2], to[2])};
+                log.warn("Auto-fix: normalized element bounds (from/to) for '{}'", dto.uuid != null ? dto.uuid : "<unknown>");
+            }
+
+            validateElement(dto, ast);
+
+            UUID uuid = UUID.fromString(dto.uuid);
+            if (elementMap.containsKey(uuid) || locatorMap.containsKey(uuid)) {
+                int line = ast.lineOfUuid(uuid.toString());
+                throw new ModelParseException("Duplicate element UUID: " + uuid, line, "/elements/" + uuid);
+            }
+            int index = geometry.add(uuid, null, dto.from[0], dto.from[1], dto.from[2], dto.to[0], dto.to[1], dto.to[2]);
+            elementMap.put(uuid, geometry.getStore().getCube(index));
+        }
+    }
+
+    static void setFaces(GeometryStore.Builder geometry, int index, ElementDto dto) {
+        if (dto.faces == null) {
+            return;
+        }
+        for (Map.Entry<String, ElementDto.FaceDto> entry : dto.faces.entrySet()) {
+            FaceDirection face = FaceDirection.fromKey(entry.getKey());
+            ElementDto.FaceDto f = entry.getValue();
+            if (face == null || f == null) {
+                continue;
+            }
+            String texture = f.texture != null ? f.texture : "";
+            geometry.setFace(index, face, f.uv, texture, f.rotation);
+        }
+    }
+
     private static void validateElement(ElementDto dto, ModelAst ast) {
         if (dto.uuid == null) {
             throw new ModelParseException("Element missing UUID", ast.lineOfKey("elements"), "/elements");
@@ -241,7 +491,72 @@ public class BlockbenchLoader {
         }
     }
 
-    private static ModelNode parseNode(JsonObject json, Map<UUID, ModelCube> elementMap, Map<String, JsonObject> groupMap, Set<UUID> usedCubes, ModelAst ast) {
+    /**
+     * Parses an outliner group and everything below it. The walk keeps open groups on
+     * {@code stack} rather than the call stack, so chains of any depth load; each child is
+     * interned before its parent, which the interner's node keys rely on.
+     */
+    private static ModelNode parseNode(JsonObject json, Map<UUID, ModelCube> elementMap, Map<UUID, ModelLocator> locatorMap,
+                                       Map<String, JsonObject> groupMap, Set<UUID> usedCubes, ModelAst ast,
+                                       ModelInterner.Session interning, Set<ModelNode> usedNodes, LoadLimits limits, NodeStack stack) {
+        int base = stack.size();
+        openNode(json, groupMap, ast, limits, stack);
+        while (true) {
+            int top = stack.size() - 1;
+            ModelNode node = stack.nodes[top];
+            JsonArray children = stack.children[top];
+            if (children != null && stack.next[top] < children.size()) {
+                JsonElement child = children.get(stack.next[top]++);
+                if (child.isJsonObject()) {
+                    openNode(child.getAsJsonObject(), groupMap, ast, limits, stack);
+                } else if (child.isJsonPrimitive() && child.getAsJsonPrimitive().isString()) {
+                    String uuidStr = child.getAsString();
+                    UUID uuid;
+                    try {
+                        uuid = UUID.fromString(uuidStr);
+                    } catch (IllegalArgumentException e) {
+                        int line = ast.lineOfUuid(uuidStr);
+                        throw new ModelParseException("Invalid UUID format: " + uuidStr, line, "/outliner/" + uuidStr);
+                    }
+
+                    ModelLocator locator = locatorMap.get(uuid);
+                    if (locator != null) {
+                        addLocator(node, locator, usedCubes, ast);
+                        continue;
+                    }
+
+                    if (!elementMap.containsKey(uuid)) {
+                        int line = ast.lineOfUuid(uuidStr);
+                        throw new ModelParseException("Reference to nonexistent cube UUID: " + uuid, line, "/outliner/" + uuidStr);
+                    }
+
+                    if (usedCubes.contains(uuid)) {
+                        int line = ast.lineOfUuid(uuidStr);
+                        throw new ModelParseException("Cube referenced more than once: " + uuid, line, "/outliner/" + uuidStr);
+                    }
+
+                    ModelCube cube = elementMap.get(uuid);
+                    node.addCube(cube);
+                    usedCubes.add(uuid);
+                } else {
+                    throw new ModelParseException("Unknown child type in outliner: " + child, ast.lineOfKey("outliner"), "/outliner");
+                }
+                continue;
+            }
+            ModelNode done = intern(stack.pop(), interning, usedNodes);
+            if (stack.size() == base) {
+                return done;
+            }
+            stack.nodes[top - 1].addChild(done);
+        }
+    }
+
+    /**
+     * Creates the node for an outliner group, resolving {@code groups} references, and pushes it
+     * with its children array.
+     */
+    private static void openNode(JsonObject json, Map<String, JsonObject> groupMap, ModelAst ast, LoadLimits limits, NodeStack stack) {
+        limits.checkTime();
         JsonObject source = json;
         String resolvedUuid = null;
         if (json.has("uuid") && !hasTransformFields(json)) {
@@ -251,6 +566,10 @@ public class BlockbenchLoader {
                 int line = ast.lineOfUuid(resolvedUuid);
                 throw new ModelParseException("Reference to nonexistent group UUID: " + resolvedUuid, line, "/groups/" + resolvedUuid);
             }
+            if (stack.isOpen(resolvedUuid)) {
+                int line = ast.lineOfUuid(resolvedUuid);
+                throw new ModelParseException("Cyclic group reference: " + resolvedUuid + " is nested inside itself", line, "/groups/" + resolvedUuid);
+            }
             source = groupObj;
         }
 
@@ -307,7 +626,18 @@ public class BlockbenchLoader {
             }
         }
 
-        ModelNode node = new ModelNode(name, origin, position, rotation, scale);
+        // Keep the group UUID so reloaded models can be matched node by node
+        UUID nodeUuid = null;
+        if (source.has("uuid") && source.get("uuid").isJsonPrimitive()) {
+            String uuidStr = source.get("uuid").getAsString();
+            try {
+                nodeUuid = UUID.fromString(uuidStr);
+            } catch (IllegalArgumentException e) {
+                int line = ast.lineOfUuid(uuidStr);
+                throw new ModelParseException("Invalid UUID format: " + uuidStr, line, "/outliner/" + uuidStr);
+            }
+        }
+        ModelNode node = new ModelNode(nodeUuid, name, origin, position, rotation, scale);
 
         JsonArray children = null;
         if (json.has("children")) {
@@ -315,51 +645,119 @@ public class BlockbenchLoader {
         } else if (source.has("children")) {
             children = source.getAsJsonArray("children");
         }
+        stack.push(node, children, resolvedUuid);
+    }
 
-        if (children != null) {
-            for (JsonElement child : children) {
-                if (child.isJsonObject()) {
-                    JsonObject childObj = child.getAsJsonObject();
-                    if (childObj.has("uuid") && !hasTransformFields(childObj)) {
-                        ModelNode childNode = parseNode(childObj, elementMap, groupMap, usedCubes, ast);
-                        node.addChild(childNode);
-                    } else {
-                        ModelNode childNode = parseNode(childObj, elementMap, groupMap, usedCubes, ast);
-                        node.addChild(childNode);
-                    }
-                } else if (child.isJsonPrimitive() && child.getAsJsonPrimitive().isString()) {
-                    String uuidStr = child.getAsString();
-                    UUID uuid;
-                    try {
-                        uuid = UUID.fromString(uuidStr);
-                    } catch (IllegalArgumentException e) {
-                        int line = ast.lineOfUuid(uuidStr);
-                        throw new ModelParseException("Invalid UUID format: " + uuidStr, line, "/outliner/" + uuidStr);
-                    }
-
-                    if (!elementMap.containsKey(uuid)) {
-                        int line = ast.lineOfUuid(uuidStr);
-                        throw new ModelParseException("Reference to nonexistent cube UUID: " + uuid, line, "/outliner/" + uuidStr);
-                    }
-
-                    if (usedCubes.contains(uuid)) {
-                        int line = ast.lineOfUuid(uuidStr);
-                        throw new ModelParseException("Cube referenced more than once: " + uuid, line, "/outliner/" + uuidStr);
-                    }
+    /**
+     * @return The interned equivalent of a freshly parsed node, unless this model already uses it elsewhere.
+     */
+    private static ModelNode intern(ModelNode node, ModelInterner.Session interning, Set<ModelNode> usedNodes) {
+        if (interning == null) {
+            return node;
+        }
+        ModelNode shared = interning.internNode(node);
+        if (shared != node && !usedNodes.add(shared)) {
+            return node;
+        }
+        usedNodes.add(node);
+        return shared;
+    }
 
-                    ModelCube cube = elementMap.get(uuid);
-                    node.addCube(cube);
-                    usedCubes.add(uuid);
-                } else {
-                    throw new ModelParseException("Unknown child type in outliner: " + child, ast.lineOfKey("outliner"), "/outliner");
+    private static ModelInterner.CubeKey cubeKey(UUID uuid, ElementDto dto) {
+        float[] values = new float[6 + 6 * 5];
+        System.arraycopy(dto.from, 0, values, 0, 3);
+        System.arraycopy(dto.to, 0, values, 3, 3);
+        String[] textures = new String[6];
+        int faceMask = 0;
+        int uvMask = 0;
+        if (dto.faces != null) {
+            for (Map.Entry<String, ElementDto.FaceDto> entry : dto.faces.entrySet()) {
+                FaceDirection face = FaceDirection.fromKey(entry.getKey());
+                ElementDto.FaceDto f = entry.getValue();
+                if (face == null || f == null) {
+                    continue;
+                }
+                int o = 6 + face.ordinal() * 5;
+                faceMask |= face.mask();
+                if (f.uv != null && f.uv.length >= 4) {
+                    uvMask |= face.mask();
+                    System.arraycopy(f.uv, 0, values, o, 4);
                 }
+                values[o + 4] = f.rotation;
+                textures[face.ordinal()] = f.texture != null ? f.texture : "";
             }
         }
-
-        return node;
+        return new ModelInterner.CubeKey(uuid, dto.name, values, textures, faceMask, uvMask);
     }
 
     private static boolean hasTransformFields(JsonObject json) {
         return json.has("origin") || json.has("position") || json.has("rotation") || json.has("scale");
     }
+
+    /**
+     * Groups whose children are still being parsed, as parallel arrays reused across roots.
+     */
+    private static final class NodeStack {
+        private final LoadLimits limits;
+        ModelNode[] nodes = new ModelNode[16];
+        JsonArray[] children = new JsonArray[16];
+        int[] next = new int[16];
+        // The groups entry each node was resolved from, or null for inline groups
+        private String[] groups = new String[16];
+        private final Set<String> openGroups = new HashSet<>();
+        private int size;
+        // Groups pushed over the whole load
+        private int opened;
+
+        NodeStack(LoadLimits limits) {
+            this.limits = limits;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return True if the {@code groups} entry {@code uuid} is being parsed further up the stack.
+         */
+        boolean isOpen(String uuid) {
+            return openGroups.contains(uuid);
+        }
+
+        /**
+         * @param group The {@code groups} entry the node was resolved from, or null.
+         * @throws com.tridimensity.exception.ModelLimitExceededException If the group is one too many,
+         *         or nested too deep.
+         */
+        void push(ModelNode node, JsonArray nodeChildren, String group) {
+            limits.checkGroup(++opened, size + 1);
+            if (size == nodes.length) {
+                int capacity = size * 2;
+                nodes = Arrays.copyOf(nodes, capacity);
+                children = Arrays.copyOf(children, capacity);
+                next = Arrays.copyOf(next, capacity);
+                groups = Arrays.copyOf(groups, capacity);
+            }
+            nodes[size] = node;
+            children[size] = nodeChildren;
+            next[size] = 0;
+            groups[size] = group;
+            if (group != null) {
+                openGroups.add(group);
+            }
+            size++;
+        }
+
+        ModelNode pop() {
+            size--;
+            ModelNode node = nodes[size];
+            nodes[size] = null;
+            children[size] = null;
+            if (groups[size] != null) {
+                openGroups.remove(groups[size]);
+                groups[size] = null;
+            }
+            return node;
+        }
+    }
 }
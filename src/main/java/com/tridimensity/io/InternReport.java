@@ -0,0 +1,73 @@
+package com.tridimensity.io;
+
+/**
+ * Counts collected by {@link ModelInterner}.
+ */
+public class InternReport {
+    int cubesAdded;
+    int cubesShared;
+    int nodesAdded;
+    int nodesShared;
+    long bytesSaved;
+
+    void add(InternReport other) {
+        cubesAdded += other.cubesAdded;
+        cubesShared += other.cubesShared;
+        nodesAdded += other.nodesAdded;
+        nodesShared += other.nodesShared;
+        bytesSaved += other.bytesSaved;
+    }
+
+    InternReport copy() {
+        InternReport copy = new InternReport();
+        copy.cubesAdded = cubesAdded;
+        copy.cubesShared = cubesShared;
+        copy.nodesAdded = nodesAdded;
+        copy.nodesShared = nodesShared;
+        copy.bytesSaved = bytesSaved;
+        return copy;
+    }
+
+    /**
+     * @return Cubes stored because no identical cube had been loaded.
+     */
+    public int getCubesAdded() {
+        return cubesAdded;
+    }
+
+    /**
+     * @return Cubes replaced by an identical cube of an earlier model.
+     */
+    public int getCubesShared() {
+        return cubesShared;
+    }
+
+    public int getNodesAdded() {
+        return nodesAdded;
+    }
+
+    /**
+     * @return Groups replaced by an identical subtree of an earlier model.
+     */
+    public int getNodesShared() {
+        return nodesShared;
+    }
+
+    /**
+     * @return An estimate of the heap not allocated thanks to sharing, in bytes.
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    @Override
+    public String toString() {
+        return "InternReport{" +
+                "cubesAdded=" + cubesAdded +
+                ", cubesShared=" + cubesShared +
+                ", nodesAdded=" + nodesAdded +
+                ", nodesShared=" + nodesShared +
+                ", bytesSaved=" + bytesSaved +
+                '}';
+    }
+}
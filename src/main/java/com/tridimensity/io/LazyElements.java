@@ -0,0 +1,526 @@
+package com.tridimensity.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.ast.ModelAst;
+import com.tridimensity.io.dto.ElementDto;
+import com.tridimensity.model.GeometryStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The {@code elements} array of a document loaded with lazy geometry.
+ *
+ * <p>{@link #scan} finds the array's character range and reads what the load needs from each element
+ * (UUID, bounds and whether it has an element-level origin or rotation) without building a JSON
+ * tree. Everything else in the array is skipped. The names and faces of cubes are copied, deflated,
+ * into a buffer that is all the model keeps of the array, and only parsed when the store's faces are
+ * first read. Locators and null objects are read in full, since they carry no faces.</p>
+ */
+final class LazyElements {
+    private static final Gson gson = new Gson();
+
+    private final String raw;
+    private final int start;
+    private final int end;
+    private final byte[] faces;
+    private final ElementDto[] elements;
+    private final boolean[] origins;
+    private final boolean[] rotations;
+    // Position and rotation of locators, null for cubes
+    private final float[][] locatorPositions;
+    private final float[][] locatorRotations;
+
+    private LazyElements(String raw, int start, int end, byte[] faces, ElementDto[] elements, boolean[] origins, boolean[] rotations,
+                         float[][] locatorPositions, float[][] locatorRotations) {
+        this.raw = raw;
+        this.start = start;
+        this.end = end;
+        this.faces = faces;
+        this.elements = elements;
+        this.origins = origins;
+        this.rotations = rotations;
+        this.locatorPositions = locatorPositions;
+        this.locatorRotations = locatorRotations;
+    }
+
+    /**
+     * @return The document's elements, or null if the document does not have the expected shape;
+     *         the eager parser then reports what is wrong with it.
+     */
+    static LazyElements scan(String raw) {
+        // Favour load time: the buffer is small either way next to the text it replaces
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            return new Scanner(raw, deflater).document();
+        } catch (Malformed e) {
+            return null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    int size() {
+        return elements.length;
+    }
+
+    /**
+     * @return Element {@code i} with only its UUID, type, {@code from} and {@code to} read, plus the
+     *         name of a locator.
+     */
+    ElementDto get(int i) {
+        return elements[i];
+    }
+
+    /**
+     * @return True if element {@code i} is a locator or null object rather than a cube.
+     */
+    boolean isLocator(int i) {
+        return ModelAst.isLocatorType(elements[i].type);
+    }
+
+    /**
+     * @return The {@code position} of locator {@code i}, or null if it has none.
+     */
+    float[] getLocatorPosition(int i) {
+        return locatorPositions[i];
+    }
+
+    /**
+     * @return The {@code rotation} of locator {@code i}, or null if it has none.
+     */
+    float[] getLocatorRotation(int i) {
+        return locatorRotations[i];
+    }
+
+    boolean hasOrigin(int i) {
+        return origins[i];
+    }
+
+    /**
+     * @return True if element {@code i} has a three-component rotation that is not zero.
+     */
+    boolean isRotated(int i) {
+        return rotations[i];
+    }
+
+    /**
+     * @return True if any element carries a transform that auto-fix would rewrite.
+     */
+    boolean hasElementTransforms() {
+        for (int i = 0; i < elements.length; i++) {
+            if (origins[i] || rotations[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The document with the elements array emptied, for building the rest of the JSON tree.
+     *         Reads straight from the document rather than from a copy.
+     */
+    Reader withoutElements() {
+        return new Elided(raw, start, end);
+    }
+
+    /**
+     * @return A source for the names and faces, holding nothing but their deflated text.
+     */
+    GeometryStore.FaceSource faces() {
+        return new Faces(faces);
+    }
+
+    private static final class Faces implements GeometryStore.FaceSource {
+        private byte[] deflated;
+
+        Faces(byte[] deflated) {
+            this.deflated = deflated;
+        }
+
+        /**
+         * Parses names and faces with a streaming reader; the {@code i}th entry becomes cube
+         * {@code i}.
+         */
+        @Override
+        public void load(GeometryStore.Builder store) {
+            try (JsonReader reader = new JsonReader(new InputStreamReader(
+                    new InflaterInputStream(new ByteArrayInputStream(deflated)), StandardCharsets.UTF_8))) {
+                reader.beginArray();
+                for (int i = 0; reader.hasNext(); i++) {
+                    ElementDto dto = gson.fromJson(reader, ElementDto.class);
+                    store.setName(i, dto.name);
+                    BlockbenchLoader.setFaces(store, i, dto);
+                }
+                reader.endArray();
+            } catch (IOException | JsonParseException | IllegalStateException e) {
+                throw new ModelParseException("Failed to parse element faces", e);
+            }
+            // The store calls this once, under its lock
+            deflated = null;
+        }
+
+        @Override
+        public long estimateFootprint() {
+            byte[] data = deflated;
+            return 16 + (data != null ? 16 + data.length : 0);
+        }
+    }
+
+    /**
+     * The document with {@code [start, end)} read as {@code []}.
+     */
+    private static final class Elided extends Reader {
+        private final String raw;
+        private final int start;
+        private final int end;
+        private final int length;
+        private int pos;
+
+        Elided(String raw, int start, int end) {
+            this.raw = raw;
+            this.start = start;
+            this.end = end;
+            this.length = start + 2 + raw.length() - end;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) {
+            if (pos >= length) {
+                return -1;
+            }
+            int read = 0;
+            while (read < count && pos < length) {
+                if (pos < start) {
+                    int n = Math.min(count - read, start - pos);
+                    raw.getChars(pos, pos + n, buffer, offset + read);
+                    pos += n;
+                    read += n;
+                } else if (pos < start + 2) {
+                    buffer[offset + read++] = pos++ == start ? '[' : ']';
+                } else {
+                    int from = end + pos - start - 2;
+                    int n = Math.min(count - read, raw.length() - from);
+                    raw.getChars(from, from + n, buffer, offset + read);
+                    pos += n;
+                    read += n;
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class Malformed extends RuntimeException {
+        Malformed() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * A character-level reader for the few values the scan needs. Anything unexpected throws
+     * {@link Malformed} rather than guessing.
+     */
+    private static final class Scanner {
+        private final String raw;
+        private final int length;
+        private final Deflater deflater;
+        private int pos;
+
+        Scanner(String raw, Deflater deflater) {
+            this.raw = raw;
+            this.length = raw.length();
+            this.deflater = deflater;
+        }
+
+        LazyElements document() {
+            expect('{');
+            LazyElements found = null;
+            if (peek() != '}') {
+                do {
+                    String key = string();
+                    expect(':');
+                    if (key.equals("elements")) {
+                        if (found != null || peek() != '[') {
+                            throw new Malformed();
+                        }
+                        found = elements();
+                    } else {
+                        skipValue();
+                    }
+                } while (next(','));
+            }
+            expect('}');
+            return found;
+        }
+
+        private LazyElements elements() {
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+            try (Writer out = new OutputStreamWriter(new DeflaterOutputStream(deflated, deflater), StandardCharsets.UTF_8)) {
+                return elements(out, deflated);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Reads the array, writing the names and faces of its cubes to {@code out} as an array of
+         * {@code {"name": ..., "faces": ...}} objects.
+         */
+        private LazyElements elements(Writer out, ByteArrayOutputStream deflated) throws IOException {
+            int begin = pos;
+            expect('[');
+            out.write('[');
+            int cubes = 0;
+            ElementDto[] dtos = new ElementDto[16];
+            boolean[] origins = new boolean[16];
+            boolean[] rotations = new boolean[16];
+            float[][] positions = new float[16][];
+            float[][] angles = new float[16][];
+            int count = 0;
+            if (peek() != ']') {
+                do {
+                    if (count == dtos.length) {
+                        dtos = Arrays.copyOf(dtos, count * 2);
+                        origins = Arrays.copyOf(origins, count * 2);
+                        rotations = Arrays.copyOf(rotations, count * 2);
+                        positions = Arrays.copyOf(positions, count * 2);
+                        angles = Arrays.copyOf(angles, count * 2);
+                    }
+                    ElementDto dto = new ElementDto();
+                    int name = -1;
+                    int nameEnd = -1;
+                    int faces = -1;
+                    int facesEnd = -1;
+                    float[] position = null;
+                    float[] rotation = null;
+                    expect('{');
+                    if (peek() != '}') {
+                        do {
+                            String key = string();
+                            expect(':');
+                            switch (key) {
+                                case "uuid" -> dto.uuid = string();
+                                case "type" -> dto.type = string();
+                                case "from" -> dto.from = floats();
+                                case "to" -> dto.to = floats();
+                                case "position" -> position = floats();
+                                case "origin" -> {
+                                    origins[count] = true;
+                                    skipValue();
+                                }
+                                case "rotation" -> {
+                                    float[] r = floats();
+                                    rotation = r;
+                                    rotations[count] = r.length == 3
+                                            && (Math.abs(r[0]) > 1e-6f || Math.abs(r[1]) > 1e-6f || Math.abs(r[2]) > 1e-6f);
+                                }
+                                case "name" -> {
+                                    // Cube names wait for the faces; only locators need theirs now
+                                    name = pos;
+                                    skipValue();
+                                    nameEnd = pos;
+                                }
+                                case "faces" -> {
+                                    faces = pos;
+                                    skipValue();
+                                    facesEnd = pos;
+                                }
+                                default -> skipValue();
+                            }
+                        } while (next(','));
+                    }
+                    expect('}');
+                    if (ModelAst.isLocatorType(dto.type)) {
+                        origins[count] = false;
+                        rotations[count] = false;
+                        positions[count] = position;
+                        angles[count] = rotation;
+                        if (name >= 0) {
+                            int resume = pos;
+                            pos = name;
+                            dto.name = peek() == '"' ? string() : null;
+                            pos = resume;
+                        }
+                    } else {
+                        out.write(cubes++ == 0 ? "{" : ",{");
+                        if (name >= 0) {
+                            out.write("\"name\":");
+                            out.write(raw, name, nameEnd - name);
+                        }
+                        if (faces >= 0) {
+                            out.write(name >= 0 ? ",\"faces\":" : "\"faces\":");
+                            out.write(raw, faces, facesEnd - faces);
+                        }
+                        out.write('}');
+                    }
+                    dtos[count++] = dto;
+                } while (next(','));
+            }
+            expect(']');
+            out.write(']');
+            out.close();
+            return new LazyElements(raw, begin, pos, deflated.toByteArray(), Arrays.copyOf(dtos, count), Arrays.copyOf(origins, count),
+                    Arrays.copyOf(rotations, count), Arrays.copyOf(positions, count), Arrays.copyOf(angles, count));
+        }
+
+        private char peek() {
+            skipWhitespace();
+            if (pos >= length) {
+                throw new Malformed();
+            }
+            return raw.charAt(pos);
+        }
+
+        private void expect(char c) {
+            if (peek() != c) {
+                throw new Malformed();
+            }
+            pos++;
+        }
+
+        private boolean next(char c) {
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (pos < length) {
+                char c = raw.charAt(pos);
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private String string() {
+            expect('"');
+            int begin = pos;
+            while (pos < length) {
+                char c = raw.charAt(pos);
+                if (c == '"') {
+                    return raw.substring(begin, pos++);
+                }
+                if (c == '\\') {
+                    // Rare in keys and UUIDs: let Gson decode the escapes
+                    pos = begin - 1;
+                    int stop = skipString();
+                    return gson.fromJson(raw.substring(begin - 1, stop), String.class);
+                }
+                pos++;
+            }
+            throw new Malformed();
+        }
+
+        /**
+         * Skips a string starting at its opening quote.
+         *
+         * @return The index after its closing quote.
+         */
+        private int skipString() {
+            pos++;
+            while (pos < length) {
+                char c = raw.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == '"') {
+                    return pos;
+                }
+            }
+            throw new Malformed();
+        }
+
+        /**
+         * Reads an array of numbers the way Gson reads a {@code float[]}.
+         */
+        private float[] floats() {
+            expect('[');
+            float[] values = new float[3];
+            int count = 0;
+            if (peek() != ']') {
+                do {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count * 2);
+                    }
+                    values[count++] = number();
+                } while (next(','));
+            }
+            expect(']');
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        private float number() {
+            skipWhitespace();
+            int begin = pos;
+            while (pos < length && isNumberChar(raw.charAt(pos))) {
+                pos++;
+            }
+            try {
+                return (float) Double.parseDouble(raw.substring(begin, pos));
+            } catch (NumberFormatException e) {
+                throw new Malformed();
+            }
+        }
+
+        private static boolean isNumberChar(char c) {
+            return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+        }
+
+        /**
+         * Skips any value without recursion: nested containers only move a depth counter.
+         */
+        private void skipValue() {
+            char c = peek();
+            if (c == '"') {
+                skipString();
+                return;
+            }
+            if (c != '{' && c != '[') {
+                while (pos < length) {
+                    c = raw.charAt(pos);
+                    if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                        return;
+                    }
+                    pos++;
+                }
+                return;
+            }
+            int depth = 0;
+            while (pos < length) {
+                c = raw.charAt(pos);
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                pos++;
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw new Malformed();
+        }
+    }
+}
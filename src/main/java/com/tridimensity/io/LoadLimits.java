@@ -0,0 +1,260 @@
+package com.tridimensity.io;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.tridimensity.exception.ModelLimitExceededException;
+import com.tridimensity.exception.ModelLimitExceededException.Limit;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.ModelHierarchy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Enforces the limits of a {@link ParserOptions} over one load.
+ */
+final class LoadLimits {
+    private static final int CHUNK = 1 << 16;
+    // Values read between clock checks while scanning
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final ParserOptions options;
+    private final long start;
+    private final long budgetNanos;
+
+    private LoadLimits(ParserOptions options) {
+        this.options = options;
+        Duration time = options.getMaxParseTime();
+        this.budgetNanos = time != null ? saturatedNanos(time) : Long.MAX_VALUE;
+        this.start = budgetNanos != Long.MAX_VALUE ? System.nanoTime() : 0L;
+    }
+
+    static LoadLimits start(ParserOptions options) {
+        return new LoadLimits(options != null ? options : ParserOptions.strict());
+    }
+
+    /**
+     * Reads the whole stream, failing as soon as it grows past the input limit.
+     */
+    byte[] read(InputStream in) throws IOException {
+        long max = options.getMaxInputBytes();
+        if (max == Long.MAX_VALUE) {
+            return in.readAllBytes();
+        }
+        byte[] buffer = new byte[(int) Math.min(CHUNK, max + 1)];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                if (length > max) {
+                    throw exceeded(Limit.INPUT_BYTES, max, "Input exceeds " + max + " bytes");
+                }
+                long grown = Math.min((long) buffer.length * 2, max + 1);
+                buffer = Arrays.copyOf(buffer, (int) Math.min(grown, Integer.MAX_VALUE - 8));
+            }
+            int n = in.read(buffer, length, buffer.length - length);
+            if (n < 0) {
+                break;
+            }
+            length += n;
+            checkTime();
+        }
+        if (length > max) {
+            throw exceeded(Limit.INPUT_BYTES, max, "Input exceeds " + max + " bytes");
+        }
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Counts elements, faces, outliner groups and nesting with a streaming reader, before the JSON
+     * tree is built. Malformed JSON is left for the real parser to report.
+     */
+    void scan(String raw) {
+        if (!options.hasStructureLimits()) {
+            return;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(raw))) {
+            reader.setLenient(true);
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (name.equals("elements") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    scanElements(reader);
+                } else if (name.equals("outliner") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    scanOutliner(reader);
+                } else {
+                    reader.skipValue();
+                }
+                checkTime();
+            }
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            // Syntax errors are reported by the parser with better context
+        }
+    }
+
+    private void scanElements(JsonReader reader) throws IOException {
+        int maxElements = options.getMaxElements();
+        int maxFaces = options.getMaxFacesPerElement();
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (++count > maxElements) {
+                throw exceeded(Limit.ELEMENTS, maxElements, "Model has more than " + maxElements + " elements");
+            }
+            if (count % TIME_CHECK_INTERVAL == 0) {
+                checkTime();
+            }
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("faces") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    int faces = 0;
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if (++faces > maxFaces) {
+                            throw exceeded(Limit.FACES_PER_ELEMENT, maxFaces,
+                                    "Element " + (count - 1) + " has more than " + maxFaces + " faces");
+                        }
+                        reader.nextName();
+                        reader.skipValue();
+                    }
+                    reader.endObject();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Walks the outliner without recursion: the reader's own stack tracks the open groups, and
+     * {@code depth} counts them.
+     */
+    private void scanOutliner(JsonReader reader) throws IOException {
+        int maxNodes = options.getMaxNodes();
+        int maxDepth = options.getMaxOutlinerDepth();
+        int nodes = 0;
+        int depth = 0;
+        reader.beginArray();
+        while (true) {
+            if (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                if (++nodes > maxNodes) {
+                    throw exceeded(Limit.NODES, maxNodes, "Outliner has more than " + maxNodes + " groups");
+                }
+                if (++depth > maxDepth) {
+                    throw exceeded(Limit.OUTLINER_DEPTH, maxDepth, "Outliner nests deeper than " + maxDepth + " groups");
+                }
+                if (nodes % TIME_CHECK_INTERVAL == 0) {
+                    checkTime();
+                }
+                reader.beginObject();
+                if (!enterChildren(reader)) {
+                    reader.endObject();
+                    depth--;
+                }
+            } else if (depth == 0) {
+                reader.endArray();
+                return;
+            } else {
+                // End of a group's children: skip its remaining fields and close it
+                reader.endArray();
+                while (reader.hasNext()) {
+                    reader.nextName();
+                    reader.skipValue();
+                }
+                reader.endObject();
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Skips group fields up to its children array and opens it.
+     *
+     * @return False if the group has no children array; all of its fields have then been read.
+     */
+    private static boolean enterChildren(JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("children") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * Checks a group as the loader opens it. Unlike the outliner scan, this sees groups reached
+     * through the {@code groups} array, which one reference can expand many times over.
+     *
+     * @param nodes Groups opened so far, this one included.
+     * @param depth Nesting of this group, 1 for a root.
+     */
+    void checkGroup(int nodes, int depth) {
+        int maxNodes = options.getMaxNodes();
+        if (nodes > maxNodes) {
+            throw exceeded(Limit.NODES, maxNodes, "Model has more than " + maxNodes + " nodes");
+        }
+        int maxDepth = options.getMaxOutlinerDepth();
+        if (depth > maxDepth) {
+            throw exceeded(Limit.OUTLINER_DEPTH, maxDepth, "Hierarchy nests deeper than " + maxDepth + " nodes");
+        }
+    }
+
+    /**
+     * Checks the final hierarchy, which includes groups added by auto-fix.
+     */
+    void checkHierarchy(ModelHierarchy hierarchy) {
+        int maxNodes = options.getMaxNodes();
+        int maxDepth = options.getMaxOutlinerDepth();
+        int n = hierarchy.size();
+        if (n > maxNodes) {
+            throw exceeded(Limit.NODES, maxNodes, "Model has " + n + " nodes, more than " + maxNodes);
+        }
+        if (maxDepth == Integer.MAX_VALUE) {
+            return;
+        }
+        // Pre-order: a parent's depth is known before its children's
+        int[] depth = new int[n];
+        for (int i = 0; i < n; i++) {
+            int parent = hierarchy.getParent(i);
+            depth[i] = parent < 0 ? 1 : depth[parent] + 1;
+            if (depth[i] > maxDepth) {
+                throw exceeded(Limit.OUTLINER_DEPTH, maxDepth, "Hierarchy nests deeper than " + maxDepth + " nodes");
+            }
+        }
+    }
+
+    void checkTime() {
+        if (budgetNanos != Long.MAX_VALUE && System.nanoTime() - start > budgetNanos) {
+            throw exceeded(Limit.PARSE_TIME, budgetNanos, "Load took longer than " + options.getMaxParseTime());
+        }
+    }
+
+    private static ModelLimitExceededException exceeded(Limit limit, long maximum, String message) {
+        return new ModelLimitExceededException(limit, maximum, message);
+    }
+
+    private static long saturatedNanos(Duration time) {
+        try {
+            return time.toNanos();
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.tridimensity.io;
+
+import com.tridimensity.metrics.LoadPhase;
+import com.tridimensity.metrics.TridimensityMetrics;
+
+/**
+ * Times the phases of one load for a {@link TridimensityMetrics} listener. Disabled listeners share
+ * one inert instance, so loads without metrics neither allocate nor read the clock.
+ */
+final class LoadTimer {
+    private static final LoadTimer DISABLED = new LoadTimer(TridimensityMetrics.NOOP, 0L);
+
+    private final TridimensityMetrics metrics;
+    private final long start;
+    private long mark;
+
+    private LoadTimer(TridimensityMetrics metrics, long start) {
+        this.metrics = metrics;
+        this.start = start;
+        this.mark = start;
+    }
+
+    static LoadTimer start(TridimensityMetrics metrics) {
+        return metrics.isEnabled() ? new LoadTimer(metrics, System.nanoTime()) : DISABLED;
+    }
+
+    /**
+     * Reports the time since the previous phase ended, or since the load started.
+     */
+    void phase(LoadPhase phase) {
+        if (this == DISABLED) {
+            return;
+        }
+        long now = System.nanoTime();
+        metrics.loadPhase(phase, now - mark);
+        mark = now;
+    }
+
+    void finish(int elements, int nodes, int fixes, long bytes) {
+        if (this == DISABLED) {
+            return;
+        }
+        metrics.modelLoaded(elements, nodes, fixes, bytes, System.nanoTime() - start);
+    }
+}
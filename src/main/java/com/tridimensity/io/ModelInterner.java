@@ -0,0 +1,238 @@
+package com.tridimensity.io;
+
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelLocator;
+import com.tridimensity.model.ModelNode;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Hash-conses cubes and node subtrees across models loaded with
+ * {@link BlockbenchLoader#load(java.io.InputStream, com.tridimensity.io.options.ParserOptions, ModelInterner)}.
+ *
+ * <p>A cube identical to one already loaded (same UUID, name, bounds and faces) is not copied into
+ * the new model's {@link com.tridimensity.model.GeometryStore}; the model references the existing
+ * cube view instead. Likewise a group whose UUID, name, rest transform, cubes and children all match
+ * an earlier group is replaced by that group, so variant models share whole subtrees. Face data is
+ * stored per cube slot, so shared cubes share their faces too.</p>
+ *
+ * <p>Shared cubes cannot change, since a built {@link com.tridimensity.model.GeometryStore} has no
+ * mutators. Nodes still accept children and cubes, so callers must not add any to nodes of
+ * interned models. A load that fails adds nothing to the interner. The interner keeps every model it has seen
+ * reachable, so use one per set of related models and drop it to release them. Thread-safe.</p>
+ */
+public class ModelInterner {
+    // The store slots of one cube (see GeometryStore#estimateFootprint) plus its ModelCube view
+    private static final long CUBE_BYTES = 16 + 4 + 6 * 4 + 2 + 6 * (4 * 4 + 2 + 4) + 24;
+    // ModelNode, its UUID, four Vector3f and two ArrayLists with small backing arrays
+    private static final long NODE_BYTES = 40 + 32 + 4 * 16 + 2 * (24 + 32);
+
+    private final Map<CubeKey, ModelCube> cubes = new HashMap<>();
+    private final Map<NodeKey, ModelNode> nodes = new HashMap<>();
+    private final InternReport report = new InternReport();
+
+    /**
+     * Starts interning one load. Nothing the load adds is visible to other loads, or counted in the
+     * report, until {@link Session#commit}.
+     */
+    Session begin() {
+        return new Session();
+    }
+
+    /**
+     * @return A snapshot of the counts accumulated over every load through this interner.
+     */
+    public synchronized InternReport getReport() {
+        return report.copy();
+    }
+
+    /**
+     * The lookups and additions of one load, kept apart from the interner until the load succeeds,
+     * so a load that fails part way leaves nothing behind. Used by the loading thread only.
+     */
+    final class Session {
+        private final List<CubeKey> cubeKeys = new ArrayList<>();
+        private final List<ModelCube> cubeViews = new ArrayList<>();
+        private final Map<NodeKey, ModelNode> newNodes = new HashMap<>();
+        private final InternReport counts = new InternReport();
+
+        /**
+         * @return The shared cube equal to {@code key}, or null if no loaded model has one.
+         */
+        ModelCube findCube(CubeKey key) {
+            ModelCube cube;
+            synchronized (ModelInterner.this) {
+                cube = cubes.get(key);
+            }
+            if (cube != null) {
+                counts.cubesShared++;
+                counts.bytesSaved += CUBE_BYTES;
+            } else {
+                counts.cubesAdded++;
+            }
+            return cube;
+        }
+
+        /**
+         * Offers cubes of the load's final geometry store to later loads once this session commits.
+         */
+        void addCubes(List<CubeKey> keys, List<ModelCube> views) {
+            cubeKeys.addAll(keys);
+            cubeViews.addAll(views);
+        }
+
+        /**
+         * @return The shared node equal to {@code node}, or {@code node} itself after registering it
+         *         with this session.
+         */
+        ModelNode internNode(ModelNode node) {
+            NodeKey key = new NodeKey(node);
+            ModelNode shared;
+            synchronized (ModelInterner.this) {
+                shared = nodes.get(key);
+            }
+            if (shared == null) {
+                shared = newNodes.putIfAbsent(key, node);
+            }
+            if (shared == null) {
+                counts.nodesAdded++;
+                return node;
+            }
+            counts.nodesShared++;
+            counts.bytesSaved += NODE_BYTES;
+            return shared;
+        }
+
+        /**
+         * Publishes the load's cubes and nodes and adds its counts to the report.
+         */
+        void commit() {
+            synchronized (ModelInterner.this) {
+                for (int i = 0; i < cubeKeys.size(); i++) {
+                    cubes.putIfAbsent(cubeKeys.get(i), cubeViews.get(i));
+                }
+                for (Map.Entry<NodeKey, ModelNode> entry : newNodes.entrySet()) {
+                    nodes.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                report.add(counts);
+            }
+        }
+    }
+
+    /**
+     * Identity of a cube as parsed from the file: UUID, name, bounds and per-face data.
+     */
+    static final class CubeKey {
+        private final UUID uuid;
+        private final String name;
+        private final float[] values; // 6 bounds, then per face: 4 uv, rotation
+        private final String[] textures;
+        private final int faceMask;
+        private final int uvMask;
+        private final int hash;
+
+        CubeKey(UUID uuid, String name, float[] values, String[] textures, int faceMask, int uvMask) {
+            this.uuid = uuid;
+            this.name = name;
+            this.values = values;
+            this.textures = textures;
+            this.faceMask = faceMask;
+            this.uvMask = uvMask;
+            int h = uuid.hashCode();
+            h = 31 * h + Objects.hashCode(name);
+            h = 31 * h + Arrays.hashCode(values);
+            h = 31 * h + Arrays.hashCode(textures);
+            this.hash = 31 * h + faceMask * 64 + uvMask;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CubeKey other)) {
+                return false;
+            }
+            return hash == other.hash && faceMask == other.faceMask && uvMask == other.uvMask
+                    && uuid.equals(other.uuid) && Objects.equals(name, other.name)
+                    && Arrays.equals(values, other.values) && Arrays.equals(textures, other.textures);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Identity of a node whose children and cubes are already interned, so they compare by reference.
+     * Locators are immutable values and compare by equality.
+     */
+    private static final class NodeKey {
+        private final UUID uuid;
+        private final String name;
+        private final float[] rest;
+        private final Object[] parts;
+        private final List<ModelLocator> locators;
+        private final int hash;
+
+        NodeKey(ModelNode node) {
+            this.uuid = node.getUuid();
+            this.name = node.getName();
+            Vector3f o = node.getOrigin();
+            Vector3f t = node.getPosition();
+            Vector3f r = node.getRotation();
+            Vector3f s = node.getScale();
+            this.rest = new float[]{o.x, o.y, o.z, t.x, t.y, t.z, r.x, r.y, r.z, s.x, s.y, s.z};
+            List<ModelCube> cubeList = node.getCubes();
+            List<ModelNode> childList = node.getChildren();
+            this.parts = new Object[cubeList.size() + 1 + childList.size()];
+            int p = 0;
+            for (ModelCube cube : cubeList) {
+                parts[p++] = cube;
+            }
+            parts[p++] = NodeKey.class; // separates cubes from children
+            for (ModelNode child : childList) {
+                parts[p++] = child;
+            }
+            this.locators = node.getLocators();
+            int h = uuid.hashCode();
+            h = 31 * h + Objects.hashCode(name);
+            h = 31 * h + Arrays.hashCode(rest);
+            h = 31 * h + locators.hashCode();
+            for (Object part : parts) {
+                h = 31 * h + System.identityHashCode(part);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof NodeKey other) || hash != other.hash || parts.length != other.parts.length) {
+                return false;
+            }
+            for (int i = 0; i < parts.length; i++) {
+                if (parts[i] != other.parts[i]) {
+                    return false;
+                }
+            }
+            return uuid.equals(other.uuid) && Objects.equals(name, other.name) && Arrays.equals(rest, other.rest)
+                    && locators.equals(other.locators);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.tridimensity.io;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonicalises embedded texture data URLs across loads, so models that embed the same image keep
+ * one copy of its base64 text between them instead of one each. Entries are weak: a source is
+ * dropped once no loaded model holds it.
+ */
+final class TextureSources {
+    private static final Map<String, WeakReference<String>> CANONICAL = new WeakHashMap<>();
+
+    private TextureSources() {
+    }
+
+    /**
+     * @return The copy of {@code source} already held by a loaded model, or {@code source} itself.
+     *         Anything but a data URL is returned as is.
+     */
+    static String canonical(String source) {
+        if (source == null || !source.startsWith("data:")) {
+            return source;
+        }
+        synchronized (CANONICAL) {
+            WeakReference<String> existing = CANONICAL.get(source);
+            String shared = existing != null ? existing.get() : null;
+            if (shared != null) {
+                return shared;
+            }
+            CANONICAL.put(source, new WeakReference<>(source));
+            return source;
+        }
+    }
+}
@@ -5,10 +5,19 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.tridimensity.exception.ModelParseException;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 public class ModelAst {
     private final JsonObject root;
     private final String raw;
 
+    // Outliner walk stack, reused between walks
+    private JsonArray[] walkArrays = new JsonArray[16];
+    private JsonObject[] walkGroups = new JsonObject[16];
+    private int[] walkNext = new int[16];
+
     public ModelAst(JsonObject root, String raw) {
         this.root = root;
         this.raw = raw;
@@ -26,6 +35,19 @@ public class ModelAst {
         return root.getAsJsonArray("outliner");
     }
 
+    /**
+     * @return True for locators and null objects. They share the elements array with cubes, but their
+     *         rotation is their own orientation rather than an element transform.
+     */
+    public static boolean isLocator(JsonObject element) {
+        JsonElement type = element.get("type");
+        return type != null && type.isJsonPrimitive() && isLocatorType(type.getAsString());
+    }
+
+    public static boolean isLocatorType(String type) {
+        return "locator".equals(type) || "null_object".equals(type);
+    }
+
     public static boolean hasNonZeroRotation(JsonObject obj) {
         if (!obj.has("rotation")) return false;
         JsonArray arr = obj.getAsJsonArray("rotation");
@@ -92,34 +114,127 @@ public class ModelAst {
         return line;
     }
 
+    /**
+     * @return The group whose children reference the element, or null if it is referenced at the
+     * outliner root or not at all.
+     */
     public JsonObject findParentGroupForElementUuid(String uuid) {
-        for (JsonElement nodeEl : outliner()) {
-            JsonObject found = findParentInGroup(nodeEl.getAsJsonObject(), uuid);
-            if (found != null) return found;
+        JsonObject[] parent = new JsonObject[1];
+        walkReferences((children, index, group, id) -> {
+            if (!uuid.equals(id)) {
+                return false;
+            }
+            parent[0] = group;
+            return true;
+        });
+        return parent[0];
+    }
+
+    /**
+     * Indexes every element reference in the outliner in one pass. Only the first reference to
+     * each UUID is kept.
+     */
+    public Map<String, ElementReference> indexElementReferences() {
+        Map<String, ElementReference> references = new HashMap<>();
+        walkReferences((children, index, group, id) -> {
+            references.putIfAbsent(id, new ElementReference(children, index, group));
+            return false;
+        });
+        return references;
+    }
+
+    /**
+     * Visits the outliner's element references in document order. Open children arrays are kept on
+     * a stack owned by this AST, so any depth is walked without recursion or per-level allocation.
+     */
+    private void walkReferences(ReferenceVisitor visitor) {
+        JsonArray outliner = outliner();
+        if (outliner == null) {
+            return;
         }
-        return null;
-    }
-
-    private JsonObject findParentInGroup(JsonObject group, String uuid) {
-        if (!group.has("children")) return null;
-        JsonArray children = group.getAsJsonArray("children");
-        for (JsonElement child : children) {
-            if (child.isJsonPrimitive() && child.getAsJsonPrimitive().isString()) {
-                String id = child.getAsString();
-                if (uuid.equals(id)) return group;
-            } else if (child.isJsonObject()) {
-                JsonObject nested = child.getAsJsonObject();
-                JsonObject found = findParentInGroup(nested, uuid);
-                if (found != null) return found;
+        int depth = pushWalk(0, outliner, null);
+        try {
+            while (depth > 0) {
+                int top = depth - 1;
+                JsonArray children = walkArrays[top];
+                if (walkNext[top] == children.size()) {
+                    walkArrays[top] = null;
+                    walkGroups[top] = null;
+                    depth--;
+                    continue;
+                }
+                int index = walkNext[top]++;
+                JsonElement child = children.get(index);
+                if (child.isJsonPrimitive() && child.getAsJsonPrimitive().isString()) {
+                    if (visitor.visit(children, index, walkGroups[top], child.getAsString())) {
+                        return;
+                    }
+                } else if (child.isJsonObject()) {
+                    JsonObject group = child.getAsJsonObject();
+                    JsonElement nested = group.get("children");
+                    if (nested != null && nested.isJsonArray()) {
+                        depth = pushWalk(depth, nested.getAsJsonArray(), group);
+                    }
+                }
             }
+        } finally {
+            Arrays.fill(walkArrays, 0, depth, null);
+            Arrays.fill(walkGroups, 0, depth, null);
+        }
+    }
+
+    private int pushWalk(int depth, JsonArray children, JsonObject group) {
+        if (depth == walkArrays.length) {
+            walkArrays = Arrays.copyOf(walkArrays, depth * 2);
+            walkGroups = Arrays.copyOf(walkGroups, depth * 2);
+            walkNext = Arrays.copyOf(walkNext, depth * 2);
+        }
+        walkArrays[depth] = children;
+        walkGroups[depth] = group;
+        walkNext[depth] = 0;
+        return depth + 1;
+    }
+
+    private interface ReferenceVisitor {
+        /**
+         * @return True to stop the walk.
+         */
+        boolean visit(JsonArray children, int index, JsonObject group, String uuid);
+    }
+
+    /**
+     * A slot in an outliner children array that holds an element UUID.
+     */
+    public static final class ElementReference {
+        private final JsonArray children;
+        private final int index;
+        private final JsonObject group;
+
+        private ElementReference(JsonArray children, int index, JsonObject group) {
+            this.children = children;
+            this.index = index;
+            this.group = group;
+        }
+
+        /**
+         * @return The group holding the reference, or null at the outliner root.
+         */
+        public JsonObject getGroup() {
+            return group;
+        }
+
+        /**
+         * Replaces the reference in place; other references stay valid.
+         */
+        public void replace(JsonElement replacement) {
+            children.set(index, replacement);
         }
-        return null;
     }
 
     public void validateNoElementRotations() {
         for (JsonElement el : elements()) {
             JsonObject obj = el.getAsJsonObject();
-            if (hasNonZeroRotation(obj)) {
+            if (!isLocator(obj) && hasNonZeroRotation(obj)) {
                 String uuid = obj.has("uuid") ? obj.get("uuid").getAsString() : null;
                 int line = uuid != null ? lineOfUuid(uuid) : -1;
                 throw new ModelParseException("Element-level transforms are not supported; auto-fix failed", line, uuid != null ? "/elements/" + uuid : null);
@@ -5,6 +5,7 @@ import java.util.Map;
 public class ElementDto {
     public String name;
     public String uuid;
+    public String type;
     public float[] from;
     public float[] to;
     public Map<String, FaceDto> faces;
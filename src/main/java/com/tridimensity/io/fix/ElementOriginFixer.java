@@ -4,18 +4,26 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import com.tridimensity.io.ast.ModelAst;
+import com.tridimensity.jfr.AutoFixEvent;
 
 public class ElementOriginFixer implements ModelAutoFixer {
     @Override
     public void apply(ModelAst model, FixReport report) {
+        AutoFixEvent event = new AutoFixEvent();
+        event.begin();
+        int fixes = 0;
         for (JsonElement el : model.elements()) {
             JsonObject elem = el.getAsJsonObject();
+            if (ModelAst.isLocator(elem)) {
+                continue;
+            }
             boolean hasOrigin = elem.has("origin");
             boolean hasRot = ModelAst.hasNonZeroRotation(elem);
 
             if (hasOrigin && !hasRot) {
                 elem.remove("origin");
                 report.warn(String.format("Auto-fix: removed element origin from '%s' (rotation is zero)", model.elementName(elem)));
+                fixes++;
                 continue;
             }
 
@@ -23,5 +31,6 @@ public class ElementOriginFixer implements ModelAutoFixer {
                 // Do not move origin to group; leave it for ElementRotationFixer to consume/remove
             }
         }
+        event.complete(getClass().getSimpleName(), model.elements().size(), fixes);
     }
 }
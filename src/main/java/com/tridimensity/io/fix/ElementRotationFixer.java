@@ -5,15 +5,22 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.tridimensity.exception.ModelParseException;
 import com.tridimensity.io.ast.ModelAst;
+import com.tridimensity.jfr.AutoFixEvent;
 import org.joml.Vector3f;
 
+import java.util.Map;
+
 public class ElementRotationFixer implements ModelAutoFixer {
     
     @Override
     public void apply(ModelAst model, FixReport report) {
+        AutoFixEvent event = new AutoFixEvent();
+        event.begin();
+        int fixes = 0;
+        Map<String, ModelAst.ElementReference> references = null;
         for (JsonElement el : model.elements()) {
             JsonObject elem = el.getAsJsonObject();
-            if (!ModelAst.hasNonZeroRotation(elem)) {
+            if (ModelAst.isLocator(elem) || !ModelAst.hasNonZeroRotation(elem)) {
                 continue;
             }
 
@@ -24,7 +31,13 @@ public class ElementRotationFixer implements ModelAutoFixer {
             float ry = eRot[1];
             float rz = eRot[2];
 
-            Vector3f pivot = readPivot(elem, model, uuid);
+            if (references == null) {
+                // One outliner walk serves every rotated element; replacing a reference leaves the others valid
+                references = model.indexElementReferences();
+            }
+            ModelAst.ElementReference reference = uuid != null ? references.get(uuid) : null;
+
+            Vector3f pivot = readPivot(elem, model, uuid, reference);
 
             // Build wrapper group that will hold the rotation and pivot
             JsonObject wrapper = new JsonObject();
@@ -48,8 +61,7 @@ public class ElementRotationFixer implements ModelAutoFixer {
             wrapper.add("children", childrenArr);
 
             // Insert wrapper replacing the element UUID in its parent children list
-            boolean replaced = replaceElementReferenceWithGroup(model, uuid, wrapper);
-            if (!replaced) {
+            if (reference == null) {
                 int line = uuid != null ? model.lineOfUuid(uuid) : -1;
                 throw new ModelParseException(
                     "Element-level rotation requires a parent group to wrap the element",
@@ -57,6 +69,7 @@ public class ElementRotationFixer implements ModelAutoFixer {
                     uuid != null ? "/elements/" + uuid : null
                 );
             }
+            reference.replace(wrapper);
 
             // Clear element-level rotation and origin
             ModelAst.writeRotation(elem, new float[]{0f, 0f, 0f});
@@ -68,10 +81,12 @@ public class ElementRotationFixer implements ModelAutoFixer {
                 "Auto-fix: moved element rotation [%.2f, %.2f, %.2f] to a wrapper group for '%s'",
                 rx, ry, rz, model.elementName(elem)
             ));
+            fixes++;
         }
+        event.complete(getClass().getSimpleName(), model.elements().size(), fixes);
     }
 
-    private static Vector3f readPivot(JsonObject elem, ModelAst model, String uuid) {
+    private static Vector3f readPivot(JsonObject elem, ModelAst model, String uuid, ModelAst.ElementReference reference) {
         // Try element's own origin first
         if (elem.has("origin")) {
             JsonArray oa = elem.getAsJsonArray("origin");
@@ -85,7 +100,7 @@ public class ElementRotationFixer implements ModelAutoFixer {
         }
         
         // Fallback to parent group's origin
-        JsonObject parent = uuid != null ? model.findParentGroupForElementUuid(uuid) : null;
+        JsonObject parent = reference != null ? reference.getGroup() : null;
         if (parent != null && parent.has("origin")) {
             JsonArray ga = parent.getAsJsonArray("origin");
             if (ga != null && ga.size() == 3) {
@@ -105,44 +120,4 @@ public class ElementRotationFixer implements ModelAutoFixer {
             uuid != null ? "/elements/" + uuid : null
         );
     }
-
-    private static boolean replaceElementReferenceWithGroup(ModelAst model, String uuid, JsonObject wrapperGroup) {
-        JsonArray outliner = model.outliner();
-        for (int i = 0; i < outliner.size(); i++) {
-            JsonElement node = outliner.get(i);
-            if (node.isJsonPrimitive() && node.getAsJsonPrimitive().isString()) {
-                if (uuid.equals(node.getAsString())) {
-                    outliner.set(i, wrapperGroup);
-                    return true;
-                }
-            } else if (node.isJsonObject()) {
-                JsonObject group = node.getAsJsonObject();
-                if (!group.has("children")) continue;
-                JsonArray children = group.getAsJsonArray("children");
-                for (int j = 0; j < children.size(); j++) {
-                    JsonElement child = children.get(j);
-                    if (child.isJsonPrimitive() && child.getAsJsonPrimitive().isString()) {
-                        if (uuid.equals(child.getAsString())) {
-                            children.set(j, wrapperGroup);
-                            return true;
-                        }
-                    } else if (child.isJsonObject()) {
-                        // Nested groups: continue search in depth
-                        // We avoid deep recursion to keep it simple and efficient
-                        JsonObject nested = child.getAsJsonObject();
-                        if (!nested.has("children")) continue;
-                        JsonArray nestedChildren = nested.getAsJsonArray("children");
-                        for (int k = 0; k < nestedChildren.size(); k++) {
-                            JsonElement nc = nestedChildren.get(k);
-                            if (nc.isJsonPrimitive() && nc.getAsJsonPrimitive().isString() && uuid.equals(nc.getAsString())) {
-                                nestedChildren.set(k, wrapperGroup);
-                                return true;
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        return false;
-    }
 }
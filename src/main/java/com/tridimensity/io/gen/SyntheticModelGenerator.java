@@ -0,0 +1,426 @@
+package com.tridimensity.io.gen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes deterministic, seedable Blockbench {@code .bbmodel} documents for scale and stress testing.
+ *
+ * <p>Groups form a complete tree of {@link #setDepth depth} levels where every group has
+ * {@link #setFanOut fan-out} child groups; elements are dealt round-robin over the groups in
+ * breadth-first order. Every element has six textured faces. A {@link #setRotatedFraction fraction}
+ * of elements carry an element-level rotation and pivot, which only load with auto-fix enabled;
+ * all other output loads in strict mode.</p>
+ *
+ * <p>Output is streamed and every value is derived from the seed and the element or group index, so
+ * memory use does not depend on the model size and multi-hundred-megabyte files can be written. The
+ * same settings always produce the same bytes. Not thread-safe.</p>
+ */
+public class SyntheticModelGenerator {
+    /** Upper bound on the number of groups, to catch depth and fan-out combinations that explode. */
+    public static final int MAX_GROUPS = 1 << 24;
+
+    private static final String[] FACES = {"north", "east", "south", "west", "up", "down"};
+    private static final float[] ELEMENT_ANGLES = {-45f, -22.5f, 22.5f, 45f};
+    private static final int TEXTURE_SIZE = 64;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Rough size of one outliner reference ("uuid",) and of one group's own fields, for target sizes
+    private static final int REFERENCE_BYTES = 39;
+    private static final int GROUP_BYTES = 160;
+
+    /**
+     * How groups appear in the outliner.
+     */
+    public enum GroupStyle {
+        /** Groups carry their name and transform in the outliner, as in older Blockbench files. */
+        INLINE,
+        /** Groups are listed in a top-level {@code groups} array and the outliner references them by UUID. */
+        REFERENCED
+    }
+
+    private long seed;
+    private int elements = 100;
+    private int depth = 3;
+    private int fanOut = 4;
+    private float rotatedFraction;
+    private GroupStyle groupStyle = GroupStyle.INLINE;
+    private long targetSize;
+
+    public SyntheticModelGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Sets the number of elements. Ignored when a {@link #setTargetSize target size} is set.
+     */
+    public SyntheticModelGenerator setElements(int elements) {
+        if (elements < 0) {
+            throw new IllegalArgumentException("Element count must not be negative: " + elements);
+        }
+        this.elements = elements;
+        return this;
+    }
+
+    /**
+     * Sets the number of group levels; 1 gives a single root group.
+     */
+    public SyntheticModelGenerator setDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1: " + depth);
+        }
+        groupCount(depth, fanOut);
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * Sets the number of child groups of every group above the last level; 1 gives a single chain.
+     */
+    public SyntheticModelGenerator setFanOut(int fanOut) {
+        if (fanOut < 1) {
+            throw new IllegalArgumentException("Fan-out must be at least 1: " + fanOut);
+        }
+        groupCount(depth, fanOut);
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of elements, between 0 and 1, that get an element-level rotation.
+     */
+    public SyntheticModelGenerator setRotatedFraction(float fraction) {
+        if (!(fraction >= 0f && fraction <= 1f)) {
+            throw new IllegalArgumentException("Rotated fraction must be between 0 and 1: " + fraction);
+        }
+        this.rotatedFraction = fraction;
+        return this;
+    }
+
+    public SyntheticModelGenerator setGroupStyle(GroupStyle style) {
+        if (style == null) {
+            throw new IllegalArgumentException("Group style must not be null");
+        }
+        this.groupStyle = style;
+        return this;
+    }
+
+    /**
+     * Keeps adding elements until the document is roughly {@code bytes} long, instead of writing a
+     * fixed element count. The result is usually within a few hundred bytes of the target; 0 disables.
+     */
+    public SyntheticModelGenerator setTargetSize(long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("Target size must not be negative: " + bytes);
+        }
+        this.targetSize = bytes;
+        return this;
+    }
+
+    /**
+     * @return The number of groups the current depth and fan-out produce.
+     */
+    public int getGroupCount() {
+        return groupCount(depth, fanOut);
+    }
+
+    /**
+     * Generates the document in memory. Meant for small models; stream large ones with {@link #write(OutputStream)}.
+     */
+    public String generate() {
+        StringWriter out = new StringWriter();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    public SyntheticModelReport write(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            return write(out);
+        }
+    }
+
+    /**
+     * Writes the document as UTF-8. The stream is flushed but not closed.
+     */
+    public SyntheticModelReport write(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        SyntheticModelReport report = write(writer);
+        writer.flush();
+        return report;
+    }
+
+    /**
+     * Writes the document. The writer is flushed but not closed.
+     */
+    public SyntheticModelReport write(Writer writer) throws IOException {
+        int groups = getGroupCount();
+        Emitter out = new Emitter(writer);
+        out.append("{\"meta\":{\"format_version\":\"4.5\",\"model_format\":\"free\",\"box_uv\":false},\"name\":\"synthetic\",")
+                .append("\"resolution\":{\"width\":").append(TEXTURE_SIZE).append(",\"height\":").append(TEXTURE_SIZE).append("},")
+                .append("\"elements\":[");
+
+        // Everything after the elements is roughly proportional to the element and group counts
+        long fixedTail = (long) groups * (GROUP_BYTES + (groupStyle == GroupStyle.REFERENCED ? GROUP_BYTES / 2 : 0)) + 256;
+        float extent = Math.max(16f, 4f * (float) Math.cbrt(targetSize > 0 ? targetSize / 900.0 : elements));
+        int count = 0;
+        int rotated = 0;
+        while (targetSize > 0
+                ? count < Integer.MAX_VALUE && out.written + (long) count * REFERENCE_BYTES + fixedTail < targetSize
+                : count < elements) {
+            if (count > 0) {
+                out.append(',');
+            }
+            if (writeElement(out, count, extent)) {
+                rotated++;
+            }
+            count++;
+        }
+        out.append(']');
+
+        if (groupStyle == GroupStyle.REFERENCED) {
+            out.append(",\"groups\":[");
+            for (int g = 0; g < groups; g++) {
+                if (g > 0) {
+                    out.append(',');
+                }
+                out.append('{');
+                writeGroupFields(out, g, extent);
+                out.append('}');
+            }
+            out.append(']');
+        }
+
+        out.append(",\"outliner\":[");
+        writeOutliner(out, groups, count, extent);
+        out.append("],\"textures\":[{\"name\":\"synthetic.png\",\"id\":\"0\",\"uuid\":\"");
+        uuid(out, 2, 0);
+        out.append("\",\"width\":").append(TEXTURE_SIZE).append(",\"height\":").append(TEXTURE_SIZE)
+                .append(",\"uv_width\":").append(TEXTURE_SIZE).append(",\"uv_height\":").append(TEXTURE_SIZE).append("}]}");
+        out.flush();
+        return new SyntheticModelReport(count, groups, rotated, out.written);
+    }
+
+    /**
+     * @return True if the element was given a rotation.
+     */
+    private boolean writeElement(Emitter out, int e, float extent) throws IOException {
+        long key = (long) e << 8;
+        float sx = 0.5f * (1 + bits(key, 6));
+        float sy = 0.5f * (1 + bits(key + 1, 6));
+        float sz = 0.5f * (1 + bits(key + 2, 6));
+        float x = quarter(unit(key + 3) * extent - extent / 2f);
+        float y = quarter(unit(key + 4) * extent);
+        float z = quarter(unit(key + 5) * extent - extent / 2f);
+        boolean rotate = rotatedFraction > 0f && unit(key + 6) < rotatedFraction;
+
+        out.append("{\"name\":\"cube_").append(e).append("\",\"box_uv\":false,\"from\":[")
+                .number(x).append(',').number(y).append(',').number(z).append("],\"to\":[")
+                .number(x + sx).append(',').number(y + sy).append(',').number(z + sz).append(']');
+        if (rotate) {
+            int axis = bits(key + 7, 3);
+            float angle = ELEMENT_ANGLES[bits(key + 8, ELEMENT_ANGLES.length)];
+            out.append(",\"rotation\":[").number(axis == 0 ? angle : 0f).append(',')
+                    .number(axis == 1 ? angle : 0f).append(',').number(axis == 2 ? angle : 0f)
+                    .append("],\"origin\":[").number(x + sx / 2f).append(',').number(y + sy / 2f).append(',')
+                    .number(z + sz / 2f).append(']');
+        }
+        out.append(",\"faces\":{");
+        for (int f = 0; f < FACES.length; f++) {
+            if (f > 0) {
+                out.append(',');
+            }
+            int w = 1 + bits(key + 16 + f, 8);
+            int h = 1 + bits(key + 24 + f, 8);
+            int u = bits(key + 32 + f, TEXTURE_SIZE - w + 1);
+            int v = bits(key + 40 + f, TEXTURE_SIZE - h + 1);
+            out.append('"').append(FACES[f]).append("\":{\"uv\":[").append(u).append(',').append(v).append(',')
+                    .append(u + w).append(',').append(v + h).append("],\"texture\":0}");
+        }
+        out.append("},\"uuid\":\"");
+        uuid(out, 0, e);
+        out.append("\"}");
+        return rotate;
+    }
+
+    private void writeGroupFields(Emitter out, int g, float extent) throws IOException {
+        long key = ((long) g << 8) | 0x80;
+        out.append("\"name\":\"group_").append(g).append("\",\"origin\":[")
+                .number(quarter(unit(key) * extent - extent / 2f)).append(',')
+                .number(quarter(unit(key + 1) * extent)).append(',')
+                .number(quarter(unit(key + 2) * extent - extent / 2f)).append("],\"rotation\":[")
+                .number(groupAngle(key + 3)).append(',').number(groupAngle(key + 4)).append(',')
+                .number(groupAngle(key + 5)).append("],\"uuid\":\"");
+        uuid(out, 1, g);
+        out.append('"');
+    }
+
+    /**
+     * Writes the group tree depth-first with an explicit stack, so chains thousands of levels deep
+     * do not recurse. Children of group {@code g} are {@code g * fanOut + 1} to {@code g * fanOut + fanOut}.
+     */
+    private void writeOutliner(Emitter out, int groups, int count, float extent) throws IOException {
+        int[] stack = new int[depth];
+        int[] nextChild = new int[depth];
+        int top = 0;
+        stack[0] = 0;
+        openGroup(out, 0, groups, count, extent);
+        while (top >= 0) {
+            int g = stack[top];
+            int k = nextChild[top];
+            long child = (long) g * fanOut + 1 + k;
+            if (k < fanOut && child < groups) {
+                nextChild[top]++;
+                if (k > 0 || g < count) {
+                    out.append(',');
+                }
+                stack[++top] = (int) child;
+                nextChild[top] = 0;
+                openGroup(out, (int) child, groups, count, extent);
+            } else {
+                out.append("]}");
+                top--;
+            }
+        }
+    }
+
+    private void openGroup(Emitter out, int g, int groups, int count, float extent) throws IOException {
+        out.append('{');
+        if (groupStyle == GroupStyle.INLINE) {
+            writeGroupFields(out, g, extent);
+        } else {
+            out.append("\"uuid\":\"");
+            uuid(out, 1, g);
+            out.append("\",\"isOpen\":false");
+        }
+        out.append(",\"children\":[");
+        for (int e = g; e < count; e += groups) {
+            if (e > g) {
+                out.append(',');
+            }
+            out.append('"');
+            uuid(out, 0, e);
+            out.append('"');
+        }
+    }
+
+    private float groupAngle(long key) {
+        // Half of the groups stay unrotated on each axis; the rest use multiples of 7.5 degrees up to 45
+        int step = bits(key, 26) - 13;
+        return step < -6 || step > 6 ? 0f : step * 7.5f;
+    }
+
+    /**
+     * Writes a version 4 UUID made from the seed, a kind (element, group, texture) and an index.
+     */
+    private void uuid(Emitter out, int kind, int index) throws IOException {
+        long high = mix(seed ^ 0x5DEECE66DL);
+        out.hex(high >>> 32, 8).append('-').hex(high >>> 16, 4).append("-4").hex(high, 3)
+                .append('-').hex(8 | kind, 1).hex(high >>> 52, 3).append('-').hex(index, 12);
+    }
+
+    private static int groupCount(int depth, int fanOut) {
+        long total = 0;
+        long level = 1;
+        for (int d = 0; d < depth; d++) {
+            total += level;
+            if (total > MAX_GROUPS) {
+                throw new IllegalArgumentException("Depth " + depth + " with fan-out " + fanOut + " exceeds " + MAX_GROUPS + " groups");
+            }
+            level *= fanOut;
+        }
+        return (int) total;
+    }
+
+    private float unit(long key) {
+        return (mix(seed + key * 0x9E3779B97F4A7C15L) >>> 40) * 0x1.0p-24f;
+    }
+
+    private int bits(long key, int bound) {
+        return (int) ((mix(seed + key * 0x9E3779B97F4A7C15L) >>> 33) % bound);
+    }
+
+    private static float quarter(float value) {
+        return Math.round(value * 4f) / 4f;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB93FE1A85EC9L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Buffers ASCII output and counts it.
+     */
+    private static final class Emitter {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        private final Writer writer;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int pos;
+        long written;
+
+        Emitter(Writer writer) {
+            this.writer = writer;
+        }
+
+        Emitter append(char c) throws IOException {
+            if (pos == buffer.length) {
+                drain();
+            }
+            buffer[pos++] = c;
+            written++;
+            return this;
+        }
+
+        Emitter append(String s) throws IOException {
+            for (int i = 0, n = s.length(); i < n; i++) {
+                append(s.charAt(i));
+            }
+            return this;
+        }
+
+        Emitter append(int value) throws IOException {
+            return append(Integer.toString(value));
+        }
+
+        /**
+         * Writes whole numbers without a fraction, others in Java's shortest round-tripping form.
+         */
+        Emitter number(float value) throws IOException {
+            if (value == (int) value) {
+                return append((int) value);
+            }
+            return append(Float.toString(value));
+        }
+
+        Emitter hex(long value, int digits) throws IOException {
+            for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+                append(HEX[(int) (value >>> shift) & 0xF]);
+            }
+            return this;
+        }
+
+        void flush() throws IOException {
+            drain();
+            writer.flush();
+        }
+
+        private void drain() throws IOException {
+            writer.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.tridimensity.io.gen;
+
+/**
+ * What a {@link SyntheticModelGenerator} run wrote.
+ */
+public class SyntheticModelReport {
+    private final int elements;
+    private final int groups;
+    private final int rotatedElements;
+    private final long bytes;
+
+    SyntheticModelReport(int elements, int groups, int rotatedElements, long bytes) {
+        this.elements = elements;
+        this.groups = groups;
+        this.rotatedElements = rotatedElements;
+        this.bytes = bytes;
+    }
+
+    public int getElements() {
+        return elements;
+    }
+
+    public int getGroups() {
+        return groups;
+    }
+
+    /**
+     * @return The number of elements written with an element-level rotation.
+     */
+    public int getRotatedElements() {
+        return rotatedElements;
+    }
+
+    /**
+     * @return The document length in bytes.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "SyntheticModelReport{" +
+                "elements=" + elements +
+                ", groups=" + groups +
+                ", rotatedElements=" + rotatedElements +
+                ", bytes=" + bytes +
+                '}';
+    }
+}
@@ -1,18 +1,193 @@
 package com.tridimensity.io.options;
 
+import java.time.Duration;
+
+/**
+ * Settings for {@link com.tridimensity.io.BlockbenchLoader}. Immutable.
+ *
+ * <p>Limits protect servers that load untrusted files. Each one is checked as early as possible: the
+ * input size while reading the stream, the element, face, node and depth limits in a streaming scan
+ * before the JSON tree is built, and the parse time throughout the load. Exceeding a limit throws
+ * {@link com.tridimensity.exception.ModelLimitExceededException}. Limits default to unlimited.</p>
+ */
 public class ParserOptions {
     private final boolean autoFixTransforms;
+    private final boolean lazyGeometry;
+    private final long maxInputBytes;
+    private final int maxElements;
+    private final int maxNodes;
+    private final int maxOutlinerDepth;
+    private final int maxFacesPerElement;
+    private final Duration maxParseTime;
 
     public ParserOptions(boolean autoFixTransforms) {
-        this.autoFixTransforms = autoFixTransforms;
+        this(new Builder().autoFixTransforms(autoFixTransforms));
+    }
+
+    private ParserOptions(Builder builder) {
+        this.autoFixTransforms = builder.autoFixTransforms;
+        this.lazyGeometry = builder.lazyGeometry;
+        this.maxInputBytes = builder.maxInputBytes;
+        this.maxElements = builder.maxElements;
+        this.maxNodes = builder.maxNodes;
+        this.maxOutlinerDepth = builder.maxOutlinerDepth;
+        this.maxFacesPerElement = builder.maxFacesPerElement;
+        this.maxParseTime = builder.maxParseTime;
     }
 
     public static ParserOptions strict() {
         return new ParserOptions(false);
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return A builder starting from these options.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder().autoFixTransforms(autoFixTransforms).lazyGeometry(lazyGeometry);
+        builder.maxInputBytes = maxInputBytes;
+        builder.maxElements = maxElements;
+        builder.maxNodes = maxNodes;
+        builder.maxOutlinerDepth = maxOutlinerDepth;
+        builder.maxFacesPerElement = maxFacesPerElement;
+        builder.maxParseTime = maxParseTime;
+        return builder;
+    }
+
     public boolean isAutoFixTransforms() {
         return autoFixTransforms;
     }
-}
 
+    /**
+     * @return True if cube names and faces are parsed on first access rather than during the load.
+     * @see Builder#lazyGeometry(boolean)
+     */
+    public boolean isLazyGeometry() {
+        return lazyGeometry;
+    }
+
+    public long getMaxInputBytes() {
+        return maxInputBytes;
+    }
+
+    public int getMaxElements() {
+        return maxElements;
+    }
+
+    /**
+     * @return The maximum number of outliner groups, counting wrapper groups added by auto-fix.
+     */
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+
+    /**
+     * @return The maximum nesting of outliner groups; a root group has depth 1.
+     */
+    public int getMaxOutlinerDepth() {
+        return maxOutlinerDepth;
+    }
+
+    public int getMaxFacesPerElement() {
+        return maxFacesPerElement;
+    }
+
+    /**
+     * @return The wall-time budget for one load, or null if unlimited.
+     */
+    public Duration getMaxParseTime() {
+        return maxParseTime;
+    }
+
+    /**
+     * @return True if any element, face, node or depth limit is set.
+     */
+    public boolean hasStructureLimits() {
+        return maxElements != Integer.MAX_VALUE || maxNodes != Integer.MAX_VALUE
+                || maxOutlinerDepth != Integer.MAX_VALUE || maxFacesPerElement != Integer.MAX_VALUE;
+    }
+
+    public static class Builder {
+        private boolean autoFixTransforms;
+        private boolean lazyGeometry;
+        private long maxInputBytes = Long.MAX_VALUE;
+        private int maxElements = Integer.MAX_VALUE;
+        private int maxNodes = Integer.MAX_VALUE;
+        private int maxOutlinerDepth = Integer.MAX_VALUE;
+        private int maxFacesPerElement = Integer.MAX_VALUE;
+        private Duration maxParseTime;
+
+        private Builder() {
+        }
+
+        public Builder autoFixTransforms(boolean autoFixTransforms) {
+            this.autoFixTransforms = autoFixTransforms;
+            return this;
+        }
+
+        /**
+         * Loads the hierarchy, group transforms and cube bounds eagerly, but keeps only the source
+         * text of the {@code elements} array for cube names and faces. They are parsed the first
+         * time any of them is read, so code that needs just nodes, pivots and bounds never pays
+         * for them.
+         *
+         * <p>Malformed face data is then reported on first access instead of by the load. Lazily
+         * loaded cubes are not shared through a {@link com.tridimensity.io.ModelInterner}. When
+         * auto-fix has element transforms to rewrite, the model is loaded eagerly.</p>
+         */
+        public Builder lazyGeometry(boolean lazyGeometry) {
+            this.lazyGeometry = lazyGeometry;
+            return this;
+        }
+
+        public Builder maxInputBytes(long bytes) {
+            this.maxInputBytes = positive(bytes, "maxInputBytes");
+            return this;
+        }
+
+        public Builder maxElements(int elements) {
+            this.maxElements = (int) positive(elements, "maxElements");
+            return this;
+        }
+
+        public Builder maxNodes(int nodes) {
+            this.maxNodes = (int) positive(nodes, "maxNodes");
+            return this;
+        }
+
+        public Builder maxOutlinerDepth(int depth) {
+            this.maxOutlinerDepth = (int) positive(depth, "maxOutlinerDepth");
+            return this;
+        }
+
+        public Builder maxFacesPerElement(int faces) {
+            this.maxFacesPerElement = (int) positive(faces, "maxFacesPerElement");
+            return this;
+        }
+
+        /**
+         * @param time The budget, or null for none.
+         */
+        public Builder maxParseTime(Duration time) {
+            if (time != null && (time.isNegative() || time.isZero())) {
+                throw new IllegalArgumentException("maxParseTime must be positive: " + time);
+            }
+            this.maxParseTime = time;
+            return this;
+        }
+
+        public ParserOptions build() {
+            return new ParserOptions(this);
+        }
+
+        private static long positive(long value, String name) {
+            if (value <= 0) {
+                throw new IllegalArgumentException(name + " must be positive: " + value);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.tridimensity.io.reload;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelDiff;
+import com.tridimensity.model.ModelInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches model files and moves live {@link ModelInstance}s onto new versions as the files change.
+ *
+ * <p>A watcher thread turns file events into reload requests. Requests for the same file are
+ * debounced: each one restarts the quiet period, so a burst of writes results in one re-parse.
+ * Parsing and diffing against the model in use happen on a background thread; a failed parse is
+ * logged and the previous model stays in use.</p>
+ *
+ * <p>Instances are patched by {@link #applyPending()} with {@link ModelInstance#rebind(ModelDiff)},
+ * keeping the pose of every node that still exists. {@link #track}, {@link #untrack} and
+ * {@link #applyPending()} must be called from the thread that owns the instances.</p>
+ */
+public class ModelReloader implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ModelReloader.class);
+
+    private final long debounceNanos;
+    private final ParserOptions options;
+    private final WatchService watcher;
+    private final ScheduledExecutorService executor;
+    private final Thread watchThread;
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> directories = new ConcurrentHashMap<>();
+    private final ReloadStats stats = new ReloadStats();
+    private volatile boolean closed;
+
+    public ModelReloader(Duration debounce) throws IOException {
+        this(debounce, ParserOptions.strict());
+    }
+
+    /**
+     * @param debounce Quiet period after the last change before a file is re-parsed.
+     */
+    public ModelReloader(Duration debounce, ParserOptions options) throws IOException {
+        if (debounce.isNegative()) {
+            throw new IllegalArgumentException("Debounce must not be negative: " + debounce);
+        }
+        this.debounceNanos = debounce.toNanos();
+        this.options = options;
+        this.watcher = FileSystems.getDefault().newWatchService();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "tridimensity-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        this.watchThread = new Thread(this::watchLoop, "tridimensity-watch");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+
+    /**
+     * Loads a model file and starts watching it. Watching an already watched file returns its
+     * current model.
+     *
+     * @throws com.tridimensity.exception.ModelParseException If the initial load fails.
+     */
+    public Model watch(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return existing.applied;
+        }
+        Model model = load(key);
+        Path directory = key.getParent();
+        try {
+            directories.computeIfAbsent(directory, d -> {
+                try {
+                    return d.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Entry entry = new Entry(key, model);
+        Entry raced = entries.putIfAbsent(key, entry);
+        return raced != null ? raced.applied : model;
+    }
+
+    /**
+     * @return The model currently applied for a watched file.
+     */
+    public Model getModel(Path file) {
+        return entry(file).applied;
+    }
+
+    /**
+     * Registers an instance to be patched when the file reloads.
+     *
+     * @throws IllegalArgumentException If the instance is not of the file's current model.
+     */
+    public void track(Path file, ModelInstance instance) {
+        Entry entry = entry(file);
+        if (instance.getModel() != entry.applied) {
+            throw new IllegalArgumentException("Instance is not of the current model of " + file);
+        }
+        entry.instances.add(instance);
+    }
+
+    public void untrack(Path file, ModelInstance instance) {
+        entry(file).instances.remove(instance);
+    }
+
+    /**
+     * Schedules a debounced re-parse, as if the file had changed on disk.
+     */
+    public void requestReload(Path file) {
+        request(entry(file));
+    }
+
+    /**
+     * Patches the tracked instances of every file whose new version is ready.
+     *
+     * @return The number of instances patched.
+     */
+    public int applyPending() {
+        int total = 0;
+        for (Entry entry : entries.values()) {
+            Ready ready;
+            synchronized (entry) {
+                ready = entry.ready;
+                entry.ready = null;
+            }
+            if (ready == null) {
+                continue;
+            }
+            // Normally the diff starts from the applied model; recompute if a reload was applied meanwhile
+            ModelDiff diff = ready.diff.getOldModel() == entry.applied
+                    ? ready.diff
+                    : ModelDiff.compute(entry.applied, ready.diff.getNewModel());
+            int patched = 0;
+            for (ModelInstance instance : entry.instances) {
+                instance.rebind(diff);
+                patched++;
+            }
+            entry.applied = diff.getNewModel();
+            stats.recordApply(System.nanoTime() - ready.changedAt, patched);
+            log.info("Reloaded {}: {}, {} instance(s) patched", entry.file, diff, patched);
+            total += patched;
+        }
+        return total;
+    }
+
+    public ReloadStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        executor.shutdownNow();
+        watcher.close();
+        watchThread.interrupt();
+    }
+
+    private Entry entry(Path file) {
+        Entry entry = entries.get(file.toAbsolutePath().normalize());
+        if (entry == null) {
+            throw new IllegalArgumentException("File is not watched: " + file);
+        }
+        return entry;
+    }
+
+    private Model load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return BlockbenchLoader.load(in, options);
+        }
+    }
+
+    private void request(Entry entry) {
+        if (closed) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.pending == null) {
+                entry.firstChange = System.nanoTime();
+            } else {
+                entry.pending.cancel(false);
+            }
+            entry.pending = executor.schedule(() -> reload(entry), debounceNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void reload(Entry entry) {
+        long changedAt;
+        synchronized (entry) {
+            changedAt = entry.firstChange;
+            entry.pending = null;
+        }
+        long start = System.nanoTime();
+        Model model;
+        try {
+            model = load(entry.file);
+        } catch (Exception e) {
+            stats.recordFailure();
+            log.warn("Reload of {} failed, keeping the previous model: {}", entry.file, e.getMessage());
+            return;
+        }
+        ModelDiff diff = ModelDiff.compute(entry.applied, model);
+        stats.recordParse(System.nanoTime() - start);
+        synchronized (entry) {
+            // A newer version supersedes one not yet applied; latency counts from the older change
+            long since = entry.ready != null ? Math.min(entry.ready.changedAt, changedAt) : changedAt;
+            entry.ready = new Ready(diff, since);
+        }
+    }
+
+    private void watchLoop() {
+        while (!closed) {
+            WatchKey key;
+            try {
+                key = watcher.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost: reload everything watched in this directory
+                    for (Entry entry : entries.values()) {
+                        if (entry.file.getParent().equals(directory)) {
+                            request(entry);
+                        }
+                    }
+                    continue;
+                }
+                Entry entry = entries.get(directory.resolve((Path) event.context()));
+                if (entry != null) {
+                    request(entry);
+                }
+            }
+            key.reset();
+        }
+    }
+
+    private static final class Entry {
+        final Path file;
+        final List<ModelInstance> instances = new ArrayList<>();
+        volatile Model applied;
+        // Guarded by this
+        ScheduledFuture<?> pending;
+        long firstChange;
+        Ready ready;
+
+        Entry(Path file, Model model) {
+            this.file = file;
+            this.applied = model;
+        }
+    }
+
+    private static final class Ready {
+        final ModelDiff diff;
+        final long changedAt;
+
+        Ready(ModelDiff diff, long changedAt) {
+            this.diff = diff;
+            this.changedAt = changedAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.tridimensity.io.reload;
+
+/**
+ * Running statistics of a {@link ModelReloader}. Values are updated by the reloader's threads and
+ * may be read from any thread.
+ */
+public final class ReloadStats {
+    private volatile long reloads;
+    private volatile long failures;
+    private volatile long lastParseNanos;
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+    private volatile long totalLatencyNanos;
+    private volatile int lastInstancesPatched;
+    private volatile long instancesPatched;
+
+    synchronized void recordParse(long nanos) {
+        lastParseNanos = nanos;
+    }
+
+    synchronized void recordFailure() {
+        failures++;
+    }
+
+    synchronized void recordApply(long latencyNanos, int patched) {
+        reloads++;
+        lastLatencyNanos = latencyNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        totalLatencyNanos += latencyNanos;
+        lastInstancesPatched = patched;
+        instancesPatched += patched;
+    }
+
+    /**
+     * @return Reloads applied to live instances.
+     */
+    public long getReloads() {
+        return reloads;
+    }
+
+    /**
+     * @return Re-parses that failed; the previous model stayed in use.
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return Time spent parsing and diffing the most recent reload.
+     */
+    public long getLastParseNanos() {
+        return lastParseNanos;
+    }
+
+    /**
+     * @return Time from the first file change of the most recent reload until its instances were patched.
+     */
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos;
+    }
+
+    public synchronized long getMeanLatencyNanos() {
+        return reloads > 0 ? totalLatencyNanos / reloads : 0;
+    }
+
+    public int getLastInstancesPatched() {
+        return lastInstancesPatched;
+    }
+
+    public long getInstancesPatched() {
+        return instancesPatched;
+    }
+
+    @Override
+    public String toString() {
+        return "ReloadStats{" +
+                "reloads=" + reloads +
+                ", failures=" + failures +
+                ", lastLatencyNanos=" + lastLatencyNanos +
+                ", maxLatencyNanos=" + maxLatencyNanos +
+                ", instancesPatched=" + instancesPatched +
+                '}';
+    }
+}
@@ -0,0 +1,35 @@
+package com.tridimensity.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One auto-fixer pass over a model.
+ */
+@Name("com.tridimensity.AutoFix")
+@Label("Auto-Fix")
+@Category({"Tridimensity", "Loading"})
+@Description("An auto-fixer rewrote a model before parsing")
+public final class AutoFixEvent extends Event {
+    @Label("Fixer")
+    String fixer;
+
+    @Label("Elements")
+    @Description("Elements inspected")
+    int elements;
+
+    @Label("Fixes")
+    int fixes;
+
+    public void complete(String fixer, int elements, int fixes) {
+        if (shouldCommit()) {
+            this.fixer = fixer;
+            this.elements = elements;
+            this.fixes = fixes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.tridimensity.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Data dropped from one of the library's caches.
+ */
+@Name("com.tridimensity.CacheEviction")
+@Label("Cache Eviction")
+@Category({"Tridimensity", "Cache"})
+@Description("Entries were removed from a cache")
+@StackTrace(false)
+public final class CacheEvictionEvent extends Event {
+    @Label("Cache")
+    String cache;
+
+    @Label("Reason")
+    String reason;
+
+    @Label("Key")
+    @Description("Key of the evicted entry, if a single entry was evicted")
+    String key;
+
+    @Label("Entries")
+    int entries;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Commits an instant event if enabled.
+     */
+    public static void emit(String cache, String reason, String key, int entries, long bytes) {
+        CacheEvictionEvent event = new CacheEvictionEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.reason = reason;
+            event.key = key;
+            event.entries = entries;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+}
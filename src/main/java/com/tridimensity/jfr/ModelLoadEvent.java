@@ -0,0 +1,49 @@
+package com.tridimensity.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One successful {@code BlockbenchLoader.load} call.
+ */
+@Name("com.tridimensity.ModelLoad")
+@Label("Model Load")
+@Category({"Tridimensity", "Loading"})
+@Description("A Blockbench model was read, fixed up and parsed")
+public final class ModelLoadEvent extends Event {
+    @Label("Model Name")
+    @Description("The name stored in the file, if any")
+    String modelName;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Elements")
+    int elements;
+
+    @Label("Nodes")
+    int nodes;
+
+    @Label("Fixes")
+    @Description("Changes made by the auto-fixers")
+    int fixes;
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold.
+     */
+    public void complete(String modelName, long bytes, int elements, int nodes, int fixes) {
+        if (shouldCommit()) {
+            this.modelName = modelName;
+            this.bytes = bytes;
+            this.elements = elements;
+            this.nodes = nodes;
+            this.fixes = fixes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.tridimensity.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A load that failed with a {@code ModelParseException}.
+ */
+@Name("com.tridimensity.ModelValidationFailure")
+@Label("Model Validation Failure")
+@Category({"Tridimensity", "Loading"})
+@Description("A model was rejected by the loader")
+public final class ModelValidationFailureEvent extends Event {
+    @Label("Model Name")
+    String modelName;
+
+    @Label("Message")
+    String message;
+
+    @Label("Line")
+    @Description("Line in the file, or -1 if unknown")
+    int line;
+
+    @Label("Pointer")
+    @Description("JSON pointer to the offending value, if known")
+    String pointer;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    /**
+     * Ends the event, covering the failed load, and commits it if enabled.
+     */
+    public void complete(String modelName, String message, Integer line, String pointer, long bytes) {
+        if (shouldCommit()) {
+            this.modelName = modelName;
+            this.message = message;
+            this.line = line != null ? line : -1;
+            this.pointer = pointer;
+            this.bytes = bytes;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.tridimensity.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * One {@code ModelInstance.updateWorldTransforms()} call that had work to do. Updates run every
+ * tick for every instance, so only those of 1 ms or more are recorded by default and no stack
+ * trace is taken.
+ */
+@Name("com.tridimensity.TransformBatch")
+@Label("Transform Batch")
+@Category({"Tridimensity", "Pose"})
+@Description("World matrices of a model instance were recomputed")
+@Threshold("1 ms")
+@StackTrace(false)
+public final class TransformBatchEvent extends Event {
+    @Label("Nodes")
+    @Description("Nodes in the instance's hierarchy")
+    int nodes;
+
+    @Label("Evaluated")
+    @Description("Nodes whose world matrix was recomputed")
+    int evaluated;
+
+    public void complete(int nodes, int evaluated) {
+        if (shouldCommit()) {
+            this.nodes = nodes;
+            this.evaluated = evaluated;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.tridimensity.mesh;
+
+import com.tridimensity.model.ModelHierarchy;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Triangle mesh produced by {@link MeshBuilder}.
+ *
+ * <p>Vertices are interleaved as {@code px, py, pz, nx, ny, nz, u, v}. Positions are in node space
+ * (blocks, the input space of the node's world matrix), so each node's vertex range can be skinned
+ * with that node's matrix. Buffers are direct, native-order, and positioned at 0 with their limit
+ * at the end of the data.</p>
+ *
+ * <p>A mesh views the pooled buffers of its builder and stays valid until the next build.</p>
+ */
+public final class Mesh {
+    public static final int FLOATS_PER_VERTEX = 8;
+    public static final int VERTEX_STRIDE_BYTES = FLOATS_PER_VERTEX * Float.BYTES;
+
+    private final ModelHierarchy hierarchy;
+    private final FloatBuffer vertices;
+    private final IntBuffer indices;
+    private final int[] ranges; // 4 per node: first vertex, vertex count, first index, index count
+
+    Mesh(ModelHierarchy hierarchy, FloatBuffer vertices, IntBuffer indices, int[] ranges) {
+        this.hierarchy = hierarchy;
+        this.vertices = vertices;
+        this.indices = indices;
+        this.ranges = ranges;
+    }
+
+    public ModelHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    public FloatBuffer getVertices() {
+        return vertices;
+    }
+
+    public IntBuffer getIndices() {
+        return indices;
+    }
+
+    public int getVertexCount() {
+        return vertices.limit() / FLOATS_PER_VERTEX;
+    }
+
+    public int getIndexCount() {
+        return indices.limit();
+    }
+
+    /**
+     * @return The first vertex of the node's cubes, by {@link ModelHierarchy} index.
+     */
+    public int getFirstVertex(int node) {
+        return ranges[node * 4];
+    }
+
+    public int getVertexCount(int node) {
+        return ranges[node * 4 + 1];
+    }
+
+    public int getFirstIndex(int node) {
+        return ranges[node * 4 + 2];
+    }
+
+    public int getIndexCount(int node) {
+        return ranges[node * 4 + 3];
+    }
+}
@@ -0,0 +1,160 @@
+package com.tridimensity.mesh;
+
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.GeometryStore;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Converts the cubes of a {@link Model} into an indexed triangle mesh in direct NIO buffers.
+ *
+ * <p>Every present face becomes one quad (4 vertices, 6 indices, counter-clockwise seen from
+ * outside); missing faces are skipped. Vertices are grouped by hierarchy node so each node owns a
+ * contiguous range. The builder keeps its buffers between builds and only reallocates when a model
+ * needs more room, so rebuilding allocates nothing per vertex. Not thread-safe.</p>
+ */
+public class MeshBuilder {
+    private static final float SCALE_FACTOR = 1.0f / 16.0f;
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    /**
+     * Per face (by ordinal): U axis, U sign, V axis, V sign. U runs left to right and V top to
+     * bottom as seen from outside the cube, matching Blockbench's UV editor.
+     */
+    private static final int[][] UV_AXES = {
+            {0, -1, 1, -1}, // north
+            {2, -1, 1, -1}, // east
+            {0, 1, 1, -1},  // south
+            {2, 1, 1, -1},  // west
+            {0, 1, 2, 1},   // up
+            {0, 1, 2, -1},  // down
+    };
+    // Quad corners in (s, t) = (along U, along V), ordered counter-clockwise from outside
+    private static final int[] CORNER_S = {0, 0, 1, 1};
+    private static final int[] CORNER_T = {0, 1, 1, 0};
+
+    private FloatBuffer vertices;
+    private IntBuffer indices;
+    private float textureWidth = 16f;
+    private float textureHeight = 16f;
+
+    private final float[] min = new float[3];
+    private final float[] max = new float[3];
+    private final float[] uv = new float[4];
+    private final float[] corner = new float[3];
+
+    /**
+     * Sets the texture resolution that UVs are divided by. Defaults to Blockbench's 16x16.
+     */
+    public MeshBuilder setTextureSize(float width, float height) {
+        if (!(width > 0f) || !(height > 0f)) {
+            throw new IllegalArgumentException("Texture size must be positive: " + width + "x" + height);
+        }
+        this.textureWidth = width;
+        this.textureHeight = height;
+        return this;
+    }
+
+    /**
+     * Builds the mesh of a model into this builder's buffers, replacing the previous mesh.
+     */
+    public Mesh build(Model model) {
+        ModelHierarchy hierarchy = model.getHierarchy();
+        int n = hierarchy.size();
+
+        int faces = 0;
+        for (int i = 0; i < n; i++) {
+            for (ModelCube cube : hierarchy.getNode(i).getCubes()) {
+                faces += Integer.bitCount(cube.getFaceMask());
+            }
+        }
+        ensureCapacity(faces * 4 * Mesh.FLOATS_PER_VERTEX, faces * 6);
+
+        int[] ranges = new int[n * 4];
+        int vertex = 0;
+        int index = 0;
+        for (int i = 0; i < n; i++) {
+            ranges[i * 4] = vertex;
+            ranges[i * 4 + 2] = index;
+            for (ModelCube cube : hierarchy.getNode(i).getCubes()) {
+                GeometryStore store = cube.getGeometry();
+                int c = cube.getGeometryIndex();
+                int mask = store.getFaceMask(c);
+                if (mask == 0) {
+                    continue;
+                }
+                for (int axis = 0; axis < 3; axis++) {
+                    min[axis] = store.getBound(c, axis) * SCALE_FACTOR;
+                    max[axis] = store.getBound(c, axis + 3) * SCALE_FACTOR;
+                }
+                for (FaceDirection face : FACES) {
+                    if ((mask & face.mask()) == 0) {
+                        continue;
+                    }
+                    writeFace(store, c, face, vertex);
+                    vertex += 4;
+                    index += 6;
+                }
+            }
+            ranges[i * 4 + 1] = vertex - ranges[i * 4];
+            ranges[i * 4 + 3] = index - ranges[i * 4 + 2];
+        }
+        vertices.flip();
+        indices.flip();
+        return new Mesh(hierarchy, vertices, indices, ranges);
+    }
+
+    private void writeFace(GeometryStore store, int cube, FaceDirection face, int base) {
+        int[] axes = UV_AXES[face.ordinal()];
+        int normalAxis = face.getAxis();
+        float nx = normalAxis == 0 ? face.getSign() : 0f;
+        float ny = normalAxis == 1 ? face.getSign() : 0f;
+        float nz = normalAxis == 2 ? face.getSign() : 0f;
+        if (!store.getUv(cube, face, uv, 0)) {
+            uv[0] = uv[1] = uv[2] = uv[3] = 0f;
+        }
+        // UV rotation shifts which texture corner lands on which vertex, in 90 degree steps
+        int rotation = Math.floorMod(store.getRotation(cube, face) / 90, 4);
+
+        for (int k = 0; k < 4; k++) {
+            corner[normalAxis] = face.getSign() > 0 ? max[normalAxis] : min[normalAxis];
+            corner[axes[0]] = edge(axes[0], axes[1], CORNER_S[k]);
+            corner[axes[2]] = edge(axes[2], axes[3], CORNER_T[k]);
+            int t = (k + rotation) & 3;
+            float u = uv[0] + (uv[2] - uv[0]) * CORNER_S[t];
+            float v = uv[1] + (uv[3] - uv[1]) * CORNER_T[t];
+            vertices.put(corner[0]).put(corner[1]).put(corner[2])
+                    .put(nx).put(ny).put(nz)
+                    .put(u / textureWidth).put(v / textureHeight);
+        }
+        indices.put(base).put(base + 1).put(base + 2)
+                .put(base).put(base + 2).put(base + 3);
+    }
+
+    /**
+     * @return The coordinate on {@code axis} at parameter 0 or 1 when moving in direction {@code sign}.
+     */
+    private float edge(int axis, int sign, int at) {
+        boolean atMax = (sign > 0) == (at == 1);
+        return atMax ? max[axis] : min[axis];
+    }
+
+    private void ensureCapacity(int floats, int ints) {
+        if (vertices == null || vertices.capacity() < floats) {
+            int capacity = Math.max(floats, vertices != null ? vertices.capacity() * 2 : 0);
+            vertices = ByteBuffer.allocateDirect(capacity * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+        if (indices == null || indices.capacity() < ints) {
+            int capacity = Math.max(ints, indices != null ? indices.capacity() * 2 : 0);
+            indices = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+        vertices.clear();
+        indices.clear();
+    }
+}
@@ -0,0 +1,220 @@
+package com.tridimensity.mesh;
+
+import com.tridimensity.model.ModelInstance;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Transforms each node's vertex range of a {@link Mesh} by that node's world matrix.
+ *
+ * <p>Output uses the mesh's vertex layout: positions go through the full matrix, normals through
+ * its inverse transpose (then renormalized), and UVs are copied. Meshes with more vertices than the
+ * chunk size are split into chunks skinned on a {@link ForkJoinPool}. Chunk tasks are reused for
+ * every mesh, including each new {@link Mesh} a {@link MeshBuilder} returns on rebuild, and only
+ * retargeted when the mesh changes, so skinning allocates nothing once the skinner has seen its
+ * largest mesh.</p>
+ *
+ * <p>One skinner serves one caller at a time.</p>
+ */
+public class MeshSkinner {
+    private static final int M = 16;
+    private static final int V = Mesh.FLOATS_PER_VERTEX;
+
+    private final ForkJoinPool pool;
+    private int chunkSize = 4096;
+
+    // Inputs of the current call, read by the chunk tasks
+    private Mesh mesh;
+    private FloatBuffer source;
+    private float[] world;
+    private FloatBuffer dest;
+
+    // Mesh the first chunkCount chunks are currently laid out for
+    private Mesh chunkedMesh;
+    private Chunk[] chunks = new Chunk[0];
+    private int chunkCount;
+    private final Root root = new Root();
+    private float[] instanceWorld = new float[0];
+
+    public MeshSkinner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MeshSkinner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the number of vertices per parallel task. Meshes no larger than this are skinned on the calling thread.
+     */
+    public void setChunkSize(int vertices) {
+        if (vertices <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + vertices);
+        }
+        this.chunkSize = vertices;
+        this.chunkedMesh = null;
+    }
+
+    /**
+     * Skins a mesh using the instance's current world matrices.
+     */
+    public void skin(Mesh mesh, ModelInstance instance, FloatBuffer dest) {
+        int floats = instance.getHierarchy().size() * M;
+        if (instanceWorld.length < floats) {
+            instanceWorld = new float[floats];
+        }
+        instance.copyWorldTransforms(instanceWorld);
+        skin(mesh, instanceWorld, dest);
+    }
+
+    /**
+     * Skins a mesh.
+     *
+     * @param world Column-major world matrices, 16 floats per node in hierarchy order,
+     *              as written by {@link ModelInstance#copyWorldTransforms(float[])}.
+     * @param dest Receives the transformed vertices from index 0; its limit is set to the end of the data.
+     */
+    public void skin(Mesh mesh, float[] world, FloatBuffer dest) {
+        int floats = mesh.getVertexCount() * V;
+        if (dest.capacity() < floats) {
+            throw new IllegalArgumentException("Destination holds " + dest.capacity() + " floats, mesh needs " + floats);
+        }
+        if (world.length < mesh.getHierarchy().size() * M) {
+            throw new IllegalArgumentException("Expected " + mesh.getHierarchy().size() + " world matrices");
+        }
+        // A smaller mesh skinned into the same buffer last time left the limit short
+        dest.limit(dest.capacity());
+        this.mesh = mesh;
+        this.source = mesh.getVertices();
+        this.world = world;
+        this.dest = dest;
+        try {
+            if (mesh.getVertexCount() <= chunkSize) {
+                skinRange(0, mesh.getVertexCount(), 0);
+            } else {
+                prepareChunks(mesh);
+                root.reinitialize();
+                pool.invoke(root);
+            }
+        } finally {
+            this.mesh = null;
+            this.source = null;
+            this.world = null;
+            this.dest = null;
+        }
+        dest.limit(floats).position(0);
+    }
+
+    private void prepareChunks(Mesh mesh) {
+        if (chunkedMesh == mesh) {
+            return;
+        }
+        int vertices = mesh.getVertexCount();
+        int count = (vertices + chunkSize - 1) / chunkSize;
+        if (chunks.length < count) {
+            Chunk[] grown = Arrays.copyOf(chunks, count);
+            for (int i = chunks.length; i < count; i++) {
+                grown[i] = new Chunk();
+            }
+            chunks = grown;
+        }
+        int node = 0;
+        for (int i = 0; i < count; i++) {
+            int start = i * chunkSize;
+            // First node whose range reaches past the chunk start
+            while (mesh.getFirstVertex(node) + mesh.getVertexCount(node) <= start) {
+                node++;
+            }
+            chunks[i].retarget(start, Math.min(start + chunkSize, vertices), node);
+        }
+        chunkCount = count;
+        chunkedMesh = mesh;
+    }
+
+    private void skinRange(int start, int end, int firstNode) {
+        Mesh m = mesh;
+        int nodes = m.getHierarchy().size();
+        for (int node = firstNode; node < nodes; node++) {
+            int first = m.getFirstVertex(node);
+            if (first >= end) {
+                break;
+            }
+            int from = Math.max(first, start);
+            int to = Math.min(first + m.getVertexCount(node), end);
+            if (from < to) {
+                skinNode(node * M, from, to);
+            }
+        }
+    }
+
+    private void skinNode(int o, int from, int to) {
+        float[] w = world;
+        float m00 = w[o], m01 = w[o + 1], m02 = w[o + 2];
+        float m10 = w[o + 4], m11 = w[o + 5], m12 = w[o + 6];
+        float m20 = w[o + 8], m21 = w[o + 9], m22 = w[o + 10];
+        float m30 = w[o + 12], m31 = w[o + 13], m32 = w[o + 14];
+        // Cofactor matrix of the upper 3x3, row by row: det times the inverse transpose, which maps normals
+        float n00 = m11 * m22 - m21 * m12, n01 = m21 * m02 - m01 * m22, n02 = m01 * m12 - m11 * m02;
+        float n10 = m20 * m12 - m10 * m22, n11 = m00 * m22 - m20 * m02, n12 = m10 * m02 - m00 * m12;
+        float n20 = m10 * m21 - m20 * m11, n21 = m20 * m01 - m00 * m21, n22 = m00 * m11 - m10 * m01;
+        // A mirroring matrix has a negative determinant; flip so normals keep pointing outward
+        float sign = m00 * n00 + m10 * n01 + m20 * n02 < 0f ? -1f : 1f;
+
+        FloatBuffer src = source;
+        FloatBuffer out = dest;
+        for (int v = from; v < to; v++) {
+            int i = v * V;
+            float x = src.get(i), y = src.get(i + 1), z = src.get(i + 2);
+            float nx = src.get(i + 3), ny = src.get(i + 4), nz = src.get(i + 5);
+            out.put(i, m00 * x + m10 * y + m20 * z + m30);
+            out.put(i + 1, m01 * x + m11 * y + m21 * z + m31);
+            out.put(i + 2, m02 * x + m12 * y + m22 * z + m32);
+            float tx = n00 * nx + n01 * ny + n02 * nz;
+            float ty = n10 * nx + n11 * ny + n12 * nz;
+            float tz = n20 * nx + n21 * ny + n22 * nz;
+            float length = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+            float inv = length > 0f ? sign / length : 0f;
+            out.put(i + 3, tx * inv);
+            out.put(i + 4, ty * inv);
+            out.put(i + 5, tz * inv);
+            out.put(i + 6, src.get(i + 6));
+            out.put(i + 7, src.get(i + 7));
+        }
+    }
+
+    private final class Root extends RecursiveAction {
+        @Override
+        protected void compute() {
+            Chunk[] all = chunks;
+            int count = chunkCount;
+            for (int i = count - 1; i > 0; i--) {
+                all[i].reinitialize();
+                all[i].fork();
+            }
+            all[0].compute();
+            for (int i = 1; i < count; i++) {
+                all[i].join();
+            }
+        }
+    }
+
+    private final class Chunk extends RecursiveAction {
+        private int start;
+        private int end;
+        private int firstNode;
+
+        void retarget(int start, int end, int firstNode) {
+            this.start = start;
+            this.end = end;
+            this.firstNode = firstNode;
+        }
+
+        @Override
+        protected void compute() {
+            skinRange(start, end, firstNode);
+        }
+    }
+}
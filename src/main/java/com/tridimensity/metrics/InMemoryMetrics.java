@@ -0,0 +1,99 @@
+package com.tridimensity.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps histograms and totals in memory, for tests and for exporting to dashboards. Thread-safe.
+ */
+public class InMemoryMetrics implements TridimensityMetrics {
+    private final Map<LoadPhase, Histogram> phases = new EnumMap<>(LoadPhase.class);
+    private final Histogram loadNanos = new Histogram();
+    private final Histogram transformNanos = new Histogram();
+    private final Histogram transformNodes = new Histogram();
+    private final LongAdder elements = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder fixes = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public InMemoryMetrics() {
+        for (LoadPhase phase : LoadPhase.values()) {
+            phases.put(phase, new Histogram());
+        }
+    }
+
+    @Override
+    public void loadPhase(LoadPhase phase, long nanos) {
+        phases.get(phase).record(nanos);
+    }
+
+    @Override
+    public void modelLoaded(int elements, int nodes, int fixes, long bytes, long nanos) {
+        loadNanos.record(nanos);
+        this.elements.add(elements);
+        this.nodes.add(nodes);
+        this.fixes.add(fixes);
+        this.bytes.add(bytes);
+    }
+
+    @Override
+    public void transformsEvaluated(int nodes, long nanos) {
+        transformNanos.record(nanos);
+        transformNodes.record(nodes);
+    }
+
+    public Histogram getPhaseNanos(LoadPhase phase) {
+        return phases.get(phase);
+    }
+
+    /**
+     * @return Total load times; its count is the number of models loaded.
+     */
+    public Histogram getLoadNanos() {
+        return loadNanos;
+    }
+
+    /**
+     * @return Durations of transform updates; its count is the number of updates.
+     */
+    public Histogram getTransformNanos() {
+        return transformNanos;
+    }
+
+    /**
+     * @return Nodes recomputed per transform update.
+     */
+    public Histogram getTransformNodes() {
+        return transformNodes;
+    }
+
+    public long getElementsLoaded() {
+        return elements.sum();
+    }
+
+    public long getNodesLoaded() {
+        return nodes.sum();
+    }
+
+    public long getFixesApplied() {
+        return fixes.sum();
+    }
+
+    public long getBytesLoaded() {
+        return bytes.sum();
+    }
+
+    public void reset() {
+        for (Histogram histogram : phases.values()) {
+            histogram.reset();
+        }
+        loadNanos.reset();
+        transformNanos.reset();
+        transformNodes.reset();
+        elements.reset();
+        nodes.reset();
+        fixes.reset();
+        bytes.reset();
+    }
+}
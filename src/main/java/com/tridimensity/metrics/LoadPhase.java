@@ -0,0 +1,19 @@
+package com.tridimensity.metrics;
+
+/**
+ * Stages of {@link com.tridimensity.io.BlockbenchLoader#load}, in the order they run.
+ */
+public enum LoadPhase {
+    /** Reading the stream into a string. */
+    READ,
+    /** Parsing the JSON tree. */
+    JSON_PARSE,
+    /** Wrapping the tree in a {@link com.tridimensity.io.ast.ModelAst}. */
+    AST_BUILD,
+    /** Running the auto-fixers; only reported when auto-fix is enabled. */
+    AUTO_FIX,
+    /** Parsing elements into the geometry store. */
+    ELEMENTS,
+    /** Parsing the outliner and building the hierarchy. */
+    OUTLINER
+}
@@ -0,0 +1,53 @@
+package com.tridimensity.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Holds the process-wide {@link TridimensityMetrics}. Starts with the first implementation found
+ * through {@link ServiceLoader}, or {@link TridimensityMetrics#NOOP} if there is none.
+ */
+public final class MetricsRegistry {
+    private static final Logger log = LoggerFactory.getLogger(MetricsRegistry.class);
+
+    private static volatile TridimensityMetrics current = discover();
+
+    private MetricsRegistry() {
+    }
+
+    public static TridimensityMetrics get() {
+        return current;
+    }
+
+    /**
+     * Installs a listener; pass {@link TridimensityMetrics#NOOP} to stop collecting.
+     *
+     * @return The previously installed listener.
+     */
+    public static TridimensityMetrics set(TridimensityMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("Metrics must not be null; use TridimensityMetrics.NOOP");
+        }
+        TridimensityMetrics previous = current;
+        current = metrics;
+        return previous;
+    }
+
+    private static TridimensityMetrics discover() {
+        try {
+            Iterator<TridimensityMetrics> found = ServiceLoader.load(TridimensityMetrics.class).iterator();
+            if (found.hasNext()) {
+                TridimensityMetrics metrics = found.next();
+                log.info("Using metrics listener {}", metrics.getClass().getName());
+                return metrics;
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("Could not load a metrics listener, metrics are disabled: {}", e.getMessage());
+        }
+        return TridimensityMetrics.NOOP;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tridimensity.metrics;
+
+/**
+ * Receives timings and counts from the loader and the transform engine.
+ *
+ * <p>Install an implementation with {@link MetricsRegistry#set}, or register one as a
+ * {@link java.util.ServiceLoader} service to have it picked up on first use. Callbacks may arrive
+ * from any thread and should return quickly. All methods default to doing nothing, so
+ * implementations only override what they need.</p>
+ */
+public interface TridimensityMetrics {
+
+    /**
+     * Ignores everything. While it is installed no clocks are read and no callbacks are made.
+     */
+    TridimensityMetrics NOOP = new TridimensityMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "TridimensityMetrics.NOOP";
+        }
+    };
+
+    /**
+     * @return False to skip timing entirely. Only {@link #NOOP} should return false.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called once per phase of a load, as the phase completes.
+     */
+    default void loadPhase(LoadPhase phase, long nanos) {
+    }
+
+    /**
+     * Called after a model loaded successfully.
+     *
+     * @param elements Elements in the file.
+     * @param nodes Nodes in the loaded hierarchy.
+     * @param fixes Changes made by the auto-fixers.
+     * @param bytes Size of the document in UTF-8.
+     * @param nanos Total load time.
+     */
+    default void modelLoaded(int elements, int nodes, int fixes, long bytes, long nanos) {
+    }
+
+    /**
+     * Called after every {@code ModelInstance.updateWorldTransforms()} that had work to do.
+     *
+     * @param nodes Nodes whose world matrix was recomputed.
+     */
+    default void transformsEvaluated(int nodes, long nanos) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.tridimensity.model;
+
+/**
+ * The six faces of a cube, in Blockbench order.
+ */
+public enum FaceDirection {
+    NORTH("north", 2, -1),
+    EAST("east", 0, 1),
+    SOUTH("south", 2, 1),
+    WEST("west", 0, -1),
+    UP("up", 1, 1),
+    DOWN("down", 1, -1);
+
+    private static final FaceDirection[] VALUES = values();
+
+    private final String key;
+    private final int axis;
+    private final int sign;
+
+    FaceDirection(String key, int axis, int sign) {
+        this.key = key;
+        this.axis = axis;
+        this.sign = sign;
+    }
+
+    /**
+     * @return The key used for this face in .bbmodel files ("north", "up", ...).
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return The axis of the face normal: 0 = X, 1 = Y, 2 = Z.
+     */
+    public int getAxis() {
+        return axis;
+    }
+
+    /**
+     * @return +1 if the face normal points along the positive axis, -1 otherwise.
+     */
+    public int getSign() {
+        return sign;
+    }
+
+    /**
+     * @return The bit of this face in a face mask.
+     */
+    public int mask() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * @return The face for a .bbmodel key, or null if the key is not one of the six faces.
+     */
+    public static FaceDirection fromKey(String key) {
+        for (FaceDirection face : VALUES) {
+            if (face.key.equals(key)) {
+                return face;
+            }
+        }
+        return null;
+    }
+
+    static FaceDirection of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,624 @@
+package com.tridimensity.model;
+
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact storage for the cubes of a model, laid out as parallel primitive arrays.
+ *
+ * <p>Each cube occupies one index. Its bounds, UUID, present-face bitmask and six fixed face slots
+ * (UV rectangle, UV rotation, texture index) live in shared arrays, and texture names are interned
+ * into a per-store table. {@link ModelCube} and {@link ModelFace} are thin views over an index, so
+ * a loaded model costs a handful of arrays instead of several objects per face.</p>
+ *
+ * <p>Renderers can read the arrays through the index-based accessors without creating views.
+ * A store is filled through a {@link Builder} and has no mutators of its own, so once built it
+ * cannot change, and models may share its cubes.</p>
+ *
+ * <p>A store built with {@link #withDeferredFaces} holds only UUIDs and bounds at first. Names and
+ * faces come from a {@link FaceSource} the first time any of them is read, once for the whole
+ * store and safely from any thread.</p>
+ */
+public final class GeometryStore {
+    static final int FACES = 6;
+    private static final int UV = 4;
+    // Texture lookups scan the table up to this many textures, then switch to a map
+    private static final int LINEAR_TEXTURES = 8;
+
+    private int size;
+    private long[] uuids;        // 2 per cube: most, least significant bits
+    private String[] names;
+    private float[] bounds;      // 6 per cube: from xyz, to xyz (pixels)
+    private byte[] faceMask;     // bit per FaceDirection ordinal
+    private byte[] uvMask;       // faces that carry a UV rectangle
+    private float[] uvs;         // 4 per face slot
+    private short[] rotations;   // per face slot, degrees
+    private int[] textures;      // per face slot, index into textureNames or -1
+
+    private String[] textureNames = new String[2];
+    private int textureCount;
+    private Map<String, Integer> textureIndex;
+
+    // Set while names and faces are deferred; cleared once they are loaded
+    private volatile FaceSource faceSource;
+
+    /**
+     * Supplies the names and faces of a store built with {@link #withDeferredFaces}.
+     */
+    public interface FaceSource {
+        /**
+         * Fills in every cube with {@link Builder#setName} and {@link Builder#setFace}. The builder
+         * only accepts names and faces, and only until this returns. May throw to report bad data;
+         * the load is then retried on the next access.
+         */
+        void load(Builder store);
+
+        /**
+         * @return An estimate of the heap this source holds until the faces are loaded, in bytes.
+         */
+        default long estimateFootprint() {
+            return 0;
+        }
+    }
+
+    GeometryStore(int expectedCubes) {
+        this(expectedCubes, true);
+    }
+
+    private GeometryStore(int expectedCubes, boolean faces) {
+        int capacity = Math.max(expectedCubes, 1);
+        uuids = new long[capacity * 2];
+        bounds = new float[capacity * 6];
+        if (faces) {
+            allocateFaces(capacity);
+        }
+    }
+
+    /**
+     * @return A builder for a new store.
+     */
+    public static Builder builder(int expectedCubes) {
+        return new Builder(new GeometryStore(expectedCubes, true), false);
+    }
+
+    /**
+     * Creates a builder for cubes whose names and faces are loaded later. Add the cubes, then hand
+     * over the rest with {@link Builder#deferFaces}.
+     */
+    public static Builder withDeferredFaces(int expectedCubes) {
+        return new Builder(new GeometryStore(expectedCubes, false), false);
+    }
+
+    void deferFaces(FaceSource source) {
+        if (source == null) {
+            throw new IllegalArgumentException("source must not be null");
+        }
+        if (faceMask != null) {
+            throw new IllegalStateException("Faces are already loaded");
+        }
+        faceSource = source;
+    }
+
+    /**
+     * @return True while names and faces have not been loaded from the store's {@link FaceSource}.
+     */
+    public boolean hasDeferredFaces() {
+        return faceSource != null;
+    }
+
+    private void allocateFaces(int capacity) {
+        names = new String[capacity];
+        faceMask = new byte[capacity];
+        uvMask = new byte[capacity];
+        uvs = new float[capacity * FACES * UV];
+        rotations = new short[capacity * FACES];
+        textures = new int[capacity * FACES];
+        Arrays.fill(textures, -1);
+    }
+
+    private void ensureFaces() {
+        if (faceSource != null) {
+            loadFaces();
+        }
+    }
+
+    private synchronized void loadFaces() {
+        FaceSource source = faceSource;
+        if (source == null) {
+            return;
+        }
+        allocateFaces(Math.max(size, 1));
+        textureNames = new String[2];
+        textureCount = 0;
+        textureIndex = null;
+        Builder faces = new Builder(this, true);
+        try {
+            source.load(faces);
+        } finally {
+            faces.built = true;
+        }
+        textureNames = Arrays.copyOf(textureNames, textureCount);
+        // The volatile write publishes the arrays filled above
+        faceSource = null;
+    }
+
+    /**
+     * Adds a cube without faces.
+     *
+     * @return The index of the new cube.
+     */
+    int add(UUID uuid, String name, float fromX, float fromY, float fromZ, float toX, float toY, float toZ) {
+        if (size == bounds.length / 6) {
+            grow(size * 2);
+        }
+        int i = size++;
+        uuids[i * 2] = uuid.getMostSignificantBits();
+        uuids[i * 2 + 1] = uuid.getLeastSignificantBits();
+        if (names != null) {
+            names[i] = name;
+            faceMask[i] = 0;
+            uvMask[i] = 0;
+            Arrays.fill(rotations, i * FACES, i * FACES + FACES, (short) 0);
+            Arrays.fill(textures, i * FACES, i * FACES + FACES, -1);
+        }
+        setBounds(i, fromX, fromY, fromZ, toX, toY, toZ);
+        return i;
+    }
+
+    /**
+     * Moves a cube's corners, in pixels.
+     */
+    void setBounds(int cube, float fromX, float fromY, float fromZ, float toX, float toY, float toZ) {
+        checkIndex(cube);
+        int b = cube * 6;
+        bounds[b] = fromX;
+        bounds[b + 1] = fromY;
+        bounds[b + 2] = fromZ;
+        bounds[b + 3] = toX;
+        bounds[b + 4] = toY;
+        bounds[b + 5] = toZ;
+    }
+
+    /**
+     * Removes every cube but keeps the capacity and texture table, so a scratch store can be refilled
+     * without allocating.
+     *
+     * @throws IllegalStateException If the store's faces are deferred.
+     */
+    void clear() {
+        if (faceSource != null) {
+            throw new IllegalStateException("Cannot clear a store with deferred faces");
+        }
+        size = 0;
+    }
+
+    /**
+     * Adds a cube with the faces of a {@code ModelCube}-style map. Keys other than the six face
+     * names are ignored.
+     *
+     * @return A view of the new cube.
+     */
+    ModelCube add(UUID uuid, String name, Vector3f from, Vector3f to, Map<String, ModelFace> faces) {
+        return new ModelCube(this, addIndexed(uuid, name, from, to, faces));
+    }
+
+    int addIndexed(UUID uuid, String name, Vector3f from, Vector3f to, Map<String, ModelFace> faces) {
+        int i = add(uuid, name, from.x, from.y, from.z, to.x, to.y, to.z);
+        if (faces != null) {
+            for (Map.Entry<String, ModelFace> entry : faces.entrySet()) {
+                FaceDirection face = FaceDirection.fromKey(entry.getKey());
+                ModelFace f = entry.getValue();
+                if (face != null && f != null) {
+                    setFace(i, face, f.getUv(), f.getTexture(), f.getRotation());
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Copies a cube from any store into this one, translated by an offset in pixels.
+     *
+     * @return A view of the copy.
+     */
+    ModelCube copy(ModelCube cube, float dx, float dy, float dz) {
+        return new ModelCube(this, copy(cube.getGeometry(), cube.getGeometryIndex(), dx, dy, dz));
+    }
+
+    /**
+     * Copies cube {@code cube} of {@code source}, which may be this store, translated by an offset in pixels.
+     *
+     * @return The index of the copy.
+     */
+    int copy(GeometryStore source, int cube, float dx, float dy, float dz) {
+        source.ensureFaces();
+        int b = cube * 6;
+        int i = add(source.getUuid(cube), source.names[cube],
+                source.bounds[b] + dx, source.bounds[b + 1] + dy, source.bounds[b + 2] + dz,
+                source.bounds[b + 3] + dx, source.bounds[b + 4] + dy, source.bounds[b + 5] + dz);
+        int mask = source.faceMask[cube] & 0xFF;
+        for (int f = 0; f < FACES; f++) {
+            if ((mask & (1 << f)) != 0) {
+                copyFace(i, FaceDirection.of(f), source, cube);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Sets a face of {@code cube} to the same face of cube {@code sourceCube} in {@code source}.
+     */
+    void copyFace(int cube, FaceDirection face, GeometryStore source, int sourceCube) {
+        checkIndex(cube);
+        source.ensureFaces();
+        int slot = cube * FACES + face.ordinal();
+        int sourceSlot = sourceCube * FACES + face.ordinal();
+        faceMask[cube] |= (byte) face.mask();
+        if ((source.uvMask[sourceCube] & face.mask()) != 0) {
+            System.arraycopy(source.uvs, sourceSlot * UV, uvs, slot * UV, UV);
+            uvMask[cube] |= (byte) face.mask();
+        } else {
+            uvMask[cube] &= (byte) ~face.mask();
+        }
+        rotations[slot] = source.rotations[sourceSlot];
+        int texture = source.textures[sourceSlot];
+        textures[slot] = source == this ? texture : internTexture(texture >= 0 ? source.textureNames[texture] : null);
+    }
+
+    void setName(int cube, String name) {
+        checkIndex(cube);
+        names[cube] = name;
+    }
+
+    void setFace(int cube, FaceDirection face, float[] uv, String texture, int rotation) {
+        checkIndex(cube);
+        int slot = cube * FACES + face.ordinal();
+        faceMask[cube] |= (byte) face.mask();
+        if (uv != null && uv.length >= UV) {
+            System.arraycopy(uv, 0, uvs, slot * UV, UV);
+            uvMask[cube] |= (byte) face.mask();
+        } else {
+            uvMask[cube] &= (byte) ~face.mask();
+        }
+        rotations[slot] = (short) rotation;
+        textures[slot] = internTexture(texture);
+    }
+
+    private int internTexture(String texture) {
+        if (texture == null) {
+            return -1;
+        }
+        if (textureIndex != null) {
+            Integer existing = textureIndex.get(texture);
+            if (existing != null) {
+                return existing;
+            }
+        } else {
+            for (int t = 0; t < textureCount; t++) {
+                if (textureNames[t].equals(texture)) {
+                    return t;
+                }
+            }
+        }
+        if (textureCount == textureNames.length) {
+            textureNames = Arrays.copyOf(textureNames, Math.max(textureCount * 2, 2));
+        }
+        textureNames[textureCount] = texture;
+        if (textureIndex != null) {
+            textureIndex.put(texture, textureCount);
+        } else if (textureCount == LINEAR_TEXTURES) {
+            textureIndex = new HashMap<>();
+            for (int t = 0; t <= textureCount; t++) {
+                textureIndex.put(textureNames[t], t);
+            }
+        }
+        return textureCount++;
+    }
+
+    /**
+     * Releases spare capacity once the model is complete.
+     */
+    void trimToSize() {
+        if (size < bounds.length / 6) {
+            grow(size);
+        }
+        textureNames = Arrays.copyOf(textureNames, textureCount);
+    }
+
+    private void grow(int capacity) {
+        capacity = Math.max(capacity, 1);
+        uuids = Arrays.copyOf(uuids, capacity * 2);
+        bounds = Arrays.copyOf(bounds, capacity * 6);
+        if (names == null) {
+            return;
+        }
+        names = Arrays.copyOf(names, capacity);
+        faceMask = Arrays.copyOf(faceMask, capacity);
+        uvMask = Arrays.copyOf(uvMask, capacity);
+        uvs = Arrays.copyOf(uvs, capacity * FACES * UV);
+        rotations = Arrays.copyOf(rotations, capacity * FACES);
+        textures = Arrays.copyOf(textures, capacity * FACES);
+    }
+
+    private void checkIndex(int cube) {
+        if (cube < 0 || cube >= size) {
+            throw new IndexOutOfBoundsException("Cube index " + cube + " out of range [0, " + size + ")");
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Index-based access
+    // ----------------------------------------------------------------------------------
+
+    public int getCubeCount() {
+        return size;
+    }
+
+    public ModelCube getCube(int cube) {
+        checkIndex(cube);
+        return new ModelCube(this, cube);
+    }
+
+    public UUID getUuid(int cube) {
+        return new UUID(uuids[cube * 2], uuids[cube * 2 + 1]);
+    }
+
+    public String getName(int cube) {
+        ensureFaces();
+        return names[cube];
+    }
+
+    public Vector3f getFrom(int cube, Vector3f dest) {
+        int b = cube * 6;
+        return dest.set(bounds[b], bounds[b + 1], bounds[b + 2]);
+    }
+
+    public Vector3f getTo(int cube, Vector3f dest) {
+        int b = cube * 6;
+        return dest.set(bounds[b + 3], bounds[b + 4], bounds[b + 5]);
+    }
+
+    /**
+     * @return Bounds component {@code 0..5} (from xyz, to xyz) in pixels.
+     */
+    public float getBound(int cube, int component) {
+        return bounds[cube * 6 + component];
+    }
+
+    /**
+     * @return A bitmask of present faces, one bit per {@link FaceDirection#mask()}.
+     */
+    public int getFaceMask(int cube) {
+        ensureFaces();
+        return faceMask[cube] & 0xFF;
+    }
+
+    public boolean hasFace(int cube, FaceDirection face) {
+        ensureFaces();
+        return (faceMask[cube] & face.mask()) != 0;
+    }
+
+    public boolean hasUv(int cube, FaceDirection face) {
+        ensureFaces();
+        return (uvMask[cube] & face.mask()) != 0;
+    }
+
+    /**
+     * Copies the UV rectangle {@code [u1, v1, u2, v2]} of a face into {@code dest} at {@code offset}.
+     *
+     * @return False if the face has no UV rectangle; {@code dest} is left untouched.
+     */
+    public boolean getUv(int cube, FaceDirection face, float[] dest, int offset) {
+        if (!hasUv(cube, face)) {
+            return false;
+        }
+        System.arraycopy(uvs, (cube * FACES + face.ordinal()) * UV, dest, offset, UV);
+        return true;
+    }
+
+    /**
+     * @return UV component {@code 0..3} ({@code u1, v1, u2, v2}) of a face.
+     */
+    public float getUv(int cube, FaceDirection face, int component) {
+        ensureFaces();
+        return uvs[(cube * FACES + face.ordinal()) * UV + component];
+    }
+
+    public int getRotation(int cube, FaceDirection face) {
+        ensureFaces();
+        return rotations[cube * FACES + face.ordinal()];
+    }
+
+    /**
+     * @return The interned texture index of a face, or -1 if it has none.
+     */
+    public int getTextureIndex(int cube, FaceDirection face) {
+        ensureFaces();
+        return textures[cube * FACES + face.ordinal()];
+    }
+
+    public int getTextureCount() {
+        ensureFaces();
+        return textureCount;
+    }
+
+    public String getTexture(int textureIndex) {
+        ensureFaces();
+        return textureIndex >= 0 ? textureNames[textureIndex] : null;
+    }
+
+    /**
+     * @return An estimate of the heap used by the store's arrays, in bytes, assuming compressed
+     *         references and 16-byte array headers. Texture and cube name strings are not counted;
+     *         while faces are deferred, what their source holds is.
+     */
+    public long estimateFootprint() {
+        long bytes = 0;
+        bytes += 16 + (long) uuids.length * 8;
+        bytes += 16 + (long) bounds.length * 4;
+        FaceSource source = faceSource;
+        if (source != null) {
+            bytes += source.estimateFootprint();
+        }
+        if (names == null) {
+            return bytes;
+        }
+        bytes += 16 + (long) names.length * 4;
+        bytes += 16 + faceMask.length;
+        bytes += 16 + uvMask.length;
+        bytes += 16 + (long) uvs.length * 4;
+        bytes += 16 + (long) rotations.length * 2;
+        bytes += 16 + (long) textures.length * 4;
+        bytes += 16 + (long) textureNames.length * 4;
+        return bytes;
+    }
+
+    /**
+     * Fills a {@link GeometryStore}. Only the code that creates a builder can change its store, and
+     * only until {@link #build}; the store handed out afterwards is read-only.
+     *
+     * <p>The store can be read through {@link #getStore()} while it is filled, which lets a builder
+     * serve as scratch space that is cleared and refilled and never built.</p>
+     */
+    public static final class Builder {
+        private final GeometryStore store;
+        // Builders passed to a FaceSource may only set names and faces
+        private final boolean facesOnly;
+        private boolean built;
+
+        private Builder(GeometryStore store, boolean facesOnly) {
+            this.store = store;
+            this.facesOnly = facesOnly;
+        }
+
+        /**
+         * @return The store being filled. Read it freely, but do not share it before {@link #build}.
+         */
+        public GeometryStore getStore() {
+            return store;
+        }
+
+        /**
+         * Adds a cube without faces.
+         *
+         * @return The index of the new cube.
+         */
+        public int add(UUID uuid, String name, float fromX, float fromY, float fromZ, float toX, float toY, float toZ) {
+            checkCubes();
+            return store.add(uuid, name, fromX, fromY, fromZ, toX, toY, toZ);
+        }
+
+        /**
+         * Adds a cube with the faces of a {@code ModelCube}-style map. Keys other than the six face
+         * names are ignored.
+         *
+         * @return A view of the new cube.
+         */
+        public ModelCube add(UUID uuid, String name, Vector3f from, Vector3f to, Map<String, ModelFace> faces) {
+            checkCubes();
+            return store.add(uuid, name, from, to, faces);
+        }
+
+        /**
+         * Moves a cube's corners, in pixels.
+         */
+        public void setBounds(int cube, float fromX, float fromY, float fromZ, float toX, float toY, float toZ) {
+            checkCubes();
+            store.setBounds(cube, fromX, fromY, fromZ, toX, toY, toZ);
+        }
+
+        /**
+         * Copies a cube from any store into this one, translated by an offset in pixels.
+         *
+         * @return A view of the copy.
+         */
+        public ModelCube copy(ModelCube cube, float dx, float dy, float dz) {
+            checkCubes();
+            return store.copy(cube, dx, dy, dz);
+        }
+
+        /**
+         * Copies cube {@code cube} of {@code source}, which may be this builder's store, translated by
+         * an offset in pixels.
+         *
+         * @return The index of the copy.
+         */
+        public int copy(GeometryStore source, int cube, float dx, float dy, float dz) {
+            checkCubes();
+            return store.copy(source, cube, dx, dy, dz);
+        }
+
+        /**
+         * Sets a face of {@code cube} to the same face of cube {@code sourceCube} in {@code source}.
+         */
+        public void copyFace(int cube, FaceDirection face, GeometryStore source, int sourceCube) {
+            checkCubes();
+            store.copyFace(cube, face, source, sourceCube);
+        }
+
+        public void setName(int cube, String name) {
+            checkBuilt();
+            store.setName(cube, name);
+        }
+
+        /**
+         * Marks a face as present and stores its data.
+         *
+         * @param uv {@code [u1, v1, u2, v2]}, or null.
+         */
+        public void setFace(int cube, FaceDirection face, float[] uv, String texture, int rotation) {
+            checkBuilt();
+            store.setFace(cube, face, uv, texture, rotation);
+        }
+
+        /**
+         * Removes every cube but keeps the capacity and texture table, so a scratch store can be
+         * refilled without allocating.
+         *
+         * @throws IllegalStateException If the store's faces are deferred.
+         */
+        public void clear() {
+            checkCubes();
+            store.clear();
+        }
+
+        /**
+         * Defers the store's names and faces to {@code source}, which runs on first access.
+         *
+         * @throws IllegalStateException If the builder was not made with {@link #withDeferredFaces}.
+         */
+        public void deferFaces(FaceSource source) {
+            checkCubes();
+            store.deferFaces(source);
+        }
+
+        /**
+         * Releases spare capacity and ends the build.
+         *
+         * @return The store, which can no longer change.
+         */
+        public GeometryStore build() {
+            checkCubes();
+            store.trimToSize();
+            built = true;
+            return store;
+        }
+
+        private void checkCubes() {
+            checkBuilt();
+            if (facesOnly) {
+                throw new IllegalStateException("A face source may only set names and faces");
+            }
+        }
+
+        private void checkBuilt() {
+            if (built) {
+                throw new IllegalStateException("The store is already built");
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.tridimensity.model;
+
+import java.util.Arrays;
+
+/**
+ * A chain of nodes for {@link IkSolver}, from the root joint down a limb, each node the child of
+ * the one before. The end effector is the last node's pivot plus an optional tip offset.
+ *
+ * <p>Joint limits bound the pose rotation the solver writes for each joint, per axis in degrees,
+ * i.e. the values {@link ModelInstance#setPoseRotation} takes.</p>
+ *
+ * <pre>{@code
+ * IkChain leg = IkChain.byName(model.getHierarchy(), "thigh", "shin", "foot")
+ *         .limit(1, 0, 0, 0, 150, 0, 0);
+ * }</pre>
+ */
+public final class IkChain {
+    private final ModelHierarchy hierarchy;
+    private final int[] joints;
+    // Per joint: min xyz, max xyz (degrees)
+    private final float[] limits;
+    private final float[] tip = new float[3];
+
+    /**
+     * @param joints Node indices, each the child of the previous one.
+     * @throws IllegalArgumentException If the indices do not form such a chain.
+     */
+    public IkChain(ModelHierarchy hierarchy, int... joints) {
+        if (hierarchy == null) {
+            throw new IllegalArgumentException("hierarchy must not be null");
+        }
+        if (joints == null || joints.length == 0) {
+            throw new IllegalArgumentException("A chain needs at least one joint");
+        }
+        for (int k = 0; k < joints.length; k++) {
+            if (joints[k] < 0 || joints[k] >= hierarchy.size()) {
+                throw new IllegalArgumentException("No node " + joints[k] + " in a hierarchy of " + hierarchy.size());
+            }
+            if (k > 0 && hierarchy.getParent(joints[k]) != joints[k - 1]) {
+                throw new IllegalArgumentException("Node " + joints[k] + " is not a child of node " + joints[k - 1]);
+            }
+        }
+        this.hierarchy = hierarchy;
+        this.joints = joints.clone();
+        this.limits = new float[joints.length * 6];
+        for (int k = 0; k < joints.length; k++) {
+            Arrays.fill(limits, k * 6, k * 6 + 3, -180f);
+            Arrays.fill(limits, k * 6 + 3, k * 6 + 6, 180f);
+        }
+    }
+
+    /**
+     * @return The chain through the named nodes, see {@link ModelHierarchy#indexOf(String)}.
+     */
+    public static IkChain byName(ModelHierarchy hierarchy, String... names) {
+        int[] joints = new int[names.length];
+        for (int k = 0; k < names.length; k++) {
+            joints[k] = hierarchy.indexOf(names[k]);
+            if (joints[k] < 0) {
+                throw new IllegalArgumentException("No node named '" + names[k] + "'");
+            }
+        }
+        return new IkChain(hierarchy, joints);
+    }
+
+    /**
+     * Bounds the pose rotation of a joint; the default is unlimited ({@code [-180, 180]} on every axis).
+     *
+     * @param joint Position in the chain, not a node index.
+     */
+    public IkChain limit(int joint, float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (joint < 0 || joint >= joints.length) {
+            throw new IllegalArgumentException("No joint " + joint + " in a chain of " + joints.length);
+        }
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            throw new IllegalArgumentException("Joint limits must have min <= max");
+        }
+        int o = joint * 6;
+        limits[o] = minX;
+        limits[o + 1] = minY;
+        limits[o + 2] = minZ;
+        limits[o + 3] = maxX;
+        limits[o + 4] = maxY;
+        limits[o + 5] = maxZ;
+        return this;
+    }
+
+    /**
+     * Moves the end effector away from the last node's pivot, e.g. to the toe of a foot.
+     *
+     * @param x Offset in Blockbench units (pixels), in the same space as the node's cubes.
+     */
+    public IkChain tip(float x, float y, float z) {
+        tip[0] = x;
+        tip[1] = y;
+        tip[2] = z;
+        return this;
+    }
+
+    public ModelHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * @return The number of joints.
+     */
+    public int size() {
+        return joints.length;
+    }
+
+    /**
+     * @return The node index of the joint at position {@code joint} in the chain.
+     */
+    public int getJoint(int joint) {
+        return joints[joint];
+    }
+
+    int[] joints() {
+        return joints;
+    }
+
+    float[] limits() {
+        return limits;
+    }
+
+    float[] tip() {
+        return tip;
+    }
+}
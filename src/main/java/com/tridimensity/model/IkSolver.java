@@ -0,0 +1,311 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+import java.util.Arrays;
+
+/**
+ * Inverse kinematics over an {@link IkChain} by cyclic coordinate descent.
+ *
+ * <p>{@link #solve} turns each joint, tip first, so the end effector points at the target, and
+ * repeats for a bounded number of passes, stopping once the effector is within tolerance or a pass
+ * no longer brings it noticeably closer. A pole
+ * then turns the whole chain about the root-to-effector axis so it bends towards the pole. The
+ * results are written as pose rotations, clamped to the joint limits, and take effect on the next
+ * {@link ModelInstance#updateWorldTransforms()}. Like any CCD solver it can settle short of a
+ * reachable target when a limit blocks the only way there; the returned distance shows it.</p>
+ *
+ * <p>A solver keeps its scratch state between calls and allocates nothing once it has seen its
+ * longest chain. It is not thread-safe: use one per thread, on the thread that poses the instances.</p>
+ */
+public final class IkSolver {
+    public static final int DEFAULT_MAX_ITERATIONS = 16;
+    public static final float DEFAULT_TOLERANCE = 1e-3f;
+
+    private static final float SCALE_FACTOR = 1.0f / 16.0f;
+    private static final float EPSILON = 1e-10f;
+    // A pass that removes less than this fraction of the remaining distance ends the solve
+    private static final float STALL = 1e-3f;
+
+    private final int maxIterations;
+    private final float tolerance;
+
+    // Per joint: world matrix, local rotation (rest + pose) and pose rotation in degrees
+    private Matrix4f[] frames = new Matrix4f[0];
+    private Quaternionf[] rotations = new Quaternionf[0];
+    private float[] angles = new float[0];
+    private int[] ancestors = new int[16];
+
+    private final Matrix4f base = new Matrix4f();
+    private final Vector3f effector = new Vector3f();
+    private final Vector3f pivot = new Vector3f();
+    private final Vector3f toEffector = new Vector3f();
+    private final Vector3f toTarget = new Vector3f();
+    private final Vector3f bend = new Vector3f();
+    private final Vector3f side = new Vector3f();
+    private final Vector3f euler = new Vector3f();
+    private final Quaternionf delta = new Quaternionf();
+    private final Quaternionf parentRotation = new Quaternionf();
+    private final Quaternionf candidate = new Quaternionf();
+    private final Quaternionf before = new Quaternionf();
+    private final Quaternionf applied = new Quaternionf();
+    private int lastIterations;
+
+    public IkSolver() {
+        this(DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * @param maxIterations Passes over the chain per solve.
+     * @param tolerance Distance to the target, in blocks, at which a solve stops early.
+     */
+    public IkSolver(int maxIterations, float tolerance) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("maxIterations must be at least 1");
+        }
+        if (!(tolerance >= 0f)) {
+            throw new IllegalArgumentException("tolerance must not be negative");
+        }
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+    }
+
+    /**
+     * @return The passes the last {@link #solve} made; 0 if the effector was already on target.
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    /**
+     * Poses the chain so its end effector reaches {@code target}, as closely as the joint limits
+     * allow. Only the rotations of the chain's joints are written. Ancestors of the chain are read
+     * from the current pose, so pose them first.
+     *
+     * @param target Target in the space of the instance's world matrices (blocks).
+     * @param pole Point the chain should bend towards, in the same space, or null for no preference.
+     * @return The remaining distance from the end effector to the target, in blocks.
+     */
+    public float solve(ModelInstance instance, IkChain chain, Vector3fc target, Vector3fc pole) {
+        ModelHierarchy hierarchy = instance.getHierarchy();
+        if (chain.getHierarchy() != hierarchy) {
+            throw new IllegalArgumentException("The chain belongs to a different hierarchy");
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("target must not be null");
+        }
+        int n = chain.size();
+        ensureCapacity(n);
+        int[] joints = chain.joints();
+        float[] pose = instance.pose();
+        for (int k = 0; k < n; k++) {
+            int o = joints[k] * ModelInstance.POSE_STRIDE + 3;
+            setAngles(hierarchy, chain, k, pose[o], pose[o + 1], pose[o + 2]);
+        }
+        computeBase(instance, joints[0]);
+        forward(hierarchy, pose, chain, 0);
+
+        float reached = tolerance * tolerance;
+        float remaining = effector.distance(target);
+        int iteration = 0;
+        while (iteration < maxIterations && remaining * remaining > reached) {
+            iteration++;
+            // Turning joint k only moves the joints after it, so the pivots still to visit in this
+            // pass stay valid; the effector is moved along and the frames refreshed after the pass
+            for (int k = n - 1; k >= 0; k--) {
+                jointPivot(hierarchy, joints, k, pivot);
+                effector.sub(pivot, toEffector);
+                target.sub(pivot, toTarget);
+                if (toEffector.lengthSquared() < EPSILON || toTarget.lengthSquared() < EPSILON) {
+                    continue;
+                }
+                delta.rotationTo(toEffector, toTarget);
+                rotateJoint(hierarchy, chain, k, delta, pivot);
+                if (effector.distanceSquared(target) <= reached) {
+                    break;
+                }
+            }
+            forward(hierarchy, pose, chain, 0);
+            float distance = effector.distance(target);
+            if (remaining - distance <= remaining * STALL) {
+                break;
+            }
+            remaining = distance;
+        }
+        if (pole != null && n > 1) {
+            bendTowards(hierarchy, pose, chain, pole);
+        }
+
+        for (int k = 0; k < n; k++) {
+            instance.setPoseRotation(joints[k], angles[k * 3], angles[k * 3 + 1], angles[k * 3 + 2]);
+        }
+        lastIterations = iteration;
+        return effector.distance(target);
+    }
+
+    private void ensureCapacity(int n) {
+        if (frames.length >= n) {
+            return;
+        }
+        int old = frames.length;
+        frames = Arrays.copyOf(frames, n);
+        rotations = Arrays.copyOf(rotations, n);
+        for (int k = old; k < n; k++) {
+            frames[k] = new Matrix4f();
+            rotations[k] = new Quaternionf();
+        }
+        angles = new float[n * 3];
+    }
+
+    /**
+     * Evaluates the chain's ancestors from the current pose into {@link #base}, the matrix the
+     * first joint hangs from.
+     */
+    private void computeBase(ModelInstance instance, int first) {
+        ModelHierarchy hierarchy = instance.getHierarchy();
+        int count = 0;
+        for (int a = hierarchy.getParent(first); a >= 0; a = hierarchy.getParent(a)) {
+            if (count == ancestors.length) {
+                ancestors = Arrays.copyOf(ancestors, count * 2);
+            }
+            ancestors[count++] = a;
+        }
+        float[] mount = instance.mount();
+        if (mount != null) {
+            base.set(mount);
+        } else {
+            base.identity();
+        }
+        float[] pose = instance.pose();
+        while (count > 0) {
+            ModelInstance.applyLocal(hierarchy, ancestors[--count], pose, base);
+        }
+    }
+
+    /**
+     * Recomputes the world matrices of joints {@code from} onwards, and the end effector.
+     */
+    private void forward(ModelHierarchy hierarchy, float[] pose, IkChain chain, int from) {
+        float[] origins = hierarchy.origins();
+        float[] parentOrigins = hierarchy.parentOrigins();
+        float[] positions = hierarchy.positions();
+        float[] scales = hierarchy.scales();
+        int[] joints = chain.joints();
+        for (int k = from; k < joints.length; k++) {
+            int v = joints[k] * 3;
+            int p = joints[k] * ModelInstance.POSE_STRIDE;
+            float px = origins[v] * SCALE_FACTOR;
+            float py = origins[v + 1] * SCALE_FACTOR;
+            float pz = origins[v + 2] * SCALE_FACTOR;
+            // Same composition as ModelInstance.applyLocal, with the solver's rotation
+            frames[k].set(k == 0 ? base : frames[k - 1])
+                    .translate((origins[v] - parentOrigins[v] + positions[v] + pose[p]) * SCALE_FACTOR,
+                            (origins[v + 1] - parentOrigins[v + 1] + positions[v + 1] + pose[p + 1]) * SCALE_FACTOR,
+                            (origins[v + 2] - parentOrigins[v + 2] + positions[v + 2] + pose[p + 2]) * SCALE_FACTOR)
+                    .translate(px, py, pz)
+                    .rotate(rotations[k])
+                    .scale(scales[v] * pose[p + 6], scales[v + 1] * pose[p + 7], scales[v + 2] * pose[p + 8])
+                    .translate(-px, -py, -pz);
+        }
+        int last = joints.length - 1;
+        int v = joints[last] * 3;
+        float[] tip = chain.tip();
+        frames[last].transformPosition((origins[v] + tip[0]) * SCALE_FACTOR, (origins[v + 1] + tip[1]) * SCALE_FACTOR,
+                (origins[v + 2] + tip[2]) * SCALE_FACTOR, effector);
+    }
+
+    private Vector3f jointPivot(ModelHierarchy hierarchy, int[] joints, int k, Vector3f dest) {
+        float[] origins = hierarchy.origins();
+        int v = joints[k] * 3;
+        return frames[k].transformPosition(origins[v] * SCALE_FACTOR, origins[v + 1] * SCALE_FACTOR, origins[v + 2] * SCALE_FACTOR, dest);
+    }
+
+    /**
+     * Applies a world-space rotation about joint {@code k}'s pivot, within its limits, and moves
+     * the effector with it. The joint frames after {@code k} are left stale.
+     */
+    private void rotateJoint(ModelHierarchy hierarchy, IkChain chain, int k, Quaternionf worldDelta, Vector3f jointPivot) {
+        (k == 0 ? base : frames[k - 1]).getNormalizedRotation(parentRotation);
+        before.set(rotations[k]);
+        // world = parent * local, so the new local is parent^-1 * delta * parent * local
+        candidate.set(parentRotation).conjugate().mul(worldDelta).mul(parentRotation).mul(rotations[k]).normalize();
+        candidate.getEulerAnglesXYZ(euler);
+        float[] rest = hierarchy.rotations();
+        int v = chain.joints()[k] * 3;
+        setAngles(hierarchy, chain, k,
+                (float) Math.toDegrees(euler.x) - rest[v],
+                (float) -Math.toDegrees(euler.y) - rest[v + 1],
+                (float) Math.toDegrees(euler.z) - rest[v + 2]);
+
+        // The rotation actually applied, which the limits may have reduced: parent * new * old^-1 * parent^-1
+        applied.set(parentRotation).mul(rotations[k]).mul(before.conjugate()).mul(parentRotation.conjugate());
+        effector.sub(jointPivot).rotate(applied).add(jointPivot);
+    }
+
+    /**
+     * Stores joint {@code k}'s pose rotation, wrapped and clamped to its limits, and the local
+     * rotation it gives with the rest rotation.
+     */
+    private void setAngles(ModelHierarchy hierarchy, IkChain chain, int k, float x, float y, float z) {
+        float[] limits = chain.limits();
+        int l = k * 6;
+        int a = k * 3;
+        angles[a] = clamp(wrap(x), limits[l], limits[l + 3]);
+        angles[a + 1] = clamp(wrap(y), limits[l + 1], limits[l + 4]);
+        angles[a + 2] = clamp(wrap(z), limits[l + 2], limits[l + 5]);
+        float[] rest = hierarchy.rotations();
+        int v = chain.joints()[k] * 3;
+        // Blockbench's Y rotation is mirrored, as in ModelInstance.applyLocal
+        rotations[k].rotationXYZ(
+                (float) Math.toRadians(rest[v] + angles[a]),
+                (float) Math.toRadians(-(rest[v + 1] + angles[a + 1])),
+                (float) Math.toRadians(rest[v + 2] + angles[a + 2]));
+    }
+
+    /**
+     * Turns the chain about the root-to-effector axis, which leaves the effector in place, so the
+     * joint furthest from the axis moves to the pole's side.
+     */
+    private void bendTowards(ModelHierarchy hierarchy, float[] pose, IkChain chain, Vector3fc pole) {
+        int[] joints = chain.joints();
+        jointPivot(hierarchy, joints, 0, pivot);
+        Vector3f axis = effector.sub(pivot, toEffector);
+        if (axis.lengthSquared() < EPSILON) {
+            return;
+        }
+        axis.normalize();
+        float furthest = EPSILON;
+        for (int k = 1; k < joints.length; k++) {
+            jointPivot(hierarchy, joints, k, side).sub(pivot);
+            side.fma(-side.dot(axis), axis);
+            float d = side.lengthSquared();
+            if (d > furthest) {
+                furthest = d;
+                bend.set(side);
+            }
+        }
+        if (furthest == EPSILON) {
+            return; // A straight chain has no bend to turn
+        }
+        pole.sub(pivot, toTarget);
+        toTarget.fma(-toTarget.dot(axis), axis);
+        if (toTarget.lengthSquared() < EPSILON) {
+            return;
+        }
+        float angle = (float) Math.atan2(axis.dot(bend.cross(toTarget, side)), bend.dot(toTarget));
+        delta.fromAxisAngleRad(axis, angle);
+        rotateJoint(hierarchy, chain, 0, delta, pivot);
+        forward(hierarchy, pose, chain, 0);
+    }
+
+    private static float wrap(float degrees) {
+        return degrees - 360f * (float) Math.floor((degrees + 180f) / 360f);
+    }
+
+    private static float clamp(float value, float min, float max) {
+        return value <= min ? min : (value >= max ? max : value);
+    }
+}
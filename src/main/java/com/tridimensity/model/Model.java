@@ -1,6 +1,9 @@
 package com.tridimensity.model;
 
+import com.tridimensity.util.Aabb;
+
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -8,19 +11,183 @@ import java.util.List;
  */
 public class Model {
     private final List<ModelNode> roots;
+    private final GeometryStore geometry;
+    private volatile ModelHierarchy hierarchy;
+    private volatile ModelLod[] lods;
+    private volatile List<ModelTexture> textures = List.of();
+    private volatile int[] textureSlots = new int[0]; // geometry texture index -> texture index
 
     public Model() {
+        this(new GeometryStore(0));
+    }
+
+    /**
+     * @param geometry The store that this model's cubes were created in.
+     */
+    public Model(GeometryStore geometry) {
         this.roots = new ArrayList<>();
+        this.geometry = geometry;
     }
 
     public void addRoot(ModelNode node) {
         this.roots.add(node);
+        this.hierarchy = null;
+        this.lods = null;
     }
 
     public List<ModelNode> getRoots() {
         return new ArrayList<>(roots);
     }
 
+    /**
+     * @return The geometry store filled by the loader. Cubes built with the {@link ModelCube}
+     *         constructor keep their own store instead.
+     */
+    public GeometryStore getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Returns the flattened node index of this model, built on first access.
+     * The node tree must be complete before this is called.
+     *
+     * @return The pre-order hierarchy shared by all instances of this model.
+     */
+    public ModelHierarchy getHierarchy() {
+        ModelHierarchy h = hierarchy;
+        if (h == null) {
+            h = new ModelHierarchy(roots);
+            hierarchy = h;
+        }
+        return h;
+    }
+
+    /**
+     * @return The rest-pose bounds of all cubes, in Minecraft units (blocks).
+     */
+    public Aabb getBounds() {
+        return getHierarchy().getBounds(new Aabb());
+    }
+
+    /**
+     * Installs simplified variants of this model. Level 0 is always the model itself; the given LODs
+     * become levels 1..n in order.
+     */
+    public void setLods(List<ModelLod> variants) {
+        ModelLod[] levels = new ModelLod[variants.size() + 1];
+        levels[0] = ModelLod.full(this);
+        for (int i = 0; i < variants.size(); i++) {
+            levels[i + 1] = variants.get(i);
+        }
+        this.lods = levels;
+    }
+
+    /**
+     * @return The number of LOD levels, including level 0 (this model).
+     */
+    public int getLodCount() {
+        ModelLod[] levels = lods;
+        return levels != null ? levels.length : 1;
+    }
+
+    public ModelLod getLod(int level) {
+        ModelLod[] levels = lods;
+        if (levels == null) {
+            levels = new ModelLod[]{ModelLod.full(this)};
+            lods = levels;
+        }
+        if (level < 0 || level >= levels.length) {
+            throw new IllegalArgumentException("LOD level out of range: " + level);
+        }
+        return levels[level];
+    }
+
+    /**
+     * Sets the textures that face texture references resolve against.
+     */
+    public void setTextures(List<ModelTexture> textures) {
+        this.textures = List.copyOf(textures);
+        this.textureSlots = new int[0];
+    }
+
+    public List<ModelTexture> getTextures() {
+        return textures;
+    }
+
+    public ModelTexture getTexture(int index) {
+        return textures.get(index);
+    }
+
+    /**
+     * Resolves a face texture reference: a texture index ({@code "0"}), a variable ({@code "#0"}),
+     * a texture id, UUID, or name.
+     *
+     * @return The index into {@link #getTextures()}, or -1 if nothing matches.
+     */
+    public int resolveTexture(String reference) {
+        if (reference == null || reference.isEmpty()) {
+            return -1;
+        }
+        List<ModelTexture> list = textures;
+        boolean variable = reference.charAt(0) == '#';
+        String key = variable ? reference.substring(1) : reference;
+        // Blockbench writes plain indices; Java block models write "#id"
+        int index = parseIndex(key);
+        if (!variable && index >= 0) {
+            return index < list.size() ? index : -1;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            ModelTexture texture = list.get(i);
+            if (key.equals(texture.getId()) || key.equals(texture.getUuid()) || key.equals(texture.getName())) {
+                return i;
+            }
+        }
+        return index >= 0 && index < list.size() ? index : -1;
+    }
+
+    private static int parseIndex(String key) {
+        if (key.isEmpty() || key.length() > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * @return The index into {@link #getTextures()} of a face's texture, or -1 if it has none.
+     */
+    public int getTextureIndex(ModelCube cube, FaceDirection face) {
+        GeometryStore store = cube.getGeometry();
+        int local = store.getTextureIndex(cube.getGeometryIndex(), face);
+        if (local < 0) {
+            return -1;
+        }
+        if (store != geometry) {
+            return resolveTexture(store.getTexture(local));
+        }
+        int[] slots = textureSlots;
+        if (local >= slots.length) {
+            slots = resolveSlots();
+        }
+        return slots[local];
+    }
+
+    private int[] resolveSlots() {
+        int[] slots = Arrays.copyOf(textureSlots, geometry.getTextureCount());
+        for (int i = textureSlots.length; i < slots.length; i++) {
+            slots[i] = resolveTexture(geometry.getTexture(i));
+        }
+        textureSlots = slots;
+        return slots;
+    }
+
     public ModelInstance instantiate() {
         return new ModelInstance(this);
     }
@@ -0,0 +1,104 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+
+/**
+ * A model mounted on a node of a {@link ModelInstance}, created by {@link ModelInstance#attach}.
+ *
+ * <p>The attached model has its own instance for posing. Its root nodes hang from the bone's world
+ * matrix times the offset, so all its world matrices are in the parent instance's space.</p>
+ */
+public final class ModelAttachment {
+    private final ModelInstance parent;
+    private final ModelInstance instance;
+    private final Matrix4f scratch = new Matrix4f();
+    private int bone;
+    private Matrix4f offset;
+    private boolean attached = true;
+
+    // The bone's update epoch when the mount matrix was last computed
+    private int mountedEpoch;
+    private boolean stale = true;
+
+    ModelAttachment(ModelInstance parent, ModelInstance instance, int bone, Matrix4f offset) {
+        this.parent = parent;
+        this.instance = instance;
+        this.bone = bone;
+        this.offset = offset != null ? new Matrix4f(offset) : null;
+    }
+
+    public ModelInstance getParent() {
+        return parent;
+    }
+
+    /**
+     * @return The instance of the attached model; pose it like any other instance.
+     */
+    public ModelInstance getInstance() {
+        return instance;
+    }
+
+    public Model getModel() {
+        return instance.getModel();
+    }
+
+    /**
+     * @return The index of the node the model is mounted on, in the parent's hierarchy.
+     */
+    public int getBone() {
+        return bone;
+    }
+
+    /**
+     * Stores the offset from the bone, identity if there is none.
+     */
+    public Matrix4f getOffset(Matrix4f dest) {
+        return offset != null ? dest.set(offset) : dest.identity();
+    }
+
+    /**
+     * Changes the offset from the bone; the attached model moves on the parent's next update.
+     *
+     * @param offset A transform in the bone's space (blocks), or null for none.
+     */
+    public void setOffset(Matrix4f offset) {
+        this.offset = offset != null ? new Matrix4f(offset) : null;
+        this.stale = true;
+    }
+
+    /**
+     * @return False once detached.
+     */
+    public boolean isAttached() {
+        return attached;
+    }
+
+    void setBone(int bone) {
+        this.bone = bone;
+        this.stale = true;
+    }
+
+    void detached() {
+        this.attached = false;
+    }
+
+    boolean isMountStale(int boneEpoch) {
+        return stale || boneEpoch != mountedEpoch;
+    }
+
+    void mounted(int boneEpoch) {
+        this.mountedEpoch = boneEpoch;
+        this.stale = false;
+    }
+
+    /**
+     * Writes the bone's world matrix times the offset into {@code dest}.
+     */
+    void computeMount(float[] world, int index, float[] dest) {
+        Matrix4f m = scratch.set(world, index);
+        if (offset != null) {
+            m.mul(offset);
+        }
+        m.get(dest);
+    }
+}
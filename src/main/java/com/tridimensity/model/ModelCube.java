@@ -1,6 +1,9 @@
 package com.tridimensity.model;
 
+import com.tridimensity.util.Aabb;
 import org.joml.Vector3f;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.UUID;
 import java.util.Map;
 
@@ -10,63 +13,121 @@ import java.util.Map;
  * 
  * <p>Note: Individual cube rotation is explicitly not supported by this library
  * as per the specification. Rotations must happen at the Group (Node) level.</p>
+ *
+ * <p>A cube is a view over one index of a {@link GeometryStore}. Cubes created by the loader
+ * share their model's store; cubes created with the public constructor get a single-cube store of
+ * their own. Code that builds many cubes should add them to one store with {@link GeometryStore.Builder#add}.</p>
  */
 public class ModelCube {
-    private final String name;
-    private final UUID uuid;
-    private final Vector3f from;
-    private final Vector3f to;
-    private final Map<String, ModelFace> faces; 
+    private final GeometryStore store;
+    private final int index;
 
     public ModelCube(UUID uuid, String name, Vector3f from, Vector3f to, Map<String, ModelFace> faces) {
-        this.uuid = uuid;
-        this.name = name;
-        this.from = from;
-        this.to = to;
-        this.faces = faces;
+        this.store = new GeometryStore(1);
+        this.index = store.addIndexed(uuid, name, from, to, faces);
+    }
+
+    ModelCube(GeometryStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * @return The store holding this cube's data.
+     */
+    public GeometryStore getGeometry() {
+        return store;
+    }
+
+    /**
+     * @return The index of this cube in {@link #getGeometry()}.
+     */
+    public int getGeometryIndex() {
+        return index;
     }
 
     public UUID getUuid() {
-        return uuid;
+        return store.getUuid(index);
     }
 
     public String getName() {
-        return name;
+        return store.getName(index);
     }
 
     public Vector3f getFrom() {
-        return new Vector3f(from);
+        return store.getFrom(index, new Vector3f());
     }
 
     public Vector3f getTo() {
-        return new Vector3f(to);
+        return store.getTo(index, new Vector3f());
     }
     
     /**
      * @return The size of the cube (to - from).
      */
     public Vector3f getSize() {
-        return new Vector3f(to).sub(from);
+        return getTo().sub(getFrom());
     }
 
     /**
      * @return The center point of the cube.
      */
     public Vector3f getCenter() {
-        return new Vector3f(from).add(to).mul(0.5f);
+        return getFrom().add(getTo()).mul(0.5f);
+    }
+
+    /**
+     * @return The bounds of the cube in Blockbench coordinates (pixels).
+     */
+    public Aabb getBounds() {
+        return getBounds(new Aabb());
     }
 
+    public Aabb getBounds(Aabb dest) {
+        return dest.set(store.getBound(index, 0), store.getBound(index, 1), store.getBound(index, 2),
+                store.getBound(index, 3), store.getBound(index, 4), store.getBound(index, 5));
+    }
+
+    /**
+     * @return A bitmask of present faces, one bit per {@link FaceDirection#mask()}.
+     */
+    public int getFaceMask() {
+        return store.getFaceMask(index);
+    }
+
+    public boolean hasFace(FaceDirection face) {
+        return store.hasFace(index, face);
+    }
+
+    /**
+     * @return A view of the face, or null if the cube does not have it.
+     */
+    public ModelFace getFace(FaceDirection face) {
+        return store.hasFace(index, face) ? new ModelFace(store, index, face) : null;
+    }
+
+    /**
+     * @return The present faces keyed by their .bbmodel name, as a new read-only map of views.
+     *         Prefer {@link #getFace(FaceDirection)} on hot paths.
+     */
     public Map<String, ModelFace> getFaces() {
-        return faces;
+        Map<String, ModelFace> faces = new LinkedHashMap<>();
+        int mask = store.getFaceMask(index);
+        for (FaceDirection face : FaceDirection.values()) {
+            if ((mask & face.mask()) != 0) {
+                faces.put(face.getKey(), new ModelFace(store, index, face));
+            }
+        }
+        return Collections.unmodifiableMap(faces);
     }
 
     @Override
     public String toString() {
         return "ModelCube{" +
-                "name=" + name +
-                ", uuid=" + uuid +
-                ", from=" + from +
-                ", to=" + to +
+                "name=" + getName() +
+                ", uuid=" + getUuid() +
+                ", from=" + getFrom() +
+                ", to=" + getTo() +
                 '}';
     }
 }
@@ -0,0 +1,235 @@
+package com.tridimensity.model;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Node- and cube-level difference between two versions of a model, used to move live
+ * {@link ModelInstance}s onto a reloaded model with {@link ModelInstance#rebind(ModelDiff)}.
+ *
+ * <p>Nodes are matched by UUID. Nodes whose UUID has no match (for example groups without a UUID in
+ * the file) fall back to matching by name under the same matched parent. Cubes are matched by UUID
+ * within the whole model.</p>
+ */
+public final class ModelDiff {
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final Model oldModel;
+    private final Model newModel;
+    private final int[] previous;
+    private int addedNodes;
+    private int removedNodes;
+    private int changedNodes;
+    private int addedCubes;
+    private int removedCubes;
+    private int changedCubes;
+
+    private ModelDiff(Model oldModel, Model newModel) {
+        this.oldModel = oldModel;
+        this.newModel = newModel;
+        this.previous = new int[newModel.getHierarchy().size()];
+    }
+
+    public static ModelDiff compute(Model oldModel, Model newModel) {
+        ModelDiff diff = new ModelDiff(oldModel, newModel);
+        diff.matchNodes();
+        diff.compareCubes();
+        return diff;
+    }
+
+    private void matchNodes() {
+        ModelHierarchy before = oldModel.getHierarchy();
+        ModelHierarchy after = newModel.getHierarchy();
+        Map<UUID, Integer> byUuid = new HashMap<>(before.size() * 2);
+        for (int i = 0; i < before.size(); i++) {
+            byUuid.put(before.getNode(i).getUuid(), i);
+        }
+        boolean[] claimed = new boolean[before.size()];
+        int matched = 0;
+        for (int i = 0; i < after.size(); i++) {
+            Integer old = byUuid.get(after.getNode(i).getUuid());
+            previous[i] = old != null ? old : -1;
+            if (old != null) {
+                claimed[old] = true;
+                matched++;
+            }
+        }
+
+        if (matched < after.size()) {
+            // Unclaimed old nodes, keyed by (parent, name); pre-order guarantees parents are mapped first
+            Map<String, ArrayDeque<Integer>> byPath = new HashMap<>();
+            for (int i = 0; i < before.size(); i++) {
+                if (!claimed[i]) {
+                    byPath.computeIfAbsent(before.getParent(i) + "/" + before.getNode(i).getName(), k -> new ArrayDeque<>()).add(i);
+                }
+            }
+            for (int i = 0; i < after.size(); i++) {
+                if (previous[i] >= 0) {
+                    continue;
+                }
+                int parent = after.getParent(i);
+                int oldParent = parent >= 0 ? previous[parent] : -1;
+                if (parent >= 0 && oldParent < 0) {
+                    continue;
+                }
+                ArrayDeque<Integer> candidates = byPath.get(oldParent + "/" + after.getNode(i).getName());
+                if (candidates != null && !candidates.isEmpty()) {
+                    previous[i] = candidates.poll();
+                    claimed[previous[i]] = true;
+                    matched++;
+                }
+            }
+        }
+
+        addedNodes = after.size() - matched;
+        removedNodes = before.size() - matched;
+        for (int i = 0; i < after.size(); i++) {
+            int old = previous[i];
+            if (old < 0) {
+                continue;
+            }
+            int parent = after.getParent(i);
+            boolean moved = (parent >= 0 ? previous[parent] : -1) != before.getParent(old);
+            if (moved || !sameRest(before.getNode(old), after.getNode(i))) {
+                changedNodes++;
+            }
+        }
+    }
+
+    private static boolean sameRest(ModelNode a, ModelNode b) {
+        return Objects.equals(a.getName(), b.getName())
+                && a.getOrigin().equals(b.getOrigin())
+                && a.getPosition().equals(b.getPosition())
+                && a.getRotation().equals(b.getRotation())
+                && a.getScale().equals(b.getScale())
+                && a.getLocators().equals(b.getLocators());
+    }
+
+    private void compareCubes() {
+        Map<UUID, ModelCube> before = new HashMap<>();
+        ModelHierarchy oldHierarchy = oldModel.getHierarchy();
+        for (int i = 0; i < oldHierarchy.size(); i++) {
+            for (ModelCube cube : oldHierarchy.getNode(i).getCubes()) {
+                before.put(cube.getUuid(), cube);
+            }
+        }
+        ModelHierarchy newHierarchy = newModel.getHierarchy();
+        int kept = 0;
+        for (int i = 0; i < newHierarchy.size(); i++) {
+            List<ModelCube> cubes = newHierarchy.getNode(i).getCubes();
+            for (ModelCube cube : cubes) {
+                ModelCube old = before.get(cube.getUuid());
+                if (old == null) {
+                    addedCubes++;
+                    continue;
+                }
+                kept++;
+                if (!sameCube(old, cube)) {
+                    changedCubes++;
+                }
+            }
+        }
+        removedCubes = before.size() - kept;
+    }
+
+    private static boolean sameCube(ModelCube a, ModelCube b) {
+        GeometryStore sa = a.getGeometry();
+        GeometryStore sb = b.getGeometry();
+        int ia = a.getGeometryIndex();
+        int ib = b.getGeometryIndex();
+        if (!Objects.equals(sa.getName(ia), sb.getName(ib)) || sa.getFaceMask(ia) != sb.getFaceMask(ib)) {
+            return false;
+        }
+        for (int k = 0; k < 6; k++) {
+            if (sa.getBound(ia, k) != sb.getBound(ib, k)) {
+                return false;
+            }
+        }
+        for (FaceDirection face : FACES) {
+            if (!sa.hasFace(ia, face)) {
+                continue;
+            }
+            if (sa.hasUv(ia, face) != sb.hasUv(ib, face) || sa.getRotation(ia, face) != sb.getRotation(ib, face)
+                    || !Objects.equals(sa.getTexture(sa.getTextureIndex(ia, face)), sb.getTexture(sb.getTextureIndex(ib, face)))) {
+                return false;
+            }
+            if (sa.hasUv(ia, face)) {
+                for (int k = 0; k < 4; k++) {
+                    if (sa.getUv(ia, face, k) != sb.getUv(ib, face, k)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    public Model getOldModel() {
+        return oldModel;
+    }
+
+    public Model getNewModel() {
+        return newModel;
+    }
+
+    /**
+     * @return The hierarchy index in the old model of a node of the new model, or -1 if the node is new.
+     */
+    public int getPreviousIndex(int newNode) {
+        return previous[newNode];
+    }
+
+    public int getAddedNodes() {
+        return addedNodes;
+    }
+
+    public int getRemovedNodes() {
+        return removedNodes;
+    }
+
+    /**
+     * @return The number of matched nodes whose name, rest transform or parent changed.
+     */
+    public int getChangedNodes() {
+        return changedNodes;
+    }
+
+    public int getAddedCubes() {
+        return addedCubes;
+    }
+
+    public int getRemovedCubes() {
+        return removedCubes;
+    }
+
+    /**
+     * @return The number of matched cubes whose name, bounds or faces changed.
+     */
+    public int getChangedCubes() {
+        return changedCubes;
+    }
+
+    /**
+     * @return True if both models have the same nodes and cubes with the same values.
+     */
+    public boolean isEmpty() {
+        return addedNodes == 0 && removedNodes == 0 && changedNodes == 0
+                && addedCubes == 0 && removedCubes == 0 && changedCubes == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ModelDiff{" +
+                "addedNodes=" + addedNodes +
+                ", removedNodes=" + removedNodes +
+                ", changedNodes=" + changedNodes +
+                ", addedCubes=" + addedCubes +
+                ", removedCubes=" + removedCubes +
+                ", changedCubes=" + changedCubes +
+                '}';
+    }
+}
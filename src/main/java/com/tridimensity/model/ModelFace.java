@@ -2,27 +2,73 @@ package com.tridimensity.model;
 
 /**
  * Represents a face of a cube (Element) in the model.
+ *
+ * <p>Faces returned by {@link ModelCube} are views over a {@link GeometryStore} slot; faces
+ * created with the public constructor hold their own values until added to a cube.</p>
  */
 public class ModelFace {
+    private final GeometryStore store;
+    private final int cube;
+    private final FaceDirection direction;
+
     private final float[] uv; // [u1, v1, u2, v2]
     private final String texture; // Texture variable or path (#0, etc)
     private final int rotation; // UV rotation (0, 90, 180, 270)
     
     public ModelFace(float[] uv, String texture, int rotation) {
+        this.store = null;
+        this.cube = -1;
+        this.direction = null;
         this.uv = uv;
         this.texture = texture;
         this.rotation = rotation;
     }
 
+    ModelFace(GeometryStore store, int cube, FaceDirection direction) {
+        this.store = store;
+        this.cube = cube;
+        this.direction = direction;
+        this.uv = null;
+        this.texture = null;
+        this.rotation = 0;
+    }
+
+    /**
+     * @return The face this view belongs to, or null for a detached face.
+     */
+    public FaceDirection getDirection() {
+        return direction;
+    }
+
     public float[] getUv() {
-        return uv != null ? uv.clone() : null;
+        if (store == null) {
+            return uv != null ? uv.clone() : null;
+        }
+        float[] dest = new float[4];
+        return store.getUv(cube, direction, dest, 0) ? dest : null;
+    }
+
+    /**
+     * Copies the UV rectangle into {@code dest} without allocating.
+     *
+     * @return False if the face has no UV rectangle.
+     */
+    public boolean getUv(float[] dest, int offset) {
+        if (store == null) {
+            if (uv == null) {
+                return false;
+            }
+            System.arraycopy(uv, 0, dest, offset, 4);
+            return true;
+        }
+        return store.getUv(cube, direction, dest, offset);
     }
 
     public String getTexture() {
-        return texture;
+        return store == null ? texture : store.getTexture(store.getTextureIndex(cube, direction));
     }
     
     public int getRotation() {
-        return rotation;
+        return store == null ? rotation : store.getRotation(cube, direction);
     }
 }
@@ -0,0 +1,341 @@
+package com.tridimensity.model;
+
+import com.tridimensity.util.Aabb;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flattened, depth-first (pre-order) view of a {@link Model}'s node tree.
+ *
+ * <p>Every node gets a stable integer index. A parent always precedes its children,
+ * so evaluating nodes in index order guarantees the parent result is available.
+ * The subtree of node {@code i} occupies the index range {@code [i, getSubtreeEnd(i))}.</p>
+ *
+ * <p>Rest transforms are copied into flat arrays so runtime evaluation never has to go
+ * through the copying getters of {@link ModelNode}.</p>
+ *
+ * <p>Bounds are precomputed in Minecraft units (blocks):</p>
+ * <ul>
+ *     <li><b>local</b> bounds enclose a node's own cubes in the input space of its world matrix
+ *     (Blockbench coordinates / 16), so {@code world * local} encloses the posed cubes;</li>
+ *     <li><b>subtree</b> bounds enclose every cube below a node in the rest pose, in model space.</li>
+ * </ul>
+ *
+ * <p>Locators are numbered too, in node order and then in the order of each node's list, with
+ * their transforms relative to their node's world matrix precomputed.</p>
+ */
+public final class ModelHierarchy {
+    private static final float SCALE_FACTOR = 1.0f / 16.0f;
+
+    private final ModelNode[] nodes;
+    private final int[] parents;
+    private final int[] subtreeEnd;
+
+    // Packed rest data, 3 floats per node (Blockbench units)
+    private final float[] origins;
+    private final float[] parentOrigins;
+    private final float[] positions;
+    private final float[] rotations;
+    private final float[] scales;
+
+    // Packed bounds, 6 floats per node (min xyz, max xyz, blocks)
+    private final float[] localBounds;
+    private final float[] subtreeBounds;
+    private final Aabb modelBounds;
+
+    // Per locator: owning node and the transform from its node's world matrix, column-major
+    private final ModelLocator[] locators;
+    private final int[] locatorNodes;
+    private final float[] locatorLocals;
+
+    private final Map<ModelNode, Integer> indexByNode;
+    private final Map<String, Integer> indexByName;
+    private final Map<String, Integer> locatorByName;
+
+    ModelHierarchy(List<ModelNode> roots) {
+        // Iterative pre-order walk: (node, parentIndex) pairs on an explicit stack
+        List<ModelNode> order = new ArrayList<>();
+        int[] parentOrder = new int[16];
+        ModelNode[] nodeStack = new ModelNode[Math.max(16, roots.size())];
+        int[] parentStack = new int[nodeStack.length];
+        int sp = 0;
+        for (int r = roots.size() - 1; r >= 0; r--) {
+            nodeStack[sp] = roots.get(r);
+            parentStack[sp++] = -1;
+        }
+        while (sp > 0) {
+            ModelNode node = nodeStack[--sp];
+            int parent = parentStack[sp];
+            nodeStack[sp] = null;
+            int index = order.size();
+            order.add(node);
+            if (index == parentOrder.length) {
+                parentOrder = Arrays.copyOf(parentOrder, index * 2);
+            }
+            parentOrder[index] = parent;
+            List<ModelNode> children = node.getChildren();
+            if (sp + children.size() > nodeStack.length) {
+                int capacity = Math.max(nodeStack.length * 2, sp + children.size());
+                nodeStack = Arrays.copyOf(nodeStack, capacity);
+                parentStack = Arrays.copyOf(parentStack, capacity);
+            }
+            for (int c = children.size() - 1; c >= 0; c--) {
+                nodeStack[sp] = children.get(c);
+                parentStack[sp++] = index;
+            }
+        }
+
+        int n = order.size();
+        this.nodes = order.toArray(new ModelNode[0]);
+        this.parents = new int[n];
+        this.subtreeEnd = new int[n];
+        this.origins = new float[n * 3];
+        this.parentOrigins = new float[n * 3];
+        this.positions = new float[n * 3];
+        this.rotations = new float[n * 3];
+        this.scales = new float[n * 3];
+        this.localBounds = new float[n * 6];
+        this.subtreeBounds = new float[n * 6];
+        this.indexByNode = new IdentityHashMap<>(n * 2);
+        this.indexByName = new HashMap<>(n * 2);
+
+        for (int i = 0; i < n; i++) {
+            ModelNode node = nodes[i];
+            parents[i] = parentOrder[i];
+            indexByNode.put(node, i);
+            if (node.getName() != null) {
+                indexByName.putIfAbsent(node.getName(), i);
+            }
+            put(origins, i, node.getOrigin());
+            put(positions, i, node.getPosition());
+            put(rotations, i, node.getRotation());
+            put(scales, i, node.getScale());
+            computeLocalBounds(node, i);
+        }
+
+        // Parent pivots and subtree ranges (children always come after their parent)
+        for (int i = 0; i < n; i++) {
+            int p = parents[i];
+            if (p >= 0) {
+                parentOrigins[i * 3] = origins[p * 3];
+                parentOrigins[i * 3 + 1] = origins[p * 3 + 1];
+                parentOrigins[i * 3 + 2] = origins[p * 3 + 2];
+            }
+            subtreeEnd[i] = i + 1;
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            int p = parents[i];
+            if (p >= 0 && subtreeEnd[i] > subtreeEnd[p]) {
+                subtreeEnd[p] = subtreeEnd[i];
+            }
+        }
+
+        this.modelBounds = computeRestBounds();
+
+        List<ModelLocator> locatorOrder = new ArrayList<>();
+        int[] owners = new int[16];
+        for (int i = 0; i < n; i++) {
+            for (ModelLocator locator : nodes[i].getLocators()) {
+                if (locatorOrder.size() == owners.length) {
+                    owners = Arrays.copyOf(owners, owners.length * 2);
+                }
+                owners[locatorOrder.size()] = i;
+                locatorOrder.add(locator);
+            }
+        }
+        this.locators = locatorOrder.toArray(new ModelLocator[0]);
+        this.locatorNodes = Arrays.copyOf(owners, locators.length);
+        this.locatorLocals = new float[locators.length * 16];
+        this.locatorByName = new HashMap<>(locators.length * 2);
+        Matrix4f m = new Matrix4f();
+        for (int l = 0; l < locators.length; l++) {
+            Vector3f position = locators[l].getPosition().mul(SCALE_FACTOR);
+            Vector3f rotation = locators[l].getRotation();
+            m.translation(position).rotateXYZ(
+                (float) Math.toRadians(rotation.x),
+                (float) Math.toRadians(-rotation.y),
+                (float) Math.toRadians(rotation.z)
+            ).get(locatorLocals, l * 16);
+            if (locators[l].getName() != null) {
+                locatorByName.putIfAbsent(locators[l].getName(), l);
+            }
+        }
+    }
+
+    private void computeLocalBounds(ModelNode node, int index) {
+        Aabb box = new Aabb();
+        Aabb cubeBox = new Aabb();
+        for (ModelCube cube : node.getCubes()) {
+            box.union(cube.getBounds(cubeBox));
+        }
+        if (!box.isEmpty()) {
+            box.set(box.minX * SCALE_FACTOR, box.minY * SCALE_FACTOR, box.minZ * SCALE_FACTOR,
+                    box.maxX * SCALE_FACTOR, box.maxY * SCALE_FACTOR, box.maxZ * SCALE_FACTOR);
+        }
+        box.get(localBounds, index * 6);
+    }
+
+    /**
+     * Evaluates the rest pose once and folds the posed local bounds bottom-up into subtree bounds.
+     */
+    private Aabb computeRestBounds() {
+        int n = nodes.length;
+        float[] world = new float[n * WorldTransformBuffer.FLOATS_PER_MATRIX];
+        Matrix4f scratch = new Matrix4f();
+        for (int i = 0; i < n; i++) {
+            ModelInstance.evaluateNode(this, i, null, world, null, scratch);
+        }
+
+        Aabb box = new Aabb();
+        Aabb parentBox = new Aabb();
+        for (int i = 0; i < n; i++) {
+            box.set(localBounds, i * 6).transform(world, i * WorldTransformBuffer.FLOATS_PER_MATRIX, box);
+            box.get(subtreeBounds, i * 6);
+        }
+        Aabb total = new Aabb();
+        for (int i = n - 1; i >= 0; i--) {
+            box.set(subtreeBounds, i * 6);
+            int p = parents[i];
+            if (p >= 0) {
+                parentBox.set(subtreeBounds, p * 6).union(box).get(subtreeBounds, p * 6);
+            } else {
+                total.union(box);
+            }
+        }
+        return total;
+    }
+
+    private static void put(float[] arr, int index, Vector3f v) {
+        arr[index * 3] = v.x;
+        arr[index * 3 + 1] = v.y;
+        arr[index * 3 + 2] = v.z;
+    }
+
+    /**
+     * @return The number of nodes in the model.
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    public ModelNode getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * @return The parent index, or -1 for root nodes.
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * @return The exclusive end of the pre-order range covered by the subtree of {@code index}.
+     */
+    public int getSubtreeEnd(int index) {
+        return subtreeEnd[index];
+    }
+
+    /**
+     * @return The index of the node, or -1 if it does not belong to this hierarchy.
+     */
+    public int indexOf(ModelNode node) {
+        Integer index = indexByNode.get(node);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return The index of the first node (in pre-order) with the given name, or -1.
+     */
+    public int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Stores the bounds of the node's own cubes, in blocks, in the input space of its world matrix.
+     * Empty if the node has no cubes.
+     */
+    public Aabb getLocalBounds(int index, Aabb dest) {
+        return dest.set(localBounds, index * 6);
+    }
+
+    /**
+     * Stores the rest-pose bounds of every cube in the node's subtree, in model space (blocks).
+     */
+    public Aabb getSubtreeBounds(int index, Aabb dest) {
+        return dest.set(subtreeBounds, index * 6);
+    }
+
+    /**
+     * Stores the rest-pose bounds of the whole model, in model space (blocks).
+     */
+    public Aabb getBounds(Aabb dest) {
+        return dest.set(modelBounds);
+    }
+
+    float[] localBounds() {
+        return localBounds;
+    }
+
+    float[] origins() {
+        return origins;
+    }
+
+    float[] parentOrigins() {
+        return parentOrigins;
+    }
+
+    float[] positions() {
+        return positions;
+    }
+
+    float[] rotations() {
+        return rotations;
+    }
+
+    float[] scales() {
+        return scales;
+    }
+
+    /**
+     * @return The number of locators and null objects in the model.
+     */
+    public int getLocatorCount() {
+        return locators.length;
+    }
+
+    public ModelLocator getLocator(int locator) {
+        return locators[locator];
+    }
+
+    /**
+     * @return The index of the node the locator moves with.
+     */
+    public int getLocatorNode(int locator) {
+        return locatorNodes[locator];
+    }
+
+    /**
+     * @return The index of the first locator with the given name, or -1.
+     */
+    public int indexOfLocator(String name) {
+        Integer index = locatorByName.get(name);
+        return index != null ? index : -1;
+    }
+
+    int[] locatorNodes() {
+        return locatorNodes;
+    }
+
+    float[] locatorLocals() {
+        return locatorLocals;
+    }
+}
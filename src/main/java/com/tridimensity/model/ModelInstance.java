@@ -1,50 +1,412 @@
 package com.tridimensity.model;
 
+import com.tridimensity.jfr.TransformBatchEvent;
+import com.tridimensity.metrics.MetricsRegistry;
+import com.tridimensity.metrics.TridimensityMetrics;
+import com.tridimensity.util.Aabb;
 import org.joml.Matrix4f;
+import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Represents a runtime instance of a Model.
  * Handles the calculation of world matrices for rendering.
+ *
+ * <p>Other models can be mounted on its nodes with {@link #attach}; they are then evaluated by the
+ * same {@link #updateWorldTransforms()} call and published in the same frame.</p>
+ *
+ * <p>Threading: pose setters, attachments, {@link #updateWorldTransforms()} and {@link #publishWorldTransforms()}
+ * belong to a single writer thread. The {@code readPublished*} methods may be called from any
+ * number of other threads; they never block the writer and always observe a complete frame.</p>
  */
 public class ModelInstance {
 
-    private final Model model;
+    /**
+     * Floats per locator written by {@link #copyLocatorTransforms(float[])}: position xyz, then
+     * orientation as a quaternion xyzw.
+     */
+    public static final int LOCATOR_STRIDE = 7;
+
+    private Model model;
     private static final float SCALE_FACTOR = 1.0f / 16.0f;
+    static final int POSE_STRIDE = 9;
+    private static final int M = WorldTransformBuffer.FLOATS_PER_MATRIX;
+
+    private ModelHierarchy hierarchy;
+    private final int bufferCount;
+
+    // Per node: position offset (px), rotation offset (deg), scale multiplier
+    private float[] pose;
+    // Per node world matrices from the last update, column-major
+    private float[] world;
+    private final Matrix4f scratch = new Matrix4f();
+    private final Matrix4f locatorScratch = new Matrix4f();
+    private final Quaternionf orientation = new Quaternionf();
+
+    // Incremental update state: nodes whose pose changed, and the update pass that last recomputed each node
+    private boolean[] dirty;
+    private int[] changedEpoch;
+    private boolean anyDirty;
+    private int updateEpoch;
+    private int lastEvaluated;
+
+    // Per node world-space bounds of its own cubes, refreshed lazily after transform updates
+    private float[] worldBounds;
+    private boolean[] boundsStale;
+    private final Aabb boundsScratch = new Aabb();
+
+    private volatile WorldTransformBuffer published;
+    private float[] compositeFrame;
+
+    // Models mounted on this instance's nodes, and the matrix its own roots hang from when it is one
+    private ModelAttachment[] attachments = NO_ATTACHMENTS;
+    private float[] mount;
+    private static final ModelAttachment[] NO_ATTACHMENTS = new ModelAttachment[0];
+
+    private int lodLevel;
 
     public ModelInstance(Model model) {
+        this(model, 3);
+    }
+
+    /**
+     * @param model The model to instantiate.
+     * @param bufferCount Number of published frame buffers (2 = double, 3 = triple buffering).
+     */
+    public ModelInstance(Model model, int bufferCount) {
+        if (bufferCount < 2 || bufferCount > 3) {
+            throw new IllegalArgumentException("bufferCount must be 2 or 3: " + bufferCount);
+        }
         this.model = model;
+        this.hierarchy = model.getHierarchy();
+        this.bufferCount = bufferCount;
+        this.pose = new float[hierarchy.size() * POSE_STRIDE];
+        this.world = new float[hierarchy.size() * M];
+        this.dirty = new boolean[hierarchy.size()];
+        this.changedEpoch = new int[hierarchy.size()];
+        this.worldBounds = new float[hierarchy.size() * 6];
+        this.boundsStale = new boolean[hierarchy.size()];
+        resetPose();
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public ModelHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Selects the geometry shown for this instance. Poses and world transforms are unaffected, so
+     * switching is free and can happen every tick.
+     *
+     * @param level An index below {@link Model#getLodCount()}; 0 is full detail.
+     */
+    public void setLodLevel(int level) {
+        if (level < 0 || level >= model.getLodCount()) {
+            throw new IllegalArgumentException("LOD level out of range: " + level);
+        }
+        this.lodLevel = level;
+    }
+
+    public int getLodLevel() {
+        return lodLevel;
+    }
+
+    /**
+     * @return The LOD currently selected by {@link #setLodLevel(int)}.
+     */
+    public ModelLod getLod() {
+        return model.getLod(lodLevel);
+    }
+
+    /**
+     * Moves this instance onto a new version of its model, e.g. after a reload. Nodes matched by
+     * the diff keep their pose offsets; new nodes start at rest. Every world matrix is recomputed on
+     * the next update, and the published frame buffer is replaced if the node count changed.
+     *
+     * <p>Must be called from the writer thread.</p>
+     *
+     * @throws IllegalArgumentException If the diff does not start from this instance's model.
+     */
+    public void rebind(ModelDiff diff) {
+        if (diff.getOldModel() != model) {
+            throw new IllegalArgumentException("Diff was computed against a different model");
+        }
+        Model next = diff.getNewModel();
+        ModelHierarchy nextHierarchy = next.getHierarchy();
+        int n = nextHierarchy.size();
+        int[] bones = new int[attachments.length];
+        for (int a = 0; a < attachments.length; a++) {
+            bones[a] = rebindBone(diff, attachments[a].getBone());
+        }
+        float[] nextPose = new float[n * POSE_STRIDE];
+        for (int i = 0; i < n; i++) {
+            int old = diff.getPreviousIndex(i);
+            if (old >= 0) {
+                System.arraycopy(pose, old * POSE_STRIDE, nextPose, i * POSE_STRIDE, POSE_STRIDE);
+            } else {
+                nextPose[i * POSE_STRIDE + 6] = 1f;
+                nextPose[i * POSE_STRIDE + 7] = 1f;
+                nextPose[i * POSE_STRIDE + 8] = 1f;
+            }
+        }
+
+        if (n != hierarchy.size()) {
+            this.world = new float[n * M];
+            this.dirty = new boolean[n];
+            this.changedEpoch = new int[n];
+            this.worldBounds = new float[n * 6];
+            this.boundsStale = new boolean[n];
+            if (published != null) {
+                published = new WorldTransformBuffer(n, bufferCount);
+            }
+        }
+        this.model = next;
+        this.hierarchy = nextHierarchy;
+        this.pose = nextPose;
+        if (lodLevel >= next.getLodCount()) {
+            lodLevel = 0;
+        }
+        Arrays.fill(dirty, true);
+        Arrays.fill(boundsStale, true);
+        anyDirty = true;
+        for (int a = 0; a < attachments.length; a++) {
+            attachments[a].setBone(bones[a]);
+        }
+    }
+
+    /**
+     * @return The new index of an attachment bone, matched through the diff or else by name.
+     */
+    private int rebindBone(ModelDiff diff, int bone) {
+        ModelHierarchy next = diff.getNewModel().getHierarchy();
+        for (int i = 0, n = next.size(); i < n; i++) {
+            if (diff.getPreviousIndex(i) == bone) {
+                return i;
+            }
+        }
+        String name = hierarchy.getNode(bone).getName();
+        int index = name != null ? next.indexOf(name) : -1;
+        if (index < 0) {
+            throw new IllegalArgumentException("Reload removes attachment bone '" + name + "'; detach it first");
+        }
+        return index;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Attachments
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Mounts a model on the first node named {@code bone}, with no offset.
+     *
+     * @see #attach(Model, int, Matrix4f)
+     */
+    public ModelAttachment attach(Model model, String bone) {
+        return attach(model, bone, null);
+    }
+
+    /**
+     * Mounts a model on the first node named {@code bone}.
+     *
+     * @throws IllegalArgumentException If no node has that name.
+     * @see #attach(Model, int, Matrix4f)
+     */
+    public ModelAttachment attach(Model model, String bone, Matrix4f offset) {
+        int index = hierarchy.indexOf(bone);
+        if (index < 0) {
+            throw new IllegalArgumentException("No node named '" + bone + "'");
+        }
+        return attach(model, index, offset);
+    }
+
+    /**
+     * Mounts a model on a node. The model gets its own instance, posed through
+     * {@link ModelAttachment#getInstance()}, whose roots hang from the node's world matrix times
+     * {@code offset}. Its world matrices are therefore in this instance's space, and it is
+     * evaluated whenever this instance is updated. Neither model is modified.
+     *
+     * @param offset A transform in the node's space (blocks), or null for none.
+     */
+    public ModelAttachment attach(Model model, int bone, Matrix4f offset) {
+        if (model == null) {
+            throw new IllegalArgumentException("model must not be null");
+        }
+        if (bone < 0 || bone >= hierarchy.size()) {
+            throw new IllegalArgumentException("Node index out of range: " + bone);
+        }
+        ModelInstance child = new ModelInstance(model, bufferCount);
+        child.mount = new float[M];
+        ModelAttachment attachment = new ModelAttachment(this, child, bone, offset);
+        ModelAttachment[] next = Arrays.copyOf(attachments, attachments.length + 1);
+        next[attachments.length] = attachment;
+        attachments = next;
+        return attachment;
+    }
+
+    /**
+     * Removes an attachment; its matrices leave the composite frame from the next publish.
+     *
+     * @throws IllegalArgumentException If it is not attached to this instance.
+     */
+    public void detach(ModelAttachment attachment) {
+        for (int a = 0; a < attachments.length; a++) {
+            if (attachments[a] == attachment) {
+                ModelAttachment[] next = new ModelAttachment[attachments.length - 1];
+                System.arraycopy(attachments, 0, next, 0, a);
+                System.arraycopy(attachments, a + 1, next, a, next.length - a);
+                attachments = next;
+                attachment.detached();
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Not attached to this instance");
+    }
+
+    /**
+     * @return The attachments in attach order, which is also their order in the composite frame.
+     */
+    public List<ModelAttachment> getAttachments() {
+        return List.of(attachments);
+    }
+
+    /**
+     * @return The number of matrices in the composite frame: this instance's nodes, followed by
+     *         the composite frame of each attachment in attach order.
+     */
+    public int getCompositeSize() {
+        int size = hierarchy.size();
+        for (ModelAttachment attachment : attachments) {
+            size += attachment.getInstance().getCompositeSize();
+        }
+        return size;
+    }
+
+    /**
+     * @return The index of an attachment's first matrix in this instance's composite frame.
+     * @throws IllegalArgumentException If it is not attached to this instance.
+     */
+    public int getCompositeOffset(ModelAttachment attachment) {
+        int offset = hierarchy.size();
+        for (ModelAttachment a : attachments) {
+            if (a == attachment) {
+                return offset;
+            }
+            offset += a.getInstance().getCompositeSize();
+        }
+        throw new IllegalArgumentException("Not attached to this instance");
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Pose
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Sets the animated position offset of a node, in Blockbench units (pixels), added to its rest position.
+     */
+    public void setPosePosition(int node, float x, float y, float z) {
+        int o = node * POSE_STRIDE;
+        pose[o] = x;
+        pose[o + 1] = y;
+        pose[o + 2] = z;
+        markDirty(node);
+    }
+
+    /**
+     * Sets the animated rotation of a node, in degrees (Euler XYZ), added to its rest rotation.
+     */
+    public void setPoseRotation(int node, float x, float y, float z) {
+        int o = node * POSE_STRIDE + 3;
+        pose[o] = x;
+        pose[o + 1] = y;
+        pose[o + 2] = z;
+        markDirty(node);
+    }
+
+    /**
+     * Stores the animated rotation of a node, in degrees (Euler XYZ).
+     */
+    public Vector3f getPoseRotation(int node, Vector3f dest) {
+        int o = node * POSE_STRIDE + 3;
+        return dest.set(pose[o], pose[o + 1], pose[o + 2]);
+    }
+
+    /**
+     * Sets the animated scale of a node, multiplied with its rest scale.
+     */
+    public void setPoseScale(int node, float x, float y, float z) {
+        int o = node * POSE_STRIDE + 6;
+        pose[o] = x;
+        pose[o + 1] = y;
+        pose[o + 2] = z;
+        markDirty(node);
     }
 
+    /**
+     * Resets every node to its rest pose.
+     */
+    public void resetPose() {
+        for (int o = 0; o < pose.length; o += POSE_STRIDE) {
+            for (int k = 0; k < 6; k++) {
+                pose[o + k] = 0f;
+            }
+            pose[o + 6] = 1f;
+            pose[o + 7] = 1f;
+            pose[o + 8] = 1f;
+        }
+        Arrays.fill(dirty, true);
+        anyDirty = true;
+    }
+
+    float[] pose() {
+        return pose;
+    }
+
+    /**
+     * @return The matrix this instance's roots hang from, or null when it is not attached.
+     */
+    float[] mount() {
+        return mount;
+    }
+
+    private void markDirty(int node) {
+        dirty[node] = true;
+        anyDirty = true;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Evaluation
+    // ----------------------------------------------------------------------------------
+
     /**
      * Computes the world transformation matrices for all nodes in the model.
-     * 
+     *
      * Transformation hierarchy:
      * - Each node has a pivot point (origin) in global Blockbench space
      * - Child offset = (child_pivot - parent_pivot) + position_offset
      * - Rotation happens around the node's own pivot (implicit local origin)
      * - Scale is applied after rotation
-     * 
+     *
      * Formula per node:
      * M_local = T(offset) * R(rotation) * S(scale)
      * M_world = M_parent * M_local
-     * 
+     *
      * @return A map of Node -> World Matrix
      */
     public Map<ModelNode, Matrix4f> computeWorldTransforms() {
-        Map<ModelNode, Matrix4f> results = new HashMap<>();
-        
-        // Identity matrix for root level
-        Matrix4f identityMatrix = new Matrix4f().identity();
-        Vector3f worldOrigin = new Vector3f(0, 0, 0);
-
-        for (ModelNode root : model.getRoots()) {
-            computeRecursive(root, identityMatrix, worldOrigin, results);
+        updateWorldTransforms();
+        int n = hierarchy.size();
+        Map<ModelNode, Matrix4f> results = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            results.put(hierarchy.getNode(i), new Matrix4f().set(world, i * M));
         }
-
         return results;
     }
 
@@ -61,54 +423,302 @@ public class ModelInstance {
     }
 
     /**
-     * Recursively computes world matrices for a node and its children.
-     * 
-     * @param node The current node
-     * @param parentMatrix The accumulated world matrix of the parent
-     * @param parentPivot The pivot point of the parent in Blockbench global space
-     * @param results Output map to store computed matrices
-     */
-    private void computeRecursive(
-        ModelNode node, 
-        Matrix4f parentMatrix, 
-        Vector3f parentPivot, 
-        Map<ModelNode, Matrix4f> results
-    ) {
-        // Get node properties
-        Vector3f position = node.getPosition();  // Animation/offset position
-        Vector3f pivot = node.getOrigin();       // Pivot point (global Blockbench coords)
-        Vector3f rotation = node.getRotation();  // Euler angles in degrees
-        Vector3f scale = node.getScale();        // Scale factors
-
-        // STEP 1: Calculate offset from parent pivot to this node's pivot
-        // offset = (child_pivot - parent_pivot) + position
-        Vector3f offset = new Vector3f(pivot)
-            .sub(parentPivot)
-            .add(position);
-        
-        // Convert from Blockbench pixels to Minecraft blocks
-        offset.mul(SCALE_FACTOR);
-
-        // STEP 2: Build world transformation matrix with pivot-centered rotation
-        Vector3f pivotScaled = new Vector3f(pivot).mul(SCALE_FACTOR);
-        Matrix4f worldMatrix = new Matrix4f(parentMatrix);
-        worldMatrix.translate(offset);
-        worldMatrix.translate(pivotScaled);
-        worldMatrix.rotateXYZ(
-            (float) Math.toRadians(rotation.x),
-            (float) Math.toRadians(-rotation.y),
-            (float) Math.toRadians(rotation.z)
+     * Recomputes the world matrices of nodes whose pose changed since the last update, together with
+     * their descendants. Results are kept inside the instance; read them with
+     * {@link #getWorldTransform(int, Matrix4f)}, {@link #copyWorldTransforms(float[])} or publish them
+     * with {@link #publishWorldTransforms()}.
+     */
+    public void updateWorldTransforms() {
+        int evaluated = anyDirty ? evaluateDirty() : 0;
+        for (ModelAttachment attachment : attachments) {
+            ModelInstance child = attachment.getInstance();
+            int bone = attachment.getBone();
+            if (attachment.isMountStale(changedEpoch[bone])) {
+                attachment.computeMount(world, bone * M, child.mount);
+                attachment.mounted(changedEpoch[bone]);
+                child.markRootsDirty();
+            }
+            child.updateWorldTransforms();
+            evaluated += child.lastEvaluated;
+        }
+        lastEvaluated = evaluated;
+    }
+
+    /**
+     * @return The node matrices the last {@link #updateWorldTransforms()} recomputed, including
+     *         those of attached models; 0 if nothing had changed.
+     */
+    public int getLastEvaluatedCount() {
+        return lastEvaluated;
+    }
+
+    private void markRootsDirty() {
+        for (int i = 0, n = hierarchy.size(); i < n; i++) {
+            if (hierarchy.getParent(i) < 0) {
+                dirty[i] = true;
+            }
+        }
+        anyDirty = true;
+    }
+
+    private int evaluateDirty() {
+        TridimensityMetrics metrics = MetricsRegistry.get();
+        boolean timed = metrics.isEnabled();
+        long start = timed ? System.nanoTime() : 0L;
+        TransformBatchEvent event = new TransformBatchEvent();
+        event.begin();
+        int evaluated = 0;
+        int epoch = ++updateEpoch;
+        Matrix4f m = scratch;
+        for (int i = 0, n = hierarchy.size(); i < n; i++) {
+            int parent = hierarchy.getParent(i);
+            if (!dirty[i] && (parent < 0 || changedEpoch[parent] != epoch)) {
+                continue;
+            }
+            evaluateNode(hierarchy, i, pose, world, mount, m);
+            dirty[i] = false;
+            changedEpoch[i] = epoch;
+            boundsStale[i] = true;
+            evaluated++;
+        }
+        anyDirty = false;
+        if (timed) {
+            metrics.transformsEvaluated(evaluated, System.nanoTime() - start);
+        }
+        event.complete(hierarchy.size(), evaluated);
+        return evaluated;
+    }
+
+    /**
+     * Computes the world matrix of one node from its parent's world matrix, which must already be in {@code world}.
+     *
+     * @param pose Per-node pose offsets, or null for the rest pose.
+     * @param mount The matrix that root nodes hang from, or null for identity.
+     */
+    static void evaluateNode(ModelHierarchy hierarchy, int i, float[] pose, float[] world, float[] mount, Matrix4f m) {
+        int parent = hierarchy.getParent(i);
+        if (parent >= 0) {
+            m.set(world, parent * M);
+        } else if (mount != null) {
+            m.set(mount);
+        } else {
+            m.identity();
+        }
+        applyLocal(hierarchy, i, pose, m);
+        m.get(world, i * M);
+    }
+
+    /**
+     * Multiplies {@code m}, the matrix of the node's parent, by the node's local transform.
+     *
+     * @param pose Per-node pose offsets, or null for the rest pose.
+     */
+    static void applyLocal(ModelHierarchy hierarchy, int i, float[] pose, Matrix4f m) {
+        float[] origins = hierarchy.origins();
+        float[] parentOrigins = hierarchy.parentOrigins();
+        float[] positions = hierarchy.positions();
+        float[] rotations = hierarchy.rotations();
+        float[] scales = hierarchy.scales();
+        int v = i * 3;
+        int p = i * POSE_STRIDE;
+
+        float posX = positions[v], posY = positions[v + 1], posZ = positions[v + 2];
+        float rx = rotations[v], ry = rotations[v + 1], rz = rotations[v + 2];
+        float sx = scales[v], sy = scales[v + 1], sz = scales[v + 2];
+        if (pose != null) {
+            posX += pose[p];
+            posY += pose[p + 1];
+            posZ += pose[p + 2];
+            rx += pose[p + 3];
+            ry += pose[p + 4];
+            rz += pose[p + 5];
+            sx *= pose[p + 6];
+            sy *= pose[p + 7];
+            sz *= pose[p + 8];
+        }
+
+        // offset = (child_pivot - parent_pivot) + position, converted to blocks
+        float ox = (origins[v] - parentOrigins[v] + posX) * SCALE_FACTOR;
+        float oy = (origins[v + 1] - parentOrigins[v + 1] + posY) * SCALE_FACTOR;
+        float oz = (origins[v + 2] - parentOrigins[v + 2] + posZ) * SCALE_FACTOR;
+        float px = origins[v] * SCALE_FACTOR;
+        float py = origins[v + 1] * SCALE_FACTOR;
+        float pz = origins[v + 2] * SCALE_FACTOR;
+
+        m.translate(ox, oy, oz);
+        m.translate(px, py, pz);
+        m.rotateXYZ(
+            (float) Math.toRadians(rx),
+            (float) Math.toRadians(-ry),
+            (float) Math.toRadians(rz)
         );
-        worldMatrix.scale(scale);
-        worldMatrix.translate(new Vector3f(pivotScaled).mul(-1f));
-        
-        // Store result
-        results.put(node, worldMatrix);
+        m.scale(sx, sy, sz);
+        m.translate(-px, -py, -pz);
+    }
+
+    /**
+     * Copies the world matrix of a node from the last {@link #updateWorldTransforms()}.
+     */
+    public Matrix4f getWorldTransform(int node, Matrix4f dest) {
+        return dest.set(world, node * M);
+    }
+
+    /**
+     * Copies all world matrices from the last {@link #updateWorldTransforms()} into {@code dest},
+     * 16 floats per node in {@link ModelHierarchy} order.
+     */
+    public void copyWorldTransforms(float[] dest) {
+        System.arraycopy(world, 0, dest, 0, world.length);
+    }
+
+    /**
+     * Copies the composite frame from the last {@link #updateWorldTransforms()} into {@code dest}:
+     * this instance's matrices, then each attachment's composite frame in attach order.
+     *
+     * @param dest Destination, at least {@code getCompositeSize() * 16} floats.
+     */
+    public void copyCompositeTransforms(float[] dest) {
+        copyComposite(dest, 0);
+    }
 
-        // STEP 4: Recurse to children
-        // Pass this node's world matrix and pivot as the new parent context
-        for (ModelNode child : node.getChildren()) {
-            computeRecursive(child, worldMatrix, pivot, results);
+    private int copyComposite(float[] dest, int offset) {
+        System.arraycopy(world, 0, dest, offset, world.length);
+        offset += world.length;
+        for (ModelAttachment attachment : attachments) {
+            offset = attachment.getInstance().copyComposite(dest, offset);
         }
+        return offset;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Locators
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * @return The number of locators, see {@link ModelHierarchy#getLocatorCount()}.
+     */
+    public int getLocatorCount() {
+        return hierarchy.getLocatorCount();
+    }
+
+    /**
+     * Stores the world matrix of a locator from the last {@link #updateWorldTransforms()}.
+     */
+    public Matrix4f getLocatorTransform(int locator, Matrix4f dest) {
+        return dest.set(world, hierarchy.getLocatorNode(locator) * M)
+                .mulAffine(locatorScratch.set(hierarchy.locatorLocals(), locator * M));
+    }
+
+    /**
+     * Writes the world position (blocks) and orientation of every locator from the last
+     * {@link #updateWorldTransforms()} into {@code dest}, {@link #LOCATOR_STRIDE} floats per locator
+     * in {@link ModelHierarchy} locator order. Orientations ignore node scale.
+     *
+     * @param dest Destination, at least {@code getLocatorCount() * LOCATOR_STRIDE} floats; reuse it every tick.
+     */
+    public void copyLocatorTransforms(float[] dest) {
+        int[] nodes = hierarchy.locatorNodes();
+        float[] locals = hierarchy.locatorLocals();
+        Matrix4f m = scratch;
+        Matrix4f local = locatorScratch;
+        Quaternionf q = orientation;
+        for (int l = 0, o = 0; l < nodes.length; l++, o += LOCATOR_STRIDE) {
+            m.set(world, nodes[l] * M).mulAffine(local.set(locals, l * M));
+            m.getNormalizedRotation(q);
+            dest[o] = m.m30();
+            dest[o + 1] = m.m31();
+            dest[o + 2] = m.m32();
+            dest[o + 3] = q.x;
+            dest[o + 4] = q.y;
+            dest[o + 5] = q.z;
+            dest[o + 6] = q.w;
+        }
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Bounds
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Stores the world-space bounds (blocks) of a node's own cubes, as of the last transform update.
+     * Empty if the node has no cubes.
+     */
+    public Aabb getNodeWorldBounds(int node, Aabb dest) {
+        refreshBounds(node);
+        return dest.set(worldBounds, node * 6);
+    }
+
+    /**
+     * Stores the world-space bounds (blocks) of all cubes, as of the last transform update.
+     * Only nodes recomputed since the previous call are re-transformed; the rest come from cache.
+     */
+    public Aabb getWorldBounds(Aabb dest) {
+        dest.setEmpty();
+        for (int i = 0, n = hierarchy.size(); i < n; i++) {
+            refreshBounds(i);
+            dest.union(boundsScratch.set(worldBounds, i * 6));
+        }
+        return dest;
+    }
+
+    private void refreshBounds(int node) {
+        if (!boundsStale[node]) {
+            return;
+        }
+        boundsScratch.set(hierarchy.localBounds(), node * 6)
+            .transform(world, node * M, boundsScratch)
+            .get(worldBounds, node * 6);
+        boundsStale[node] = false;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Publication
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Recomputes the world matrices and publishes them as a new frame for reader threads. With
+     * attachments the frame is the composite frame; the frame buffer is replaced when its size changes.
+     *
+     * @return The sequence number of the published frame.
+     */
+    public long publishWorldTransforms() {
+        updateWorldTransforms();
+        float[] frame = world;
+        int size = hierarchy.size();
+        if (attachments.length != 0) {
+            size = getCompositeSize();
+            if (compositeFrame == null || compositeFrame.length != size * M) {
+                compositeFrame = new float[size * M];
+            }
+            copyCompositeTransforms(compositeFrame);
+            frame = compositeFrame;
+        }
+        WorldTransformBuffer buffer = published;
+        if (buffer == null || buffer.getMatrixCount() != size) {
+            buffer = new WorldTransformBuffer(size, bufferCount);
+            published = buffer;
+        }
+        return buffer.publish(frame);
+    }
+
+    /**
+     * Copies the latest published frame. Safe to call from any thread.
+     *
+     * @param dest Destination, at least {@code getCompositeSize() * 16} floats.
+     * @return The frame sequence number, or -1 if nothing has been published yet.
+     */
+    public long readPublishedTransforms(float[] dest) {
+        WorldTransformBuffer buffer = published;
+        return buffer != null ? buffer.read(dest) : -1;
+    }
+
+    /**
+     * Copies a single node matrix from the latest published frame. Safe to call from any thread.
+     *
+     * @return The frame sequence number, or -1 if nothing has been published yet.
+     */
+    public long readPublishedTransform(int node, Matrix4f dest) {
+        WorldTransformBuffer buffer = published;
+        return buffer != null ? buffer.read(node, dest) : -1;
     }
 }
@@ -0,0 +1,82 @@
+package com.tridimensity.model;
+
+import org.joml.Vector3f;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A Blockbench locator or null object: a named point that moves with the group it belongs to,
+ * e.g. a particle spawn point or a seat. It has no geometry.
+ *
+ * <p>Locators are immutable, so identical ones can be shared between models.</p>
+ */
+public final class ModelLocator {
+
+    public enum Kind {
+        LOCATOR,
+        NULL_OBJECT
+    }
+
+    private final UUID uuid;
+    private final String name;
+    private final Kind kind;
+    private final Vector3f position; // Model space, Blockbench coordinates (pixels)
+    private final Vector3f rotation; // Euler angles in degrees
+
+    public ModelLocator(UUID uuid, String name, Kind kind, Vector3f position, Vector3f rotation) {
+        this.uuid = uuid != null ? uuid : UUID.randomUUID();
+        this.name = name;
+        this.kind = kind != null ? kind : Kind.LOCATOR;
+        this.position = position != null ? new Vector3f(position) : new Vector3f(0, 0, 0);
+        this.rotation = rotation != null ? new Vector3f(rotation) : new Vector3f(0, 0, 0);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The position in Blockbench coordinates (pixels), in the same space as cube bounds.
+     */
+    public Vector3f getPosition() {
+        return new Vector3f(position);
+    }
+
+    /**
+     * @return Rotation in degrees (Euler XYZ); always zero for null objects.
+     */
+    public Vector3f getRotation() {
+        return new Vector3f(rotation);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ModelLocator other)) {
+            return false;
+        }
+        return uuid.equals(other.uuid) && Objects.equals(name, other.name) && kind == other.kind
+                && position.equals(other.position) && rotation.equals(other.rotation);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(uuid, name, kind, position, rotation);
+    }
+
+    @Override
+    public String toString() {
+        return "ModelLocator{" + name + ", " + kind + ", " + position + "}";
+    }
+}
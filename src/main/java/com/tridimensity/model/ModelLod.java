@@ -0,0 +1,65 @@
+package com.tridimensity.model;
+
+import java.util.Arrays;
+
+/**
+ * A simplified variant of a {@link Model} used at a distance.
+ *
+ * <p>Instances always animate the full source hierarchy; an LOD only changes which geometry is
+ * shown. Each LOD node maps to the source node whose world matrix places its cubes, so a renderer
+ * reads {@code instance.getWorldTransform(lod.getSourceNode(i), m)} for the cubes of LOD node {@code i}.</p>
+ */
+public final class ModelLod {
+    private final Model model;
+    private final int[] sourceNodes;
+
+    /**
+     * @param model The simplified model.
+     * @param sourceNodes For each node of {@code model} in {@link ModelHierarchy} order, the index of
+     *                    the source node whose world matrix applies to it.
+     */
+    public ModelLod(Model model, int[] sourceNodes) {
+        if (sourceNodes.length != model.getHierarchy().size()) {
+            throw new IllegalArgumentException("Expected " + model.getHierarchy().size()
+                    + " source node indices, got " + sourceNodes.length);
+        }
+        this.model = model;
+        this.sourceNodes = sourceNodes.clone();
+    }
+
+    /**
+     * @return The full-detail LOD of a model, mapping every node to itself.
+     */
+    static ModelLod full(Model model) {
+        int[] identity = new int[model.getHierarchy().size()];
+        Arrays.setAll(identity, i -> i);
+        return new ModelLod(model, identity);
+    }
+
+    public Model getModel() {
+        return model;
+    }
+
+    public int getNodeCount() {
+        return sourceNodes.length;
+    }
+
+    /**
+     * @return The source node index whose world matrix applies to LOD node {@code lodNode}.
+     */
+    public int getSourceNode(int lodNode) {
+        return sourceNodes[lodNode];
+    }
+
+    /**
+     * @return The total number of cubes in this LOD.
+     */
+    public int getCubeCount() {
+        ModelHierarchy hierarchy = model.getHierarchy();
+        int count = 0;
+        for (int i = 0; i < hierarchy.size(); i++) {
+            count += hierarchy.getNode(i).getCubes().size();
+        }
+        return count;
+    }
+}
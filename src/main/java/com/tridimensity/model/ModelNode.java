@@ -19,16 +19,25 @@ public class ModelNode {
     private final Vector3f scale;    // Scale (optional, default 1)
     private final List<ModelNode> children;
     private final List<ModelCube> cubes;
+    private final List<ModelLocator> locators;
 
     public ModelNode(String name, Vector3f origin, Vector3f position, Vector3f rotation, Vector3f scale) {
+        this(UUID.randomUUID(), name, origin, position, rotation, scale); // Internal ID
+    }
+
+    /**
+     * Creates a node with a known UUID, e.g. when copying a node or keeping the group UUID from a file.
+     */
+    public ModelNode(UUID uuid, String name, Vector3f origin, Vector3f position, Vector3f rotation, Vector3f scale) {
         this.name = name;
-        this.uuid = UUID.randomUUID(); // Internal ID
+        this.uuid = uuid != null ? uuid : UUID.randomUUID();
         this.origin = origin != null ? origin : new Vector3f(0, 0, 0);
         this.position = position != null ? position : new Vector3f(0, 0, 0);
         this.rotation = rotation != null ? rotation : new Vector3f(0, 0, 0);
         this.scale = scale != null ? scale : new Vector3f(1, 1, 1);
         this.children = new ArrayList<>();
         this.cubes = new ArrayList<>();
+        this.locators = new ArrayList<>();
     }
 
     public void addChild(ModelNode child) {
@@ -39,6 +48,10 @@ public class ModelNode {
         this.cubes.add(cube);
     }
 
+    public void addLocator(ModelLocator locator) {
+        this.locators.add(locator);
+    }
+
     public String getName() {
         return name;
     }
@@ -76,4 +89,11 @@ public class ModelNode {
     public List<ModelCube> getCubes() {
         return new ArrayList<>(cubes);
     }
+
+    /**
+     * @return The locators and null objects that move with this node.
+     */
+    public List<ModelLocator> getLocators() {
+        return new ArrayList<>(locators);
+    }
 }
@@ -0,0 +1,125 @@
+package com.tridimensity.model;
+
+/**
+ * Metadata of an entry in a Blockbench model's {@code textures} array.
+ *
+ * <p>Embedded images are not decoded when the model loads. The texture keeps the source data URL
+ * and the character range of its base64 payload; {@code com.tridimensity.texture.TexturePool}
+ * decodes that range on demand. The loader hands every model that embeds the same data URL one
+ * shared source string.</p>
+ */
+public class ModelTexture {
+    private static final String BASE64_MARKER = ";base64,";
+
+    private final String name;
+    private final String id;
+    private final String uuid;
+    private final int width;
+    private final int height;
+    private final int uvWidth;
+    private final int uvHeight;
+    private final String source;
+    private final int dataOffset;
+    private final int dataLength;
+    private volatile String contentKey;
+
+    /**
+     * @param source The texture's {@code source} data URL, or null for an external texture.
+     */
+    public ModelTexture(String name, String id, String uuid, int width, int height, int uvWidth, int uvHeight, String source) {
+        this.name = name;
+        this.id = id;
+        this.uuid = uuid;
+        this.width = width;
+        this.height = height;
+        this.uvWidth = uvWidth;
+        this.uvHeight = uvHeight;
+        this.source = source;
+
+        int marker = source != null && source.startsWith("data:") ? source.indexOf(BASE64_MARKER) : -1;
+        int comma = source != null ? source.indexOf(',') : -1;
+        if (marker >= 0 && marker + BASE64_MARKER.length() - 1 == comma) {
+            this.dataOffset = marker + BASE64_MARKER.length();
+            this.dataLength = source.length() - dataOffset;
+        } else {
+            this.dataOffset = -1;
+            this.dataLength = 0;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The texture variable id ({@code "0"}, {@code "1"}, ...), or null.
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return The image width in pixels, or 0 if the file does not say.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The width of the UV space that face UVs are expressed in.
+     */
+    public int getUvWidth() {
+        return uvWidth;
+    }
+
+    public int getUvHeight() {
+        return uvHeight;
+    }
+
+    /**
+     * @return True if the source is a base64 data URL.
+     */
+    public boolean isEmbedded() {
+        return dataOffset >= 0;
+    }
+
+    /**
+     * @return The source data URL, or null. Embedded payloads start at {@link #getDataOffset()}.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return The index of the first base64 character in {@link #getSource()}, or -1 if not embedded.
+     */
+    public int getDataOffset() {
+        return dataOffset;
+    }
+
+    /**
+     * @return The number of base64 characters in {@link #getSource()}.
+     */
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * @return The content hash recorded the first time the payload was decoded, or null.
+     */
+    public String getContentKey() {
+        return contentKey;
+    }
+
+    public void setContentKey(String contentKey) {
+        this.contentKey = contentKey;
+    }
+}
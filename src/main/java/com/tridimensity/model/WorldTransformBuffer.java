@@ -0,0 +1,128 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free hand-off of world transform frames from one writer thread to any number of reader threads.
+ *
+ * <p>The buffer keeps two or three frame slots. The writer always fills a slot that is not the
+ * latest published one and then swaps it in, so it never waits for readers. Each slot carries a
+ * sequence stamp (odd while being written, even once complete). Readers copy the latest slot and
+ * re-check its stamp afterwards; if the writer lapped them mid-copy the read is retried, so a reader
+ * only ever returns a complete, consistent frame.</p>
+ *
+ * <p>Frames are laid out as consecutive column-major 4x4 matrices, one per node in
+ * {@link ModelHierarchy} order.</p>
+ */
+public final class WorldTransformBuffer {
+    public static final int FLOATS_PER_MATRIX = 16;
+
+    private final float[][] slots;
+    private final AtomicLongArray stamps;
+    private final int frameLength;
+
+    // Index of the most recently published slot, -1 until the first publish
+    private volatile int latest = -1;
+
+    // Writer-confined
+    private long sequence;
+
+    /**
+     * @param matrixCount Number of matrices per frame.
+     * @param bufferCount 2 for double buffering, 3 for triple buffering.
+     */
+    public WorldTransformBuffer(int matrixCount, int bufferCount) {
+        if (bufferCount < 2 || bufferCount > 3) {
+            throw new IllegalArgumentException("bufferCount must be 2 or 3: " + bufferCount);
+        }
+        this.frameLength = matrixCount * FLOATS_PER_MATRIX;
+        this.slots = new float[bufferCount][frameLength];
+        this.stamps = new AtomicLongArray(bufferCount);
+    }
+
+    public int getMatrixCount() {
+        return frameLength / FLOATS_PER_MATRIX;
+    }
+
+    /**
+     * Copies a complete frame into the next free slot and makes it the latest frame.
+     * Must only be called from a single writer thread.
+     *
+     * @param frame Source matrices, at least {@code matrixCount * 16} floats.
+     * @return The sequence number of the published frame (starting at 1).
+     */
+    public long publish(float[] frame) {
+        int slot = (latest + 1) % slots.length;
+        long seq = ++sequence;
+
+        stamps.set(slot, (seq << 1) - 1);
+        // Keep the frame writes from floating above the "writing" stamp
+        VarHandle.storeStoreFence();
+        System.arraycopy(frame, 0, slots[slot], 0, frameLength);
+        stamps.set(slot, seq << 1);
+
+        latest = slot;
+        return seq;
+    }
+
+    /**
+     * Copies the latest published frame. Never blocks the writer.
+     *
+     * @param dest Destination, at least {@code matrixCount * 16} floats.
+     * @return The sequence number of the copied frame, or -1 if nothing has been published yet.
+     */
+    public long read(float[] dest) {
+        while (true) {
+            int slot = latest;
+            if (slot < 0) {
+                return -1;
+            }
+            long before = stamps.get(slot);
+            if ((before & 1L) == 0) {
+                System.arraycopy(slots[slot], 0, dest, 0, frameLength);
+                VarHandle.loadLoadFence();
+                if (stamps.get(slot) == before) {
+                    return before >>> 1;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Copies a single matrix out of the latest published frame.
+     *
+     * @param index Matrix (node) index.
+     * @param dest Destination matrix.
+     * @return The sequence number of the frame the matrix came from, or -1 if nothing has been published yet.
+     */
+    public long read(int index, Matrix4f dest) {
+        int offset = index * FLOATS_PER_MATRIX;
+        while (true) {
+            int slot = latest;
+            if (slot < 0) {
+                return -1;
+            }
+            long before = stamps.get(slot);
+            if ((before & 1L) == 0) {
+                dest.set(slots[slot], offset);
+                VarHandle.loadLoadFence();
+                if (stamps.get(slot) == before) {
+                    return before >>> 1;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * @return The sequence number of the latest published frame, or -1 if nothing has been published yet.
+     */
+    public long getLatestSequence() {
+        int slot = latest;
+        return slot < 0 ? -1 : stamps.get(slot) >>> 1;
+    }
+}
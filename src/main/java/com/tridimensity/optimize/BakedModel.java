@@ -0,0 +1,106 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import org.joml.Matrix4f;
+
+/**
+ * Result of {@link HierarchyBaker}: a model with static nodes folded away, plus the mapping needed
+ * to find every source node in it.
+ *
+ * <p>Kept nodes map one to one. A folded node is carried by its nearest kept ancestor: its cubes
+ * now live there and its world matrix is the carrier's world matrix followed by a fixed translation.</p>
+ */
+public final class BakedModel {
+    private static final float SCALE_FACTOR = 1.0f / 16.0f;
+
+    private final Model source;
+    private final Model model;
+    private final int[] bakedToSource;
+    private final int[] carrier;
+    private final boolean[] folded;
+    private final float[] offsets;
+
+    BakedModel(Model source, Model model, int[] bakedToSource, int[] carrier, boolean[] folded, float[] offsets) {
+        this.source = source;
+        this.model = model;
+        this.bakedToSource = bakedToSource;
+        this.carrier = carrier;
+        this.folded = folded;
+        this.offsets = offsets;
+    }
+
+    public Model getSourceModel() {
+        return source;
+    }
+
+    /**
+     * @return The baked model; instantiate and pose this one.
+     */
+    public Model getModel() {
+        return model;
+    }
+
+    /**
+     * @return The number of source nodes that were folded away.
+     */
+    public int getFoldedCount() {
+        return folded.length - bakedToSource.length;
+    }
+
+    public int getSourceNode(int bakedIndex) {
+        return bakedToSource[bakedIndex];
+    }
+
+    public boolean isFolded(int sourceIndex) {
+        return folded[sourceIndex];
+    }
+
+    /**
+     * @return The baked node that carries the source node: the node itself if it was kept, otherwise
+     *         its nearest kept ancestor, or -1 for a folded root without one.
+     */
+    public int getCarrier(int sourceIndex) {
+        return carrier[sourceIndex];
+    }
+
+    /**
+     * Resolves a source node name in the baked model.
+     *
+     * @return The baked index of the node, or of its carrier if it was folded; -1 if unknown or uncarried.
+     */
+    public int indexOf(String name) {
+        int sourceIndex = source.getHierarchy().indexOf(name);
+        return sourceIndex >= 0 ? carrier[sourceIndex] : -1;
+    }
+
+    /**
+     * Computes the world matrix the source node would have, from an instance of the baked model.
+     */
+    public Matrix4f getWorldTransform(ModelInstance instance, int sourceIndex, Matrix4f dest) {
+        if (instance.getHierarchy() != model.getHierarchy()) {
+            throw new IllegalArgumentException("Instance does not belong to the baked model");
+        }
+        int o = sourceIndex * 3;
+        float x = offsets[o] * SCALE_FACTOR, y = offsets[o + 1] * SCALE_FACTOR, z = offsets[o + 2] * SCALE_FACTOR;
+        int c = carrier[sourceIndex];
+        if (c < 0) {
+            return dest.translation(x, y, z);
+        }
+        instance.getWorldTransform(c, dest);
+        return folded[sourceIndex] ? dest.translate(x, y, z) : dest;
+    }
+
+    /**
+     * @see #getWorldTransform(ModelInstance, int, Matrix4f)
+     */
+    public Matrix4f getWorldTransform(ModelInstance instance, String name, Matrix4f dest) {
+        ModelHierarchy hierarchy = source.getHierarchy();
+        int sourceIndex = hierarchy.indexOf(name);
+        if (sourceIndex < 0) {
+            throw new IllegalArgumentException("Unknown node: " + name);
+        }
+        return getWorldTransform(instance, sourceIndex, dest);
+    }
+}
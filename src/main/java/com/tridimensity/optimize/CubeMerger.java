@@ -0,0 +1,330 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.GeometryStore;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelLocator;
+import com.tridimensity.model.ModelNode;
+
+import java.util.Arrays;
+
+/**
+ * Reduces the cube count of a model without changing how it renders or animates.
+ *
+ * <p>Works per {@link ModelNode}, so every cube keeps the transform of its node:</p>
+ * <ul>
+ *   <li>Cubes fully enclosed by a closed (six-faced) cube of the same node are dropped.</li>
+ *   <li>Two cubes that touch along one axis and have identical extents on the other two are merged,
+ *       provided every face uses the same texture and the UVs of the side faces continue seamlessly
+ *       at the same texel density. The outer caps keep their original UVs.</li>
+ * </ul>
+ *
+ * <p>The source model is not modified. Nodes, their UUIDs and their order are preserved, so node
+ * indices and world transforms of the result are identical to the source.</p>
+ *
+ * <p>Each node's cubes are worked on as indices into a scratch {@link GeometryStore}, and only the
+ * survivors are copied into the result's store. A merger reuses its scratch state and is not thread-safe.</p>
+ */
+public class CubeMerger {
+    private static final float EPSILON = 1e-4f;
+    private static final int ALL_FACES = 0x3F;
+
+    /**
+     * Faces indexed by {@code axis * 2 + side}, where side 0 faces the negative direction.
+     */
+    static final FaceDirection[] FACES = {
+            FaceDirection.WEST, FaceDirection.EAST, FaceDirection.DOWN, FaceDirection.UP, FaceDirection.NORTH, FaceDirection.SOUTH};
+
+    /**
+     * For each face of {@link #FACES} and world axis: 0 for the face normal, otherwise {@code ±(component + 1)}
+     * where component 0 is U and 1 is V, and the sign tells whether the coordinate grows along the axis.
+     */
+    private static final int[][] UV_AXES = {
+            {0, -2, 1},   // west: U along +Z, V along -Y
+            {0, -2, -1},  // east: U along -Z, V along -Y
+            {1, 0, -2},   // down: U along +X, V along -Z
+            {1, 0, 2},    // up: U along +X, V along +Z
+            {-1, -2, 0},  // north: U along -X, V along -Y
+            {1, -2, 0},   // south: U along +X, V along -Y
+    };
+
+    private final GeometryStore.Builder scratch = GeometryStore.builder(16);
+    private final GeometryStore work = scratch.getStore();
+    // The node's current cubes, as scratch indices
+    private int[] cubes = new int[16];
+    private int count;
+    // Stitched UV rectangles of a pending merge, 4 per entry of FACES
+    private final float[] stitched = new float[FACES.length * 4];
+    private final float[] lowUv = new float[4];
+    private final float[] highUv = new float[4];
+
+    /**
+     * Optimizes a copy of the model.
+     *
+     * @param report Receives cube counts; may be null.
+     * @return A new model sharing no nodes with the source.
+     */
+    public Model merge(Model model, MergeReport report) {
+        MergeReport counts = report != null ? report : new MergeReport();
+        ModelHierarchy hierarchy = model.getHierarchy();
+        ModelNode[] copies = new ModelNode[hierarchy.size()];
+        GeometryStore.Builder geometry = GeometryStore.builder(model.getGeometry().getCubeCount());
+        Model result = new Model(geometry.getStore());
+        result.setTextures(model.getTextures());
+        // Pre-order visits children in order, so appending to the copied parent keeps sibling order
+        for (int i = 0; i < hierarchy.size(); i++) {
+            ModelNode source = hierarchy.getNode(i);
+            ModelNode copy = copyNode(source);
+            begin();
+            for (ModelCube cube : source.getCubes()) {
+                add(scratch.copy(cube.getGeometry(), cube.getGeometryIndex(), 0f, 0f, 0f));
+            }
+            mergeInto(copy, geometry, counts);
+            for (ModelLocator locator : source.getLocators()) {
+                copy.addLocator(locator);
+            }
+            copies[i] = copy;
+            int parent = hierarchy.getParent(i);
+            if (parent < 0) {
+                result.addRoot(copy);
+            } else {
+                copies[parent].addChild(copy);
+            }
+        }
+        geometry.build();
+        return result;
+    }
+
+    /**
+     * @return A node with the same UUID and transform as {@code source}, without children or cubes.
+     */
+    static ModelNode copyNode(ModelNode source) {
+        return new ModelNode(source.getUuid(), source.getName(), source.getOrigin(), source.getPosition(),
+                source.getRotation(), source.getScale());
+    }
+
+    /**
+     * Starts a node: empties the scratch store, which the caller then fills and registers with {@link #add}.
+     */
+    GeometryStore.Builder begin() {
+        scratch.clear();
+        count = 0;
+        return scratch;
+    }
+
+    /**
+     * Adds cube {@code cube} of the scratch store to the node being merged.
+     */
+    void add(int cube) {
+        if (count == cubes.length) {
+            cubes = Arrays.copyOf(cubes, count * 2);
+        }
+        cubes[count++] = cube;
+    }
+
+    /**
+     * Merges the cubes added since {@link #begin()} and adds the survivors to {@code node}, stored in {@code geometry}.
+     */
+    void mergeInto(ModelNode node, GeometryStore.Builder geometry, MergeReport report) {
+        int before = count;
+        int merges = 0;
+        int enclosed = 0;
+        while (true) {
+            enclosed += removeEnclosed();
+            int pass = mergePass();
+            if (pass == 0) {
+                break;
+            }
+            merges += pass;
+        }
+        report.record(before, count, merges, enclosed);
+        for (int c = 0; c < count; c++) {
+            node.addCube(geometry.getStore().getCube(geometry.copy(work, cubes[c], 0f, 0f, 0f)));
+        }
+    }
+
+    private int mergePass() {
+        int merges = 0;
+        for (int i = 0; i < count; i++) {
+            for (int j = i + 1; j < count; j++) {
+                int merged = tryMerge(cubes[i], cubes[j]);
+                if (merged >= 0) {
+                    cubes[i] = merged;
+                    remove(j);
+                    merges++;
+                    // Re-test the grown cube against everything after it
+                    j = i;
+                }
+            }
+        }
+        return merges;
+    }
+
+    private int removeEnclosed() {
+        int removed = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            for (int j = 0; j < count; j++) {
+                if (i != j && encloses(cubes[j], cubes[i], j < i)) {
+                    remove(i);
+                    removed++;
+                    break;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private void remove(int position) {
+        System.arraycopy(cubes, position + 1, cubes, position, count - position - 1);
+        count--;
+    }
+
+    /**
+     * @param outerFirst Whether the outer cube comes first; breaks ties between identical cubes.
+     */
+    private boolean encloses(int outer, int inner, boolean outerFirst) {
+        if (work.getFaceMask(outer) != ALL_FACES) {
+            return false;
+        }
+        boolean identical = true;
+        for (int axis = 0; axis < 3; axis++) {
+            float of = work.getBound(outer, axis), ot = work.getBound(outer, axis + 3);
+            float inf = work.getBound(inner, axis), it = work.getBound(inner, axis + 3);
+            if (inf < of - EPSILON || it > ot + EPSILON) {
+                return false;
+            }
+            identical &= near(of, inf) && near(ot, it);
+        }
+        return !identical || outerFirst;
+    }
+
+    /**
+     * @return The scratch index of the merged cube, or -1 if the two cubes cannot be merged.
+     */
+    private int tryMerge(int a, int b) {
+        for (int axis = 0; axis < 3; axis++) {
+            if (!sameExtentsExcept(a, b, axis)) {
+                continue;
+            }
+            if (near(work.getBound(a, axis + 3), work.getBound(b, axis))) {
+                return merge(a, b, axis);
+            }
+            if (near(work.getBound(b, axis + 3), work.getBound(a, axis))) {
+                return merge(b, a, axis);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Merges {@code low} and {@code high}, where {@code high} starts where {@code low} ends on {@code axis}.
+     */
+    private int merge(int low, int high, int axis) {
+        int mask = work.getFaceMask(low);
+        if (mask != work.getFaceMask(high)) {
+            return -1;
+        }
+        float lowLength = work.getBound(low, axis + 3) - work.getBound(low, axis);
+        float highLength = work.getBound(high, axis + 3) - work.getBound(high, axis);
+        // Check every face before writing anything
+        for (int f = 0; f < FACES.length; f++) {
+            FaceDirection face = FACES[f];
+            if ((mask & face.mask()) == 0) {
+                continue;
+            }
+            // Both cubes live in the scratch store, so equal names mean equal indices
+            if (work.getTextureIndex(low, face) != work.getTextureIndex(high, face)) {
+                return -1;
+            }
+            if (f / 2 != axis && !stitch(low, high, face, UV_AXES[f][axis], lowLength, highLength, f * 4)) {
+                return -1;
+            }
+        }
+
+        int merged = scratch.add(work.getUuid(low), work.getName(low),
+                work.getBound(low, 0), work.getBound(low, 1), work.getBound(low, 2),
+                work.getBound(low, 3), work.getBound(low, 4), work.getBound(low, 5));
+        for (int f = 0; f < FACES.length; f++) {
+            FaceDirection face = FACES[f];
+            if ((mask & face.mask()) == 0) {
+                continue;
+            }
+            if (f / 2 == axis) {
+                // Caps: the outer one of each cube survives unchanged
+                scratch.copyFace(merged, face, work, f % 2 == 0 ? low : high);
+            } else if (work.hasUv(low, face)) {
+                System.arraycopy(stitched, f * 4, lowUv, 0, 4);
+                scratch.setFace(merged, face, lowUv, work.getTexture(work.getTextureIndex(low, face)), 0);
+            } else {
+                scratch.copyFace(merged, face, work, low);
+            }
+        }
+        float end = work.getBound(high, axis + 3);
+        scratch.setBounds(merged,
+                work.getBound(merged, 0), work.getBound(merged, 1), work.getBound(merged, 2),
+                axis == 0 ? end : work.getBound(merged, 3),
+                axis == 1 ? end : work.getBound(merged, 4),
+                axis == 2 ? end : work.getBound(merged, 5));
+        return merged;
+    }
+
+    /**
+     * Joins the UV rectangles of two side faces along the merge axis into {@link #stitched} at {@code offset}.
+     *
+     * @param mapping Entry of {@link #UV_AXES} for this face and the merge axis.
+     * @return False if the textures would not line up.
+     */
+    private boolean stitch(int low, int high, FaceDirection face, int mapping, float lowLength, float highLength, int offset) {
+        if (work.getRotation(low, face) != 0 || work.getRotation(high, face) != 0) {
+            return false;
+        }
+        boolean lowHasUv = work.getUv(low, face, lowUv, 0);
+        boolean highHasUv = work.getUv(high, face, highUv, 0);
+        if (!lowHasUv || !highHasUv) {
+            return lowHasUv == highHasUv;
+        }
+        float[] lu = lowUv;
+        float[] hu = highUv;
+        int along = Math.abs(mapping) - 1;
+        int across = 1 - along;
+        if (!near(lu[across], hu[across]) || !near(lu[across + 2], hu[across + 2])) {
+            return false;
+        }
+        float lowDensity = (lu[along + 2] - lu[along]) / lowLength;
+        float highDensity = (hu[along + 2] - hu[along]) / highLength;
+        if (!near(lowDensity, highDensity)) {
+            return false;
+        }
+
+        System.arraycopy(lu, 0, stitched, offset, 4);
+        if (mapping > 0) {
+            // Texture runs with the axis: low's end meets high's start
+            if (!near(lu[along + 2], hu[along])) {
+                return false;
+            }
+            stitched[offset + along + 2] = hu[along + 2];
+        } else {
+            // Texture runs against the axis: high's end meets low's start
+            if (!near(hu[along + 2], lu[along])) {
+                return false;
+            }
+            stitched[offset + along] = hu[along];
+        }
+        return true;
+    }
+
+    private boolean sameExtentsExcept(int a, int b, int axis) {
+        for (int i = 0; i < 3; i++) {
+            if (i != axis && (!near(work.getBound(a, i), work.getBound(b, i)) || !near(work.getBound(a, i + 3), work.getBound(b, i + 3)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean near(float a, float b) {
+        return Math.abs(a - b) <= EPSILON;
+    }
+}
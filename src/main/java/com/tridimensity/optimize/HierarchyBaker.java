@@ -0,0 +1,133 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.model.GeometryStore;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelLocator;
+import com.tridimensity.model.ModelNode;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Folds static intermediate nodes into their children so instances evaluate fewer nodes per update.
+ *
+ * <p>A node can be folded when its local transform is a pure translation (no rest rotation, unit
+ * scale) and nothing animates it. The translation moves into the children's positions and its cubes
+ * and locators move, shifted, into the nearest kept ancestor, so every world-space result is
+ * unchanged. Roots that hold cubes or locators are always kept since there is nothing to carry them.</p>
+ *
+ * <p>Without {@link #animatedNodes(Collection)}, only purely organizational nodes (zero position and
+ * rotation, unit scale) are folded. With it, every translation-only node not named there is folded.
+ * Never pose a folded node; use {@link BakedModel} to map names and read their world matrices.</p>
+ */
+public class HierarchyBaker {
+    private Set<String> animatedNodes;
+
+    /**
+     * Names the nodes animations touch. Any other translation-only node may be folded.
+     */
+    public HierarchyBaker animatedNodes(Collection<String> names) {
+        if (animatedNodes == null) {
+            animatedNodes = new HashSet<>();
+        }
+        animatedNodes.addAll(names);
+        return this;
+    }
+
+    public BakedModel bake(Model source) {
+        ModelHierarchy hierarchy = source.getHierarchy();
+        int n = hierarchy.size();
+        boolean[] folded = new boolean[n];
+        int[] carrier = new int[n];
+        float[] offsets = new float[n * 3];
+        // Nearest kept ancestor, and the summed positions of folded nodes between it and the node
+        int[] keptAncestor = new int[n];
+        Vector3f[] foldedPositions = new Vector3f[n];
+
+        GeometryStore.Builder geometry = GeometryStore.builder(source.getGeometry().getCubeCount());
+        Model result = new Model(geometry.getStore());
+        result.setTextures(source.getTextures());
+        List<ModelNode> copies = new ArrayList<>();
+        List<Integer> bakedToSource = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ModelNode node = hierarchy.getNode(i);
+            int parent = hierarchy.getParent(i);
+            int ancestor;
+            Vector3f inherited;
+            if (parent < 0) {
+                ancestor = -1;
+                inherited = new Vector3f();
+            } else if (folded[parent]) {
+                ancestor = keptAncestor[parent];
+                inherited = new Vector3f(foldedPositions[parent]).add(hierarchy.getNode(parent).getPosition());
+            } else {
+                ancestor = parent;
+                inherited = new Vector3f();
+            }
+            keptAncestor[i] = ancestor;
+            foldedPositions[i] = inherited;
+
+            boolean carried = ancestor >= 0 || (node.getCubes().isEmpty() && node.getLocators().isEmpty());
+            if (carried && isFoldable(node)) {
+                folded[i] = true;
+                carrier[i] = ancestor >= 0 ? carrier[ancestor] : -1;
+                Vector3f ancestorOrigin = ancestor >= 0 ? hierarchy.getNode(ancestor).getOrigin() : new Vector3f();
+                Vector3f offset = node.getOrigin().sub(ancestorOrigin).add(inherited).add(node.getPosition());
+                offsets[i * 3] = offset.x;
+                offsets[i * 3 + 1] = offset.y;
+                offsets[i * 3 + 2] = offset.z;
+                for (ModelCube cube : node.getCubes()) {
+                    copies.get(carrier[i]).addCube(geometry.copy(cube, offset.x, offset.y, offset.z));
+                }
+                for (ModelLocator locator : node.getLocators()) {
+                    copies.get(carrier[i]).addLocator(new ModelLocator(locator.getUuid(), locator.getName(), locator.getKind(),
+                            locator.getPosition().add(offset), locator.getRotation()));
+                }
+                continue;
+            }
+
+            ModelNode copy = new ModelNode(node.getUuid(), node.getName(), node.getOrigin(),
+                    node.getPosition().add(inherited), node.getRotation(), node.getScale());
+            for (ModelCube cube : node.getCubes()) {
+                copy.addCube(geometry.copy(cube, 0f, 0f, 0f));
+            }
+            for (ModelLocator locator : node.getLocators()) {
+                copy.addLocator(locator);
+            }
+            carrier[i] = copies.size();
+            copies.add(copy);
+            bakedToSource.add(i);
+            if (ancestor < 0) {
+                result.addRoot(copy);
+            } else {
+                copies.get(carrier[ancestor]).addChild(copy);
+            }
+        }
+
+        int[] mapping = new int[bakedToSource.size()];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = bakedToSource.get(i);
+        }
+        geometry.build();
+        return new BakedModel(source, result, mapping, carrier, folded, offsets);
+    }
+
+    private boolean isFoldable(ModelNode node) {
+        Vector3f rotation = node.getRotation();
+        Vector3f scale = node.getScale();
+        if (rotation.x != 0f || rotation.y != 0f || rotation.z != 0f || scale.x != 1f || scale.y != 1f || scale.z != 1f) {
+            return false;
+        }
+        if (animatedNodes == null) {
+            Vector3f position = node.getPosition();
+            return position.x == 0f && position.y == 0f && position.z == 0f;
+        }
+        return !animatedNodes.contains(node.getName());
+    }
+}
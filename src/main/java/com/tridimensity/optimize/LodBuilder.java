@@ -0,0 +1,203 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.model.GeometryStore;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelLocator;
+import com.tridimensity.model.ModelLod;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Produces simplified {@link ModelLod} variants of a model for distant viewers.
+ *
+ * <p>Per level, cubes below the volume threshold are dropped, corners are snapped to a grid so
+ * near-adjacent cubes line up, and the result is passed through {@link CubeMerger}. Leaf nodes that
+ * sit still relative to their parent can be folded into it; name the bones your animations drive
+ * with {@link #animatedNodes(Collection)} so they are never folded. A builder reuses scratch state
+ * between builds and is not thread-safe.</p>
+ *
+ * <pre>{@code
+ * List<ModelLod> lods = new LodBuilder().animatedNodes(bones)
+ *         .build(model, new LodLevel(1f, 0.5f, true), new LodLevel(8f, 1f, true));
+ * model.setLods(lods);
+ * instance.setLodLevel(2);
+ * }</pre>
+ */
+public class LodBuilder {
+    private static final float EPSILON = 1e-4f;
+
+    private final Set<String> animatedNodes = new HashSet<>();
+    private final CubeMerger merger = new CubeMerger();
+
+    /**
+     * Marks nodes (by name) that animations move; they always keep their own node.
+     */
+    public LodBuilder animatedNodes(Collection<String> names) {
+        animatedNodes.addAll(names);
+        return this;
+    }
+
+    /**
+     * @return One LOD per level, in order; pass them to {@link Model#setLods(List)}.
+     */
+    public List<ModelLod> build(Model source, LodLevel... levels) {
+        List<ModelLod> lods = new ArrayList<>(levels.length);
+        for (LodLevel level : levels) {
+            lods.add(build(source, level, null));
+        }
+        return lods;
+    }
+
+    /**
+     * Builds a single LOD.
+     *
+     * @param report Receives cube counts of the merge step; may be null.
+     */
+    public ModelLod build(Model source, LodLevel level, MergeReport report) {
+        MergeReport counts = report != null ? report : new MergeReport();
+        ModelHierarchy hierarchy = source.getHierarchy();
+        int n = hierarchy.size();
+        Vector3f[] offsets = level.isCollapseStaticLeaves() ? staticLeafOffsets(source) : new Vector3f[n];
+
+        // LOD node index of every kept source node; collapsed leaves share their parent's
+        int[] lodIndex = new int[n];
+        List<Integer> sourceNodes = new ArrayList<>();
+        List<ModelNode> copies = new ArrayList<>();
+        // Per LOD node, the source nodes whose cubes it takes: its own, then any collapsed leaves
+        List<List<Integer>> members = new ArrayList<>();
+        GeometryStore.Builder geometry = GeometryStore.builder(source.getGeometry().getCubeCount());
+        Model result = new Model(geometry.getStore());
+        result.setTextures(source.getTextures());
+        for (int i = 0; i < n; i++) {
+            ModelNode node = hierarchy.getNode(i);
+            int parent = hierarchy.getParent(i);
+            if (offsets[i] != null) {
+                int target = lodIndex[parent];
+                lodIndex[i] = target;
+                members.get(target).add(i);
+                for (ModelLocator locator : node.getLocators()) {
+                    copies.get(target).addLocator(new ModelLocator(locator.getUuid(), locator.getName(), locator.getKind(),
+                            locator.getPosition().add(offsets[i]), locator.getRotation()));
+                }
+                continue;
+            }
+            ModelNode copy = CubeMerger.copyNode(node);
+            for (ModelLocator locator : node.getLocators()) {
+                copy.addLocator(locator);
+            }
+            lodIndex[i] = copies.size();
+            copies.add(copy);
+            sourceNodes.add(i);
+            List<Integer> own = new ArrayList<>();
+            own.add(i);
+            members.add(own);
+            if (parent < 0) {
+                result.addRoot(copy);
+            } else {
+                copies.get(lodIndex[parent]).addChild(copy);
+            }
+        }
+
+        for (int i = 0; i < copies.size(); i++) {
+            GeometryStore.Builder work = merger.begin();
+            for (int member : members.get(i)) {
+                Vector3f offset = offsets[member];
+                float dx = offset != null ? offset.x : 0f;
+                float dy = offset != null ? offset.y : 0f;
+                float dz = offset != null ? offset.z : 0f;
+                for (ModelCube cube : hierarchy.getNode(member).getCubes()) {
+                    int copy = work.copy(cube.getGeometry(), cube.getGeometryIndex(), dx, dy, dz);
+                    if (simplify(work, copy, level)) {
+                        merger.add(copy);
+                    }
+                }
+            }
+            merger.mergeInto(copies.get(i), geometry, counts);
+        }
+
+        int[] mapping = new int[sourceNodes.size()];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = sourceNodes.get(i);
+        }
+        geometry.build();
+        return new ModelLod(result, mapping);
+    }
+
+    /**
+     * @return For each collapsible leaf, its rest offset from the parent in pixels; null for other nodes.
+     */
+    private Vector3f[] staticLeafOffsets(Model source) {
+        ModelHierarchy hierarchy = source.getHierarchy();
+        Vector3f[] offsets = new Vector3f[hierarchy.size()];
+        ModelInstance rest = source.instantiate();
+        rest.updateWorldTransforms();
+        Matrix4f parentWorld = new Matrix4f();
+        Matrix4f relative = new Matrix4f();
+        for (int i = 0; i < hierarchy.size(); i++) {
+            int parent = hierarchy.getParent(i);
+            ModelNode node = hierarchy.getNode(i);
+            if (parent < 0 || hierarchy.getSubtreeEnd(i) != i + 1 || animatedNodes.contains(node.getName())) {
+                continue;
+            }
+            rest.getWorldTransform(parent, parentWorld).invertAffine();
+            parentWorld.mul(rest.getWorldTransform(i, relative), relative);
+            if (isTranslation(relative)) {
+                offsets[i] = relative.getTranslation(new Vector3f()).mul(16f);
+            }
+        }
+        return offsets;
+    }
+
+    private static boolean isTranslation(Matrix4f m) {
+        return Math.abs(m.m00() - 1f) < EPSILON && Math.abs(m.m11() - 1f) < EPSILON && Math.abs(m.m22() - 1f) < EPSILON
+                && Math.abs(m.m01()) < EPSILON && Math.abs(m.m02()) < EPSILON
+                && Math.abs(m.m10()) < EPSILON && Math.abs(m.m12()) < EPSILON
+                && Math.abs(m.m20()) < EPSILON && Math.abs(m.m21()) < EPSILON;
+    }
+
+    /**
+     * Snaps a cube of {@code work} to the level's grid in place.
+     *
+     * @return False if the cube is too small to keep.
+     */
+    private static boolean simplify(GeometryStore.Builder work, int cube, LodLevel level) {
+        GeometryStore store = work.getStore();
+        float volume = 1f;
+        for (int axis = 0; axis < 3; axis++) {
+            volume *= Math.max(store.getBound(cube, axis + 3) - store.getBound(cube, axis), 1f);
+        }
+        if (volume < level.getMinVolume()) {
+            return false;
+        }
+        float snap = level.getSnap();
+        if (snap == 0f) {
+            return true;
+        }
+        for (int axis = 0; axis < 3; axis++) {
+            float from = store.getBound(cube, axis);
+            float to = store.getBound(cube, axis + 3);
+            if (snap(to, snap) <= snap(from, snap) && to - from > 0f) {
+                // Sub-grid detail disappears entirely
+                return false;
+            }
+        }
+        work.setBounds(cube,
+                snap(store.getBound(cube, 0), snap), snap(store.getBound(cube, 1), snap), snap(store.getBound(cube, 2), snap),
+                snap(store.getBound(cube, 3), snap), snap(store.getBound(cube, 4), snap), snap(store.getBound(cube, 5), snap));
+        return true;
+    }
+
+    private static float snap(float value, float snap) {
+        return Math.round(value / snap) * snap;
+    }
+}
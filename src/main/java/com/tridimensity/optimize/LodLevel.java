@@ -0,0 +1,36 @@
+package com.tridimensity.optimize;
+
+/**
+ * Simplification settings for one LOD produced by {@link LodBuilder}.
+ */
+public class LodLevel {
+    private final float minVolume;
+    private final float snap;
+    private final boolean collapseStaticLeaves;
+
+    /**
+     * @param minVolume Cubes smaller than this, in cubic pixels, are dropped. Flat extents count as one pixel.
+     * @param snap Grid size in pixels that cube corners are rounded to before merging; 0 disables snapping.
+     * @param collapseStaticLeaves Whether leaf nodes that never move relative to their parent are folded into it.
+     */
+    public LodLevel(float minVolume, float snap, boolean collapseStaticLeaves) {
+        if (minVolume < 0f || snap < 0f) {
+            throw new IllegalArgumentException("minVolume and snap must not be negative");
+        }
+        this.minVolume = minVolume;
+        this.snap = snap;
+        this.collapseStaticLeaves = collapseStaticLeaves;
+    }
+
+    public float getMinVolume() {
+        return minVolume;
+    }
+
+    public float getSnap() {
+        return snap;
+    }
+
+    public boolean isCollapseStaticLeaves() {
+        return collapseStaticLeaves;
+    }
+}
@@ -0,0 +1,50 @@
+package com.tridimensity.optimize;
+
+/**
+ * Counts collected by {@link CubeMerger}.
+ */
+public class MergeReport {
+    private int cubesBefore;
+    private int cubesAfter;
+    private int merged;
+    private int enclosedRemoved;
+
+    void record(int before, int after, int merges, int enclosed) {
+        cubesBefore += before;
+        cubesAfter += after;
+        merged += merges;
+        enclosedRemoved += enclosed;
+    }
+
+    public int getCubesBefore() {
+        return cubesBefore;
+    }
+
+    public int getCubesAfter() {
+        return cubesAfter;
+    }
+
+    /**
+     * @return The number of pairwise merges performed.
+     */
+    public int getMerged() {
+        return merged;
+    }
+
+    /**
+     * @return The number of cubes dropped because another cube of the same node fully encloses them.
+     */
+    public int getEnclosedRemoved() {
+        return enclosedRemoved;
+    }
+
+    @Override
+    public String toString() {
+        return "MergeReport{" +
+                "cubesBefore=" + cubesBefore +
+                ", cubesAfter=" + cubesAfter +
+                ", merged=" + merged +
+                ", enclosedRemoved=" + enclosedRemoved +
+                '}';
+    }
+}
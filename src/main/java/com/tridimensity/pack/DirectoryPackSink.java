@@ -0,0 +1,33 @@
+package com.tridimensity.pack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes pack files below a directory, creating parent directories as needed.
+ */
+public class DirectoryPackSink implements PackSink {
+    private final Path root;
+
+    public DirectoryPackSink(Path root) {
+        this.root = root;
+    }
+
+    @Override
+    public void write(String path, byte[] data, int offset, int length) throws IOException {
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root.normalize())) {
+            throw new IOException("Path escapes the pack directory: " + path);
+        }
+        Files.createDirectories(file.getParent());
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(data, offset, length);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+}
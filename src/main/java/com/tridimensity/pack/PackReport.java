@@ -0,0 +1,60 @@
+package com.tridimensity.pack;
+
+/**
+ * Counts of what a {@link ResourcePackGenerator} run produced.
+ */
+public class PackReport {
+    private final int models;
+    private final int bones;
+    private final int itemModels;
+    private final int textures;
+
+    PackReport(int models, int bones, int itemModels, int textures) {
+        this.models = models;
+        this.bones = bones;
+        this.itemModels = itemModels;
+        this.textures = textures;
+    }
+
+    public int getModels() {
+        return models;
+    }
+
+    /**
+     * @return The number of nodes with geometry, each of which references an item model.
+     */
+    public int getBones() {
+        return bones;
+    }
+
+    /**
+     * @return The number of distinct item model files written.
+     */
+    public int getItemModels() {
+        return itemModels;
+    }
+
+    /**
+     * @return The number of distinct texture files written.
+     */
+    public int getTextures() {
+        return textures;
+    }
+
+    /**
+     * @return The number of bones that reused an item model written for identical geometry.
+     */
+    public int getDeduplicated() {
+        return bones - itemModels;
+    }
+
+    @Override
+    public String toString() {
+        return "PackReport{" +
+                "models=" + models +
+                ", bones=" + bones +
+                ", itemModels=" + itemModels +
+                ", textures=" + textures +
+                '}';
+    }
+}
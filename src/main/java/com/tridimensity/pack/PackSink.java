@@ -0,0 +1,18 @@
+package com.tridimensity.pack;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of generated resource-pack files. Implementations must accept writes from several
+ * threads.
+ */
+public interface PackSink extends Closeable {
+
+    /**
+     * Writes one file.
+     *
+     * @param path Pack-relative path using {@code /} separators, e.g. {@code assets/ns/models/item/a.json}.
+     */
+    void write(String path, byte[] data, int offset, int length) throws IOException;
+}
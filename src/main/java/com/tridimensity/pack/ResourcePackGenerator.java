@@ -0,0 +1,451 @@
+package com.tridimensity.pack;
+
+import com.google.gson.stream.JsonWriter;
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.GeometryStore;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelNode;
+import com.tridimensity.model.ModelTexture;
+import com.tridimensity.texture.TextureData;
+import com.tridimensity.texture.TexturePool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Generates a resource pack with one Java item model per bone, for rendering rigs with item
+ * display entities.
+ *
+ * <p>For every node with cubes the generator writes the node's cubes as an item model, with
+ * coordinates in node space shifted by 8 pixels so the node's pivot space origin lands on the
+ * display entity's origin. The display entity's transformation is then the node's world matrix.
+ * Nodes whose cubes exceed the Java model range of {@code [-16, 32]} are shrunk about that origin
+ * and the factor to scale back up is recorded in the model's index.</p>
+ *
+ * <p>Item models are named by the hash of their JSON, so identical bones share one file. Within a
+ * model that always holds; across models only with {@link #setPackTextures(boolean)}, since
+ * otherwise texture paths include the model name. Each model also gets an index at
+ * {@code assets/<namespace>/tridimensity/<model>.json} listing its bones, their hierarchy index,
+ * item model and scale. Model names are lower-cased and stripped of characters that resource
+ * locations do not allow. Every name is checked before any model is loaded, so two names that end up
+ * the same, such as {@code Foo} and {@code foo}, fail the run before anything is written.</p>
+ *
+ * <p>Models are processed in parallel, each worker streaming JSON through a {@link JsonWriter}
+ * into a reusable buffer that is handed to the {@link PackSink}. Memory is bounded by the number of
+ * workers: when models are supplied by name, at most one model per worker is loaded at a time.</p>
+ */
+public class ResourcePackGenerator {
+    private static final float MIN_COORD = -16f;
+    private static final float MAX_COORD = 32f;
+    private static final float CENTER = 8f;
+    private static final FaceDirection[] FACES = FaceDirection.values();
+
+    private final ForkJoinPool pool;
+    private String namespace = "tridimensity";
+    private int parallelism;
+    private boolean packTextures;
+    private TexturePool texturePool = TexturePool.shared();
+
+    public ResourcePackGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ResourcePackGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+        this.parallelism = pool.getParallelism();
+    }
+
+    public ResourcePackGenerator setNamespace(String namespace) {
+        if (namespace == null || !namespace.matches("[a-z0-9_.-]+")) {
+            throw new IllegalArgumentException("Invalid namespace: " + namespace);
+        }
+        this.namespace = namespace;
+        return this;
+    }
+
+    /**
+     * Sets how many models are processed at once. Defaults to the pool's parallelism.
+     */
+    public ResourcePackGenerator setParallelism(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + workers);
+        }
+        this.parallelism = workers;
+        return this;
+    }
+
+    /**
+     * When enabled, embedded textures are written to the pack (once per distinct content) and
+     * item models reference them. When disabled, item models reference
+     * {@code <namespace>:item/<model>/<texture name>}, which the pack author must provide; as those
+     * paths differ per model, identical bones are then only shared within a model.
+     */
+    public ResourcePackGenerator setPackTextures(boolean packTextures) {
+        this.packTextures = packTextures;
+        return this;
+    }
+
+    /**
+     * Sets the pool that embedded textures are decoded through when packing textures.
+     */
+    public ResourcePackGenerator setTexturePool(TexturePool texturePool) {
+        this.texturePool = texturePool;
+        return this;
+    }
+
+    /**
+     * Generates the pack for loaded models, keyed by model name.
+     *
+     * @throws IllegalArgumentException If two names map to the same pack name.
+     */
+    public PackReport generate(Map<String, Model> models, PackSink sink) throws IOException {
+        return generate(models.keySet(), models::get, sink);
+    }
+
+    /**
+     * Generates the pack for models loaded on demand, so only models being processed are held.
+     *
+     * @param loader Called from worker threads with each name.
+     * @throws IllegalArgumentException If a name is listed twice or two names map to the same pack
+     *         name; nothing is loaded or written then.
+     */
+    public PackReport generate(Iterable<String> names, Function<String, Model> loader, PackSink sink) throws IOException {
+        Run run = new Run(claim(names).iterator(), loader, sink);
+        List<Future<?>> workers = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            workers.add(pool.submit(run::work));
+        }
+        IOException failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                run.failed = true;
+                failure = new IOException("Interrupted while generating the pack", e);
+            } catch (ExecutionException e) {
+                run.failed = true;
+                Throwable cause = e.getCause() instanceof UncheckedIOException u ? u.getCause() : e.getCause();
+                if (failure == null) {
+                    failure = cause instanceof IOException io ? io : new IOException("Failed to generate the pack", cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return new PackReport(run.models.get(), run.bones.get(), run.itemModels.size(), run.textures.size());
+    }
+
+    /**
+     * @return The names in order, once each has its own pack name.
+     */
+    private static List<String> claim(Iterable<String> names) {
+        // Pack name of each model -> the name it was given as
+        Map<String, String> packNames = new HashMap<>();
+        List<String> claimed = new ArrayList<>();
+        for (String name : names) {
+            String packName = sanitize(name);
+            String other = packNames.putIfAbsent(packName, name);
+            if (other != null) {
+                throw new IllegalArgumentException(other.equals(name)
+                        ? "Model '" + name + "' is listed more than once"
+                        : "Models '" + other + "' and '" + name + "' both map to the pack name '" + packName + "'");
+            }
+            claimed.add(name);
+        }
+        return claimed;
+    }
+
+    private static String sanitize(String name) {
+        StringBuilder out = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = Character.toLowerCase(name.charAt(i));
+            out.append((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || c == '.' ? c : '_');
+        }
+        return out.length() > 0 ? out.toString() : "_";
+    }
+
+    private static String hex(byte[] digest, int bytes) {
+        StringBuilder hex = new StringBuilder(bytes * 2);
+        for (int i = 0; i < bytes; i++) {
+            hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16)).append(Character.forDigit(digest[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(8192);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * State shared by the workers of one {@link #generate} call.
+     */
+    private final class Run {
+        private final Iterator<String> names;
+        private final Function<String, Model> loader;
+        private final PackSink sink;
+        private final Set<String> itemModels = ConcurrentHashMap.newKeySet();
+        private final Set<String> textures = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger models = new AtomicInteger();
+        private final AtomicInteger bones = new AtomicInteger();
+        private volatile boolean failed;
+
+        Run(Iterator<String> names, Function<String, Model> loader, PackSink sink) {
+            this.names = names;
+            this.loader = loader;
+            this.sink = sink;
+        }
+
+        private String next() {
+            synchronized (names) {
+                return !failed && names.hasNext() ? names.next() : null;
+            }
+        }
+
+        void work() {
+            Worker worker = new Worker(this);
+            try {
+                for (String name = next(); name != null; name = next()) {
+                    Model model = loader.apply(name);
+                    if (model == null) {
+                        throw new IllegalArgumentException("No model named " + name);
+                    }
+                    worker.writeModel(name, model);
+                    models.incrementAndGet();
+                }
+            } catch (IOException e) {
+                failed = true;
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Per-thread buffers, reused for every file the thread writes.
+     */
+    private final class Worker {
+        private final Run run;
+        private final Buffer buffer = new Buffer();
+        private final MessageDigest digest;
+        private final float[] uv = new float[4];
+        private String[] texturePaths = new String[0];
+
+        Worker(Run run) {
+            this.run = run;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        void writeModel(String name, Model model) throws IOException {
+            String modelName = sanitize(name);
+            resolveTextures(modelName, model);
+
+            ModelHierarchy hierarchy = model.getHierarchy();
+            int n = hierarchy.size();
+            String[] itemModels = new String[n];
+            float[] scales = new float[n];
+            for (int i = 0; i < n; i++) {
+                ModelNode node = hierarchy.getNode(i);
+                if (node.getCubes().isEmpty()) {
+                    continue;
+                }
+                scales[i] = fitScale(node);
+                itemModels[i] = writeBone(model, node, scales[i]);
+                run.bones.incrementAndGet();
+            }
+            writeIndex(modelName, hierarchy, itemModels, scales);
+        }
+
+        private void resolveTextures(String modelName, Model model) throws IOException {
+            List<ModelTexture> list = model.getTextures();
+            texturePaths = new String[list.size()];
+            for (int i = 0; i < list.size(); i++) {
+                ModelTexture texture = list.get(i);
+                if (packTextures && texture.isEmbedded()) {
+                    TextureData data = texturePool.acquire(texture);
+                    try {
+                        String key = data.getContentKey().substring(0, 20);
+                        if (run.textures.add(key)) {
+                            byte[] bytes = new byte[data.getSize()];
+                            data.getBytes().get(0, bytes);
+                            run.sink.write("assets/" + namespace + "/textures/item/tridimensity/" + key + ".png", bytes, 0, bytes.length);
+                        }
+                        texturePaths[i] = namespace + ":item/tridimensity/" + key;
+                    } finally {
+                        texturePool.release(data);
+                    }
+                } else {
+                    String textureName = texture.getName() != null ? texture.getName() : String.valueOf(i);
+                    if (textureName.endsWith(".png")) {
+                        textureName = textureName.substring(0, textureName.length() - 4);
+                    }
+                    texturePaths[i] = namespace + ":item/" + modelName + "/" + sanitize(textureName);
+                }
+            }
+        }
+
+        /**
+         * @return The factor by which the node's cubes are shrunk to fit the Java model range.
+         */
+        private float fitScale(ModelNode node) {
+            float extent = 0f;
+            for (ModelCube cube : node.getCubes()) {
+                GeometryStore store = cube.getGeometry();
+                int c = cube.getGeometryIndex();
+                for (int k = 0; k < 6; k++) {
+                    extent = Math.max(extent, Math.abs(store.getBound(c, k)));
+                }
+            }
+            float limit = Math.min(CENTER - MIN_COORD, MAX_COORD - CENTER);
+            return extent > limit ? extent / limit : 1f;
+        }
+
+        private String writeBone(Model model, ModelNode node, float scale) throws IOException {
+            List<ModelCube> cubes = node.getCubes();
+            int[] used = new int[texturePaths.length];
+            int usedCount = 0;
+            for (ModelCube cube : cubes) {
+                for (FaceDirection face : FACES) {
+                    if (cube.hasFace(face)) {
+                        int texture = model.getTextureIndex(cube, face);
+                        int at = texture >= 0 ? Arrays.binarySearch(used, 0, usedCount, texture) : 0;
+                        if (at < 0) {
+                            at = -at - 1;
+                            System.arraycopy(used, at, used, at + 1, usedCount - at);
+                            used[at] = texture;
+                            usedCount++;
+                        }
+                    }
+                }
+            }
+
+            buffer.reset();
+            JsonWriter json = writer();
+            json.beginObject();
+            json.name("textures").beginObject();
+            for (int i = 0; i < usedCount; i++) {
+                json.name(String.valueOf(used[i])).value(texturePaths[used[i]]);
+            }
+            if (usedCount > 0) {
+                json.name("particle").value(texturePaths[used[0]]);
+            }
+            json.endObject();
+            json.name("elements").beginArray();
+            for (ModelCube cube : cubes) {
+                writeElement(json, model, cube, scale);
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+
+            digest.reset();
+            digest.update(buffer.array(), 0, buffer.size());
+            String key = hex(digest.digest(), 10);
+            if (run.itemModels.add(key)) {
+                run.sink.write("assets/" + namespace + "/models/item/tridimensity/" + key + ".json", buffer.array(), 0, buffer.size());
+            }
+            return namespace + ":item/tridimensity/" + key;
+        }
+
+        private void writeElement(JsonWriter json, Model model, ModelCube cube, float scale) throws IOException {
+            GeometryStore store = cube.getGeometry();
+            int c = cube.getGeometryIndex();
+            json.beginObject();
+            json.name("from").beginArray();
+            for (int k = 0; k < 3; k++) {
+                json.value(CENTER + store.getBound(c, k) / scale);
+            }
+            json.endArray();
+            json.name("to").beginArray();
+            for (int k = 3; k < 6; k++) {
+                json.value(CENTER + store.getBound(c, k) / scale);
+            }
+            json.endArray();
+            json.name("faces").beginObject();
+            for (FaceDirection face : FACES) {
+                if (!store.hasFace(c, face)) {
+                    continue;
+                }
+                json.name(face.getKey()).beginObject();
+                int texture = model.getTextureIndex(cube, face);
+                if (store.getUv(c, face, uv, 0)) {
+                    // Java models express UVs in a 16x16 space regardless of texture size
+                    float su = texture >= 0 ? 16f / model.getTexture(texture).getUvWidth() : 1f;
+                    float sv = texture >= 0 ? 16f / model.getTexture(texture).getUvHeight() : 1f;
+                    json.name("uv").beginArray()
+                            .value(uv[0] * su).value(uv[1] * sv).value(uv[2] * su).value(uv[3] * sv)
+                            .endArray();
+                }
+                if (texture >= 0) {
+                    json.name("texture").value("#" + texture);
+                }
+                int rotation = store.getRotation(c, face);
+                if (rotation != 0) {
+                    json.name("rotation").value(rotation);
+                }
+                json.endObject();
+            }
+            json.endObject();
+            json.endObject();
+        }
+
+        private void writeIndex(String modelName, ModelHierarchy hierarchy, String[] itemModels, float[] scales) throws IOException {
+            buffer.reset();
+            JsonWriter json = writer();
+            json.beginObject();
+            json.name("bones").beginArray();
+            for (int i = 0; i < itemModels.length; i++) {
+                if (itemModels[i] == null) {
+                    continue;
+                }
+                json.beginObject();
+                json.name("name").value(hierarchy.getNode(i).getName());
+                json.name("index").value(i);
+                json.name("model").value(itemModels[i]);
+                json.name("scale").value(scales[i]);
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+            json.flush();
+            run.sink.write("assets/" + namespace + "/tridimensity/" + modelName + ".json", buffer.array(), 0, buffer.size());
+        }
+
+        private JsonWriter writer() {
+            return new JsonWriter(new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
+        }
+    }
+}
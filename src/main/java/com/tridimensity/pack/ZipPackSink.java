@@ -0,0 +1,32 @@
+package com.tridimensity.pack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams pack files into a zip archive, one entry at a time.
+ */
+public class ZipPackSink implements PackSink {
+    private final ZipOutputStream zip;
+
+    /**
+     * @param out Receives the archive; closed when the sink is closed.
+     */
+    public ZipPackSink(OutputStream out) {
+        this.zip = new ZipOutputStream(out);
+    }
+
+    @Override
+    public synchronized void write(String path, byte[] data, int offset, int length) throws IOException {
+        zip.putNextEntry(new ZipEntry(path));
+        zip.write(data, offset, length);
+        zip.closeEntry();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        zip.close();
+    }
+}
@@ -0,0 +1,189 @@
+package com.tridimensity.runtime;
+
+import com.tridimensity.model.ModelInstance;
+
+import java.util.Arrays;
+
+/**
+ * Spreads {@link ModelInstance} transform updates over ticks under a per-tick budget.
+ *
+ * <p>Each registered instance carries a caller-supplied importance in {@code [0, 1]}
+ * (for example derived from the distance to the nearest viewer). Importance controls both the
+ * update rate and the order within a tick:</p>
+ * <ul>
+ *     <li>An instance is due every {@code 1 + (1 - importance) * (maxInterval - 1)} ticks,
+ *     so important instances update every tick and unimportant ones every {@code maxInterval} ticks.</li>
+ *     <li>Due instances are ranked by {@code importance * ticksSinceUpdate}, so waiting raises priority.</li>
+ *     <li>Instances that have waited {@code maxStaleTicks} or more are ranked first, oldest first, and at least one
+ *     instance is updated per tick, so nothing starves even when the budget is permanently exceeded.</li>
+ * </ul>
+ *
+ * <p>Updating an instance means {@link ModelInstance#publishWorldTransforms()}. The node budget is
+ * charged with the nodes that update actually recomputed, attached models included, so an instance
+ * whose pose has not changed costs nothing. An instance is only started if its whole composite
+ * size would still fit. The scheduler is not thread-safe and must be driven from the thread that
+ * owns the instances.</p>
+ */
+public class InstanceUpdateScheduler {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxInterval;
+    private final int maxStaleTicks;
+    private int nodeBudget;
+    private long timeBudgetNanos;
+
+    private ModelInstance[] instances = new ModelInstance[INITIAL_CAPACITY];
+    private float[] importance = new float[INITIAL_CAPACITY];
+    private long[] lastUpdate = new long[INITIAL_CAPACITY];
+    private int[] freeList = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private int highWater;
+    private int size;
+
+    // Reused ranking keys: (score bits << 32) | handle
+    private long[] ranking = new long[INITIAL_CAPACITY];
+
+    private final TickStats stats = new TickStats();
+    private long tick;
+
+    /**
+     * @param maxInterval Update interval, in ticks, of instances with importance 0.
+     * @param maxStaleTicks Age, in ticks, after which an instance is updated ahead of everything else.
+     */
+    public InstanceUpdateScheduler(int maxInterval, int maxStaleTicks) {
+        if (maxInterval < 1) {
+            throw new IllegalArgumentException("maxInterval must be >= 1: " + maxInterval);
+        }
+        if (maxStaleTicks < maxInterval) {
+            throw new IllegalArgumentException("maxStaleTicks must be >= maxInterval: " + maxStaleTicks);
+        }
+        this.maxInterval = maxInterval;
+        this.maxStaleTicks = maxStaleTicks;
+    }
+
+    /**
+     * Limits the number of nodes evaluated per tick. 0 disables the limit.
+     */
+    public void setNodeBudget(int nodes) {
+        this.nodeBudget = Math.max(0, nodes);
+    }
+
+    /**
+     * Limits the wall time spent per tick. 0 disables the limit.
+     */
+    public void setTimeBudgetNanos(long nanos) {
+        this.timeBudgetNanos = Math.max(0, nanos);
+    }
+
+    /**
+     * Registers an instance with full importance. It is due on the next tick.
+     *
+     * @return A handle used to update or remove the registration.
+     */
+    public int register(ModelInstance instance) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeList[--freeCount];
+        } else {
+            if (highWater == instances.length) {
+                grow();
+            }
+            handle = highWater++;
+        }
+        instances[handle] = instance;
+        importance[handle] = 1f;
+        lastUpdate[handle] = Long.MIN_VALUE / 2;
+        size++;
+        return handle;
+    }
+
+    public void unregister(int handle) {
+        if (instances[handle] == null) {
+            return;
+        }
+        instances[handle] = null;
+        freeList[freeCount++] = handle;
+        size--;
+    }
+
+    /**
+     * @param handle Registration handle.
+     * @param value Importance in {@code [0, 1]}; values outside are clamped, and NaN counts as 0.
+     */
+    public void setImportance(int handle, float value) {
+        importance[handle] = !(value > 0f) ? 0f : Math.min(value, 1f);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of ticks between updates for the given importance.
+     */
+    public int intervalFor(float value) {
+        return 1 + (int) ((1f - value) * (maxInterval - 1));
+    }
+
+    /**
+     * Runs one scheduling tick.
+     *
+     * @return Statistics for this tick. The same object is reused on every call.
+     */
+    public TickStats tick() {
+        long now = ++tick;
+        stats.reset(now, nodeBudget, timeBudgetNanos);
+        long start = System.nanoTime();
+
+        int count = 0;
+        for (int h = 0; h < highWater; h++) {
+            ModelInstance instance = instances[h];
+            if (instance == null) {
+                continue;
+            }
+            long age = Math.min(now - lastUpdate[h], Integer.MAX_VALUE);
+            float imp = importance[h];
+            if (age < intervalFor(imp)) {
+                continue;
+            }
+            // Stale instances outrank every regular score (which stays below maxStaleTicks), oldest first.
+            // Non-negative floats order the same as their raw bits.
+            float score = age >= maxStaleTicks ? (float) age + maxStaleTicks : imp * age + Float.MIN_NORMAL;
+            ranking[count++] = ((long) Float.floatToRawIntBits(score) << 32) | h;
+        }
+        stats.candidates = count;
+        Arrays.sort(ranking, 0, count);
+
+        for (int r = count - 1; r >= 0; r--) {
+            int h = (int) ranking[r];
+            ModelInstance instance = instances[h];
+            // The whole composite frame is the most the update can recompute
+            if (stats.updated > 0 && overBudget(instance.getCompositeSize(), start)) {
+                stats.deferred = r + 1;
+                break;
+            }
+            instance.publishWorldTransforms();
+            lastUpdate[h] = now;
+            stats.updated++;
+            stats.nodesUsed += instance.getLastEvaluatedCount();
+        }
+        stats.nanosUsed = System.nanoTime() - start;
+        return stats;
+    }
+
+    private boolean overBudget(int nextNodes, long start) {
+        if (nodeBudget > 0 && stats.nodesUsed + nextNodes > nodeBudget) {
+            return true;
+        }
+        return timeBudgetNanos > 0 && System.nanoTime() - start >= timeBudgetNanos;
+    }
+
+    private void grow() {
+        int capacity = instances.length * 2;
+        instances = Arrays.copyOf(instances, capacity);
+        importance = Arrays.copyOf(importance, capacity);
+        lastUpdate = Arrays.copyOf(lastUpdate, capacity);
+        freeList = Arrays.copyOf(freeList, capacity);
+        ranking = Arrays.copyOf(ranking, capacity);
+    }
+}
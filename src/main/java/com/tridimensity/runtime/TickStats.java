@@ -0,0 +1,86 @@
+package com.tridimensity.runtime;
+
+/**
+ * Per-tick statistics reported by {@link InstanceUpdateScheduler}.
+ * The scheduler reuses one instance; copy the values if they must outlive the next tick.
+ */
+public final class TickStats {
+    long tick;
+    int candidates;
+    int updated;
+    int deferred;
+    int nodesUsed;
+    long nanosUsed;
+    int nodeBudget;
+    long timeBudgetNanos;
+
+    void reset(long tick, int nodeBudget, long timeBudgetNanos) {
+        this.tick = tick;
+        this.candidates = 0;
+        this.updated = 0;
+        this.deferred = 0;
+        this.nodesUsed = 0;
+        this.nanosUsed = 0;
+        this.nodeBudget = nodeBudget;
+        this.timeBudgetNanos = timeBudgetNanos;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * @return Instances that were due for an update this tick.
+     */
+    public int getCandidates() {
+        return candidates;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return Due instances pushed to a later tick because the budget ran out.
+     */
+    public int getDeferred() {
+        return deferred;
+    }
+
+    /**
+     * @return Node matrices recomputed this tick, including those of attached models.
+     */
+    public int getNodesUsed() {
+        return nodesUsed;
+    }
+
+    public long getNanosUsed() {
+        return nanosUsed;
+    }
+
+    /**
+     * @return Fraction of the tightest configured budget consumed (0 when unlimited).
+     */
+    public double getBudgetUsed() {
+        double used = 0;
+        if (nodeBudget > 0) {
+            used = Math.max(used, nodesUsed / (double) nodeBudget);
+        }
+        if (timeBudgetNanos > 0) {
+            used = Math.max(used, nanosUsed / (double) timeBudgetNanos);
+        }
+        return used;
+    }
+
+    @Override
+    public String toString() {
+        return "TickStats{" +
+                "tick=" + tick +
+                ", candidates=" + candidates +
+                ", updated=" + updated +
+                ", deferred=" + deferred +
+                ", nodesUsed=" + nodesUsed +
+                ", nanosUsed=" + nanosUsed +
+                '}';
+    }
+}
@@ -0,0 +1,419 @@
+package com.tridimensity.spatial;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.util.Aabb;
+import org.joml.Matrix4f;
+import org.joml.Vector3fc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Bounding volume hierarchy over the cubes of a {@link Model}, refitted to a posed {@link ModelInstance}.
+ *
+ * <p>The tree topology is built once from the rest pose. Cubes of the same node are kept together
+ * under a common subtree, since they always move together; {@link #refit(ModelInstance)} only
+ * recomputes boxes bottom-up from the instance's current world matrices.</p>
+ *
+ * <p>Tree nodes use boxes in world space, but {@link #raycast} tests candidate cubes exactly by
+ * moving the ray into the cube's node space, so rotated cubes are hit precisely.
+ * {@link #overlaps} reports every cube whose world-space box overlaps the query.</p>
+ *
+ * <p>Queries reuse internal scratch state and allocate nothing; a tree must not be queried from
+ * several threads at once.</p>
+ */
+public class CubeBvh {
+    private static final int LEAF_SIZE = 4;
+    private static final float SCALE_FACTOR = 1.0f / 16.0f;
+    private static final int M = 16;
+
+    private final ModelHierarchy hierarchy;
+
+    // Cubes, in leaf order
+    private final ModelCube[] cubes;
+    private final int[] cubeNodes;
+    private final float[] cubeLocal;
+    private final float[] cubeWorld;
+
+    // Tree nodes in depth-first order: left child = k + 1, right child = right[k]
+    private final float[] bounds;
+    private final int[] right;
+    private final int[] first;
+    private final int[] count;
+    private int nodeTotal;
+    private int maxDepth;
+
+    // Per hierarchy node inverse world matrices, filled by refit
+    private final float[] inverseWorld;
+    private final float[] world;
+
+    private final int[] stack;
+    private final Matrix4f matrix = new Matrix4f();
+    private final Aabb box = new Aabb();
+    private final Aabb other = new Aabb();
+    private boolean fitted;
+
+    /**
+     * Builds the tree for a model. The tree starts fitted to the rest pose.
+     */
+    public CubeBvh(Model model) {
+        this.hierarchy = model.getHierarchy();
+        int nodes = hierarchy.size();
+
+        List<ModelCube> cubeList = new ArrayList<>();
+        List<Integer> nodeList = new ArrayList<>();
+        List<int[]> groups = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            List<ModelCube> nodeCubes = hierarchy.getNode(i).getCubes();
+            if (nodeCubes.isEmpty()) {
+                continue;
+            }
+            groups.add(new int[] {cubeList.size(), nodeCubes.size()});
+            for (ModelCube cube : nodeCubes) {
+                cubeList.add(cube);
+                nodeList.add(i);
+            }
+        }
+
+        int c = cubeList.size();
+        this.cubes = cubeList.toArray(new ModelCube[0]);
+        this.cubeNodes = new int[c];
+        this.cubeLocal = new float[c * 6];
+        this.cubeWorld = new float[c * 6];
+        Aabb cubeBox = new Aabb();
+        for (int i = 0; i < c; i++) {
+            cubeNodes[i] = nodeList.get(i);
+            cubes[i].getBounds(cubeBox);
+            cubeBox.set(cubeBox.minX * SCALE_FACTOR, cubeBox.minY * SCALE_FACTOR, cubeBox.minZ * SCALE_FACTOR,
+                    cubeBox.maxX * SCALE_FACTOR, cubeBox.maxY * SCALE_FACTOR, cubeBox.maxZ * SCALE_FACTOR)
+                .get(cubeLocal, i * 6);
+        }
+
+        int capacity = Math.max(1, 2 * c);
+        this.bounds = new float[capacity * 6];
+        this.right = new int[capacity];
+        this.first = new int[capacity];
+        this.count = new int[capacity];
+        this.world = new float[nodes * M];
+        this.inverseWorld = new float[nodes * M];
+
+        // Build topology from rest-pose world boxes
+        ModelInstance rest = model.instantiate();
+        rest.updateWorldTransforms();
+        rest.copyWorldTransforms(world);
+        computeCubeWorld();
+
+        if (c > 0) {
+            Builder builder = new Builder(groups);
+            builder.buildGroups(0, groups.size(), 1);
+            // Builder permutes cubes; apply the permutation to the per-cube arrays
+            builder.applyOrder();
+        }
+        this.stack = new int[maxDepth + 2];
+        finishRefit();
+    }
+
+    public int getCubeCount() {
+        return cubes.length;
+    }
+
+    public ModelCube getCube(int cubeIndex) {
+        return cubes[cubeIndex];
+    }
+
+    /**
+     * @return The hierarchy index of the node owning the cube.
+     */
+    public int getNodeIndex(int cubeIndex) {
+        return cubeNodes[cubeIndex];
+    }
+
+    /**
+     * Stores the world-space box of a cube as of the last refit.
+     */
+    public Aabb getCubeWorldBounds(int cubeIndex, Aabb dest) {
+        return dest.set(cubeWorld, cubeIndex * 6);
+    }
+
+    /**
+     * Stores the world-space box enclosing all cubes as of the last refit.
+     */
+    public Aabb getBounds(Aabb dest) {
+        return cubes.length == 0 ? dest.setEmpty() : dest.set(bounds, 0);
+    }
+
+    /**
+     * Refits the tree to the instance's world matrices from its last transform update.
+     * The instance must belong to the model the tree was built from.
+     */
+    public void refit(ModelInstance instance) {
+        if (instance.getHierarchy() != hierarchy) {
+            throw new IllegalArgumentException("Instance does not belong to the model of this BVH");
+        }
+        instance.copyWorldTransforms(world);
+        computeCubeWorld();
+        finishRefit();
+    }
+
+    private void computeCubeWorld() {
+        for (int i = 0; i < cubes.length; i++) {
+            box.set(cubeLocal, i * 6).transform(world, cubeNodes[i] * M, box).get(cubeWorld, i * 6);
+        }
+    }
+
+    private void finishRefit() {
+        for (int i = 0, n = hierarchy.size(); i < n; i++) {
+            matrix.set(world, i * M).invertAffine().get(inverseWorld, i * M);
+        }
+        // Children always follow their parent in depth-first order
+        for (int k = nodeTotal - 1; k >= 0; k--) {
+            if (count[k] > 0) {
+                box.setEmpty();
+                for (int i = first[k], end = first[k] + count[k]; i < end; i++) {
+                    box.union(other.set(cubeWorld, i * 6));
+                }
+            } else {
+                box.set(bounds, (k + 1) * 6).union(other.set(bounds, right[k] * 6));
+            }
+            box.get(bounds, k * 6);
+        }
+        fitted = true;
+    }
+
+    /**
+     * Finds the closest cube hit by a ray.
+     *
+     * @param origin Ray origin, world space (blocks).
+     * @param dir Ray direction; does not need to be normalized.
+     * @param maxDist Maximum distance along the ray, in blocks.
+     * @param hit Receives the result; cleared when nothing is hit.
+     * @return True if a cube was hit.
+     */
+    public boolean raycast(Vector3fc origin, Vector3fc dir, float maxDist, RayHit hit) {
+        return raycast(origin.x(), origin.y(), origin.z(), dir.x(), dir.y(), dir.z(), maxDist, hit);
+    }
+
+    public boolean raycast(float ox, float oy, float oz, float dx, float dy, float dz, float maxDist, RayHit hit) {
+        hit.clear();
+        float len = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (cubes.length == 0 || len == 0f || !fitted) {
+            return false;
+        }
+        dx /= len;
+        dy /= len;
+        dz /= len;
+        float idx = 1f / dx, idy = 1f / dy, idz = 1f / dz;
+
+        float best = maxDist;
+        int bestCube = -1;
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int k = stack[--sp];
+            if (slab(bounds, k * 6, ox, oy, oz, idx, idy, idz, best) > best) {
+                continue;
+            }
+            if (count[k] > 0) {
+                for (int i = first[k], end = first[k] + count[k]; i < end; i++) {
+                    if (slab(cubeWorld, i * 6, ox, oy, oz, idx, idy, idz, best) > best) {
+                        continue;
+                    }
+                    float t = exactHit(i, ox, oy, oz, dx, dy, dz, best);
+                    if (t <= best) {
+                        best = t;
+                        bestCube = i;
+                    }
+                }
+            } else {
+                stack[sp++] = right[k];
+                stack[sp++] = k + 1;
+            }
+        }
+
+        if (bestCube < 0) {
+            return false;
+        }
+        hit.cube = cubes[bestCube];
+        hit.cubeIndex = bestCube;
+        hit.nodeIndex = cubeNodes[bestCube];
+        hit.node = hierarchy.getNode(hit.nodeIndex);
+        hit.distance = best;
+        return true;
+    }
+
+    /**
+     * Collects the cubes whose world-space boxes overlap {@code query}.
+     *
+     * @param results Receives cube indices; at most {@code results.length} are written.
+     * @return The number of overlapping cubes, which may exceed {@code results.length}.
+     */
+    public int overlaps(Aabb query, int[] results) {
+        if (cubes.length == 0 || !fitted) {
+            return 0;
+        }
+        int found = 0;
+        int sp = 0;
+        stack[sp++] = 0;
+        while (sp > 0) {
+            int k = stack[--sp];
+            if (!query.intersects(box.set(bounds, k * 6))) {
+                continue;
+            }
+            if (count[k] > 0) {
+                for (int i = first[k], end = first[k] + count[k]; i < end; i++) {
+                    if (query.intersects(box.set(cubeWorld, i * 6))) {
+                        if (found < results.length) {
+                            results[found] = i;
+                        }
+                        found++;
+                    }
+                }
+            } else {
+                stack[sp++] = right[k];
+                stack[sp++] = k + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Ray/box slab test. Returns the entry distance, or +infinity on a miss or if beyond {@code maxT}.
+     */
+    static float slab(float[] b, int o, float ox, float oy, float oz, float idx, float idy, float idz, float maxT) {
+        float t1 = (b[o] - ox) * idx, t2 = (b[o + 3] - ox) * idx;
+        float tmin = Math.min(t1, t2), tmax = Math.max(t1, t2);
+        t1 = (b[o + 1] - oy) * idy;
+        t2 = (b[o + 4] - oy) * idy;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+        t1 = (b[o + 2] - oz) * idz;
+        t2 = (b[o + 5] - oz) * idz;
+        tmin = Math.max(tmin, Math.min(t1, t2));
+        tmax = Math.min(tmax, Math.max(t1, t2));
+        // NaN (ray parallel to and on a slab face) compares false and is treated as a miss
+        if (!(tmax >= Math.max(tmin, 0f)) || tmin > maxT) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return Math.max(tmin, 0f);
+    }
+
+    /**
+     * Tests a ray against a cube in its node space. The inverse world matrix is linear in the ray
+     * parameter, so the returned distance stays in world units.
+     */
+    private float exactHit(int cube, float ox, float oy, float oz, float dx, float dy, float dz, float maxT) {
+        float[] inv = inverseWorld;
+        int o = cubeNodes[cube] * M;
+        float lox = inv[o] * ox + inv[o + 4] * oy + inv[o + 8] * oz + inv[o + 12];
+        float loy = inv[o + 1] * ox + inv[o + 5] * oy + inv[o + 9] * oz + inv[o + 13];
+        float loz = inv[o + 2] * ox + inv[o + 6] * oy + inv[o + 10] * oz + inv[o + 14];
+        float ldx = inv[o] * dx + inv[o + 4] * dy + inv[o + 8] * dz;
+        float ldy = inv[o + 1] * dx + inv[o + 5] * dy + inv[o + 9] * dz;
+        float ldz = inv[o + 2] * dx + inv[o + 6] * dy + inv[o + 10] * dz;
+        return slab(cubeLocal, cube * 6, lox, loy, loz, 1f / ldx, 1f / ldy, 1f / ldz, maxT);
+    }
+
+    /**
+     * Top-down median-split builder. Splits node groups first, then the cubes within a single group.
+     */
+    private final class Builder {
+        private final List<int[]> groups;
+        private final int[] order;
+
+        Builder(List<int[]> groups) {
+            this.groups = groups;
+            this.order = new int[cubes.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+        }
+
+        int buildGroups(int lo, int hi, int depth) {
+            if (hi - lo == 1) {
+                int[] g = groups.get(lo);
+                return buildCubes(g[0], g[0] + g[1], depth);
+            }
+            int k = nodeTotal++;
+            maxDepth = Math.max(maxDepth, depth);
+            int axis = longestAxis(lo, hi, true);
+            groups.subList(lo, hi).sort(Comparator.comparingDouble(g -> groupCenter(g, axis)));
+            int mid = (lo + hi) >>> 1;
+            buildGroups(lo, mid, depth + 1);
+            right[k] = buildGroups(mid, hi, depth + 1);
+            return k;
+        }
+
+        int buildCubes(int lo, int hi, int depth) {
+            int k = nodeTotal++;
+            maxDepth = Math.max(maxDepth, depth);
+            if (hi - lo <= LEAF_SIZE) {
+                first[k] = lo;
+                count[k] = hi - lo;
+                return k;
+            }
+            int axis = longestAxis(lo, hi, false);
+            Integer[] slice = new Integer[hi - lo];
+            for (int i = lo; i < hi; i++) {
+                slice[i - lo] = order[i];
+            }
+            Arrays.sort(slice, Comparator.comparingDouble(c -> center(c, axis)));
+            for (int i = lo; i < hi; i++) {
+                order[i] = slice[i - lo];
+            }
+            int mid = (lo + hi) >>> 1;
+            buildCubes(lo, mid, depth + 1);
+            right[k] = buildCubes(mid, hi, depth + 1);
+            return k;
+        }
+
+        private float center(int cube, int axis) {
+            return (cubeWorld[cube * 6 + axis] + cubeWorld[cube * 6 + 3 + axis]) * 0.5f;
+        }
+
+        private float groupCenter(int[] g, int axis) {
+            float sum = 0f;
+            for (int i = g[0]; i < g[0] + g[1]; i++) {
+                sum += center(order[i], axis);
+            }
+            return sum / g[1];
+        }
+
+        private int longestAxis(int lo, int hi, boolean overGroups) {
+            float[] min = {Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY};
+            float[] max = {Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY};
+            for (int i = lo; i < hi; i++) {
+                for (int a = 0; a < 3; a++) {
+                    float c = overGroups ? groupCenter(groups.get(i), a) : center(order[i], a);
+                    min[a] = Math.min(min[a], c);
+                    max[a] = Math.max(max[a], c);
+                }
+            }
+            int axis = 0;
+            for (int a = 1; a < 3; a++) {
+                if (max[a] - min[a] > max[axis] - min[axis]) {
+                    axis = a;
+                }
+            }
+            return axis;
+        }
+
+        void applyOrder() {
+            ModelCube[] c = cubes.clone();
+            int[] n = cubeNodes.clone();
+            float[] local = cubeLocal.clone();
+            float[] w = cubeWorld.clone();
+            for (int i = 0; i < order.length; i++) {
+                int src = order[i];
+                cubes[i] = c[src];
+                cubeNodes[i] = n[src];
+                System.arraycopy(local, src * 6, cubeLocal, i * 6, 6);
+                System.arraycopy(w, src * 6, cubeWorld, i * 6, 6);
+            }
+        }
+    }
+}
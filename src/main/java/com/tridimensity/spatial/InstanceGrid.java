@@ -0,0 +1,410 @@
+package com.tridimensity.spatial;
+
+import com.tridimensity.util.Aabb;
+import org.joml.FrustumIntersection;
+
+import java.util.Arrays;
+
+/**
+ * Loose uniform grid of world-space boxes, typically one per placed {@code ModelInstance}.
+ *
+ * <p>Each entry lives in the single cell containing the center of its box, so insert, move and
+ * remove are O(1) amortized (a hash lookup and an intrusive list splice). Entries whose half extent
+ * exceeds half a cell are kept in a separate "oversized" list that every query scans. Queries visit
+ * the cells overlapping the query region grown by half a cell, or every occupied cell when that is
+ * cheaper, and report matches to a {@link SpatialSink} without allocating.</p>
+ *
+ * <p>Not thread-safe.</p>
+ *
+ * @param <T> Payload stored with each entry.
+ */
+public class InstanceGrid<T> {
+    private static final int NONE = -1;
+    private static final long OVERSIZED = Long.MIN_VALUE;
+    private static final int INITIAL_ENTRIES = 64;
+    private static final int INITIAL_CELLS = 64;
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final float halfCell;
+
+    // Entries
+    private Object[] values = new Object[INITIAL_ENTRIES];
+    private float[] bounds = new float[INITIAL_ENTRIES * 6];
+    private long[] entryCell = new long[INITIAL_ENTRIES];
+    private int[] next = new int[INITIAL_ENTRIES];
+    private int[] prev = new int[INITIAL_ENTRIES];
+    private boolean[] live = new boolean[INITIAL_ENTRIES];
+    private int[] freeList = new int[INITIAL_ENTRIES];
+    private int freeCount;
+    private int highWater;
+    private int size;
+    private int oversizedHead = NONE;
+
+    // Occupied cells: open addressing with linear probing, cell key -> list head
+    private long[] cellKeys = new long[INITIAL_CELLS];
+    private int[] cellHeads = new int[INITIAL_CELLS];
+    private boolean[] cellUsed = new boolean[INITIAL_CELLS];
+    private int cellCount;
+
+    private final Aabb scratch = new Aabb();
+
+    /**
+     * @param cellSize Edge length of a cell, in blocks. Pick roughly the size of a typical instance.
+     */
+    public InstanceGrid(float cellSize) {
+        if (!(cellSize > 0f)) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.inverseCellSize = 1f / cellSize;
+        this.halfCell = cellSize * 0.5f;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int handle) {
+        return live[handle] ? (T) values[handle] : null;
+    }
+
+    public Aabb getBounds(int handle, Aabb dest) {
+        return dest.set(bounds, handle * 6);
+    }
+
+    /**
+     * Adds an entry.
+     *
+     * @return A handle used for {@link #move} and {@link #remove}.
+     */
+    public int insert(T value, Aabb box) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeList[--freeCount];
+        } else {
+            if (highWater == values.length) {
+                growEntries();
+            }
+            handle = highWater++;
+        }
+        values[handle] = value;
+        live[handle] = true;
+        box.get(bounds, handle * 6);
+        link(handle, cellOf(box));
+        size++;
+        return handle;
+    }
+
+    /**
+     * Updates the box of an entry, relinking it only if it changed cell.
+     */
+    public void move(int handle, Aabb box) {
+        checkLive(handle);
+        box.get(bounds, handle * 6);
+        long cell = cellOf(box);
+        if (cell != entryCell[handle]) {
+            unlink(handle);
+            link(handle, cell);
+        }
+    }
+
+    public void remove(int handle) {
+        checkLive(handle);
+        unlink(handle);
+        values[handle] = null;
+        live[handle] = false;
+        freeList[freeCount++] = handle;
+        size--;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        Arrays.fill(live, false);
+        Arrays.fill(cellUsed, false);
+        freeCount = 0;
+        highWater = 0;
+        size = 0;
+        cellCount = 0;
+        oversizedHead = NONE;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Queries
+    // ----------------------------------------------------------------------------------
+
+    /**
+     * Reports every entry whose box overlaps {@code query}.
+     *
+     * @return The number of entries reported.
+     */
+    public int queryBox(Aabb query, SpatialSink<? super T> sink) {
+        return query(query.minX, query.minY, query.minZ, query.maxX, query.maxY, query.maxZ,
+                query, 0, 0, 0, -1f, null, sink);
+    }
+
+    /**
+     * Reports every entry whose box is within {@code radius} of the point.
+     *
+     * @return The number of entries reported.
+     * @throws IllegalArgumentException If {@code radius} is negative or NaN.
+     */
+    public int queryRadius(float x, float y, float z, float radius, SpatialSink<? super T> sink) {
+        if (!(radius >= 0f)) {
+            throw new IllegalArgumentException("radius must not be negative: " + radius);
+        }
+        return query(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius,
+                null, x, y, z, radius, null, sink);
+    }
+
+    /**
+     * Reports every entry whose box intersects the frustum.
+     *
+     * @return The number of entries reported.
+     */
+    public int queryFrustum(FrustumIntersection frustum, SpatialSink<? super T> sink) {
+        return query(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY,
+                Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                null, 0, 0, 0, -1f, frustum, sink);
+    }
+
+    private int query(float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                      Aabb box, float cx, float cy, float cz, float radius, FrustumIntersection frustum,
+                      SpatialSink<? super T> sink) {
+        int reported = visitList(oversizedHead, box, cx, cy, cz, radius, frustum, sink);
+
+        // Entries reach at most half a cell beyond the cell holding their center
+        long x0 = cellCoord(minX - halfCell), x1 = cellCoord(maxX + halfCell);
+        long y0 = cellCoord(minY - halfCell), y1 = cellCoord(maxY + halfCell);
+        long z0 = cellCoord(minZ - halfCell), z1 = cellCoord(maxZ + halfCell);
+        double span = (double) (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+
+        if (span <= cellCount) {
+            for (long x = x0; x <= x1; x++) {
+                for (long y = y0; y <= y1; y++) {
+                    for (long z = z0; z <= z1; z++) {
+                        int slot = findSlot(key((int) x, (int) y, (int) z));
+                        if (slot >= 0) {
+                            reported += visitList(cellHeads[slot], box, cx, cy, cz, radius, frustum, sink);
+                        }
+                    }
+                }
+            }
+        } else {
+            for (int slot = 0; slot < cellKeys.length; slot++) {
+                if (!cellUsed[slot] || !cellOverlaps(cellKeys[slot], minX, minY, minZ, maxX, maxY, maxZ, frustum)) {
+                    continue;
+                }
+                reported += visitList(cellHeads[slot], box, cx, cy, cz, radius, frustum, sink);
+            }
+        }
+        return reported;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int visitList(int head, Aabb box, float cx, float cy, float cz, float radius,
+                          FrustumIntersection frustum, SpatialSink<? super T> sink) {
+        int reported = 0;
+        for (int e = head; e != NONE; e = next[e]) {
+            int o = e * 6;
+            boolean hit;
+            if (box != null) {
+                hit = box.intersects(scratch.set(bounds, o));
+            } else if (radius >= 0f) {
+                float dx = Math.max(Math.max(bounds[o] - cx, 0f), cx - bounds[o + 3]);
+                float dy = Math.max(Math.max(bounds[o + 1] - cy, 0f), cy - bounds[o + 4]);
+                float dz = Math.max(Math.max(bounds[o + 2] - cz, 0f), cz - bounds[o + 5]);
+                hit = dx * dx + dy * dy + dz * dz <= radius * radius;
+            } else {
+                hit = frustum.testAab(bounds[o], bounds[o + 1], bounds[o + 2], bounds[o + 3], bounds[o + 4], bounds[o + 5]);
+            }
+            if (hit) {
+                sink.accept(e, (T) values[e]);
+                reported++;
+            }
+        }
+        return reported;
+    }
+
+    private boolean cellOverlaps(long key, float minX, float minY, float minZ, float maxX, float maxY, float maxZ,
+                                 FrustumIntersection frustum) {
+        // Loose cell box: the cell grown by half a cell on every side
+        float lx = unpack(key, 42) * cellSize - halfCell, hx = lx + cellSize * 2f;
+        float ly = unpack(key, 21) * cellSize - halfCell, hy = ly + cellSize * 2f;
+        float lz = unpack(key, 0) * cellSize - halfCell, hz = lz + cellSize * 2f;
+        if (frustum != null) {
+            return frustum.testAab(lx, ly, lz, hx, hy, hz);
+        }
+        return lx <= maxX && hx >= minX && ly <= maxY && hy >= minY && lz <= maxZ && hz >= minZ;
+    }
+
+    // ----------------------------------------------------------------------------------
+    // Cells
+    // ----------------------------------------------------------------------------------
+
+    private long cellOf(Aabb box) {
+        if (box.maxX - box.minX > cellSize || box.maxY - box.minY > cellSize || box.maxZ - box.minZ > cellSize) {
+            return OVERSIZED;
+        }
+        return key((int) cellCoord((box.minX + box.maxX) * 0.5f),
+                (int) cellCoord((box.minY + box.maxY) * 0.5f),
+                (int) cellCoord((box.minZ + box.maxZ) * 0.5f));
+    }
+
+    private long cellCoord(float v) {
+        float c = (float) Math.floor(v * inverseCellSize);
+        // Clamp to the 21-bit signed range packed into cell keys
+        return (long) Math.max(-(1 << 20), Math.min((1 << 20) - 1, c));
+    }
+
+    private static long key(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (z & 0x1FFFFF);
+    }
+
+    private static int unpack(long key, int shift) {
+        int v = (int) ((key >>> shift) & 0x1FFFFF);
+        return (v << 11) >> 11;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int findSlot(long key) {
+        int mask = cellKeys.length - 1;
+        for (int slot = hash(key) & mask; cellUsed[slot]; slot = (slot + 1) & mask) {
+            if (cellKeys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void link(int handle, long cell) {
+        entryCell[handle] = cell;
+        prev[handle] = NONE;
+        if (cell == OVERSIZED) {
+            next[handle] = oversizedHead;
+            if (oversizedHead != NONE) {
+                prev[oversizedHead] = handle;
+            }
+            oversizedHead = handle;
+            return;
+        }
+        int slot = findSlot(cell);
+        if (slot < 0) {
+            if ((cellCount + 1) * 2 > cellKeys.length) {
+                growCells();
+            }
+            int mask = cellKeys.length - 1;
+            slot = hash(cell) & mask;
+            while (cellUsed[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            cellUsed[slot] = true;
+            cellKeys[slot] = cell;
+            cellHeads[slot] = NONE;
+            cellCount++;
+        }
+        int head = cellHeads[slot];
+        next[handle] = head;
+        if (head != NONE) {
+            prev[head] = handle;
+        }
+        cellHeads[slot] = handle;
+    }
+
+    private void unlink(int handle) {
+        int p = prev[handle];
+        int n = next[handle];
+        if (n != NONE) {
+            prev[n] = p;
+        }
+        if (p != NONE) {
+            next[p] = n;
+            return;
+        }
+        // handle was the list head
+        long cell = entryCell[handle];
+        if (cell == OVERSIZED) {
+            oversizedHead = n;
+            return;
+        }
+        int slot = findSlot(cell);
+        if (n != NONE) {
+            cellHeads[slot] = n;
+        } else {
+            removeSlot(slot);
+        }
+    }
+
+    /**
+     * Backward-shift deletion keeps probe chains intact without tombstones.
+     */
+    private void removeSlot(int slot) {
+        int mask = cellKeys.length - 1;
+        cellUsed[slot] = false;
+        cellCount--;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; cellUsed[i]; i = (i + 1) & mask) {
+            int home = hash(cellKeys[i]) & mask;
+            // Move the entry back if its home position is not inside (hole, i]
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                cellKeys[hole] = cellKeys[i];
+                cellHeads[hole] = cellHeads[i];
+                cellUsed[hole] = true;
+                cellUsed[i] = false;
+                hole = i;
+            }
+        }
+    }
+
+    private void growCells() {
+        long[] oldKeys = cellKeys;
+        int[] oldHeads = cellHeads;
+        boolean[] oldUsed = cellUsed;
+        int capacity = oldKeys.length * 2;
+        cellKeys = new long[capacity];
+        cellHeads = new int[capacity];
+        cellUsed = new boolean[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (!oldUsed[i]) {
+                continue;
+            }
+            int slot = hash(oldKeys[i]) & mask;
+            while (cellUsed[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            cellUsed[slot] = true;
+            cellKeys[slot] = oldKeys[i];
+            cellHeads[slot] = oldHeads[i];
+        }
+    }
+
+    private void growEntries() {
+        int capacity = values.length * 2;
+        values = Arrays.copyOf(values, capacity);
+        bounds = Arrays.copyOf(bounds, capacity * 6);
+        entryCell = Arrays.copyOf(entryCell, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        live = Arrays.copyOf(live, capacity);
+        freeList = Arrays.copyOf(freeList, capacity);
+    }
+
+    private void checkLive(int handle) {
+        if (handle < 0 || handle >= highWater || !live[handle]) {
+            throw new IllegalArgumentException("Unknown handle: " + handle);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.tridimensity.spatial;
+
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelNode;
+
+/**
+ * Result of a {@link CubeBvh} ray query. Meant to be reused across queries.
+ */
+public final class RayHit {
+    ModelCube cube;
+    ModelNode node;
+    int cubeIndex = -1;
+    int nodeIndex = -1;
+    float distance = Float.POSITIVE_INFINITY;
+
+    void clear() {
+        cube = null;
+        node = null;
+        cubeIndex = -1;
+        nodeIndex = -1;
+        distance = Float.POSITIVE_INFINITY;
+    }
+
+    public ModelCube getCube() {
+        return cube;
+    }
+
+    public ModelNode getNode() {
+        return node;
+    }
+
+    /**
+     * @return The cube index within the {@link CubeBvh}.
+     */
+    public int getCubeIndex() {
+        return cubeIndex;
+    }
+
+    /**
+     * @return The node index within the model's hierarchy.
+     */
+    public int getNodeIndex() {
+        return nodeIndex;
+    }
+
+    /**
+     * @return Distance from the ray origin to the entry point, in blocks.
+     */
+    public float getDistance() {
+        return distance;
+    }
+
+    @Override
+    public String toString() {
+        return "RayHit{" +
+                "cube=" + (cube != null ? cube.getName() : null) +
+                ", node=" + (node != null ? node.getName() : null) +
+                ", distance=" + distance +
+                '}';
+    }
+}
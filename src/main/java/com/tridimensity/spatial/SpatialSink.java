@@ -0,0 +1,11 @@
+package com.tridimensity.spatial;
+
+/**
+ * Receives query results from {@link InstanceGrid}. Reuse one sink across queries to keep them allocation-free.
+ *
+ * @param <T> Payload type stored in the index.
+ */
+@FunctionalInterface
+public interface SpatialSink<T> {
+    void accept(int handle, T value);
+}
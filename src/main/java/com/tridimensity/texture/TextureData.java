@@ -0,0 +1,40 @@
+package com.tridimensity.texture;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decoded bytes of an embedded texture (the image file, e.g. PNG), shared by every model that
+ * embeds the same content. Obtained from {@link TexturePool#acquire} and returned with
+ * {@link TexturePool#release}; the bytes must not be used after the last release.
+ */
+public final class TextureData {
+    private final String contentKey;
+    final ByteBuffer buffer;
+    private final ByteBuffer view;
+    int references;
+
+    TextureData(String contentKey, ByteBuffer buffer) {
+        this.contentKey = contentKey;
+        this.buffer = buffer;
+        this.view = buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return The SHA-256 of the decoded bytes, in hex.
+     */
+    public String getContentKey() {
+        return contentKey;
+    }
+
+    /**
+     * @return A read-only, direct view of the bytes, positioned at 0 with its limit at the end. The
+     *         view is shared between holders: read it with absolute gets or through a duplicate.
+     */
+    public ByteBuffer getBytes() {
+        return view;
+    }
+
+    public int getSize() {
+        return view.limit();
+    }
+}
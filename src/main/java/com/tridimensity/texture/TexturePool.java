@@ -0,0 +1,264 @@
+package com.tridimensity.texture;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.jfr.CacheEvictionEvent;
+import com.tridimensity.model.ModelTexture;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes embedded textures on demand into pooled direct buffers and shares identical content.
+ *
+ * <p>Each acquired texture is decoded straight from its base64 range into an off-heap buffer taken
+ * from a per-size free list, then keyed by the SHA-256 of the decoded bytes: textures with the same
+ * content, in the same or different models, resolve to one {@link TextureData}. The key is
+ * remembered on the {@link ModelTexture}, so later acquires of a resident texture skip decoding.
+ * Buffers of released textures go back to the free lists, up to a byte budget.</p>
+ *
+ * <p>All methods are thread-safe. Decoding and hashing run outside the pool's lock, so threads
+ * acquiring different textures decode in parallel; the lock only covers the resident table and
+ * the free lists.</p>
+ */
+public class TexturePool {
+    private static final TexturePool SHARED = new TexturePool();
+    private static final String CACHE_NAME = "texture-pool";
+    private static final byte[] BASE64 = new byte[128];
+
+    static {
+        Arrays.fill(BASE64, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64[alphabet.charAt(i)] = (byte) i;
+        }
+        // URL-safe variants decode to the same values
+        BASE64['-'] = 62;
+        BASE64['_'] = 63;
+    }
+
+    private final long maxPooledBytes;
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Map<String, TextureData> resident = new HashMap<>();
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<ByteBuffer>[] free = new ArrayDeque[32]; // by log2 of capacity
+    private long pooledBytes;
+    private long residentBytes;
+
+    public TexturePool() {
+        this(64L * 1024 * 1024);
+    }
+
+    /**
+     * @param maxPooledBytes The most off-heap memory kept in free lists for reuse.
+     */
+    public TexturePool(long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException("Pool budget must not be negative: " + maxPooledBytes);
+        }
+        this.maxPooledBytes = maxPooledBytes;
+    }
+
+    /**
+     * @return A process-wide pool, for sharing textures between independently loaded models.
+     */
+    public static TexturePool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the decoded bytes of an embedded texture, decoding them if no texture with the same
+     * content is resident. Every call must be paired with {@link #release(TextureData)}.
+     *
+     * @throws IllegalArgumentException If the texture is not embedded.
+     * @throws ModelParseException If the payload is not valid base64.
+     */
+    public TextureData acquire(ModelTexture texture) {
+        if (!texture.isEmbedded()) {
+            throw new IllegalArgumentException("Texture '" + texture.getName() + "' has no embedded data");
+        }
+        String key = texture.getContentKey();
+        int length = texture.getDataLength();
+        ByteBuffer buffer;
+        synchronized (this) {
+            if (key != null) {
+                TextureData data = resident.get(key);
+                if (data != null) {
+                    data.references++;
+                    return data;
+                }
+            }
+            buffer = take(length / 4 * 3 + 3);
+        }
+
+        // The buffer is this thread's alone until it is published in the resident table
+        try {
+            decode(texture.getSource(), texture.getDataOffset(), length, buffer);
+        } catch (ModelParseException e) {
+            synchronized (this) {
+                recycle(buffer);
+            }
+            throw new ModelParseException("Texture '" + texture.getName() + "': " + e.getMessage());
+        }
+        buffer.flip();
+        key = hash(buffer);
+        texture.setContentKey(key);
+
+        synchronized (this) {
+            // Another thread may have decoded the same content meanwhile
+            TextureData data = resident.get(key);
+            if (data != null) {
+                recycle(buffer);
+            } else {
+                data = new TextureData(key, buffer);
+                resident.put(key, data);
+                residentBytes += buffer.limit();
+            }
+            data.references++;
+            return data;
+        }
+    }
+
+    /**
+     * Drops one reference; the last release returns the bytes to the pool.
+     */
+    public synchronized void release(TextureData data) {
+        if (data.references <= 0 || resident.get(data.getContentKey()) != data) {
+            throw new IllegalStateException("Texture " + data.getContentKey() + " is not held");
+        }
+        if (--data.references == 0) {
+            CacheEvictionEvent.emit(CACHE_NAME, "released", data.getContentKey(), 1, data.getSize());
+            resident.remove(data.getContentKey());
+            residentBytes -= data.getSize();
+            recycle(data.buffer);
+        }
+    }
+
+    /**
+     * @return The number of distinct textures currently decoded.
+     */
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    /**
+     * @return The decoded size of all resident textures, in bytes.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return The capacity of the free buffers kept for reuse, in bytes.
+     */
+    public synchronized long getPooledBytes() {
+        return pooledBytes;
+    }
+
+    /**
+     * Drops every free buffer, leaving resident textures alone.
+     */
+    public synchronized void trim() {
+        int buffers = 0;
+        for (ArrayDeque<ByteBuffer> list : free) {
+            buffers += list != null ? list.size() : 0;
+        }
+        if (buffers > 0) {
+            CacheEvictionEvent.emit(CACHE_NAME, "trim", null, buffers, pooledBytes);
+        }
+        Arrays.fill(free, null);
+        pooledBytes = 0;
+    }
+
+    private ByteBuffer take(int bytes) {
+        int bucket = bucket(bytes);
+        ArrayDeque<ByteBuffer> list = free[bucket];
+        ByteBuffer buffer = list != null ? list.poll() : null;
+        if (buffer != null) {
+            pooledBytes -= buffer.capacity();
+            return buffer.clear();
+        }
+        return ByteBuffer.allocateDirect(1 << bucket).order(ByteOrder.nativeOrder());
+    }
+
+    private void recycle(ByteBuffer buffer) {
+        if (pooledBytes + buffer.capacity() > maxPooledBytes) {
+            CacheEvictionEvent.emit(CACHE_NAME, "pool-full", null, 1, buffer.capacity());
+            return;
+        }
+        int bucket = Integer.numberOfTrailingZeros(buffer.capacity());
+        if (free[bucket] == null) {
+            free[bucket] = new ArrayDeque<>();
+        }
+        free[bucket].push(buffer);
+        pooledBytes += buffer.capacity();
+    }
+
+    private static int bucket(int bytes) {
+        int bucket = 32 - Integer.numberOfLeadingZeros(Math.max(bytes, 64) - 1);
+        if (bucket > 30) {
+            throw new IllegalArgumentException("Texture too large: " + bytes + " bytes");
+        }
+        return bucket;
+    }
+
+    private static String hash(ByteBuffer bytes) {
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        digest.update(bytes.duplicate());
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Decodes {@code length} base64 characters of {@code source} into {@code dest}. Padding ends the
+     * data; whitespace is skipped.
+     */
+    static void decode(CharSequence source, int offset, int length, ByteBuffer dest) {
+        int bits = 0;
+        int count = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                continue;
+            }
+            int value = c < 128 ? BASE64[c] : -1;
+            if (value < 0) {
+                throw new ModelParseException("Invalid base64 character '" + c + "' at " + (i - offset));
+            }
+            bits = (bits << 6) | value;
+            if (++count == 4) {
+                dest.put((byte) (bits >> 16)).put((byte) (bits >> 8)).put((byte) bits);
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 1) {
+            throw new ModelParseException("Truncated base64 data");
+        }
+        if (count == 2) {
+            dest.put((byte) (bits >> 4));
+        } else if (count == 3) {
+            dest.put((byte) (bits >> 10)).put((byte) (bits >> 2));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.tridimensity.util;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+/**
+ * Mutable axis-aligned bounding box.
+ *
+ * <p>An empty box has {@code min > max} on every axis; {@link #union} and {@link #transform}
+ * treat it as "no volume". Instances are meant to be reused by callers to avoid allocation.</p>
+ */
+public final class Aabb {
+    public float minX, minY, minZ;
+    public float maxX, maxY, maxZ;
+
+    /**
+     * Creates an empty box.
+     */
+    public Aabb() {
+        setEmpty();
+    }
+
+    public Aabb(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        set(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    public Aabb(Aabb other) {
+        set(other);
+    }
+
+    public Aabb set(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        return this;
+    }
+
+    public Aabb set(Aabb other) {
+        return set(other.minX, other.minY, other.minZ, other.maxX, other.maxY, other.maxZ);
+    }
+
+    /**
+     * Reads a box stored as six consecutive floats (min xyz, max xyz).
+     */
+    public Aabb set(float[] packed, int offset) {
+        return set(packed[offset], packed[offset + 1], packed[offset + 2],
+                packed[offset + 3], packed[offset + 4], packed[offset + 5]);
+    }
+
+    /**
+     * Writes this box as six consecutive floats (min xyz, max xyz).
+     */
+    public void get(float[] packed, int offset) {
+        packed[offset] = minX;
+        packed[offset + 1] = minY;
+        packed[offset + 2] = minZ;
+        packed[offset + 3] = maxX;
+        packed[offset + 4] = maxY;
+        packed[offset + 5] = maxZ;
+    }
+
+    public Aabb setEmpty() {
+        return set(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY,
+                Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+    }
+
+    public boolean isEmpty() {
+        return minX > maxX || minY > maxY || minZ > maxZ;
+    }
+
+    public Aabb union(float x, float y, float z) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+        return this;
+    }
+
+    public Aabb union(Aabb other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        minX = Math.min(minX, other.minX);
+        minY = Math.min(minY, other.minY);
+        minZ = Math.min(minZ, other.minZ);
+        maxX = Math.max(maxX, other.maxX);
+        maxY = Math.max(maxY, other.maxY);
+        maxZ = Math.max(maxZ, other.maxZ);
+        return this;
+    }
+
+    public boolean intersects(Aabb other) {
+        return minX <= other.maxX && maxX >= other.minX
+                && minY <= other.maxY && maxY >= other.minY
+                && minZ <= other.maxZ && maxZ >= other.minZ;
+    }
+
+    public boolean contains(float x, float y, float z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+    }
+
+    /**
+     * @return True if {@code other} lies completely inside this box.
+     */
+    public boolean contains(Aabb other) {
+        return other.minX >= minX && other.maxX <= maxX
+                && other.minY >= minY && other.maxY <= maxY
+                && other.minZ >= minZ && other.maxZ <= maxZ;
+    }
+
+    public Vector3f getCenter(Vector3f dest) {
+        return dest.set((minX + maxX) * 0.5f, (minY + maxY) * 0.5f, (minZ + maxZ) * 0.5f);
+    }
+
+    public Vector3f getSize(Vector3f dest) {
+        return dest.set(maxX - minX, maxY - minY, maxZ - minZ);
+    }
+
+    /**
+     * Stores in {@code dest} the box enclosing this box after transformation by the affine matrix {@code m}.
+     * An empty box stays empty. {@code dest} may be this box.
+     */
+    public Aabb transform(Matrix4f m, Aabb dest) {
+        return transform(m.m00(), m.m01(), m.m02(), m.m10(), m.m11(), m.m12(),
+                m.m20(), m.m21(), m.m22(), m.m30(), m.m31(), m.m32(), dest);
+    }
+
+    /**
+     * Same as {@link #transform(Matrix4f, Aabb)} for a column-major matrix stored at {@code offset} in {@code m}.
+     */
+    public Aabb transform(float[] m, int offset, Aabb dest) {
+        return transform(m[offset], m[offset + 1], m[offset + 2], m[offset + 4], m[offset + 5], m[offset + 6],
+                m[offset + 8], m[offset + 9], m[offset + 10], m[offset + 12], m[offset + 13], m[offset + 14], dest);
+    }
+
+    private Aabb transform(float m00, float m01, float m02, float m10, float m11, float m12,
+                           float m20, float m21, float m22, float m30, float m31, float m32, Aabb dest) {
+        if (isEmpty()) {
+            return dest.setEmpty();
+        }
+        // Transform the center, then project the half extents onto the absolute basis
+        float cx = (minX + maxX) * 0.5f, cy = (minY + maxY) * 0.5f, cz = (minZ + maxZ) * 0.5f;
+        float ex = (maxX - minX) * 0.5f, ey = (maxY - minY) * 0.5f, ez = (maxZ - minZ) * 0.5f;
+        float ncx = m00 * cx + m10 * cy + m20 * cz + m30;
+        float ncy = m01 * cx + m11 * cy + m21 * cz + m31;
+        float ncz = m02 * cx + m12 * cy + m22 * cz + m32;
+        float nex = Math.abs(m00) * ex + Math.abs(m10) * ey + Math.abs(m20) * ez;
+        float ney = Math.abs(m01) * ex + Math.abs(m11) * ey + Math.abs(m21) * ez;
+        float nez = Math.abs(m02) * ex + Math.abs(m12) * ey + Math.abs(m22) * ez;
+        return dest.set(ncx - nex, ncy - ney, ncz - nez, ncx + nex, ncy + ney, ncz + nez);
+    }
+
+    @Override
+    public String toString() {
+        return "Aabb{" +
+                "min=(" + minX + ", " + minY + ", " + minZ + ")" +
+                ", max=(" + maxX + ", " + maxY + ", " + maxZ + ")" +
+                '}';
+    }
+}
@@ -0,0 +1,150 @@
+package com.tridimensity.io;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.ast.ModelAst;
+import com.tridimensity.io.gen.SyntheticModelGenerator;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeepHierarchyTest {
+    private static final int DEPTH = 10_000;
+
+    private static Model load(String json, ParserOptions options, ModelInterner interner) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), options, interner);
+    }
+
+    private static SyntheticModelGenerator chain() {
+        // One element per group, so the last element sits at the bottom of the chain
+        return new SyntheticModelGenerator().setSeed(9).setFanOut(1).setDepth(DEPTH).setElements(DEPTH);
+    }
+
+    private static void assertChain(ModelHierarchy h, int size) {
+        assertEquals(size, h.size());
+        int depth = 0;
+        for (int p = h.size() - 1; p >= 0; p = h.getParent(p)) {
+            depth++;
+        }
+        assertTrue(depth >= DEPTH, "depth " + depth);
+    }
+
+    @Test
+    void loadsDeepInlineChain() {
+        Model model = load(chain().generate(), ParserOptions.strict(), null);
+        assertChain(model.getHierarchy(), DEPTH);
+        assertEquals(DEPTH, model.getGeometry().getCubeCount());
+        ModelNode node = model.getRoots().get(0);
+        for (int i = 1; i < DEPTH; i++) {
+            assertEquals(1, node.getChildren().size());
+            node = node.getChildren().get(0);
+        }
+        assertTrue(node.getChildren().isEmpty());
+    }
+
+    @Test
+    void loadsDeepReferencedChain() {
+        String json = chain().setGroupStyle(SyntheticModelGenerator.GroupStyle.REFERENCED).generate();
+        assertChain(load(json, ParserOptions.strict(), null).getHierarchy(), DEPTH);
+    }
+
+    /**
+     * A chain of {@code depth} groups, each referencing the next through the {@code groups} array;
+     * the last references group {@code backTo}, or nothing if it is negative.
+     */
+    private static String referencedChain(int depth, int backTo) {
+        StringBuilder json = new StringBuilder("{\"elements\":[],\"outliner\":[{\"uuid\":\"" + new UUID(0, 0) + "\"}],\"groups\":[");
+        for (int i = 0; i < depth; i++) {
+            int next = i + 1 < depth ? i + 1 : backTo;
+            json.append(i > 0 ? "," : "").append("{\"uuid\":\"").append(new UUID(0, i)).append("\",\"name\":\"g").append(i)
+                    .append("\",\"children\":[");
+            if (next >= 0) {
+                json.append("{\"uuid\":\"").append(new UUID(0, next)).append("\"}");
+            }
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Test
+    void rejectsCyclicGroupReferences() {
+        assertChain(load(referencedChain(DEPTH, -1), ParserOptions.strict(), null).getHierarchy(), DEPTH);
+
+        ModelParseException e = assertThrows(ModelParseException.class,
+                () -> load(referencedChain(DEPTH, 0), ParserOptions.strict(), null));
+        assertTrue(e.getMessage().startsWith("Cyclic group reference"), e.getMessage());
+        assertEquals("/groups/" + new UUID(0, 0), e.getPointer());
+
+        // A group listing itself in its own children
+        ModelParseException self = assertThrows(ModelParseException.class,
+                () -> load(referencedChain(1, 0), ParserOptions.strict(), null));
+        assertTrue(self.getMessage().startsWith("Cyclic group reference"), self.getMessage());
+        assertTrue(self.getLine() > 0);
+    }
+
+    @Test
+    void autoFixWrapsRotatedElementsAtAnyDepth() {
+        String json = chain().setRotatedFraction(0.2f).generate();
+        Model model = load(json, new ParserOptions(true), null);
+        ModelHierarchy h = model.getHierarchy();
+        int wrappers = h.size() - DEPTH;
+        assertTrue(wrappers > 1_500 && wrappers < 2_500, "wrappers " + wrappers);
+        // Rotated elements end up in wrapper groups throughout the chain, including its bottom half
+        int deepWrappers = 0;
+        for (int i = 0; i < h.size(); i++) {
+            if (h.getNode(i).getRotation().lengthSquared() > 0 && h.getNode(i).getChildren().isEmpty() && i > h.size() / 2) {
+                deepWrappers++;
+            }
+        }
+        assertTrue(deepWrappers > 0);
+        assertEquals(DEPTH, model.getGeometry().getCubeCount());
+    }
+
+    @Test
+    void findsParentGroupAtAnyDepth() {
+        String json = chain().generate();
+        JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+        ModelAst ast = ModelAst.fromJson(root, json);
+        String last = root.getAsJsonArray("elements").get(DEPTH - 1).getAsJsonObject().get("uuid").getAsString();
+        JsonObject parent = ast.findParentGroupForElementUuid(last);
+        assertNotNull(parent);
+        assertFalse(parent.getAsJsonArray("children").get(0).isJsonObject());
+        assertEquals(DEPTH, ast.indexElementReferences().size());
+        assertNull(ast.findParentGroupForElementUuid("missing"));
+    }
+
+    @Test
+    void internsDeepChains() {
+        String json = chain().generate();
+        ModelInterner interner = new ModelInterner();
+        Model first = load(json, ParserOptions.strict(), interner);
+        Model second = load(json, ParserOptions.strict(), interner);
+        assertSame(first.getRoots().get(0), second.getRoots().get(0));
+    }
+
+    @Test
+    void evaluatesDeepChainTransforms() {
+        Model model = load(chain().generate(), ParserOptions.strict(), null);
+        ModelInstance instance = model.instantiate();
+        instance.setPoseRotation(0, 0, 45, 0);
+        instance.updateWorldTransforms();
+
+        int last = DEPTH - 1;
+        Matrix4f world = instance.getWorldTransform(last, new Matrix4f());
+        assertTrue(world.isFinite());
+        Map<ModelNode, Matrix4f> byNode = instance.computeWorldTransforms();
+        assertTrue(byNode.get(model.getHierarchy().getNode(last)).equals(world, 1e-3f));
+    }
+}
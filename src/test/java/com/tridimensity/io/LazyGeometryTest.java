@@ -0,0 +1,185 @@
+package com.tridimensity.io;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.gen.SyntheticModelGenerator;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.GeometryStore;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelFace;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.util.Aabb;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyGeometryTest {
+    private static final ParserOptions LAZY = ParserOptions.builder().lazyGeometry(true).build();
+
+    private static Model load(String json, ParserOptions options) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), options);
+    }
+
+    private static String generated() {
+        return new SyntheticModelGenerator().setSeed(4).setElements(500).setDepth(3).setFanOut(4).generate();
+    }
+
+    private static void assertSameGeometry(GeometryStore expected, GeometryStore actual) {
+        assertEquals(expected.getCubeCount(), actual.getCubeCount());
+        float[] a = new float[4];
+        float[] b = new float[4];
+        for (int i = 0; i < expected.getCubeCount(); i++) {
+            assertEquals(expected.getUuid(i), actual.getUuid(i));
+            assertEquals(expected.getName(i), actual.getName(i));
+            assertEquals(expected.getFaceMask(i), actual.getFaceMask(i));
+            for (int c = 0; c < 6; c++) {
+                assertEquals(expected.getBound(i, c), actual.getBound(i, c));
+            }
+            for (FaceDirection face : FaceDirection.values()) {
+                assertEquals(expected.getUv(i, face, a, 0), actual.getUv(i, face, b, 0));
+                assertArrayEquals(a, b);
+                assertEquals(expected.getRotation(i, face), actual.getRotation(i, face));
+                assertEquals(expected.getTexture(expected.getTextureIndex(i, face)), actual.getTexture(actual.getTextureIndex(i, face)));
+            }
+        }
+    }
+
+    /**
+     * @return The store's estimate plus its cube names, as compact strings.
+     */
+    private static long retainedSize(GeometryStore store) {
+        long bytes = store.estimateFootprint();
+        for (int i = 0; i < store.getCubeCount(); i++) {
+            String name = store.getName(i);
+            bytes += name != null ? 24 + 16 + name.length() : 0;
+        }
+        return bytes;
+    }
+
+    @Test
+    void hierarchyAndBoundsLoadWithoutFaces() {
+        String json = generated();
+        Model eager = load(json, ParserOptions.strict());
+        Model lazy = load(json, LAZY);
+        GeometryStore store = lazy.getGeometry();
+        assertTrue(store.hasDeferredFaces());
+        int cubes = store.getCubeCount();
+        long lazyBytes = store.estimateFootprint();
+        // UUIDs and bounds are all the store itself holds; the rest is the source of its faces
+        long held = lazyBytes - (16 + cubes * 16L) - (16 + cubes * 24L);
+        assertTrue(held > 0, "the deferred faces must be counted");
+        assertTrue(held < json.length() / 4, "the deferred faces hold " + held + " bytes");
+        assertTrue(lazyBytes * 2 < retainedSize(eager.getGeometry()), lazyBytes + " vs " + retainedSize(eager.getGeometry()));
+
+        assertEquals(eager.getHierarchy().size(), lazy.getHierarchy().size());
+        assertEquals(eager.getBounds().toString(), lazy.getBounds().toString());
+        ModelInstance instance = lazy.instantiate();
+        instance.setPoseRotation(1, 0, 30, 0);
+        instance.updateWorldTransforms();
+        assertNotNull(instance.getWorldBounds(new Aabb()));
+        ModelCube cube = lazy.getHierarchy().getNode(1).getCubes().get(0);
+        assertNotNull(cube.getUuid());
+        assertNotNull(cube.getBounds());
+        assertTrue(store.hasDeferredFaces(), "bounds and transforms must not load faces");
+    }
+
+    @Test
+    void facesLoadOnFirstAccess() {
+        String json = generated();
+        Model eager = load(json, ParserOptions.strict());
+        Model lazy = load(json, LAZY);
+        ModelCube cube = lazy.getHierarchy().getNode(2).getCubes().get(0);
+        ModelFace north = cube.getFace(FaceDirection.NORTH);
+        assertFalse(lazy.getGeometry().hasDeferredFaces());
+        assertNotNull(north);
+        assertSameGeometry(eager.getGeometry(), lazy.getGeometry());
+        assertEquals(eager.getTextureIndex(eager.getGeometry().getCube(0), FaceDirection.UP),
+                lazy.getTextureIndex(lazy.getGeometry().getCube(0), FaceDirection.UP));
+    }
+
+    @Test
+    void concurrentFirstAccessLoadsOnce() throws Exception {
+        String json = generated();
+        Model eager = load(json, ParserOptions.strict());
+        Model lazy = load(json, LAZY);
+        GeometryStore store = lazy.getGeometry();
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int[] masks = new int[store.getCubeCount()];
+                    for (int k = 0; k < masks.length; k++) {
+                        int i = (k + offset * 61) % masks.length;
+                        masks[i] = store.getFaceMask(i) | store.getTextureIndex(i, FaceDirection.SOUTH) << 8;
+                    }
+                    return masks;
+                }));
+            }
+            start.countDown();
+            GeometryStore expected = eager.getGeometry();
+            for (Future<int[]> result : results) {
+                int[] masks = result.get();
+                for (int i = 0; i < masks.length; i++) {
+                    assertEquals(expected.getFaceMask(i) | expected.getTextureIndex(i, FaceDirection.SOUTH) << 8, masks[i]);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertSameGeometry(eager.getGeometry(), store);
+    }
+
+    @Test
+    void elementTransformsAreStillRejectedAtLoad() {
+        String json = new SyntheticModelGenerator().setSeed(6).setElements(50).setRotatedFraction(0.5f).generate();
+        ModelParseException e = assertThrows(ModelParseException.class, () -> load(json, LAZY));
+        assertTrue(e.getMessage().startsWith("Element-level"), e.getMessage());
+
+        // Auto-fix needs the element tree, so such models load eagerly
+        ParserOptions fix = LAZY.toBuilder().autoFixTransforms(true).build();
+        Model model = load(json, fix);
+        assertFalse(model.getGeometry().hasDeferredFaces());
+        assertEquals(load(json, new ParserOptions(true)).getHierarchy().size(), model.getHierarchy().size());
+    }
+
+    @Test
+    void badFaceDataIsReportedOnAccess() {
+        String json = "{\"elements\":[{\"name\":\"c\",\"uuid\":\"00000000-0000-0000-0000-000000000001\","
+                + "\"from\":[0,0,0],\"to\":[1,1,1],\"faces\":{\"north\":{\"uv\":\"oops\"}}}],"
+                + "\"outliner\":[{\"name\":\"g\",\"origin\":[0,0,0],\"children\":[\"00000000-0000-0000-0000-000000000001\"]}]}";
+        assertThrows(ModelParseException.class, () -> load(json, ParserOptions.strict()));
+        Model model = load(json, LAZY);
+        ModelCube cube = model.getGeometry().getCube(0);
+        assertEquals(1f, cube.getBounds().maxX);
+        assertThrows(ModelParseException.class, () -> cube.getFace(FaceDirection.NORTH));
+        assertThrows(ModelParseException.class, cube::getName);
+        assertTrue(model.getGeometry().hasDeferredFaces());
+    }
+
+    @Test
+    void structuralErrorsMatchEagerLoading() {
+        String missing = "{\"elements\":[{\"uuid\":\"00000000-0000-0000-0000-000000000001\",\"from\":[0,0,0]}],\"outliner\":[]}";
+        ModelParseException eager = assertThrows(ModelParseException.class, () -> load(missing, ParserOptions.strict()));
+        ModelParseException lazy = assertThrows(ModelParseException.class, () -> load(missing, LAZY));
+        assertEquals(eager.getMessage(), lazy.getMessage());
+
+        String broken = "{\"elements\":[{\"uuid\":\"x\",\"from\":[0,0,0}],\"outliner\":[]}";
+        assertEquals(assertThrows(ModelParseException.class, () -> load(broken, ParserOptions.strict())).getMessage(),
+                assertThrows(ModelParseException.class, () -> load(broken, LAZY)).getMessage());
+    }
+}
@@ -0,0 +1,169 @@
+package com.tridimensity.io;
+
+import com.tridimensity.exception.ModelLimitExceededException;
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.exception.ModelLimitExceededException.Limit;
+import com.tridimensity.io.gen.SyntheticModelGenerator;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadLimitsTest {
+
+    private static Model load(String json, ParserOptions options) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), options);
+    }
+
+    private static ModelLimitExceededException assertLimit(Limit limit, String json, ParserOptions options) {
+        ModelLimitExceededException e = assertThrows(ModelLimitExceededException.class, () -> load(json, options));
+        assertEquals(limit, e.getLimit());
+        return e;
+    }
+
+    /**
+     * A chain of {@code depth} inline groups.
+     */
+    private static String chain(int depth) {
+        StringBuilder json = new StringBuilder("{\"elements\":[],\"outliner\":[");
+        for (int i = 0; i < depth; i++) {
+            json.append("{\"name\":\"g").append(i).append("\",\"uuid\":\"").append(new UUID(0, i))
+                    .append("\",\"origin\":[0,0,0],\"children\":[");
+        }
+        for (int i = 0; i < depth; i++) {
+            json.append("]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    @Test
+    void endlessInputStopsAtByteLimit() {
+        InputStream endless = new InputStream() {
+            @Override
+            public int read() {
+                return ' ';
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                Arrays.fill(b, off, off + len, (byte) ' ');
+                return len;
+            }
+        };
+        ParserOptions options = ParserOptions.builder().maxInputBytes(100_000).build();
+        ModelLimitExceededException e = assertThrows(ModelLimitExceededException.class,
+                () -> BlockbenchLoader.load(endless, options));
+        assertEquals(Limit.INPUT_BYTES, e.getLimit());
+        assertEquals(100_000, e.getMaximum());
+    }
+
+    @Test
+    void inputAtByteLimitLoads() {
+        String json = chain(3);
+        int length = json.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(3, load(json, ParserOptions.builder().maxInputBytes(length).build()).getHierarchy().size());
+        assertLimit(Limit.INPUT_BYTES, json, ParserOptions.builder().maxInputBytes(length - 1).build());
+    }
+
+    @Test
+    void elementAndFaceLimits() {
+        String json = new SyntheticModelGenerator().setElements(100).setDepth(2).setFanOut(2).generate();
+        assertEquals(100, load(json, ParserOptions.builder().maxElements(100).build()).getGeometry().getCubeCount());
+        assertLimit(Limit.ELEMENTS, json, ParserOptions.builder().maxElements(99).build());
+        assertLimit(Limit.FACES_PER_ELEMENT, json, ParserOptions.builder().maxFacesPerElement(5).build());
+        assertNotNull(load(json, ParserOptions.builder().maxFacesPerElement(6).build()));
+    }
+
+    @Test
+    void nodeLimitCountsGroups() {
+        String json = new SyntheticModelGenerator().setElements(20).setDepth(3).setFanOut(3).generate();
+        assertEquals(13, load(json, ParserOptions.builder().maxNodes(13).build()).getHierarchy().size());
+        assertLimit(Limit.NODES, json, ParserOptions.builder().maxNodes(12).build());
+    }
+
+    @Test
+    void nodeLimitIncludesAutoFixGroups() {
+        String json = new SyntheticModelGenerator().setSeed(5).setElements(40).setDepth(2).setFanOut(2)
+                .setRotatedFraction(1f).generate();
+        // The outliner has 3 groups, auto-fix wraps each of the 40 elements in another
+        assertLimit(Limit.NODES, json, ParserOptions.builder().autoFixTransforms(true).maxNodes(10).build());
+        assertEquals(43, load(json, ParserOptions.builder().autoFixTransforms(true).maxNodes(43).build())
+                .getHierarchy().size());
+    }
+
+    @Test
+    void deepOutlinerFailsBeforeParsing() {
+        String json = chain(10_000);
+        ModelLimitExceededException e = assertLimit(Limit.OUTLINER_DEPTH, json,
+                ParserOptions.builder().maxOutlinerDepth(64).build());
+        assertEquals(64, e.getMaximum());
+        assertEquals(64, load(chain(64), ParserOptions.builder().maxOutlinerDepth(64).build()).getHierarchy().size());
+    }
+
+    @Test
+    void groupsArrayCountsTowardsLimits() {
+        // A groups entry that lists itself: the outliner scan sees a single group
+        String self = "{\"elements\":[],\"outliner\":[{\"uuid\":\"" + new UUID(0, 1) + "\"}],"
+                + "\"groups\":[{\"uuid\":\"" + new UUID(0, 1) + "\",\"name\":\"g\",\"children\":[{\"uuid\":\"" + new UUID(0, 1) + "\"}]}]}";
+        assertThrows(ModelParseException.class, () -> assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> load(self, ParserOptions.builder().maxNodes(100).maxOutlinerDepth(10).build())));
+
+        // Each group lists the next one twice, doubling the tree at every level
+        StringBuilder json = new StringBuilder("{\"elements\":[],\"outliner\":[{\"uuid\":\"" + new UUID(0, 0) + "\"}],\"groups\":[");
+        for (int i = 0; i < 40; i++) {
+            String next = "{\"uuid\":\"" + new UUID(0, i + 1) + "\"}";
+            json.append(i > 0 ? "," : "").append("{\"uuid\":\"").append(new UUID(0, i)).append("\",\"name\":\"g").append(i)
+                    .append("\",\"children\":[").append(i < 39 ? next + "," + next : "").append("]}");
+        }
+        String doubling = json.append("]}").toString();
+        ModelLimitExceededException e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertLimit(Limit.NODES, doubling, ParserOptions.builder().maxNodes(1000).build()));
+        assertEquals(1000, e.getMaximum());
+        assertLimit(Limit.OUTLINER_DEPTH, doubling, ParserOptions.builder().maxOutlinerDepth(10).build());
+    }
+
+    @Test
+    void parseTimeBudget() {
+        String json = new SyntheticModelGenerator().setElements(5_000).generate();
+        assertLimit(Limit.PARSE_TIME, json, ParserOptions.builder().maxParseTime(Duration.ofNanos(1)).build());
+        assertNotNull(load(json, ParserOptions.builder().maxParseTime(Duration.ofMinutes(5)).build()));
+    }
+
+    @Test
+    void malformedJsonIsStillReportedByTheParser() {
+        ParserOptions options = ParserOptions.builder().maxElements(10).maxOutlinerDepth(10).build();
+        Exception e = assertThrows(RuntimeException.class, () -> load("{\"elements\":[{]", options));
+        assertFalse(e instanceof ModelLimitExceededException);
+    }
+
+    @Test
+    void defaultsAreUnlimited() {
+        ParserOptions options = ParserOptions.strict();
+        assertFalse(options.hasStructureLimits());
+        assertEquals(Long.MAX_VALUE, options.getMaxInputBytes());
+        assertNull(options.getMaxParseTime());
+        ParserOptions copy = options.toBuilder().maxElements(5).build();
+        assertTrue(copy.hasStructureLimits());
+        assertEquals(options.isAutoFixTransforms(), copy.isAutoFixTransforms());
+    }
+
+    @Test
+    void builderRejectsInvalidValues() {
+        ParserOptions.Builder builder = ParserOptions.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.maxInputBytes(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxElements(-1));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxNodes(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxOutlinerDepth(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxFacesPerElement(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxParseTime(Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxParseTime(Duration.ofSeconds(-1)));
+    }
+}
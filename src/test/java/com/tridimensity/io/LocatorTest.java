@@ -0,0 +1,158 @@
+package com.tridimensity.io;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelLocator;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocatorTest {
+    private static final String CUBE = "00000000-0000-0000-0000-000000000001";
+    private static final String MUZZLE = "00000000-0000-0000-0000-000000000002";
+    private static final String SEAT = "00000000-0000-0000-0000-000000000003";
+    private static final String EXHAUST = "00000000-0000-0000-0000-000000000004";
+    private static final String CUBE2 = "00000000-0000-0000-0000-000000000005";
+    private static final String GROUND = "00000000-0000-0000-0000-000000000006";
+
+    /**
+     * body (cube, seat) -> turret (muzzle, exhaust, cube2), plus a locator at the outliner root. The
+     * locators sit between the cubes in the elements array.
+     */
+    private static String document(String muzzleRotation) {
+        return "{\"elements\":["
+                + "{\"name\":\"hull\",\"uuid\":\"" + CUBE + "\",\"from\":[-4,0,-4],\"to\":[4,4,4],"
+                + "\"faces\":{\"north\":{\"uv\":[0,0,8,4],\"texture\":0}}},"
+                + "{\"name\":\"muzzle\",\"type\":\"locator\",\"uuid\":\"" + MUZZLE + "\",\"position\":[0,10,-12],\"rotation\":" + muzzleRotation + "},"
+                + "{\"name\":\"seat\",\"type\":\"null_object\",\"uuid\":\"" + SEAT + "\",\"position\":[0,4,2],\"rotation\":[0,90,0]},"
+                + "{\"name\":\"exhaust\",\"type\":\"locator\",\"uuid\":\"" + EXHAUST + "\",\"from\":[2,12,4]},"
+                + "{\"name\":\"gun\",\"uuid\":\"" + CUBE2 + "\",\"from\":[-1,9,-12],\"to\":[1,11,0],"
+                + "\"faces\":{\"up\":{\"uv\":[0,0,2,12],\"texture\":0}}},"
+                + "{\"name\":\"ground\",\"type\":\"locator\",\"uuid\":\"" + GROUND + "\",\"position\":[0,0,0]}"
+                + "],\"outliner\":[{\"name\":\"body\",\"uuid\":\"10000000-0000-0000-0000-000000000001\",\"origin\":[0,0,0],\"children\":[\"" + CUBE + "\",\"" + SEAT + "\","
+                + "{\"name\":\"turret\",\"uuid\":\"10000000-0000-0000-0000-000000000002\",\"origin\":[0,8,0],\"children\":[\"" + MUZZLE + "\",\"" + EXHAUST + "\",\"" + CUBE2 + "\"]}]},"
+                + "\"" + GROUND + "\"]}";
+    }
+
+    private static Model load(String json, ParserOptions options) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), options);
+    }
+
+    private static void assertLocators(ModelHierarchy h) {
+        assertEquals(4, h.getLocatorCount());
+        assertEquals(List.of("seat", "muzzle", "exhaust", "ground"),
+                List.of(h.getLocator(0).getName(), h.getLocator(1).getName(), h.getLocator(2).getName(), h.getLocator(3).getName()));
+        int turret = h.indexOf("turret");
+        assertEquals(turret, h.getLocatorNode(h.indexOfLocator("muzzle")));
+        assertEquals(h.indexOf("body"), h.getLocatorNode(0));
+        assertEquals("<outliner-root>", h.getNode(h.getLocatorNode(3)).getName());
+
+        ModelLocator muzzle = h.getLocator(1);
+        assertEquals(ModelLocator.Kind.LOCATOR, muzzle.getKind());
+        assertEquals(new Vector3f(0, 10, -12), muzzle.getPosition());
+        assertEquals(new Vector3f(0, 0, 45), muzzle.getRotation());
+        ModelLocator seat = h.getLocator(0);
+        assertEquals(ModelLocator.Kind.NULL_OBJECT, seat.getKind());
+        assertEquals(new Vector3f(), seat.getRotation(), "null objects have no orientation");
+        assertEquals(new Vector3f(2, 12, 4), h.getLocator(2).getPosition(), "older files store the position in 'from'");
+        assertEquals(-1, h.indexOfLocator("missing"));
+    }
+
+    @Test
+    void locatorsAreParsedAsChildPoints() {
+        Model model = load(document("[0,0,45]"), ParserOptions.strict());
+        assertEquals(2, model.getGeometry().getCubeCount());
+        ModelNode body = model.getRoots().get(0);
+        assertEquals(1, body.getCubes().size());
+        assertEquals("seat", body.getLocators().get(0).getName());
+        assertLocators(model.getHierarchy());
+    }
+
+    @Test
+    void lazyLoadingMatchesEager() {
+        Model model = load(document("[0,0,45]"), ParserOptions.builder().lazyGeometry(true).build());
+        assertTrue(model.getGeometry().hasDeferredFaces());
+        assertLocators(model.getHierarchy());
+        // Faces are matched to cubes past the locators between them
+        assertEquals("gun", model.getGeometry().getName(1));
+        assertTrue(model.getGeometry().hasFace(1, FaceDirection.UP));
+        assertFalse(model.getGeometry().hasFace(1, FaceDirection.NORTH));
+    }
+
+    @Test
+    void autoFixLeavesLocatorRotationsAlone() {
+        Model strict = load(document("[0,0,45]"), ParserOptions.strict());
+        Model fixed = load(document("[0,0,45]"), new ParserOptions(true));
+        assertEquals(strict.getHierarchy().size(), fixed.getHierarchy().size());
+        assertLocators(fixed.getHierarchy());
+    }
+
+    @Test
+    void bulkQueryFollowsThePose() {
+        Model model = load(document("[0,0,45]"), ParserOptions.strict());
+        ModelHierarchy h = model.getHierarchy();
+        ModelInstance instance = model.instantiate();
+        int turret = h.indexOf("turret");
+        instance.setPoseRotation(turret, 0, 30, 0);
+        instance.setPosePosition(h.indexOf("body"), 16, 0, 0);
+        instance.updateWorldTransforms();
+
+        float[] buffer = new float[instance.getLocatorCount() * ModelInstance.LOCATOR_STRIDE];
+        instance.copyLocatorTransforms(buffer);
+        for (int l = 0; l < h.getLocatorCount(); l++) {
+            ModelLocator locator = h.getLocator(l);
+            Vector3f r = locator.getRotation();
+            Matrix4f expected = instance.getWorldTransform(h.getLocatorNode(l), new Matrix4f())
+                    .translate(locator.getPosition().mul(1 / 16f))
+                    .rotateXYZ((float) Math.toRadians(r.x), (float) Math.toRadians(-r.y), (float) Math.toRadians(r.z));
+            assertTrue(expected.equals(instance.getLocatorTransform(l, new Matrix4f()), 1e-5f));
+
+            int o = l * ModelInstance.LOCATOR_STRIDE;
+            Vector3f position = expected.getTranslation(new Vector3f());
+            assertEquals(position.x, buffer[o], 1e-5f);
+            assertEquals(position.y, buffer[o + 1], 1e-5f);
+            assertEquals(position.z, buffer[o + 2], 1e-5f);
+            Quaternionf q = new Quaternionf(buffer[o + 3], buffer[o + 4], buffer[o + 5], buffer[o + 6]);
+            Vector3f forward = q.transform(new Vector3f(0, 0, -1));
+            assertTrue(expected.transformDirection(new Vector3f(0, 0, -1)).equals(forward, 1e-5f));
+        }
+        // The muzzle swings with the turret: 12px in front of its pivot, turned 30 degrees
+        int muzzle = h.indexOfLocator("muzzle") * ModelInstance.LOCATOR_STRIDE;
+        assertEquals(1 + (float) Math.sin(Math.toRadians(30)) * 0.75f, buffer[muzzle], 1e-5f);
+        assertEquals(-(float) Math.cos(Math.toRadians(30)) * 0.75f, buffer[muzzle + 2], 1e-5f);
+    }
+
+    @Test
+    void internedNodesKeepTheirLocators() {
+        ModelInterner interner = new ModelInterner();
+        Model first = BlockbenchLoader.load(new ByteArrayInputStream(document("[0,0,45]").getBytes(StandardCharsets.UTF_8)), ParserOptions.strict(), interner);
+        Model same = BlockbenchLoader.load(new ByteArrayInputStream(document("[0,0,45]").getBytes(StandardCharsets.UTF_8)), ParserOptions.strict(), interner);
+        Model turned = BlockbenchLoader.load(new ByteArrayInputStream(document("[0,0,90]").getBytes(StandardCharsets.UTF_8)), ParserOptions.strict(), interner);
+        assertSame(first.getRoots().get(0), same.getRoots().get(0));
+        assertNotSame(first.getRoots().get(0), turned.getRoots().get(0));
+        assertEquals(new Vector3f(0, 0, 90), turned.getHierarchy().getLocator(1).getRotation());
+    }
+
+    @Test
+    void rejectsBadReferences() {
+        String twice = document("[0,0,45]").replace("\"" + CUBE2 + "\"]}", "\"" + CUBE2 + "\",\"" + MUZZLE + "\"]}");
+        ModelParseException e = assertThrows(ModelParseException.class, () -> load(twice, ParserOptions.strict()));
+        assertTrue(e.getMessage().startsWith("Locator referenced more than once"), e.getMessage());
+
+        String duplicate = document("[0,0,45]").replace("\"uuid\":\"" + GROUND + "\"", "\"uuid\":\"" + CUBE + "\"");
+        e = assertThrows(ModelParseException.class, () -> load(duplicate, ParserOptions.strict()));
+        assertTrue(e.getMessage().startsWith("Duplicate element UUID"), e.getMessage());
+    }
+}
@@ -0,0 +1,132 @@
+package com.tridimensity.io;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelInternerTest {
+
+    private static final String BODY = "b0000000-0000-4000-8000-000000000001";
+    private static final String HEAD = "b0000000-0000-4000-8000-000000000002";
+
+    private static String rig(int headTexture, float headRotation) {
+        return """
+            {
+                "elements": [
+                    {"uuid": "c0000000-0000-4000-8000-000000000001", "name": "torso", "from": [-4, 0, -2], "to": [4, 12, 2],
+                     "faces": {"north": {"uv": [0, 0, 8, 12], "texture": 0}, "south": {"uv": [8, 0, 16, 12], "texture": 0}}},
+                    {"uuid": "c0000000-0000-4000-8000-000000000002", "name": "skull", "from": [-4, 12, -4], "to": [4, 20, 4],
+                     "faces": {"north": {"uv": [0, 0, 8, 8], "texture": %d}}}
+                ],
+                "outliner": [
+                    {"uuid": "%s", "name": "body", "origin": [0, 0, 0], "children": [
+                        "c0000000-0000-4000-8000-000000000001",
+                        {"uuid": "%s", "name": "head", "origin": [0, 12, 0], "rotation": [0, %s, 0],
+                         "children": ["c0000000-0000-4000-8000-000000000002"]}
+                    ]}
+                ]
+            }
+            """.formatted(headTexture, BODY, HEAD, headRotation);
+    }
+
+    private static Model load(String json, ModelInterner interner) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), ParserOptions.strict(), interner);
+    }
+
+    @Test
+    void identicalModelsShareEverything() {
+        ModelInterner interner = new ModelInterner();
+        Model first = load(rig(0, 0), interner);
+        Model second = load(rig(0, 0), interner);
+
+        assertNotSame(first, second);
+        assertSame(first.getRoots().get(0), second.getRoots().get(0));
+        assertEquals(0, second.getGeometry().getCubeCount());
+
+        InternReport report = interner.getReport();
+        assertEquals(2, report.getCubesAdded());
+        assertEquals(2, report.getCubesShared());
+        assertEquals(2, report.getNodesAdded());
+        assertEquals(2, report.getNodesShared());
+        assertTrue(report.getBytesSaved() > 0);
+    }
+
+    @Test
+    void failedLoadsLeaveNothingBehind() {
+        ModelInterner interner = new ModelInterner();
+        String json = rig(0, 0);
+        // The body subtree is parsed, then the next root entry fails
+        int end = json.lastIndexOf(']');
+        String broken = json.substring(0, end) + ", \"c0000000-0000-4000-8000-000000000009\"" + json.substring(end);
+        assertThrows(ModelParseException.class, () -> load(broken, interner));
+
+        InternReport report = interner.getReport();
+        assertEquals(0, report.getCubesAdded());
+        assertEquals(0, report.getNodesAdded());
+        Model model = load(json, interner);
+        assertEquals(2, model.getGeometry().getCubeCount(), "nothing of the failed load may be shared");
+        assertEquals(0, interner.getReport().getCubesShared());
+        assertEquals(0, interner.getReport().getNodesShared());
+    }
+
+    @Test
+    void variantsShareUnchangedCubesAndSubtrees() {
+        ModelInterner interner = new ModelInterner();
+        Model base = load(rig(0, 0), interner);
+        Model recolor = load(rig(1, 0), interner);
+        Model turned = load(rig(0, 30), interner);
+
+        ModelCube torso = base.getRoots().get(0).getCubes().get(0);
+        assertSame(torso, recolor.getRoots().get(0).getCubes().get(0));
+        ModelNode baseHead = base.getRoots().get(0).getChildren().get(0);
+        ModelNode recolorHead = recolor.getRoots().get(0).getChildren().get(0);
+        assertNotSame(baseHead, recolorHead, "a different skull texture makes a different head");
+        assertEquals(1, recolor.getGeometry().getCubeCount());
+
+        // Same geometry, different rest rotation: the skull cube is shared, the head node is not
+        ModelNode turnedHead = turned.getRoots().get(0).getChildren().get(0);
+        assertNotSame(baseHead, turnedHead);
+        assertSame(baseHead.getCubes().get(0), turnedHead.getCubes().get(0));
+        assertEquals(0, turned.getGeometry().getCubeCount());
+    }
+
+    @Test
+    void sharedStructureEvaluatesLikeIndependentLoads() throws IOException {
+        ModelInterner interner = new ModelInterner();
+        Model shared;
+        Model independent;
+        try (InputStream a = getClass().getResourceAsStream("/models/default.bbmodel");
+             InputStream b = getClass().getResourceAsStream("/models/default.bbmodel");
+             InputStream c = getClass().getResourceAsStream("/models/default.bbmodel")) {
+            ParserOptions options = new ParserOptions(true);
+            BlockbenchLoader.load(a, options, interner);
+            shared = BlockbenchLoader.load(b, options, interner);
+            independent = BlockbenchLoader.load(c, options);
+        }
+        assertTrue(interner.getReport().getCubesShared() > 0);
+
+        ModelInstance x = shared.instantiate();
+        ModelInstance y = independent.instantiate();
+        x.updateWorldTransforms();
+        y.updateWorldTransforms();
+        ModelHierarchy h = shared.getHierarchy();
+        assertEquals(independent.getHierarchy().size(), h.size());
+        for (int i = 0; i < h.size(); i++) {
+            assertEquals(y.getWorldTransform(i, new Matrix4f()), x.getWorldTransform(i, new Matrix4f()));
+        }
+        assertEquals(independent.getBounds().toString(), shared.getBounds().toString());
+    }
+}
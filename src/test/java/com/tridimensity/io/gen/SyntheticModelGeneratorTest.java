@@ -0,0 +1,119 @@
+package com.tridimensity.io.gen;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticModelGeneratorTest {
+
+    private static Model load(String json, ParserOptions options) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), options);
+    }
+
+    private static int maxDepth(ModelHierarchy h) {
+        int max = 0;
+        for (int i = 0; i < h.size(); i++) {
+            int d = 1;
+            for (int p = h.getParent(i); p >= 0; p = h.getParent(p)) {
+                d++;
+            }
+            max = Math.max(max, d);
+        }
+        return max;
+    }
+
+    @Test
+    void sameSeedGivesSameBytes() {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator().setSeed(7).setElements(50).setRotatedFraction(0.3f);
+        String first = generator.generate();
+        assertEquals(first, generator.generate());
+        assertNotEquals(first, generator.setSeed(8).generate());
+    }
+
+    @Test
+    void shapeFollowsDepthAndFanOut() {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator().setElements(1000).setDepth(4).setFanOut(3);
+        assertEquals(1 + 3 + 9 + 27, generator.getGroupCount());
+
+        Model model = load(generator.generate(), ParserOptions.strict());
+        ModelHierarchy h = model.getHierarchy();
+        assertEquals(40, h.size());
+        assertEquals(4, maxDepth(h));
+        assertEquals(3, model.getRoots().get(0).getChildren().size());
+        assertEquals(1000, model.getGeometry().getCubeCount());
+        assertEquals(1, model.getTextures().size());
+    }
+
+    @Test
+    void referencedGroupsLoadLikeInlineGroups() {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator().setSeed(3).setElements(200).setDepth(3).setFanOut(2);
+        Model inline = load(generator.generate(), ParserOptions.strict());
+        String referenced = generator.setGroupStyle(SyntheticModelGenerator.GroupStyle.REFERENCED).generate();
+        assertTrue(referenced.contains("\"groups\":["));
+        Model model = load(referenced, ParserOptions.strict());
+
+        ModelInstance a = inline.instantiate();
+        ModelInstance b = model.instantiate();
+        a.updateWorldTransforms();
+        b.updateWorldTransforms();
+        assertEquals(inline.getHierarchy().size(), model.getHierarchy().size());
+        for (int i = 0; i < inline.getHierarchy().size(); i++) {
+            assertEquals(inline.getHierarchy().getNode(i).getName(), model.getHierarchy().getNode(i).getName());
+            assertEquals(a.getWorldTransform(i, new Matrix4f()), b.getWorldTransform(i, new Matrix4f()));
+        }
+    }
+
+    @Test
+    void rotatedElementsNeedAutoFix() throws IOException {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator().setSeed(11).setElements(400).setDepth(2).setFanOut(8)
+                .setRotatedFraction(0.25f);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SyntheticModelReport report = generator.write(out);
+        assertTrue(report.getRotatedElements() > 60 && report.getRotatedElements() < 140, report.toString());
+        assertEquals(out.size(), report.getBytes());
+
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertThrows(ModelParseException.class, () -> load(json, ParserOptions.strict()));
+        Model fixed = load(json, new ParserOptions(true));
+        // Every rotated element gets a wrapper group
+        assertEquals(9 + report.getRotatedElements(), fixed.getHierarchy().size());
+        assertEquals(400, fixed.getGeometry().getCubeCount());
+    }
+
+    @Test
+    void targetSizeIsApproximatelyMet() throws IOException {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator().setTargetSize(2_000_000).setDepth(3).setFanOut(5);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SyntheticModelReport report = generator.write(out);
+        assertEquals(report.getBytes(), out.size());
+        assertTrue(Math.abs(report.getBytes() - 2_000_000) < 20_000, report.toString());
+
+        Model model = load(out.toString(StandardCharsets.UTF_8), ParserOptions.strict());
+        assertEquals(report.getElements(), model.getGeometry().getCubeCount());
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        SyntheticModelGenerator generator = new SyntheticModelGenerator();
+        assertThrows(IllegalArgumentException.class, () -> generator.setElements(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setDepth(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setFanOut(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setRotatedFraction(1.5f));
+        assertThrows(IllegalArgumentException.class, () -> generator.setRotatedFraction(Float.NaN));
+        assertThrows(IllegalArgumentException.class, () -> generator.setTargetSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setFanOut(10).setDepth(10));
+        assertThrows(IllegalArgumentException.class, () -> generator.setGroupStyle(null));
+    }
+}
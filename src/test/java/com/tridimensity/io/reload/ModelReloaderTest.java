@@ -0,0 +1,138 @@
+package com.tridimensity.io.reload;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelInstance;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelReloaderTest {
+
+    private static final String ARM = "4a2f6a0c-0000-4000-8000-000000000001";
+    private static final String HAND = "4a2f6a0c-0000-4000-8000-000000000002";
+
+    private static String model(float armOriginY, boolean withHand) {
+        String hand = withHand ? """
+            , {"uuid": "%s", "name": "hand", "origin": [0, %s, 0], "children": []}
+            """.formatted(HAND, armOriginY + 8) : "";
+        return """
+            {
+                "elements": [
+                    {"uuid": "e005f561-1234-4567-89ab-cdef01234567", "from": [0, 0, 0], "to": [2, 8, 2], "faces": {}}
+                ],
+                "outliner": [
+                    {
+                        "uuid": "%s", "name": "arm", "origin": [0, %s, 0],
+                        "children": ["e005f561-1234-4567-89ab-cdef01234567" %s]
+                    }
+                ]
+            }
+            """.formatted(ARM, armOriginY, hand);
+    }
+
+    private static int waitForApply(ModelReloader reloader) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+        while (System.nanoTime() < deadline) {
+            int patched = reloader.applyPending();
+            if (reloader.getStats().getReloads() > 0) {
+                return patched;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Reload was not applied in time");
+    }
+
+    @Test
+    void fileChangesPatchTrackedInstancesAndKeepPoses(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("arm.bbmodel");
+        Files.writeString(file, model(4, false), StandardCharsets.UTF_8);
+
+        try (ModelReloader reloader = new ModelReloader(Duration.ofMillis(50))) {
+            Model first = reloader.watch(file);
+            ModelInstance instance = first.instantiate();
+            instance.setPoseRotation(0, 0, 45, 0);
+            instance.updateWorldTransforms();
+            reloader.track(file, instance);
+            ModelInstance untracked = first.instantiate();
+
+            Files.writeString(file, model(6, true), StandardCharsets.UTF_8);
+            assertEquals(1, waitForApply(reloader));
+
+            Model second = reloader.getModel(file);
+            assertNotSame(first, second);
+            assertSame(second, instance.getModel());
+            assertSame(first, untracked.getModel());
+            assertEquals(2, instance.getHierarchy().size());
+
+            instance.updateWorldTransforms();
+            ModelInstance expected = second.instantiate();
+            expected.setPoseRotation(0, 0, 45, 0);
+            expected.updateWorldTransforms();
+            assertTrue(instance.getWorldTransform(0, new Matrix4f()).equals(expected.getWorldTransform(0, new Matrix4f()), 1e-6f));
+            assertTrue(instance.getWorldTransform(1, new Matrix4f()).equals(expected.getWorldTransform(1, new Matrix4f()), 1e-6f));
+
+            ReloadStats stats = reloader.getStats();
+            assertEquals(1, stats.getInstancesPatched());
+            assertTrue(stats.getLastLatencyNanos() > 0);
+            assertTrue(stats.getLastParseNanos() > 0);
+        }
+    }
+
+    @Test
+    void burstsAreCoalescedIntoOneReload(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("arm.bbmodel");
+        Files.writeString(file, model(4, false), StandardCharsets.UTF_8);
+
+        try (ModelReloader reloader = new ModelReloader(Duration.ofMillis(200))) {
+            Model first = reloader.watch(file);
+            ModelInstance instance = first.instantiate();
+            reloader.track(file, instance);
+            for (int i = 0; i < 10; i++) {
+                reloader.requestReload(file);
+            }
+            waitForApply(reloader);
+            Thread.sleep(300);
+            reloader.applyPending();
+            assertEquals(1, reloader.getStats().getReloads());
+        }
+    }
+
+    @Test
+    void brokenFilesKeepThePreviousModel(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("arm.bbmodel");
+        Files.writeString(file, model(4, false), StandardCharsets.UTF_8);
+
+        try (ModelReloader reloader = new ModelReloader(Duration.ZERO)) {
+            Model first = reloader.watch(file);
+            Files.writeString(file, "{ not json", StandardCharsets.UTF_8);
+            reloader.requestReload(file);
+
+            long deadline = System.nanoTime() + Duration.ofSeconds(20).toNanos();
+            while (reloader.getStats().getFailures() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(reloader.getStats().getFailures() > 0);
+            assertEquals(0, reloader.applyPending());
+            assertSame(first, reloader.getModel(file));
+        }
+    }
+
+    @Test
+    void rejectsUnknownFilesAndForeignInstances(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("arm.bbmodel");
+        Files.writeString(file, model(4, false), StandardCharsets.UTF_8);
+        try (ModelReloader reloader = new ModelReloader(Duration.ZERO)) {
+            reloader.watch(file);
+            assertThrows(IllegalArgumentException.class, () -> reloader.requestReload(dir.resolve("other.bbmodel")));
+            assertThrows(IllegalArgumentException.class, () -> reloader.track(file, new Model().instantiate()));
+        }
+    }
+}
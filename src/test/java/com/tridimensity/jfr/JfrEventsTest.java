@@ -0,0 +1,97 @@
+package com.tridimensity.jfr;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.gen.SyntheticModelGenerator;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelTexture;
+import com.tridimensity.texture.TextureData;
+import com.tridimensity.texture.TexturePool;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    private static final String[] EVENTS = {
+            "com.tridimensity.ModelLoad",
+            "com.tridimensity.AutoFix",
+            "com.tridimensity.ModelValidationFailure",
+            "com.tridimensity.TransformBatch",
+            "com.tridimensity.CacheEviction",
+    };
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+    }
+
+    @Test
+    void recordingCapturesLoadFixTransformAndEvictionEvents(@TempDir Path dir) throws IOException {
+        String json = new SyntheticModelGenerator().setElements(40).setDepth(2).setFanOut(4).setRotatedFraction(0.5f).generate();
+        byte[] data = json.getBytes(StandardCharsets.UTF_8);
+        ModelTexture texture = new ModelTexture("skin", "0", null, 1, 1, 16, 16,
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4}));
+
+        Path file = dir.resolve("events.jfr");
+        int nodes;
+        try (Recording recording = new Recording()) {
+            for (String name : EVENTS) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+
+            Model model = BlockbenchLoader.load(new ByteArrayInputStream(data), new ParserOptions(true));
+            nodes = model.getHierarchy().size();
+            ModelInstance instance = model.instantiate();
+            instance.updateWorldTransforms();
+            assertThrows(ModelParseException.class,
+                    () -> BlockbenchLoader.load(new ByteArrayInputStream("{\"outliner\": []}".getBytes(StandardCharsets.UTF_8))));
+            TexturePool pool = new TexturePool(0);
+            TextureData decoded = pool.acquire(texture);
+            pool.release(decoded);
+
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> loads = named(events, "com.tridimensity.ModelLoad");
+        assertEquals(1, loads.size());
+        RecordedEvent load = loads.get(0);
+        assertEquals("synthetic", load.getString("modelName"));
+        assertEquals(data.length, load.getLong("bytes"));
+        assertEquals(40, load.getInt("elements"));
+        assertTrue(load.getInt("fixes") > 0);
+
+        List<RecordedEvent> fixes = named(events, "com.tridimensity.AutoFix");
+        assertEquals(List.of("ElementOriginFixer", "ElementRotationFixer"),
+                fixes.stream().map(e -> e.getString("fixer")).sorted().collect(Collectors.toList()));
+
+        List<RecordedEvent> failures = named(events, "com.tridimensity.ModelValidationFailure");
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0).getString("message").contains("elements"));
+
+        List<RecordedEvent> batches = named(events, "com.tridimensity.TransformBatch");
+        assertEquals(1, batches.size());
+        assertEquals(nodes, batches.get(0).getInt("evaluated"));
+
+        List<RecordedEvent> evictions = named(events, "com.tridimensity.CacheEviction");
+        assertFalse(evictions.isEmpty());
+        assertTrue(evictions.stream().anyMatch(e -> "released".equals(e.getString("reason"))));
+    }
+}
@@ -0,0 +1,159 @@
+package com.tridimensity.mesh;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelFace;
+import com.tridimensity.model.ModelNode;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeshBuilderTest {
+
+    private static final String[] ALL = {"north", "east", "south", "west", "up", "down"};
+
+    private static ModelCube cube(float x0, float y0, float z0, float x1, float y1, float z1, String... faceKeys) {
+        Map<String, ModelFace> faces = new HashMap<>();
+        for (String key : faceKeys) {
+            faces.put(key, new ModelFace(new float[]{0, 0, 16, 16}, "#0", 0));
+        }
+        return new ModelCube(UUID.randomUUID(), "cube", new Vector3f(x0, y0, z0), new Vector3f(x1, y1, z1), faces);
+    }
+
+    private static ModelNode node(String name) {
+        return new ModelNode(name, new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+    }
+
+    private static Vector3f vertex(FloatBuffer vertices, int index, int offset) {
+        int o = index * Mesh.FLOATS_PER_VERTEX + offset;
+        return new Vector3f(vertices.get(o), vertices.get(o + 1), vertices.get(o + 2));
+    }
+
+    @Test
+    void buildsOutwardFacingQuadsPerFace() {
+        ModelNode root = node("root");
+        root.addCube(cube(0, 0, 0, 16, 16, 16, ALL));
+        Model model = new Model();
+        model.addRoot(root);
+
+        Mesh mesh = new MeshBuilder().build(model);
+        assertEquals(24, mesh.getVertexCount());
+        assertEquals(36, mesh.getIndexCount());
+        assertTrue(mesh.getVertices().isDirect());
+        assertTrue(mesh.getIndices().isDirect());
+
+        FloatBuffer v = mesh.getVertices();
+        IntBuffer idx = mesh.getIndices();
+        Vector3f center = new Vector3f(0.5f, 0.5f, 0.5f);
+        for (int t = 0; t < mesh.getIndexCount(); t += 3) {
+            Vector3f a = vertex(v, idx.get(t), 0);
+            Vector3f b = vertex(v, idx.get(t + 1), 0);
+            Vector3f c = vertex(v, idx.get(t + 2), 0);
+            Vector3f normal = vertex(v, idx.get(t), 3);
+            Vector3f cross = new Vector3f(b).sub(a).cross(new Vector3f(c).sub(a));
+            // Counter-clockwise from outside: geometric normal matches the stored normal
+            assertTrue(cross.dot(normal) > 0, "triangle " + t / 3 + " winds inward");
+            // And the face lies on the outside of the unit cube
+            assertTrue(new Vector3f(a).sub(center).dot(normal) > 0.49f);
+        }
+
+        for (int i = 0; i < mesh.getVertexCount(); i++) {
+            Vector3f p = vertex(v, i, 0);
+            assertTrue(p.x == 0f || p.x == 1f);
+            float u = v.get(i * Mesh.FLOATS_PER_VERTEX + 6);
+            float w = v.get(i * Mesh.FLOATS_PER_VERTEX + 7);
+            assertTrue(u == 0f || u == 1f);
+            assertTrue(w == 0f || w == 1f);
+        }
+    }
+
+    @Test
+    void uvFollowsBlockbenchOrientation() {
+        ModelNode root = node("root");
+        root.addCube(cube(0, 0, 0, 16, 16, 16, "south"));
+        Model model = new Model();
+        model.addRoot(root);
+
+        Mesh mesh = new MeshBuilder().build(model);
+        FloatBuffer v = mesh.getVertices();
+        for (int i = 0; i < 4; i++) {
+            Vector3f p = vertex(v, i, 0);
+            float u = v.get(i * Mesh.FLOATS_PER_VERTEX + 6);
+            float w = v.get(i * Mesh.FLOATS_PER_VERTEX + 7);
+            // South face: U grows with +X, V grows downward (-Y)
+            assertEquals(p.x, u, 1e-6f);
+            assertEquals(1f - p.y, w, 1e-6f);
+            assertEquals(1f, p.z);
+        }
+    }
+
+    @Test
+    void skipsMissingFacesAndRecordsNodeRanges() {
+        ModelNode root = node("root");
+        root.addCube(cube(0, 0, 0, 1, 1, 1, "up", "down"));
+        ModelNode empty = node("empty");
+        ModelNode leaf = node("leaf");
+        leaf.addCube(cube(0, 0, 0, 1, 1, 1, ALL));
+        leaf.addCube(cube(2, 0, 0, 3, 1, 1, "north"));
+        leaf.addCube(cube(4, 0, 0, 5, 1, 1));
+        root.addChild(empty);
+        root.addChild(leaf);
+        Model model = new Model();
+        model.addRoot(root);
+
+        Mesh mesh = new MeshBuilder().build(model);
+        assertEquals((2 + 6 + 1) * 4, mesh.getVertexCount());
+        assertEquals(0, mesh.getFirstVertex(0));
+        assertEquals(8, mesh.getVertexCount(0));
+        assertEquals(12, mesh.getIndexCount(0));
+        assertEquals(8, mesh.getFirstVertex(1));
+        assertEquals(0, mesh.getVertexCount(1));
+        assertEquals(8, mesh.getFirstVertex(2));
+        assertEquals(28, mesh.getVertexCount(2));
+        assertEquals(12, mesh.getFirstIndex(2));
+        assertEquals(42, mesh.getIndexCount(2));
+
+        // Every index of a node stays inside that node's vertex range
+        IntBuffer idx = mesh.getIndices();
+        for (int i = mesh.getFirstIndex(2); i < mesh.getFirstIndex(2) + mesh.getIndexCount(2); i++) {
+            assertTrue(idx.get(i) >= 8 && idx.get(i) < 36);
+        }
+    }
+
+    @Test
+    void repeatedBuildsReuseBuffers() {
+        ModelNode big = node("big");
+        for (int i = 0; i < 10; i++) {
+            big.addCube(cube(i, 0, 0, i + 1, 1, 1, ALL));
+        }
+        Model large = new Model();
+        large.addRoot(big);
+        ModelNode small = node("small");
+        small.addCube(cube(0, 0, 0, 1, 1, 1, ALL));
+        Model tiny = new Model();
+        tiny.addRoot(small);
+
+        MeshBuilder builder = new MeshBuilder().setTextureSize(64, 32);
+        FloatBuffer first = builder.build(large).getVertices();
+        Mesh second = builder.build(tiny);
+        assertSame(first, second.getVertices());
+        assertEquals(24, second.getVertexCount());
+        assertEquals(0.25f, maxComponent(second.getVertices(), 6));
+        assertEquals(0.5f, maxComponent(second.getVertices(), 7));
+    }
+
+    private static float maxComponent(FloatBuffer vertices, int offset) {
+        float max = 0f;
+        for (int i = offset; i < vertices.limit(); i += Mesh.FLOATS_PER_VERTEX) {
+            max = Math.max(max, vertices.get(i));
+        }
+        return max;
+    }
+}
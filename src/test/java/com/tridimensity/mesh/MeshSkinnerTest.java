@@ -0,0 +1,196 @@
+package com.tridimensity.mesh;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelFace;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class MeshSkinnerTest {
+
+    private static Model rig(Random random, int nodes, int cubesPerNode) {
+        Map<String, ModelFace> faces = new HashMap<>();
+        for (String key : new String[]{"north", "east", "south", "west", "up", "down"}) {
+            faces.put(key, new ModelFace(new float[]{0, 0, 4, 4}, "#0", 0));
+        }
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        ModelNode parent = root;
+        for (int n = 0; n < nodes; n++) {
+            // Non-uniform scale exercises the normal matrix
+            ModelNode node = new ModelNode("n" + n, new Vector3f(n, n * 2f, 0), new Vector3f(),
+                    new Vector3f(random.nextFloat() * 30, random.nextFloat() * 30, 0), new Vector3f(1, 1.5f, 0.75f));
+            for (int c = 0; c < cubesPerNode; c++) {
+                float x = random.nextFloat() * 16;
+                node.addCube(new ModelCube(UUID.randomUUID(), "c", new Vector3f(x, 0, 0), new Vector3f(x + 2, 3, 1), faces));
+            }
+            parent.addChild(node);
+            parent = n % 3 == 0 ? node : parent;
+        }
+        Model model = new Model();
+        model.addRoot(root);
+        return model;
+    }
+
+    private static FloatBuffer output(Mesh mesh) {
+        return ByteBuffer.allocateDirect(mesh.getVertices().limit() * Float.BYTES).order(ByteOrder.nativeOrder()).asFloatBuffer();
+    }
+
+    private static void assertSkinned(Mesh mesh, ModelInstance instance, FloatBuffer out) {
+        FloatBuffer in = mesh.getVertices();
+        Matrix4f world = new Matrix4f();
+        Matrix3f normalMatrix = new Matrix3f();
+        for (int node = 0; node < mesh.getHierarchy().size(); node++) {
+            instance.getWorldTransform(node, world);
+            world.normal(normalMatrix);
+            for (int v = mesh.getFirstVertex(node); v < mesh.getFirstVertex(node) + mesh.getVertexCount(node); v++) {
+                int i = v * Mesh.FLOATS_PER_VERTEX;
+                Vector3f p = world.transformPosition(new Vector3f(in.get(i), in.get(i + 1), in.get(i + 2)));
+                Vector3f n = normalMatrix.transform(new Vector3f(in.get(i + 3), in.get(i + 4), in.get(i + 5))).normalize();
+                assertEquals(p.x, out.get(i), 1e-5f);
+                assertEquals(p.y, out.get(i + 1), 1e-5f);
+                assertEquals(p.z, out.get(i + 2), 1e-5f);
+                assertEquals(n.x, out.get(i + 3), 1e-5f);
+                assertEquals(n.y, out.get(i + 4), 1e-5f);
+                assertEquals(n.z, out.get(i + 5), 1e-5f);
+                assertEquals(in.get(i + 6), out.get(i + 6));
+                assertEquals(in.get(i + 7), out.get(i + 7));
+            }
+        }
+    }
+
+    @Test
+    void matchesJomlOnCallingThread() {
+        Random random = new Random(3);
+        Model model = rig(random, 6, 4);
+        Mesh mesh = new MeshBuilder().build(model);
+        ModelInstance instance = model.instantiate();
+        instance.setPoseRotation(2, 20, -10, 45);
+        instance.updateWorldTransforms();
+
+        FloatBuffer out = output(mesh);
+        new MeshSkinner().skin(mesh, instance, out);
+        assertEquals(mesh.getVertices().limit(), out.limit());
+        assertSkinned(mesh, instance, out);
+    }
+
+    @Test
+    void parallelChunksMatchAcrossNodeBoundaries() {
+        Random random = new Random(4);
+        Model model = rig(random, 40, 25);
+        Mesh mesh = new MeshBuilder().build(model);
+        ModelInstance instance = model.instantiate();
+        for (int i = 0; i < model.getHierarchy().size(); i++) {
+            instance.setPoseRotation(i, random.nextFloat() * 90, random.nextFloat() * 90, 0);
+        }
+        instance.updateWorldTransforms();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MeshSkinner skinner = new MeshSkinner(pool);
+            // 97 does not divide any node's range, so chunks straddle nodes
+            skinner.setChunkSize(97);
+            FloatBuffer out = output(mesh);
+            skinner.skin(mesh, instance, out);
+            assertSkinned(mesh, instance, out);
+
+            instance.setPoseRotation(5, 0, 0, 80);
+            instance.updateWorldTransforms();
+            skinner.skin(mesh, instance, out);
+            assertSkinned(mesh, instance, out);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void steadyStateAllocatesNothing() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Model model = rig(new Random(5), 10, 10);
+        Mesh mesh = new MeshBuilder().build(model);
+        ModelInstance instance = model.instantiate();
+        instance.updateWorldTransforms();
+        MeshSkinner skinner = new MeshSkinner();
+        skinner.setChunkSize(mesh.getVertexCount());
+        FloatBuffer out = output(mesh);
+        skinner.skin(mesh, instance, out);
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100; i++) {
+            skinner.skin(mesh, instance, out);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes over 100 frames");
+    }
+
+    @Test
+    void rebuiltMeshesReuseTheChunkTasks() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(8);
+        Model large = rig(random, 30, 20);
+        Model small = rig(random, 12, 7);
+        MeshBuilder builder = new MeshBuilder();
+        ModelInstance largeInstance = large.instantiate();
+        largeInstance.setPoseRotation(3, 30, 0, 10);
+        largeInstance.updateWorldTransforms();
+        ModelInstance smallInstance = small.instantiate();
+        smallInstance.setPoseRotation(2, 0, 45, 0);
+        smallInstance.updateWorldTransforms();
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MeshSkinner skinner = new MeshSkinner(pool);
+            skinner.setChunkSize(61);
+            Mesh mesh = builder.build(large);
+            FloatBuffer out = output(mesh);
+            skinner.skin(mesh, largeInstance, out);
+            assertSkinned(mesh, largeInstance, out);
+
+            // Each rebuild returns a new Mesh; the chunks are retargeted rather than recreated
+            long allocated = 0;
+            for (int i = 0; i < 50; i++) {
+                boolean big = i % 2 == 0;
+                mesh = builder.build(big ? large : small);
+                ModelInstance instance = big ? largeInstance : smallInstance;
+                long before = threads.getCurrentThreadAllocatedBytes();
+                skinner.skin(mesh, instance, out);
+                allocated += threads.getCurrentThreadAllocatedBytes() - before;
+                assertSkinned(mesh, instance, out);
+            }
+            assertTrue(allocated < 1024, "allocated " + allocated + " bytes over 50 rebuilt meshes");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsUndersizedOutput() {
+        Model model = rig(new Random(6), 2, 2);
+        Mesh mesh = new MeshBuilder().build(model);
+        ModelInstance instance = model.instantiate();
+        assertThrows(IllegalArgumentException.class,
+                () -> new MeshSkinner().skin(mesh, instance, FloatBuffer.allocate(8)));
+    }
+}
@@ -0,0 +1,118 @@
+package com.tridimensity.metrics;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.gen.SyntheticModelGenerator;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryMetricsTest {
+
+    @AfterEach
+    void uninstall() {
+        MetricsRegistry.set(TridimensityMetrics.NOOP);
+    }
+
+    private static Model load(byte[] data, ParserOptions options) {
+        return BlockbenchLoader.load(new ByteArrayInputStream(data), options);
+    }
+
+    @Test
+    void loaderReportsPhasesAndCounts() {
+        byte[] data = new SyntheticModelGenerator().setElements(120).setDepth(2).setFanOut(3).setRotatedFraction(0.5f)
+                .generate().getBytes(StandardCharsets.UTF_8);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        MetricsRegistry.set(metrics);
+
+        Model model = load(data, new ParserOptions(true));
+
+        for (LoadPhase phase : LoadPhase.values()) {
+            assertEquals(1, metrics.getPhaseNanos(phase).getCount(), phase.name());
+        }
+        assertEquals(1, metrics.getLoadNanos().getCount());
+        assertEquals(120, metrics.getElementsLoaded());
+        assertEquals(model.getHierarchy().size(), metrics.getNodesLoaded());
+        assertTrue(metrics.getFixesApplied() > 0);
+        assertEquals(data.length, metrics.getBytesLoaded());
+
+        long phaseTotal = 0;
+        for (LoadPhase phase : LoadPhase.values()) {
+            phaseTotal += metrics.getPhaseNanos(phase).getSum();
+        }
+        assertTrue(phaseTotal <= metrics.getLoadNanos().getSum());
+
+        metrics.reset();
+        load(new SyntheticModelGenerator().setElements(10).generate().getBytes(StandardCharsets.UTF_8), ParserOptions.strict());
+        assertEquals(0, metrics.getPhaseNanos(LoadPhase.AUTO_FIX).getCount(), "strict loads run no fixers");
+        assertEquals(1, metrics.getPhaseNanos(LoadPhase.OUTLINER).getCount());
+        assertEquals(0, metrics.getFixesApplied());
+    }
+
+    @Test
+    void transformUpdatesReportRecomputedNodes() {
+        Model model = BlockbenchLoader.load(new ByteArrayInputStream(new SyntheticModelGenerator().setElements(10).setDepth(3).setFanOut(2)
+                .generate().getBytes(StandardCharsets.UTF_8)));
+        ModelInstance instance = model.instantiate();
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        MetricsRegistry.set(metrics);
+
+        instance.updateWorldTransforms();
+        instance.updateWorldTransforms(); // nothing dirty, not reported
+        instance.setPoseRotation(1, 10, 0, 0);
+        instance.updateWorldTransforms();
+
+        Histogram nodes = metrics.getTransformNodes();
+        assertEquals(2, nodes.getCount());
+        assertEquals(7, nodes.getMax());
+        assertEquals(3, nodes.getMin(), "a child of the root and its two children");
+        assertEquals(2, metrics.getTransformNanos().getCount());
+    }
+
+    @Test
+    void noopRecordsNothing() {
+        assertFalse(TridimensityMetrics.NOOP.isEnabled());
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        MetricsRegistry.set(metrics);
+        assertSame(metrics, MetricsRegistry.set(TridimensityMetrics.NOOP));
+        BlockbenchLoader.load(new ByteArrayInputStream(new SyntheticModelGenerator().setElements(5)
+                .generate().getBytes(StandardCharsets.UTF_8))).instantiate().updateWorldTransforms();
+        assertEquals(0, metrics.getLoadNanos().getCount());
+        assertEquals(0, metrics.getTransformNanos().getCount());
+        assertThrows(IllegalArgumentException.class, () -> MetricsRegistry.set(null));
+    }
+
+    @Test
+    void histogramPercentilesAreWithinABucket() {
+        Histogram histogram = new Histogram();
+        for (int v = 1; v <= 1000; v++) {
+            histogram.record(v);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1, histogram.getMin());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        long p50 = histogram.getPercentile(50);
+        assertTrue(p50 >= 500 && p50 <= 625, "p50 " + p50);
+        long p99 = histogram.getPercentile(99);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 " + p99);
+        assertEquals(1, histogram.getPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+
+        for (long v = 0; v < 100_000; v = v * 3 + 1) {
+            assertTrue(Histogram.upperBound(Histogram.bucket(v)) >= v);
+            assertTrue(Histogram.upperBound(Histogram.bucket(v)) <= v + v / 4);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMax());
+    }
+}
@@ -0,0 +1,118 @@
+package com.tridimensity.model;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.util.Aabb;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundsTest {
+
+    private static ModelNode node(String name, Vector3f origin, Vector3f rotation) {
+        return new ModelNode(name, origin, new Vector3f(), rotation, new Vector3f(1, 1, 1));
+    }
+
+    private static ModelCube cube(float fx, float fy, float fz, float tx, float ty, float tz) {
+        return new ModelCube(UUID.randomUUID(), "c", new Vector3f(fx, fy, fz), new Vector3f(tx, ty, tz), new HashMap<>());
+    }
+
+    private static void assertBox(Aabb expected, Aabb actual) {
+        float eps = 1e-5f;
+        assertEquals(expected.minX, actual.minX, eps, actual.toString());
+        assertEquals(expected.minY, actual.minY, eps, actual.toString());
+        assertEquals(expected.minZ, actual.minZ, eps, actual.toString());
+        assertEquals(expected.maxX, actual.maxX, eps, actual.toString());
+        assertEquals(expected.maxY, actual.maxY, eps, actual.toString());
+        assertEquals(expected.maxZ, actual.maxZ, eps, actual.toString());
+    }
+
+    @Test
+    void cubeAndModelBoundsAtRest() {
+        String json = """
+            {
+                "elements": [
+                    { "uuid": "00000000-0000-0000-0000-000000000001", "from": [0,0,0], "to": [16,16,16], "faces": {} },
+                    { "uuid": "00000000-0000-0000-0000-000000000002", "from": [16,0,0], "to": [32,8,16], "faces": {} }
+                ],
+                "outliner": [
+                    {
+                        "name": "root",
+                        "origin": [0,0,0],
+                        "children": ["00000000-0000-0000-0000-000000000001", "00000000-0000-0000-0000-000000000002"]
+                    }
+                ]
+            }
+            """;
+        Model model = BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        ModelNode root = model.getRoots().get(0);
+        assertBox(new Aabb(16, 0, 0, 32, 8, 16), root.getCubes().get(1).getBounds());
+
+        ModelHierarchy h = model.getHierarchy();
+        assertBox(new Aabb(0, 0, 0, 2, 1, 1), h.getLocalBounds(0, new Aabb()));
+        assertBox(new Aabb(0, 0, 0, 2, 1, 1), h.getSubtreeBounds(0, new Aabb()));
+        assertBox(new Aabb(0, 0, 0, 2, 1, 1), model.getBounds());
+        assertTrue(new Model().getBounds().isEmpty());
+    }
+
+    @Test
+    void subtreeBoundsFollowRestRotation() {
+        ModelNode root = node("root", new Vector3f(), new Vector3f());
+        ModelNode arm = node("arm", new Vector3f(), new Vector3f(0, 0, 90));
+        arm.addCube(cube(0, 0, 0, 16, 2, 2));
+        root.addChild(arm);
+        Model model = new Model();
+        model.addRoot(root);
+
+        Aabb subtree = model.getHierarchy().getSubtreeBounds(0, new Aabb());
+        // Rotating 90 degrees around Z turns the long X extent into Y
+        assertEquals(1.0f, subtree.maxY - subtree.minY, 1e-5f);
+        assertEquals(0.125f, subtree.maxX - subtree.minX, 1e-5f);
+        assertBox(subtree, model.getBounds());
+    }
+
+    @Test
+    void worldBoundsMatchFreshEvaluationAfterIncrementalUpdates() {
+        ModelNode root = node("root", new Vector3f(8, 0, 8), new Vector3f());
+        root.addCube(cube(0, 0, 0, 16, 4, 16));
+        ModelNode head = node("head", new Vector3f(8, 4, 8), new Vector3f());
+        head.addCube(cube(4, 4, 4, 12, 12, 12));
+        ModelNode hat = node("hat", new Vector3f(8, 12, 8), new Vector3f());
+        hat.addCube(cube(2, 12, 2, 14, 14, 14));
+        head.addChild(hat);
+        root.addChild(head);
+        ModelNode tail = node("tail", new Vector3f(8, 2, 16), new Vector3f());
+        tail.addCube(cube(7, 1, 16, 9, 3, 24));
+        root.addChild(tail);
+        Model model = new Model();
+        model.addRoot(root);
+
+        ModelInstance incremental = model.instantiate();
+        incremental.updateWorldTransforms();
+        Aabb rest = incremental.getWorldBounds(new Aabb());
+        assertBox(model.getBounds(), rest);
+
+        int headIndex = incremental.getHierarchy().indexOf("head");
+        int tailIndex = incremental.getHierarchy().indexOf("tail");
+        incremental.setPoseRotation(headIndex, 0, 45, 0);
+        incremental.updateWorldTransforms();
+        incremental.setPoseRotation(tailIndex, 30, 0, 0);
+        incremental.updateWorldTransforms();
+
+        ModelInstance fresh = model.instantiate();
+        fresh.setPoseRotation(headIndex, 0, 45, 0);
+        fresh.setPoseRotation(tailIndex, 30, 0, 0);
+        fresh.updateWorldTransforms();
+
+        assertBox(fresh.getWorldBounds(new Aabb()), incremental.getWorldBounds(new Aabb()));
+        for (int i = 0; i < model.getHierarchy().size(); i++) {
+            assertBox(fresh.getNodeWorldBounds(i, new Aabb()), incremental.getNodeWorldBounds(i, new Aabb()));
+        }
+        assertNotEquals(rest.maxZ, incremental.getWorldBounds(new Aabb()).maxZ);
+    }
+}
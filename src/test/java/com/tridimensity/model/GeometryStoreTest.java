@@ -0,0 +1,216 @@
+package com.tridimensity.model;
+
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GeometryStoreTest {
+
+    private static final int CUBES = 20_000;
+
+    @Test
+    void cubeAndFaceViewsReadThroughTheStore() {
+        Map<String, ModelFace> faces = new HashMap<>();
+        faces.put("north", new ModelFace(new float[]{0, 0, 4, 4}, "#0", 90));
+        faces.put("up", new ModelFace(null, "#1", 0));
+        faces.put("bogus", new ModelFace(new float[]{1, 1, 1, 1}, "#2", 0));
+        UUID uuid = UUID.randomUUID();
+
+        GeometryStore store = new GeometryStore(2);
+        ModelCube cube = store.add(uuid, "box", new Vector3f(1, 2, 3), new Vector3f(4, 5, 6), faces);
+        ModelCube other = store.add(UUID.randomUUID(), "other", new Vector3f(), new Vector3f(1, 1, 1), faces);
+
+        assertEquals(uuid, cube.getUuid());
+        assertEquals("box", cube.getName());
+        assertEquals(new Vector3f(1, 2, 3), cube.getFrom());
+        assertEquals(new Vector3f(3, 3, 3), cube.getSize());
+        assertEquals(FaceDirection.NORTH.mask() | FaceDirection.UP.mask(), cube.getFaceMask());
+        assertEquals(2, cube.getFaces().size());
+        assertNull(cube.getFace(FaceDirection.SOUTH));
+
+        ModelFace north = cube.getFace(FaceDirection.NORTH);
+        assertArrayEquals(new float[]{0, 0, 4, 4}, north.getUv());
+        assertEquals("#0", north.getTexture());
+        assertEquals(90, north.getRotation());
+        assertNull(cube.getFaces().get("up").getUv());
+        assertEquals("#1", cube.getFaces().get("up").getTexture());
+
+        // Two cubes, one interned copy of each texture name
+        assertEquals(2, store.getTextureCount());
+        assertEquals(store.getTextureIndex(0, FaceDirection.NORTH), store.getTextureIndex(other.getGeometryIndex(), FaceDirection.NORTH));
+        assertThrows(UnsupportedOperationException.class, () -> cube.getFaces().clear());
+    }
+
+    @Test
+    void copyTranslatesAndKeepsFaces() {
+        Map<String, ModelFace> faces = new HashMap<>();
+        faces.put("east", new ModelFace(new float[]{2, 3, 4, 5}, "#0", 180));
+        ModelCube source = new ModelCube(UUID.randomUUID(), "src", new Vector3f(0, 0, 0), new Vector3f(2, 2, 2), faces);
+
+        GeometryStore store = new GeometryStore(1);
+        ModelCube copy = store.copy(source, 1, 2, 3);
+        assertEquals(source.getUuid(), copy.getUuid());
+        assertEquals(new Vector3f(1, 2, 3), copy.getFrom());
+        assertEquals(new Vector3f(3, 4, 5), copy.getTo());
+        assertArrayEquals(new float[]{2, 3, 4, 5}, copy.getFace(FaceDirection.EAST).getUv());
+        assertEquals(180, copy.getFace(FaceDirection.EAST).getRotation());
+    }
+
+    @Test
+    void scratchStoresCanBeClearedAndRefilled() {
+        GeometryStore.Builder sourceBuilder = GeometryStore.builder(1);
+        int cube = sourceBuilder.add(UUID.randomUUID(), "src", 0, 0, 0, 2, 2, 2);
+        sourceBuilder.setFace(cube, FaceDirection.UP, new float[]{1, 2, 3, 4}, "#1", 90);
+        sourceBuilder.setFace(cube, FaceDirection.DOWN, null, "#0", 0);
+        GeometryStore source = sourceBuilder.build();
+
+        GeometryStore.Builder scratch = GeometryStore.builder(1);
+        GeometryStore work = scratch.getStore();
+        int copy = scratch.copy(source, cube, 1, 0, 0);
+        scratch.setBounds(copy, 1, 0, 0, 3, 4, 2);
+        assertEquals(4f, work.getBound(copy, 4));
+        assertEquals(FaceDirection.UP.mask() | FaceDirection.DOWN.mask(), work.getFaceMask(copy));
+        assertEquals(90, work.getRotation(copy, FaceDirection.UP));
+        assertFalse(work.hasUv(copy, FaceDirection.DOWN));
+
+        scratch.clear();
+        assertEquals(0, work.getCubeCount());
+        int fresh = scratch.add(UUID.randomUUID(), "fresh", 0, 0, 0, 1, 1, 1);
+        assertEquals(0, fresh);
+        assertEquals(0, work.getFaceMask(fresh), "a reused slot starts without faces");
+        assertEquals(-1, work.getTextureIndex(fresh, FaceDirection.UP));
+        scratch.copyFace(fresh, FaceDirection.UP, source, cube);
+        assertEquals("#1", work.getTexture(work.getTextureIndex(fresh, FaceDirection.UP)));
+        assertEquals(2, work.getTextureCount(), "texture names stay interned across clears");
+    }
+
+    @Test
+    void builtStoresCannotChange() {
+        for (Method method : GeometryStore.class.getMethods()) {
+            if (method.getDeclaringClass() == GeometryStore.class) {
+                assertTrue(method.getName().startsWith("get") || method.getName().startsWith("has")
+                        || method.getName().equals("estimateFootprint") || Modifier.isStatic(method.getModifiers()),
+                        "public mutator " + method.getName());
+            }
+        }
+
+        GeometryStore.Builder builder = GeometryStore.builder(1);
+        int cube = builder.add(UUID.randomUUID(), "c", 0, 0, 0, 1, 1, 1);
+        GeometryStore store = builder.build();
+        assertEquals(1, store.getCubeCount());
+        assertThrows(IllegalStateException.class, () -> builder.add(UUID.randomUUID(), "d", 0, 0, 0, 1, 1, 1));
+        assertThrows(IllegalStateException.class, () -> builder.setBounds(cube, 0, 0, 0, 2, 2, 2));
+        assertThrows(IllegalStateException.class, () -> builder.setFace(cube, FaceDirection.UP, null, "#0", 0));
+        assertThrows(IllegalStateException.class, builder::clear);
+        assertEquals(1f, store.getBound(cube, 3));
+
+        // A face source may set names and faces, and only while it loads
+        GeometryStore.Builder deferred = GeometryStore.withDeferredFaces(1);
+        deferred.add(UUID.randomUUID(), null, 0, 0, 0, 1, 1, 1);
+        GeometryStore.Builder[] seen = new GeometryStore.Builder[1];
+        deferred.deferFaces(faces -> {
+            seen[0] = faces;
+            assertThrows(IllegalStateException.class, () -> faces.setBounds(0, 0, 0, 0, 2, 2, 2));
+            faces.setName(0, "late");
+        });
+        GeometryStore lazy = deferred.build();
+        assertEquals("late", lazy.getName(0));
+        assertThrows(IllegalStateException.class, () -> seen[0].setName(0, "later"));
+        assertEquals(1f, lazy.getBound(0, 3));
+    }
+
+    @Test
+    void manyTexturesStayInterned() {
+        GeometryStore store = new GeometryStore(1);
+        int cube = store.add(UUID.randomUUID(), "c", 0, 0, 0, 1, 1, 1);
+        for (int round = 0; round < 2; round++) {
+            for (int t = 0; t < 20; t++) {
+                store.setFace(cube, FaceDirection.of(t % 6), null, "#" + t, 0);
+                assertEquals(t, store.getTextureIndex(cube, FaceDirection.of(t % 6)));
+            }
+        }
+        assertEquals(20, store.getTextureCount());
+    }
+
+    @Test
+    void singleCubesStayLight() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        UUID uuid = UUID.randomUUID();
+        Vector3f from = new Vector3f();
+        Vector3f to = new Vector3f(1, 1, 1);
+        Map<String, ModelFace> faces = Map.of("north", new ModelFace(new float[]{0, 0, 1, 1}, "#0", 0));
+        for (int i = 0; i < 1000; i++) {
+            new ModelCube(uuid, "c", from, to, faces);
+        }
+
+        long start = threads.getCurrentThreadAllocatedBytes();
+        ModelCube[] cubes = new ModelCube[1000];
+        for (int i = 0; i < cubes.length; i++) {
+            cubes[i] = new ModelCube(uuid, "c", from, to, faces);
+        }
+        long perCube = (threads.getCurrentThreadAllocatedBytes() - start) / cubes.length;
+        // The arrays of a one-cube store plus the store, view and face-copy objects; no hash table for texture names
+        assertTrue(perCube < cubes[0].getGeometry().estimateFootprint() + 256, "a standalone cube costs " + perCube + " bytes");
+    }
+
+    @Test
+    void footprintPerCube() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        UUID[] uuids = new UUID[CUBES];
+        for (int i = 0; i < CUBES; i++) {
+            uuids[i] = UUID.randomUUID();
+        }
+        float[] uv = {0, 0, 16, 16};
+        String[] keys = {"north", "east", "south", "west", "up", "down"};
+        FaceDirection[] directions = FaceDirection.values();
+
+        // Previous layout: a map of six face objects with their own UV arrays per cube
+        long start = threads.getCurrentThreadAllocatedBytes();
+        Object[] legacy = new Object[CUBES];
+        for (int i = 0; i < CUBES; i++) {
+            Map<String, ModelFace> faces = new HashMap<>();
+            for (String key : keys) {
+                faces.put(key, new ModelFace(uv.clone(), "#0", 0));
+            }
+            legacy[i] = new Object[]{uuids[i], new Vector3f(i, 0, 0), new Vector3f(i + 1, 1, 1), faces};
+        }
+        long legacyBytes = threads.getCurrentThreadAllocatedBytes() - start;
+
+        start = threads.getCurrentThreadAllocatedBytes();
+        GeometryStore store = new GeometryStore(CUBES);
+        ModelCube[] cubes = new ModelCube[CUBES];
+        for (int i = 0; i < CUBES; i++) {
+            int index = store.add(uuids[i], "cube", i, 0, 0, i + 1, 1, 1);
+            for (FaceDirection face : directions) {
+                store.setFace(index, face, uv, "#0", 0);
+            }
+            cubes[i] = store.getCube(index);
+        }
+        long compactBytes = threads.getCurrentThreadAllocatedBytes() - start;
+
+        long perCube = compactBytes / CUBES;
+        long legacyPerCube = legacyBytes / CUBES;
+        long estimate = store.estimateFootprint() / CUBES;
+        assertTrue(perCube < 256, "compact layout uses " + perCube + " bytes per cube");
+        // Measured: the store's arrays plus one cube view each
+        assertTrue(estimate <= perCube && perCube - estimate <= 32, "estimate " + estimate + " vs measured " + perCube);
+        assertTrue(perCube * 2 < legacyPerCube, "expected at least 2x saving: " + perCube + " vs " + legacyPerCube);
+        assertEquals(CUBES, store.getCubeCount());
+        assertNotNull(legacy[CUBES - 1]);
+        assertNotNull(cubes[CUBES - 1]);
+    }
+}
@@ -0,0 +1,219 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class IkSolverTest {
+
+    private static ModelNode node(String name, float x, float y, float z) {
+        return new ModelNode(name, new Vector3f(x, y, z), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+    }
+
+    /**
+     * body -> hip -> knee -> foot, a 1.5 block leg hanging straight down from the hip.
+     */
+    private static Model leg() {
+        ModelNode body = node("body", 0, 24, 0);
+        ModelNode hip = node("hip", 0, 24, 0);
+        ModelNode knee = node("knee", 0, 12, 0);
+        knee.addChild(node("foot", 0, 0, 0));
+        hip.addChild(knee);
+        body.addChild(hip);
+        Model model = new Model();
+        model.addRoot(body);
+        return model;
+    }
+
+    private static IkChain chain(Model model) {
+        return IkChain.byName(model.getHierarchy(), "hip", "knee", "foot");
+    }
+
+    /**
+     * @return The world position of a node's pivot, as in {@link ModelInstance#computeWorldPivotPositions()}.
+     */
+    private static Vector3f pivot(ModelInstance instance, String name) {
+        ModelHierarchy h = instance.getHierarchy();
+        int node = h.indexOf(name);
+        Vector3f origin = h.getNode(node).getOrigin().mul(1 / 16f);
+        return instance.getWorldTransform(node, new Matrix4f()).transformPosition(origin);
+    }
+
+    private static ModelInstance rest(Model model) {
+        ModelInstance instance = model.instantiate();
+        instance.updateWorldTransforms();
+        return instance;
+    }
+
+    /**
+     * @return The distance from the hip to the foot with the leg stretched, as it is at rest.
+     */
+    private static float reach(Model model) {
+        ModelInstance rest = rest(model);
+        return pivot(rest, "hip").distance(pivot(rest, "foot"));
+    }
+
+    private static Vector3f fromHip(ModelInstance posed, float x, float y, float z) {
+        return pivot(posed, "hip").add(x, y, z);
+    }
+
+    @Test
+    void reachesTargetsWithinReach() {
+        Model model = leg();
+        ModelInstance instance = model.instantiate();
+        IkSolver solver = new IkSolver();
+        Vector3f target = fromHip(rest(model), 0.6f, -1.8f, 0.5f);
+        float error = solver.solve(instance, chain(model), target, null);
+        assertTrue(error <= IkSolver.DEFAULT_TOLERANCE, "error " + error);
+        assertTrue(solver.getLastIterations() > 0);
+
+        instance.updateWorldTransforms();
+        assertTrue(pivot(instance, "foot").equals(target, 2e-3f), () -> "foot at " + pivot(instance, "foot"));
+        ModelInstance rest = rest(model);
+        assertEquals(pivot(rest, "knee").distance(pivot(rest, "hip")), pivot(instance, "knee").distance(pivot(instance, "hip")), 1e-4f,
+                "bones keep their length");
+
+        // Already on target: no passes needed
+        solver.solve(instance, chain(model), target, null);
+        assertEquals(0, solver.getLastIterations());
+    }
+
+    @Test
+    void stretchesTowardsUnreachableTargets() {
+        Model model = leg();
+        ModelInstance instance = model.instantiate();
+        IkSolver solver = new IkSolver();
+        Vector3f target = fromHip(rest(model), 0, 0, 6);
+        float error = solver.solve(instance, chain(model), target, null);
+        // Ends once a pass barely helps, with the chain all but stretched out
+        assertEquals(6 - reach(model), error, 5e-3f);
+        assertTrue(solver.getLastIterations() < IkSolver.DEFAULT_MAX_ITERATIONS, "iterations " + solver.getLastIterations());
+        instance.updateWorldTransforms();
+        assertEquals(error, pivot(instance, "foot").distance(target), 1e-4f);
+    }
+
+    @Test
+    void tipMovesTheEffector() {
+        Model model = leg();
+        ModelInstance instance = model.instantiate();
+        // A point at the bottom of the shin, in the same space as the knee's cubes
+        IkChain shin = IkChain.byName(model.getHierarchy(), "hip", "knee").tip(0, -12, 0);
+        Vector3f target = fromHip(rest(model), 0.4f, -1.2f, 0.3f);
+        assertTrue(new IkSolver().solve(instance, shin, target, null) <= IkSolver.DEFAULT_TOLERANCE);
+        instance.updateWorldTransforms();
+        Vector3f tip = instance.getWorldTransform(shin.getJoint(1), new Matrix4f()).transformPosition(new Vector3f());
+        assertTrue(tip.equals(target, 2e-3f), () -> "tip at " + tip);
+    }
+
+    @Test
+    void respectsJointLimits() {
+        Model model = leg();
+        ModelInstance instance = model.instantiate();
+        // Both joints only swing about x, and the knee only one way
+        IkChain chain = chain(model)
+                .limit(0, -90, 0, 0, 90, 0, 0)
+                .limit(1, 0, 0, 0, 120, 0, 0)
+                .limit(2, 0, 0, 0, 0, 0, 0);
+        IkSolver solver = new IkSolver(32, 1e-3f);
+
+        Vector3f inPlane = fromHip(rest(model), 0, -2f, -1.2f);
+        assertTrue(solver.solve(instance, chain, inPlane, null) <= 1e-3f);
+        Vector3f angles = new Vector3f();
+        for (int k = 0; k < 3; k++) {
+            instance.getPoseRotation(chain.getJoint(k), angles);
+            assertEquals(0f, angles.y);
+            assertEquals(0f, angles.z);
+        }
+        assertTrue(instance.getPoseRotation(chain.getJoint(1), angles).x >= 0f);
+
+        float error = solver.solve(instance, chain, fromHip(rest(model), 0.8f, -2f, 0.6f), null);
+        assertTrue(error >= 0.8f - 1e-4f, "off-plane targets are out of reach, error " + error);
+        instance.updateWorldTransforms();
+        assertEquals(0f, pivot(instance, "foot").x, 1e-5f);
+    }
+
+    @Test
+    void poleChoosesTheBendDirection() {
+        Model model = leg();
+        Vector3f target = fromHip(rest(model), 0.3f, -2f, 0.4f);
+        for (float side : new float[]{-1, 1}) {
+            ModelInstance instance = model.instantiate();
+            float error = new IkSolver().solve(instance, chain(model), target, fromHip(rest(model), 0, -1.5f, 4 * side));
+            assertTrue(error <= IkSolver.DEFAULT_TOLERANCE, "error " + error);
+            instance.updateWorldTransforms();
+            assertEquals(side, Math.signum(pivot(instance, "knee").z), "knee bends towards pole " + side);
+            assertTrue(pivot(instance, "foot").equals(target, 2e-3f));
+        }
+    }
+
+    @Test
+    void ancestorPosesAndAttachmentsAreTakenIntoAccount() {
+        Model model = leg();
+        ModelInstance instance = model.instantiate();
+        // The body is moved and turned but not yet evaluated
+        instance.setPosePosition(0, 16, 8, 0);
+        instance.setPoseRotation(0, 0, 90, 20);
+        ModelInstance posed = model.instantiate();
+        posed.setPosePosition(0, 16, 8, 0);
+        posed.setPoseRotation(0, 0, 90, 20);
+        posed.updateWorldTransforms();
+        Vector3f target = fromHip(posed, 0.5f, -1.8f, 0.4f);
+        assertTrue(new IkSolver().solve(instance, chain(model), target, null) <= IkSolver.DEFAULT_TOLERANCE);
+        instance.updateWorldTransforms();
+        assertTrue(pivot(instance, "foot").equals(target, 2e-3f), () -> "foot at " + pivot(instance, "foot"));
+
+        ModelInstance carrier = leg().instantiate();
+        ModelAttachment attachment = carrier.attach(model, "foot", new Matrix4f().translate(0, 0, 1));
+        carrier.updateWorldTransforms();
+        ModelInstance mounted = attachment.getInstance();
+        Vector3f mountedTarget = fromHip(mounted, -0.5f, -1.5f, 0.9f);
+        assertTrue(new IkSolver().solve(mounted, chain(model), mountedTarget, null) <= IkSolver.DEFAULT_TOLERANCE);
+        carrier.updateWorldTransforms();
+        assertTrue(pivot(mounted, "foot").equals(mountedTarget, 2e-3f));
+    }
+
+    @Test
+    void steadyStateAllocatesNothing() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Model model = leg();
+        ModelInstance instance = model.instantiate();
+        IkChain chain = chain(model).limit(1, 0, -30, -30, 150, 30, 30);
+        IkSolver solver = new IkSolver();
+        ModelInstance rest = rest(model);
+        Vector3f[] targets = {fromHip(rest, 0.6f, -1.8f, 0.5f), fromHip(rest, -0.5f, -2.2f, 0.1f), fromHip(rest, 0, 0, 6)};
+        Vector3f pole = fromHip(rest, 0, -1.5f, 4);
+        for (int i = 0; i < 200; i++) {
+            solver.solve(instance, chain, targets[i % 3], pole);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100; i++) {
+            solver.solve(instance, chain, targets[i % 3], pole);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes over 100 solves");
+    }
+
+    @Test
+    void rejectsBadChains() {
+        Model model = leg();
+        ModelHierarchy h = model.getHierarchy();
+        assertThrows(IllegalArgumentException.class, () -> new IkChain(h));
+        assertThrows(IllegalArgumentException.class, () -> new IkChain(h, 1, 3));
+        assertThrows(IllegalArgumentException.class, () -> new IkChain(h, 4));
+        assertThrows(IllegalArgumentException.class, () -> IkChain.byName(h, "hip", "tail"));
+        assertThrows(IllegalArgumentException.class, () -> chain(model).limit(1, 10, 0, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> chain(model).limit(3, 0, 0, 0, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new IkSolver(0, 1e-3f));
+        ModelInstance other = leg().instantiate();
+        assertThrows(IllegalArgumentException.class, () -> new IkSolver().solve(other, chain(model), new Vector3f(), null));
+    }
+}
@@ -0,0 +1,179 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelAttachmentTest {
+
+    private static ModelNode node(String name, float x, float y, float z) {
+        return new ModelNode(name, new Vector3f(x, y, z), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+    }
+
+    /**
+     * body -> arm -> hand, pivots along +y.
+     */
+    private static Model character() {
+        ModelNode body = node("body", 0, 0, 0);
+        ModelNode arm = node("arm", 0, 16, 0);
+        ModelNode hand = node("hand", 0, 28, 0);
+        arm.addChild(hand);
+        body.addChild(arm);
+        Model model = new Model();
+        model.addRoot(body);
+        return model;
+    }
+
+    /**
+     * handle -> blade.
+     */
+    private static Model sword() {
+        ModelNode handle = node("handle", 0, 0, 0);
+        handle.addChild(node("blade", 0, 4, 0));
+        Model model = new Model();
+        model.addRoot(handle);
+        return model;
+    }
+
+    private static Matrix4f world(ModelInstance instance, int node) {
+        return instance.getWorldTransform(node, new Matrix4f());
+    }
+
+    private static void assertMatrix(Matrix4f expected, Matrix4f actual) {
+        assertTrue(expected.equals(actual, 1e-5f), () -> "expected\n" + expected + "but was\n" + actual);
+    }
+
+    @Test
+    void attachedModelFollowsBone() {
+        Model character = character();
+        Model sword = sword();
+        ModelInstance player = character.instantiate();
+        ModelAttachment attachment = player.attach(sword, "hand");
+        assertEquals(2, attachment.getBone());
+        player.setPoseRotation(1, 45, 0, 0);
+        player.updateWorldTransforms();
+
+        ModelInstance standalone = sword.instantiate();
+        standalone.updateWorldTransforms();
+        ModelInstance held = attachment.getInstance();
+        for (int i = 0; i < 2; i++) {
+            assertMatrix(world(player, 2).mul(world(standalone, i)), world(held, i));
+        }
+    }
+
+    @Test
+    void offsetIsAppliedInBoneSpace() {
+        ModelInstance player = character().instantiate();
+        Matrix4f offset = new Matrix4f().translate(0, 1.75f, 0).rotateZ(0.5f);
+        ModelAttachment attachment = player.attach(sword(), "hand", offset);
+        player.updateWorldTransforms();
+        assertMatrix(world(player, 2).mul(offset), world(attachment.getInstance(), 0));
+
+        attachment.setOffset(null);
+        player.updateWorldTransforms();
+        assertMatrix(world(player, 2), world(attachment.getInstance(), 0));
+        assertMatrix(new Matrix4f(), attachment.getOffset(new Matrix4f()));
+    }
+
+    @Test
+    void boneAndAttachmentPosesUpdateInOnePass() {
+        ModelInstance player = character().instantiate();
+        ModelAttachment attachment = player.attach(sword(), "hand");
+        ModelInstance held = attachment.getInstance();
+        player.updateWorldTransforms();
+        Matrix4f before = world(held, 1);
+
+        // Only the attached model's pose changes
+        held.setPoseRotation(1, 0, 0, 30);
+        player.updateWorldTransforms();
+        Matrix4f posed = world(held, 1);
+        assertFalse(before.equals(posed, 1e-5f));
+
+        // Only the bone moves; the attachment follows without being touched
+        player.setPosePosition(0, 16, 0, 0);
+        player.updateWorldTransforms();
+        assertMatrix(new Matrix4f().translate(1, 0, 0).mul(posed), world(held, 1));
+    }
+
+    @Test
+    void compositeFrameHoldsEveryModel() {
+        ModelInstance player = character().instantiate();
+        ModelAttachment sword = player.attach(sword(), "hand");
+        ModelAttachment hat = player.attach(sword(), "body", new Matrix4f().translate(0, 2, 0));
+        ModelAttachment plume = hat.getInstance().attach(character(), "blade");
+        assertEquals(3 + 2 + 2 + 3, player.getCompositeSize());
+        assertEquals(3, player.getCompositeOffset(sword));
+        assertEquals(5, player.getCompositeOffset(hat));
+        assertEquals(2, hat.getInstance().getCompositeOffset(plume));
+
+        player.setPoseRotation(0, 0, 90, 0);
+        long seq = player.publishWorldTransforms();
+        float[] frame = new float[player.getCompositeSize() * 16];
+        assertEquals(seq, player.readPublishedTransforms(frame));
+        float[] copy = new float[frame.length];
+        player.copyCompositeTransforms(copy);
+        assertArrayEquals(copy, frame);
+        assertMatrix(world(plume.getInstance(), 2), new Matrix4f().set(frame, (7 + 2) * 16));
+        ModelInstance rest = plume.getModel().instantiate();
+        rest.updateWorldTransforms();
+        assertMatrix(world(hat.getInstance(), 1).mul(world(rest, 0)), world(plume.getInstance(), 0));
+
+        player.detach(hat);
+        assertFalse(hat.isAttached());
+        assertEquals(5, player.getCompositeSize());
+        player.publishWorldTransforms();
+        float[] smaller = new float[5 * 16];
+        assertTrue(player.readPublishedTransforms(smaller) > 0);
+        assertMatrix(world(sword.getInstance(), 1), new Matrix4f().set(smaller, 4 * 16));
+    }
+
+    @Test
+    void modelsAreNotModified() {
+        Model character = character();
+        Model sword = sword();
+        ModelHierarchy characterHierarchy = character.getHierarchy();
+        ModelHierarchy swordHierarchy = sword.getHierarchy();
+        ModelInstance player = character.instantiate();
+        player.detach(player.attach(sword, "hand"));
+        player.attach(sword, 1, null);
+        assertSame(characterHierarchy, character.getHierarchy());
+        assertSame(swordHierarchy, sword.getHierarchy());
+        assertEquals(3, characterHierarchy.size());
+        assertEquals(2, swordHierarchy.size());
+    }
+
+    @Test
+    void rebindKeepsAttachmentsOnTheirBones() {
+        Model before = character();
+        ModelInstance player = before.instantiate();
+        ModelAttachment attachment = player.attach(sword(), "hand");
+        player.updateWorldTransforms();
+
+        // The reload adds a node in front of the hand
+        ModelNode body = node("body", 0, 0, 0);
+        ModelNode arm = node("arm", 0, 16, 0);
+        arm.addChild(node("shield", 0, 20, 0));
+        arm.addChild(node("hand", 0, 30, 0));
+        body.addChild(arm);
+        Model after = new Model();
+        after.addRoot(body);
+        player.rebind(ModelDiff.compute(before, after));
+        assertEquals(3, attachment.getBone());
+        player.updateWorldTransforms();
+        assertMatrix(world(player, 3), world(attachment.getInstance(), 0));
+    }
+
+    @Test
+    void rejectsBadArguments() {
+        ModelInstance player = character().instantiate();
+        assertThrows(IllegalArgumentException.class, () -> player.attach(sword(), "tail"));
+        assertThrows(IllegalArgumentException.class, () -> player.attach(sword(), 3, null));
+        assertThrows(IllegalArgumentException.class, () -> player.attach(null, 0, null));
+        ModelAttachment attachment = player.attach(sword(), 0, null);
+        player.detach(attachment);
+        assertThrows(IllegalArgumentException.class, () -> player.detach(attachment));
+        assertThrows(IllegalArgumentException.class, () -> player.getCompositeOffset(attachment));
+    }
+}
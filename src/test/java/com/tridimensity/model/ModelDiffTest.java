@@ -0,0 +1,102 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ModelDiffTest {
+
+    private static final UUID ROOT = UUID.randomUUID();
+    private static final UUID ARM = UUID.randomUUID();
+    private static final UUID HAND = UUID.randomUUID();
+    private static final UUID CUBE = UUID.randomUUID();
+
+    private static ModelNode node(UUID uuid, String name, float originX) {
+        return new ModelNode(uuid, name, new Vector3f(originX, 0, 0), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+    }
+
+    private static ModelCube cube(UUID uuid, float size) {
+        return new ModelCube(uuid, "cube", new Vector3f(), new Vector3f(size, size, size), new HashMap<>());
+    }
+
+    private static Model model(float armOrigin, boolean withHand, float cubeSize) {
+        ModelNode root = node(ROOT, "root", 0);
+        ModelNode arm = node(ARM, "arm", armOrigin);
+        arm.addCube(cube(CUBE, cubeSize));
+        root.addChild(arm);
+        if (withHand) {
+            arm.addChild(node(HAND, "hand", armOrigin + 4));
+        }
+        // No stable UUID: matched by name under its parent
+        root.addChild(node(UUID.randomUUID(), "tail", -4));
+        Model model = new Model();
+        model.addRoot(root);
+        return model;
+    }
+
+    @Test
+    void identicalModelsProduceAnEmptyDiff() {
+        ModelDiff diff = ModelDiff.compute(model(4, true, 2), model(4, true, 2));
+        assertTrue(diff.isEmpty(), diff.toString());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, diff.getPreviousIndex(i));
+        }
+    }
+
+    @Test
+    void reportsAddedRemovedAndChangedNodesAndCubes() {
+        Model before = model(4, false, 2);
+        Model after = model(6, true, 3);
+        ModelDiff diff = ModelDiff.compute(before, after);
+
+        assertEquals(1, diff.getAddedNodes());
+        assertEquals(0, diff.getRemovedNodes());
+        assertEquals(1, diff.getChangedNodes());
+        assertEquals(1, diff.getChangedCubes());
+        assertEquals(0, diff.getAddedCubes());
+
+        ModelHierarchy h = after.getHierarchy();
+        assertEquals(before.getHierarchy().indexOf("arm"), diff.getPreviousIndex(h.indexOf("arm")));
+        assertEquals(-1, diff.getPreviousIndex(h.indexOf("hand")));
+        assertEquals(before.getHierarchy().indexOf("tail"), diff.getPreviousIndex(h.indexOf("tail")));
+
+        ModelDiff back = ModelDiff.compute(after, before);
+        assertEquals(1, back.getRemovedNodes());
+    }
+
+    @Test
+    void rebindKeepsPosesOfMatchedNodes() {
+        Model before = model(4, false, 2);
+        Model after = model(4, true, 2);
+        ModelInstance instance = before.instantiate();
+        int arm = before.getHierarchy().indexOf("arm");
+        int tail = before.getHierarchy().indexOf("tail");
+        instance.setPoseRotation(arm, 0, 0, 30);
+        instance.setPosePosition(tail, 1, 2, 3);
+        instance.publishWorldTransforms();
+
+        instance.rebind(ModelDiff.compute(before, after));
+        assertSame(after, instance.getModel());
+        assertEquals(after.getHierarchy().size(), instance.getHierarchy().size());
+        instance.publishWorldTransforms();
+
+        ModelInstance expected = after.instantiate();
+        ModelHierarchy h = after.getHierarchy();
+        expected.setPoseRotation(h.indexOf("arm"), 0, 0, 30);
+        expected.setPosePosition(h.indexOf("tail"), 1, 2, 3);
+        expected.updateWorldTransforms();
+        for (int i = 0; i < h.size(); i++) {
+            Matrix4f actual = instance.getWorldTransform(i, new Matrix4f());
+            assertTrue(actual.equals(expected.getWorldTransform(i, new Matrix4f()), 1e-6f), h.getNode(i).getName());
+        }
+        float[] published = new float[h.size() * 16];
+        assertTrue(instance.readPublishedTransforms(published) >= 0);
+
+        assertThrows(IllegalArgumentException.class, () -> instance.rebind(ModelDiff.compute(before, after)));
+    }
+}
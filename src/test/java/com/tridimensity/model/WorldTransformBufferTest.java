@@ -0,0 +1,158 @@
+package com.tridimensity.model;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldTransformBufferTest {
+
+    private static final int READERS = 3;
+    private static final long FRAMES = 200_000;
+
+    @Test
+    void nothingPublishedReadsMinusOne() {
+        WorldTransformBuffer buffer = new WorldTransformBuffer(4, 3);
+        assertEquals(-1, buffer.read(new float[4 * 16]));
+        assertEquals(-1, buffer.read(0, new Matrix4f()));
+        assertEquals(-1, buffer.getLatestSequence());
+    }
+
+    @Test
+    void rejectsInvalidBufferCount() {
+        assertThrows(IllegalArgumentException.class, () -> new WorldTransformBuffer(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new WorldTransformBuffer(1, 4));
+    }
+
+    @Test
+    void doubleBufferedReadsAreNeverTorn() throws Exception {
+        stressBuffer(2);
+    }
+
+    @Test
+    void tripleBufferedReadsAreNeverTorn() throws Exception {
+        stressBuffer(3);
+    }
+
+    /**
+     * The writer fills every float of frame N with N. A torn read would mix values from two frames.
+     */
+    private static void stressBuffer(int bufferCount) throws Exception {
+        int matrices = 64;
+        WorldTransformBuffer buffer = new WorldTransformBuffer(matrices, bufferCount);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < READERS; r++) {
+            Thread t = new Thread(() -> {
+                float[] dest = new float[matrices * 16];
+                long last = -1;
+                while (!done.get() && failure.get() == null) {
+                    long seq = buffer.read(dest);
+                    if (seq < 0) continue;
+                    for (float f : dest) {
+                        if (f != (float) seq) {
+                            failure.set("Torn frame " + seq + ": found " + f);
+                            return;
+                        }
+                    }
+                    if (seq < last) {
+                        failure.set("Sequence went backwards: " + last + " -> " + seq);
+                        return;
+                    }
+                    last = seq;
+                }
+            });
+            t.start();
+            readers.add(t);
+        }
+
+        float[] frame = new float[matrices * 16];
+        for (long seq = 1; seq <= FRAMES && failure.get() == null; seq++) {
+            // Values stay exactly representable as floats well past FRAMES
+            Arrays.fill(frame, (float) seq);
+            assertEquals(seq, buffer.publish(frame));
+        }
+        done.set(true);
+        for (Thread t : readers) {
+            t.join();
+        }
+        assertNull(failure.get(), failure.get());
+        assertEquals(FRAMES, buffer.getLatestSequence());
+    }
+
+    @Test
+    void publishedFrameMatchesComputedTransforms() {
+        ModelNode root = new ModelNode("root", new Vector3f(8, 0, 8), new Vector3f(), new Vector3f(0, 45, 0), new Vector3f(1, 1, 1));
+        ModelNode child = new ModelNode("child", new Vector3f(8, 8, 8), new Vector3f(16, 0, 0), new Vector3f(30, 0, 0), new Vector3f(1, 1, 1));
+        root.addChild(child);
+        Model model = new Model();
+        model.addRoot(root);
+
+        ModelInstance instance = model.instantiate();
+        assertEquals(-1, instance.readPublishedTransform(0, new Matrix4f()));
+        long seq = instance.publishWorldTransforms();
+        assertEquals(1, seq);
+
+        Map<ModelNode, Matrix4f> expected = instance.computeWorldTransforms();
+        Matrix4f actual = new Matrix4f();
+        ModelHierarchy h = instance.getHierarchy();
+        for (int i = 0; i < h.size(); i++) {
+            assertEquals(seq, instance.readPublishedTransform(i, actual));
+            assertTrue(expected.get(h.getNode(i)).equals(actual, 1e-6f));
+        }
+    }
+
+    /**
+     * Every published frame translates the root by a different amount; each node of a frame read by
+     * another thread must reflect the same root translation.
+     */
+    @Test
+    void instanceFramesAreConsistentAcrossNodes() throws Exception {
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        ModelNode parent = root;
+        for (int i = 0; i < 31; i++) {
+            ModelNode child = new ModelNode("n" + i, new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+            parent.addChild(child);
+            parent = child;
+        }
+        Model model = new Model();
+        model.addRoot(root);
+        ModelInstance instance = new ModelInstance(model, 2);
+        int n = instance.getHierarchy().size();
+
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            float[] frame = new float[n * 16];
+            while (!done.get()) {
+                long seq = instance.readPublishedTransforms(frame);
+                if (seq < 0) continue;
+                // Translation x of every node (m30) equals the root pose offset of the frame
+                for (int i = 0; i < n; i++) {
+                    if (frame[i * 16 + 12] != frame[12]) {
+                        failure.set("Torn frame " + seq + " at node " + i);
+                        return;
+                    }
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 20_000; i++) {
+            instance.setPosePosition(0, i * 16f, 0, 0);
+            instance.publishWorldTransforms();
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get(), failure.get());
+    }
+}
@@ -0,0 +1,271 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelFace;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelNode;
+import com.tridimensity.util.Aabb;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CubeMergerTest {
+
+    private static Map<String, ModelFace> faces(String texture, float uStart, float uEnd, float northStart) {
+        Map<String, ModelFace> faces = new HashMap<>();
+        faces.put("south", new ModelFace(new float[]{uStart, 0, uEnd, 1}, texture, 0));
+        faces.put("north", new ModelFace(new float[]{northStart, 0, northStart + (uEnd - uStart), 1}, texture, 0));
+        faces.put("up", new ModelFace(new float[]{uStart, 0, uEnd, 1}, texture, 0));
+        faces.put("down", new ModelFace(new float[]{uStart, 0, uEnd, 1}, texture, 0));
+        faces.put("east", new ModelFace(new float[]{0, 0, 1, 1}, texture, 0));
+        faces.put("west", new ModelFace(new float[]{1, 0, 2, 1}, texture, 90));
+        return faces;
+    }
+
+    private static ModelNode node(String name) {
+        return new ModelNode(name, new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+    }
+
+    private static ModelCube unitCube(int x, Map<String, ModelFace> faces) {
+        return new ModelCube(UUID.randomUUID(), "c" + x, new Vector3f(x, 0, 0), new Vector3f(x + 1, 1, 1), faces);
+    }
+
+    @Test
+    void mergesRowWithContiguousUvs() {
+        ModelNode root = node("root");
+        for (int x = 0; x < 4; x++) {
+            // North UVs run against +X, so the first cube holds the last texels
+            root.addCube(unitCube(x, faces("#0", x, x + 1, 3 - x)));
+        }
+        Model model = new Model();
+        model.addRoot(root);
+
+        MergeReport report = new MergeReport();
+        Model merged = new CubeMerger().merge(model, report);
+        assertEquals(4, report.getCubesBefore());
+        assertEquals(1, report.getCubesAfter());
+        assertEquals(3, report.getMerged());
+
+        ModelCube cube = merged.getRoots().get(0).getCubes().get(0);
+        assertEquals(new Vector3f(0, 0, 0), cube.getFrom());
+        assertEquals(new Vector3f(4, 1, 1), cube.getTo());
+        assertArrayEquals(new float[]{0, 0, 4, 1}, cube.getFaces().get("south").getUv());
+        assertArrayEquals(new float[]{0, 0, 4, 1}, cube.getFaces().get("north").getUv());
+        assertArrayEquals(new float[]{0, 0, 4, 1}, cube.getFaces().get("up").getUv());
+        // Caps keep their own UVs and rotation
+        assertArrayEquals(new float[]{0, 0, 1, 1}, cube.getFaces().get("east").getUv());
+        assertEquals(90, cube.getFaces().get("west").getRotation());
+        // The source is untouched
+        assertEquals(4, model.getRoots().get(0).getCubes().size());
+    }
+
+    @Test
+    void keepsIncompatibleCubesApart() {
+        ModelNode root = node("root");
+        root.addCube(unitCube(0, faces("#0", 0, 1, 1)));
+        root.addCube(unitCube(1, faces("#1", 1, 2, 0)));      // different texture
+        root.addCube(unitCube(3, faces("#0", 3, 4, 0)));      // not touching
+        ModelNode other = node("other");
+        other.addCube(unitCube(4, faces("#0", 4, 5, 0)));     // touching, but another node
+        root.addChild(other);
+        ModelNode seams = node("seams");
+        seams.addCube(unitCube(0, faces("#0", 0, 1, 1)));
+        seams.addCube(unitCube(1, faces("#0", 5, 6, 0)));     // UVs jump
+        root.addChild(seams);
+        Model model = new Model();
+        model.addRoot(root);
+
+        MergeReport report = new MergeReport();
+        new CubeMerger().merge(model, report);
+        assertEquals(0, report.getMerged());
+        assertEquals(report.getCubesBefore(), report.getCubesAfter());
+    }
+
+    @Test
+    void removesEnclosedCubes() {
+        ModelNode root = node("root");
+        ModelCube outer = new ModelCube(UUID.randomUUID(), "outer", new Vector3f(0, 0, 0), new Vector3f(8, 8, 8), faces("#0", 0, 8, 0));
+        root.addCube(outer);
+        root.addCube(new ModelCube(UUID.randomUUID(), "inner", new Vector3f(2, 2, 2), new Vector3f(4, 4, 4), new HashMap<>()));
+        root.addCube(new ModelCube(UUID.randomUUID(), "copy", new Vector3f(0, 0, 0), new Vector3f(8, 8, 8), faces("#1", 0, 8, 0)));
+        Model model = new Model();
+        model.addRoot(root);
+
+        MergeReport report = new MergeReport();
+        List<ModelCube> cubes = new CubeMerger().merge(model, report).getRoots().get(0).getCubes();
+        assertEquals(2, report.getEnclosedRemoved());
+        assertEquals(1, cubes.size());
+        assertEquals("outer", cubes.get(0).getName());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/models/default.bbmodel", "/models/example.bbmodel"})
+    void transformsAreIdenticalOnFixtures(String resource) throws Exception {
+        Model model;
+        try (InputStream stream = getClass().getResourceAsStream(resource)) {
+            model = BlockbenchLoader.load(stream, new ParserOptions(true));
+        }
+        MergeReport report = new MergeReport();
+        Model merged = new CubeMerger().merge(model, report);
+        assertTrue(report.getCubesAfter() <= report.getCubesBefore());
+        assertSameResult(model, merged);
+
+        // The fixtures have nothing to merge as they are: cut every cube in three and merge it back
+        Model sliced = sliced(model);
+        report = new MergeReport();
+        merged = new CubeMerger().merge(sliced, report);
+        assertEquals(model.getGeometry().getCubeCount() * 3, report.getCubesBefore());
+        assertTrue(report.getMerged() > 0);
+        assertSameResult(sliced, merged);
+        assertSameResult(model, merged);
+    }
+
+    /**
+     * Asserts that {@code merged} has the nodes and transforms of {@code source}, and that the cubes of
+     * each node cover the same volume and show the same textured area.
+     */
+    private static void assertSameResult(Model source, Model merged) {
+        ModelHierarchy before = source.getHierarchy();
+        ModelHierarchy after = merged.getHierarchy();
+        assertEquals(before.size(), after.size());
+        var sourceInstance = source.instantiate();
+        var result = merged.instantiate();
+        sourceInstance.updateWorldTransforms();
+        result.updateWorldTransforms();
+        Matrix4f a = new Matrix4f();
+        Matrix4f b = new Matrix4f();
+        for (int i = 0; i < before.size(); i++) {
+            assertEquals(before.getNode(i).getUuid(), after.getNode(i).getUuid());
+            assertEquals(before.getParent(i), after.getParent(i));
+            assertEquals(sourceInstance.getWorldTransform(i, a), result.getWorldTransform(i, b));
+            assertNotEquals(0f, a.m33());
+
+            Aabb boundsBefore = before.getLocalBounds(i, new Aabb());
+            Aabb boundsAfter = after.getLocalBounds(i, new Aabb());
+            assertEquals(boundsBefore.toString(), boundsAfter.toString(), "bounds of node " + i);
+            List<ModelCube> cubesBefore = before.getNode(i).getCubes();
+            List<ModelCube> cubesAfter = after.getNode(i).getCubes();
+            Random random = new Random(i);
+            for (int sample = 0; sample < 200 && !cubesBefore.isEmpty(); sample++) {
+                float x = boundsBefore.minX + random.nextFloat() * (boundsBefore.maxX - boundsBefore.minX);
+                float y = boundsBefore.minY + random.nextFloat() * (boundsBefore.maxY - boundsBefore.minY);
+                float z = boundsBefore.minZ + random.nextFloat() * (boundsBefore.maxZ - boundsBefore.minZ);
+                assertEquals(covers(cubesBefore, x, y, z), covers(cubesAfter, x, y, z), "node " + i + " at " + x + ", " + y + ", " + z);
+            }
+            assertEquals(exposedUvArea(cubesBefore), exposedUvArea(cubesAfter), 1e-3, "textured area of node " + i);
+        }
+    }
+
+    /**
+     * @return A copy of the model with every cube cut into three along Y, the UVs of the side faces
+     *         split to match.
+     */
+    private static Model sliced(Model model) {
+        ModelHierarchy hierarchy = model.getHierarchy();
+        ModelNode[] copies = new ModelNode[hierarchy.size()];
+        Model result = new Model();
+        result.setTextures(model.getTextures());
+        for (int i = 0; i < hierarchy.size(); i++) {
+            ModelNode copy = CubeMerger.copyNode(hierarchy.getNode(i));
+            for (ModelCube cube : hierarchy.getNode(i).getCubes()) {
+                Vector3f from = cube.getFrom();
+                Vector3f to = cube.getTo();
+                for (int piece = 0; piece < 3; piece++) {
+                    float y0 = from.y + (to.y - from.y) * piece / 3f;
+                    float y1 = from.y + (to.y - from.y) * (piece + 1) / 3f;
+                    Map<String, ModelFace> faces = new HashMap<>();
+                    for (FaceDirection direction : FaceDirection.values()) {
+                        ModelFace face = cube.getFace(direction);
+                        if (face != null) {
+                            faces.put(direction.getKey(), new ModelFace(slice(face.getUv(), direction, piece), face.getTexture(), face.getRotation()));
+                        }
+                    }
+                    copy.addCube(new ModelCube(UUID.randomUUID(), cube.getName(),
+                            new Vector3f(from.x, y0, from.z), new Vector3f(to.x, y1, to.z), faces));
+                }
+            }
+            copies[i] = copy;
+            int parent = hierarchy.getParent(i);
+            if (parent < 0) {
+                result.addRoot(copy);
+            } else {
+                copies[parent].addChild(copy);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return The part of a face's UVs covering slice {@code piece} of three along Y.
+     */
+    private static float[] slice(float[] uv, FaceDirection direction, int piece) {
+        if (uv == null || direction.getAxis() == 1) {
+            return uv;
+        }
+        // V runs down the side faces, so the lowest slice holds the last texels
+        int k = 2 - piece;
+        float[] result = uv.clone();
+        result[1] = uv[1] + (uv[3] - uv[1]) * k / 3f;
+        result[3] = uv[1] + (uv[3] - uv[1]) * (k + 1) / 3f;
+        return result;
+    }
+
+    private static boolean covers(List<ModelCube> cubes, float x, float y, float z) {
+        for (ModelCube cube : cubes) {
+            if (cube.getBounds().contains(x, y, z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The summed UV area of the faces that do not lie within another cube, such as the caps
+     *         where two merged cubes met or the faces of an enclosed cube.
+     */
+    private static double exposedUvArea(List<ModelCube> cubes) {
+        double area = 0;
+        for (ModelCube cube : cubes) {
+            for (FaceDirection direction : FaceDirection.values()) {
+                ModelFace face = cube.getFace(direction);
+                if (face == null || face.getUv() == null || isCovered(cubes, cube, direction)) {
+                    continue;
+                }
+                float[] uv = face.getUv();
+                area += Math.abs((uv[2] - uv[0]) * (uv[3] - uv[1]));
+            }
+        }
+        return area;
+    }
+
+    private static boolean isCovered(List<ModelCube> cubes, ModelCube cube, FaceDirection direction) {
+        // The face as a flat box on its plane
+        Aabb face = cube.getBounds();
+        switch (direction.getAxis()) {
+            case 0 -> face.minX = face.maxX = direction.getSign() > 0 ? face.maxX : face.minX;
+            case 1 -> face.minY = face.maxY = direction.getSign() > 0 ? face.maxY : face.minY;
+            default -> face.minZ = face.maxZ = direction.getSign() > 0 ? face.maxZ : face.minZ;
+        }
+        for (ModelCube other : cubes) {
+            if (other != cube && other.getBounds().contains(face)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
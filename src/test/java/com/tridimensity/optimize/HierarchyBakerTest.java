@@ -0,0 +1,135 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.io.options.ParserOptions;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchyBakerTest {
+
+    private static ModelNode node(String name, Vector3f origin, Vector3f position, Vector3f rotation) {
+        return new ModelNode(name, origin, position, rotation, new Vector3f(1, 1, 1));
+    }
+
+    private static void addCube(ModelNode node, float x, float y, float z) {
+        node.addCube(new ModelCube(UUID.randomUUID(), node.getName() + "_cube",
+                new Vector3f(x, y, z), new Vector3f(x + 2, y + 3, z + 4), new HashMap<>()));
+    }
+
+    /**
+     * root -> folder -> offset -> { arm -> hand, prop }
+     */
+    private static Model rig() {
+        ModelNode root = node("root", new Vector3f(0, 0, 0), new Vector3f(), new Vector3f());
+        ModelNode folder = node("folder", new Vector3f(3, 4, 5), new Vector3f(), new Vector3f());
+        ModelNode offset = node("offset", new Vector3f(-2, 7, 1), new Vector3f(1, 2, 3), new Vector3f());
+        ModelNode arm = node("arm", new Vector3f(4, 12, 0), new Vector3f(0, 1, 0), new Vector3f(0, 0, 20));
+        ModelNode hand = node("hand", new Vector3f(6, 4, 0), new Vector3f(), new Vector3f());
+        ModelNode prop = node("prop", new Vector3f(1, 1, 1), new Vector3f(0, 0, 2), new Vector3f());
+        addCube(root, 0, 0, 0);
+        addCube(folder, 1, 1, 1);
+        addCube(offset, 2, 8, 0);
+        addCube(arm, 4, 8, 0);
+        addCube(hand, 5, 2, 0);
+        addCube(prop, 0, 0, 3);
+        root.addChild(folder);
+        folder.addChild(offset);
+        offset.addChild(arm);
+        offset.addChild(prop);
+        arm.addChild(hand);
+        Model model = new Model();
+        model.addRoot(root);
+        return model;
+    }
+
+    private static void assertMatrixEquals(Matrix4f expected, Matrix4f actual, String message) {
+        assertTrue(expected.equals(actual, 1e-5f), message + ": expected " + expected + " but was " + actual);
+    }
+
+    @Test
+    void foldsStaticNodesWithoutMovingAnything() {
+        Model model = rig();
+        BakedModel baked = new HierarchyBaker().animatedNodes(Set.of("root", "arm")).bake(model);
+        ModelHierarchy source = model.getHierarchy();
+        ModelHierarchy result = baked.getModel().getHierarchy();
+
+        // folder, offset, hand and prop are static; root and arm remain
+        assertEquals(4, baked.getFoldedCount());
+        assertEquals(2, result.size());
+        assertEquals(baked.indexOf("arm"), baked.indexOf("hand"));
+        assertEquals(baked.indexOf("root"), baked.indexOf("folder"));
+        assertEquals(-1, baked.indexOf("missing"));
+
+        ModelInstance full = model.instantiate();
+        ModelInstance fast = baked.getModel().instantiate();
+        full.setPoseRotation(source.indexOf("root"), 0, 35, 0);
+        fast.setPoseRotation(baked.indexOf("root"), 0, 35, 0);
+        full.setPoseRotation(source.indexOf("arm"), -50, 0, 10);
+        fast.setPoseRotation(baked.indexOf("arm"), -50, 0, 10);
+        full.setPosePosition(source.indexOf("arm"), 0, 2, 0);
+        fast.setPosePosition(baked.indexOf("arm"), 0, 2, 0);
+        full.updateWorldTransforms();
+        fast.updateWorldTransforms();
+
+        Matrix4f expected = new Matrix4f();
+        Matrix4f actual = new Matrix4f();
+        for (int i = 0; i < source.size(); i++) {
+            String name = source.getNode(i).getName();
+            full.getWorldTransform(i, expected);
+            assertMatrixEquals(expected, baked.getWorldTransform(fast, name, actual), name);
+
+            // Every cube keeps its world position
+            for (ModelCube cube : source.getNode(i).getCubes()) {
+                Vector3f want = expected.transformPosition(cube.getFrom().mul(1f / 16f));
+                int carrier = baked.getCarrier(i);
+                ModelCube moved = result.getNode(carrier).getCubes().stream()
+                        .filter(c -> c.getUuid().equals(cube.getUuid())).findFirst().orElseThrow();
+                Vector3f got = fast.getWorldTransform(carrier, actual).transformPosition(moved.getFrom().mul(1f / 16f));
+                assertTrue(want.equals(got, 1e-5f), cube.getName() + ": " + want + " vs " + got);
+            }
+        }
+    }
+
+    @Test
+    void withoutAnimationInfoOnlyOrganizationalNodesFold() {
+        BakedModel baked = new HierarchyBaker().bake(rig());
+        ModelHierarchy source = baked.getSourceModel().getHierarchy();
+        assertTrue(baked.isFolded(source.indexOf("folder")));
+        assertTrue(baked.isFolded(source.indexOf("hand")));
+        assertFalse(baked.isFolded(source.indexOf("offset")));
+        assertFalse(baked.isFolded(source.indexOf("prop")));
+        assertFalse(baked.isFolded(source.indexOf("root")));
+        assertEquals(source.size() - 2, baked.getModel().getHierarchy().size());
+    }
+
+    @Test
+    void fixtureTransformsAreUnchanged() throws Exception {
+        Model model;
+        try (InputStream stream = getClass().getResourceAsStream("/models/default.bbmodel")) {
+            model = BlockbenchLoader.load(stream, new ParserOptions(true));
+        }
+        BakedModel baked = new HierarchyBaker().animatedNodes(Set.of()).bake(model);
+        ModelInstance full = model.instantiate();
+        ModelInstance fast = baked.getModel().instantiate();
+        full.updateWorldTransforms();
+        fast.updateWorldTransforms();
+        Matrix4f expected = new Matrix4f();
+        Matrix4f actual = new Matrix4f();
+        for (int i = 0; i < model.getHierarchy().size(); i++) {
+            assertMatrixEquals(full.getWorldTransform(i, expected), baked.getWorldTransform(fast, i, actual), "node " + i);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.tridimensity.optimize;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelHierarchy;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelLod;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LodBuilderTest {
+
+    private static ModelCube cube(String name, float x0, float y0, float z0, float x1, float y1, float z1) {
+        return new ModelCube(UUID.randomUUID(), name, new Vector3f(x0, y0, z0), new Vector3f(x1, y1, z1), new HashMap<>());
+    }
+
+    /**
+     * body (rotated) -> { arm (animated leaf), badge (static leaf with offset) }
+     */
+    private static Model rig() {
+        ModelNode body = new ModelNode("body", new Vector3f(0, 8, 0), new Vector3f(0, 2, 0), new Vector3f(0, 30, 0), new Vector3f(1, 1, 1));
+        body.addCube(cube("torso", -4, 0, -2, 4, 12, 2));
+        body.addCube(cube("button", 0, 6, 2, 0.5f, 6.5f, 2.5f));
+        ModelNode arm = new ModelNode("arm", new Vector3f(5, 10, 0), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        arm.addCube(cube("arm", 4, 0, -1, 6, 12, 1));
+        ModelNode badge = new ModelNode("badge", new Vector3f(2, 9, 2), new Vector3f(1, 0, 0), new Vector3f(), new Vector3f(1, 1, 1));
+        badge.addCube(cube("badge", 1, 8, 2, 3, 10, 3));
+        body.addChild(arm);
+        body.addChild(badge);
+        Model model = new Model();
+        model.addRoot(body);
+        return model;
+    }
+
+    private static Vector3f corner(ModelInstance instance, int node, ModelCube cube) {
+        return instance.getWorldTransform(node, new Matrix4f()).transformPosition(cube.getFrom().mul(1f / 16f));
+    }
+
+    @Test
+    void lodKeepsGeometryInPlaceUnderAnimation() {
+        Model model = rig();
+        List<ModelLod> lods = new LodBuilder().animatedNodes(Set.of("arm"))
+                .build(model, new LodLevel(2f, 1f, true));
+        model.setLods(lods);
+        ModelLod lod = model.getLod(1);
+
+        // badge folds into body, arm stays because it is animated
+        assertEquals(2, lod.getNodeCount());
+        assertEquals(0, lod.getSourceNode(0));
+        assertEquals("arm", lod.getModel().getHierarchy().getNode(1).getName());
+        assertEquals(1, lod.getSourceNode(1));
+        // button counts as one cubic pixel and falls below the threshold
+        assertEquals(3, lod.getCubeCount());
+
+        ModelInstance instance = model.instantiate();
+        instance.setPoseRotation(0, 10, 45, 0);
+        instance.setPoseRotation(1, -60, 0, 0);
+        instance.updateWorldTransforms();
+
+        ModelHierarchy source = model.getHierarchy();
+        ModelHierarchy simplified = lod.getModel().getHierarchy();
+        for (int lodNode = 0; lodNode < simplified.size(); lodNode++) {
+            for (ModelCube cube : simplified.getNode(lodNode).getCubes()) {
+                int sourceNode = -1;
+                ModelCube original = null;
+                for (int i = 0; i < source.size(); i++) {
+                    for (ModelCube c : source.getNode(i).getCubes()) {
+                        if (c.getUuid().equals(cube.getUuid())) {
+                            sourceNode = i;
+                            original = c;
+                        }
+                    }
+                }
+                assertNotNull(original);
+                Vector3f expected = corner(instance, sourceNode, original);
+                Vector3f actual = corner(instance, lod.getSourceNode(lodNode), cube);
+                assertEquals(expected.x, actual.x, 1e-4f, cube.getName());
+                assertEquals(expected.y, actual.y, 1e-4f, cube.getName());
+                assertEquals(expected.z, actual.z, 1e-4f, cube.getName());
+            }
+        }
+    }
+
+    @Test
+    void instanceSwitchesLevels() {
+        Model model = rig();
+        model.setLods(new LodBuilder().build(model, new LodLevel(0f, 0f, false), new LodLevel(1000f, 0f, true)));
+        assertEquals(3, model.getLodCount());
+
+        ModelInstance instance = model.instantiate();
+        assertEquals(0, instance.getLodLevel());
+        assertSame(model, instance.getLod().getModel());
+        assertEquals(4, instance.getLod().getCubeCount());
+
+        instance.setLodLevel(1);
+        assertEquals(3, instance.getLod().getNodeCount());
+        assertEquals(4, instance.getLod().getCubeCount());
+
+        instance.setLodLevel(2);
+        assertEquals(1, instance.getLod().getNodeCount());
+        assertEquals(0, instance.getLod().getCubeCount());
+        assertThrows(IllegalArgumentException.class, () -> instance.setLodLevel(3));
+    }
+
+    @Test
+    void snappingRemovesSubGridDetail() {
+        Model model = new Model();
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        root.addCube(cube("a", 0.1f, 0, 0, 3.9f, 4, 4));
+        root.addCube(cube("sliver", 5.1f, 0, 0, 5.3f, 4, 4));
+        model.addRoot(root);
+
+        ModelLod lod = new LodBuilder().build(model, new LodLevel(0f, 1f, false), null);
+        List<ModelCube> cubes = lod.getModel().getRoots().get(0).getCubes();
+        assertEquals(1, cubes.size());
+        assertEquals(new Vector3f(0, 0, 0), cubes.get(0).getFrom());
+        assertEquals(new Vector3f(4, 4, 4), cubes.get(0).getTo());
+    }
+}
@@ -0,0 +1,197 @@
+package com.tridimensity.pack;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelFace;
+import com.tridimensity.model.ModelNode;
+import com.tridimensity.model.ModelTexture;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourcePackGeneratorTest {
+
+    private static ModelCube cube(float x0, float y0, float z0, float x1, float y1, float z1) {
+        Map<String, ModelFace> faces = new HashMap<>();
+        faces.put("north", new ModelFace(new float[]{0, 0, 8, 8}, "0", 90));
+        faces.put("up", new ModelFace(new float[]{8, 8, 16, 16}, "0", 0));
+        return new ModelCube(UUID.randomUUID(), "cube", new Vector3f(x0, y0, z0), new Vector3f(x1, y1, z1), faces);
+    }
+
+    private static ModelNode node(String name) {
+        return new ModelNode(name, new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+    }
+
+    private static Model rig(String textureSource, float armLength) {
+        ModelNode body = node("body");
+        body.addCube(cube(-4, 0, -2, 4, 12, 2));
+        ModelNode arm = node("arm");
+        arm.addCube(cube(4, 0, -1, 4 + armLength, 2, 1));
+        body.addChild(arm);
+        body.addChild(node("empty"));
+        Model model = new Model();
+        model.addRoot(body);
+        model.setTextures(List.of(new ModelTexture("skin.png", "0", null, 32, 32, 32, 32, textureSource)));
+        return model;
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                assertNull(entries.put(entry.getName(), in.readAllBytes()), "duplicate entry " + entry.getName());
+            }
+        }
+        return entries;
+    }
+
+    private static JsonObject json(byte[] bytes) {
+        return JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    @Test
+    void writesOneItemModelPerBoneAndSharesIdenticalGeometry() throws IOException {
+        Map<String, Model> models = new LinkedHashMap<>();
+        models.put("Golem", rig("textures/skin.png", 6));
+        models.put("golem_copy", rig("textures/skin.png", 6));
+        models.put("long_arm", rig("textures/skin.png", 60));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PackReport report;
+        try (ZipPackSink sink = new ZipPackSink(out)) {
+            report = new ResourcePackGenerator().setNamespace("test").generate(models, sink);
+        }
+        Map<String, byte[]> entries = unzip(out.toByteArray());
+
+        assertEquals(3, report.getModels());
+        assertEquals(6, report.getBones());
+        // Bodies and short arms only differ by model name, which their texture paths include
+        assertEquals(6, report.getItemModels());
+
+        JsonObject index = json(entries.get("assets/test/tridimensity/golem.json"));
+        JsonArray bones = index.getAsJsonArray("bones");
+        assertEquals(2, bones.size(), "nodes without cubes get no item model");
+        assertEquals("body", bones.get(0).getAsJsonObject().get("name").getAsString());
+        assertEquals(0, bones.get(0).getAsJsonObject().get("index").getAsInt());
+        assertEquals(1, bones.get(1).getAsJsonObject().get("index").getAsInt());
+
+        String modelPath = bones.get(0).getAsJsonObject().get("model").getAsString();
+        assertTrue(modelPath.startsWith("test:item/tridimensity/"));
+        String file = "assets/test/models/item/" + modelPath.substring("test:item/".length()) + ".json";
+        JsonObject body = json(entries.get(file));
+        assertEquals("test:item/golem/skin", body.getAsJsonObject("textures").get("0").getAsString());
+        JsonObject element = body.getAsJsonArray("elements").get(0).getAsJsonObject();
+        assertEquals(4f, element.getAsJsonArray("from").get(0).getAsFloat());
+        assertEquals(20f, element.getAsJsonArray("to").get(1).getAsFloat());
+        JsonObject north = element.getAsJsonObject("faces").getAsJsonObject("north");
+        // 32px texture: UVs are rescaled into the 16x16 Java model space
+        assertEquals(4f, north.getAsJsonArray("uv").get(2).getAsFloat());
+        assertEquals("#0", north.get("texture").getAsString());
+        assertEquals(90, north.get("rotation").getAsInt());
+
+        // A 64px arm reaching past 32 is shrunk to fit and the index records the factor
+        JsonObject longArm = json(entries.get("assets/test/tridimensity/long_arm.json")).getAsJsonArray("bones").get(1).getAsJsonObject();
+        float scale = longArm.get("scale").getAsFloat();
+        assertEquals(64f / 24f, scale, 1e-5f);
+        String armFile = "assets/test/models/item/" + longArm.get("model").getAsString().substring("test:item/".length()) + ".json";
+        JsonObject arm = json(entries.get(armFile)).getAsJsonArray("elements").get(0).getAsJsonObject();
+        assertEquals(32f, arm.getAsJsonArray("to").get(0).getAsFloat(), 1e-4f);
+    }
+
+    @Test
+    void packedTexturesAreWrittenOnceAndBonesDeduplicateAcrossModels(@TempDir Path dir) throws IOException {
+        String source = "data:image/png;base64," + Base64.getEncoder().encodeToString(new byte[]{1, 2, 3, 4, 5});
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add("model_" + i);
+        }
+        AtomicInteger loaded = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        PackReport report;
+        try (DirectoryPackSink sink = new DirectoryPackSink(dir)) {
+            report = new ResourcePackGenerator(pool)
+                    .setPackTextures(true)
+                    .generate(names, name -> {
+                        loaded.incrementAndGet();
+                        return rig(source, 6);
+                    }, sink);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(20, loaded.get());
+        assertEquals(40, report.getBones());
+        assertEquals(2, report.getItemModels());
+        assertEquals(38, report.getDeduplicated());
+        assertEquals(1, report.getTextures());
+
+        try (var files = Files.list(dir.resolve("assets/tridimensity/textures/item/tridimensity"))) {
+            Path png = files.findFirst().orElseThrow();
+            assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, Files.readAllBytes(png));
+        }
+        try (var files = Files.list(dir.resolve("assets/tridimensity/tridimensity"))) {
+            assertEquals(20, files.count());
+        }
+    }
+
+    @Test
+    void collidingPackNamesFailTheRun(@TempDir Path dir) throws IOException {
+        Map<String, Model> models = new LinkedHashMap<>();
+        models.put("Foo", rig("textures/skin.png", 6));
+        models.put("foo", rig("textures/skin.png", 8));
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new ResourcePackGenerator().generate(models, new ZipPackSink(zip)));
+        assertTrue(e.getMessage().contains("pack name 'foo'"), e.getMessage());
+        assertEquals(0, zip.size(), "nothing of 'Foo' may be written");
+
+        // The same goes for a directory, where the second index would silently replace the first
+        AtomicInteger loads = new AtomicInteger();
+        try (DirectoryPackSink sink = new DirectoryPackSink(dir)) {
+            assertThrows(IllegalArgumentException.class, () -> new ResourcePackGenerator()
+                    .generate(List.of("a b", "x", "a_b"), name -> {
+                        loads.incrementAndGet();
+                        return rig("textures/skin.png", 6);
+                    }, sink));
+        }
+        assertEquals(0, loads.get());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+        IllegalArgumentException repeated = assertThrows(IllegalArgumentException.class, () -> new ResourcePackGenerator()
+                .generate(List.of("golem", "golem"), name -> rig("textures/skin.png", 6), new ZipPackSink(new ByteArrayOutputStream())));
+        assertTrue(repeated.getMessage().contains("more than once"));
+    }
+
+    @Test
+    void loaderFailuresStopTheRun() {
+        IOException e = assertThrows(IOException.class, () -> new ResourcePackGenerator()
+                .generate(List.of("a", "b"), name -> {
+                    throw new IllegalStateException("broken " + name);
+                }, new ZipPackSink(new ByteArrayOutputStream())));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+}
@@ -0,0 +1,176 @@
+package com.tridimensity.runtime;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceUpdateSchedulerTest {
+
+    private static Model model(int nodes) {
+        Model model = new Model();
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        for (int i = 1; i < nodes; i++) {
+            root.addChild(new ModelNode("n" + i, new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1)));
+        }
+        model.addRoot(root);
+        return model;
+    }
+
+    /**
+     * Moves every instance's root, as an animation would, so each update has its whole hierarchy to recompute.
+     */
+    private static void animate(ModelInstance... instances) {
+        for (ModelInstance instance : instances) {
+            instance.setPoseRotation(0, 0, instance.getPoseRotation(0, new Vector3f()).y + 1, 0);
+        }
+    }
+
+    @Test
+    void nodeBudgetLimitsUpdatesAndPrefersImportantInstances() {
+        Model model = model(10);
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(4, 8);
+        scheduler.setNodeBudget(30);
+
+        ModelInstance[] instances = new ModelInstance[6];
+        int[] handles = new int[instances.length];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = model.instantiate();
+            handles[i] = scheduler.register(instances[i]);
+        }
+        // First tick: everything is new (stale) and due
+        TickStats first = scheduler.tick();
+        assertEquals(6, first.getCandidates());
+        assertEquals(3, first.getUpdated());
+        assertEquals(3, first.getDeferred());
+        assertEquals(30, first.getNodesUsed());
+        assertEquals(1.0, first.getBudgetUsed(), 1e-9);
+
+        // Let the remaining ones catch up, then rank by importance
+        scheduler.tick();
+        for (int i = 0; i < handles.length; i++) {
+            scheduler.setImportance(handles[i], i == 5 ? 1f : 0.5f);
+        }
+        animate(instances);
+        long before = instances[5].readPublishedTransforms(new float[160]);
+        TickStats stats = scheduler.tick();
+        assertTrue(stats.getUpdated() <= 3);
+        assertTrue(instances[5].readPublishedTransforms(new float[160]) > before);
+    }
+
+    @Test
+    void unimportantInstancesUpdateLessOften() {
+        Model model = model(2);
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(5, 20);
+        ModelInstance near = model.instantiate();
+        ModelInstance far = model.instantiate();
+        scheduler.setImportance(scheduler.register(near), 1f);
+        scheduler.setImportance(scheduler.register(far), 0f);
+
+        for (int t = 0; t < 100; t++) {
+            scheduler.tick();
+        }
+        long nearFrames = near.readPublishedTransforms(new float[32]);
+        long farFrames = far.readPublishedTransforms(new float[32]);
+        assertEquals(100, nearFrames);
+        assertEquals(20, farFrames);
+    }
+
+    @Test
+    void starvingInstancesStillUpdate() {
+        Model model = model(10);
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(1, 6);
+        // Only one instance fits per tick
+        scheduler.setNodeBudget(10);
+
+        ModelInstance important = model.instantiate();
+        ModelInstance[] starving = new ModelInstance[3];
+        scheduler.setImportance(scheduler.register(important), 1f);
+        for (int i = 0; i < starving.length; i++) {
+            starving[i] = model.instantiate();
+            scheduler.setImportance(scheduler.register(starving[i]), 0.01f);
+        }
+        for (int t = 0; t < 60; t++) {
+            animate(important);
+            animate(starving);
+            TickStats stats = scheduler.tick();
+            assertEquals(1, stats.getUpdated());
+        }
+        for (ModelInstance instance : starving) {
+            assertTrue(instance.readPublishedTransforms(new float[160]) >= 5, "instance starved");
+        }
+        assertTrue(important.readPublishedTransforms(new float[160]) > 20);
+    }
+
+    @Test
+    void budgetIsChargedWithTheNodesRecomputed() {
+        Model model = model(10);
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(1, 1);
+        scheduler.setNodeBudget(30);
+        ModelInstance[] instances = new ModelInstance[6];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = model.instantiate();
+            scheduler.register(instances[i]);
+        }
+        scheduler.tick();
+        scheduler.tick();
+
+        // Nothing moved: every instance fits, at no cost
+        TickStats idle = scheduler.tick();
+        assertEquals(6, idle.getUpdated());
+        assertEquals(0, idle.getNodesUsed());
+
+        // Only one node of each changed
+        for (ModelInstance instance : instances) {
+            instance.setPoseRotation(3, 10, 0, 0);
+        }
+        TickStats partial = scheduler.tick();
+        assertEquals(6, partial.getUpdated());
+        assertEquals(6, partial.getNodesUsed());
+    }
+
+    @Test
+    void attachedModelsCountTowardsTheBudget() {
+        Model model = model(10);
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(1, 1);
+        scheduler.setNodeBudget(20);
+        ModelInstance carrier = model.instantiate();
+        carrier.attach(model(5), "n1", new Matrix4f());
+        // Equally stale instances go in reverse registration order, so the carrier goes first
+        scheduler.register(model.instantiate());
+        scheduler.register(carrier);
+
+        // 15 for the carrier and its attachment leaves no room for the other 10
+        TickStats first = scheduler.tick();
+        assertEquals(1, first.getUpdated());
+        assertEquals(15, first.getNodesUsed());
+        assertEquals(1, first.getDeferred());
+    }
+
+    @Test
+    void nanImportanceCountsAsZero() {
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(5, 20);
+        ModelInstance instance = model(2).instantiate();
+        scheduler.setImportance(scheduler.register(instance), Float.NaN);
+        for (int t = 0; t < 100; t++) {
+            scheduler.tick();
+        }
+        assertEquals(20, instance.readPublishedTransforms(new float[32]));
+    }
+
+    @Test
+    void handlesAreReusedAfterUnregister() {
+        InstanceUpdateScheduler scheduler = new InstanceUpdateScheduler(1, 1);
+        Model model = model(1);
+        int a = scheduler.register(model.instantiate());
+        scheduler.register(model.instantiate());
+        scheduler.unregister(a);
+        assertEquals(1, scheduler.size());
+        assertEquals(a, scheduler.register(model.instantiate()));
+        assertEquals(2, scheduler.tick().getUpdated());
+    }
+}
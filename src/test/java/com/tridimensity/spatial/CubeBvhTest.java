@@ -0,0 +1,165 @@
+package com.tridimensity.spatial;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import com.tridimensity.util.Aabb;
+import org.joml.Intersectionf;
+import org.joml.Matrix4f;
+import org.joml.Vector2f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CubeBvhTest {
+
+    private static Model randomModel(Random random, int nodes, int cubesPerNode) {
+        Model model = new Model();
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        model.addRoot(root);
+        for (int n = 0; n < nodes; n++) {
+            Vector3f origin = new Vector3f(random.nextFloat() * 64, random.nextFloat() * 64, random.nextFloat() * 64);
+            Vector3f rotation = new Vector3f(random.nextFloat() * 90, random.nextFloat() * 90, 0);
+            ModelNode node = new ModelNode("n" + n, origin, new Vector3f(), rotation, new Vector3f(1, 1, 1));
+            for (int c = 0; c < cubesPerNode; c++) {
+                float x = origin.x + random.nextFloat() * 16 - 8;
+                float y = origin.y + random.nextFloat() * 16 - 8;
+                float z = origin.z + random.nextFloat() * 16 - 8;
+                float s = 1 + random.nextFloat() * 4;
+                node.addCube(new ModelCube(UUID.randomUUID(), "c" + n + "_" + c,
+                        new Vector3f(x, y, z), new Vector3f(x + s, y + s, z + s), new HashMap<>()));
+            }
+            root.addChild(node);
+        }
+        return model;
+    }
+
+    /**
+     * Reference implementation: test every cube in its node space.
+     */
+    private static float bruteForce(ModelInstance instance, Vector3f origin, Vector3f dir, float maxDist, int[] hitNode) {
+        float best = Float.POSITIVE_INFINITY;
+        Vector3f d = new Vector3f(dir).normalize();
+        Matrix4f inv = new Matrix4f();
+        Vector2f result = new Vector2f();
+        for (int i = 0; i < instance.getHierarchy().size(); i++) {
+            instance.getWorldTransform(i, inv).invertAffine();
+            Vector3f lo = inv.transformPosition(new Vector3f(origin));
+            Vector3f ld = inv.transformDirection(new Vector3f(d));
+            for (ModelCube cube : instance.getHierarchy().getNode(i).getCubes()) {
+                Vector3f min = cube.getFrom().mul(1f / 16f);
+                Vector3f max = cube.getTo().mul(1f / 16f);
+                if (Intersectionf.intersectRayAab(lo, ld, min, max, result)) {
+                    float t = Math.max(result.x, 0f);
+                    if (result.y >= 0f && t <= maxDist && t < best) {
+                        best = t;
+                        hitNode[0] = i;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    @Test
+    void raycastMatchesBruteForceOnPosedInstance() {
+        Random random = new Random(42);
+        Model model = randomModel(random, 40, 8);
+        ModelInstance instance = model.instantiate();
+        CubeBvh bvh = new CubeBvh(model);
+        assertEquals(320, bvh.getCubeCount());
+
+        for (int i = 0; i < instance.getHierarchy().size(); i++) {
+            instance.setPoseRotation(i, random.nextFloat() * 40, random.nextFloat() * 40, random.nextFloat() * 40);
+        }
+        instance.updateWorldTransforms();
+        bvh.refit(instance);
+
+        Aabb bounds = bvh.getBounds(new Aabb());
+        Vector3f center = bounds.getCenter(new Vector3f());
+        RayHit hit = new RayHit();
+        int hits = 0;
+        for (int r = 0; r < 500; r++) {
+            Vector3f origin = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f)
+                    .normalize().mul(20f).add(center);
+            Vector3f target = new Vector3f(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f)
+                    .mul(4f).add(center);
+            Vector3f dir = target.sub(origin);
+
+            int[] expectedNode = {-1};
+            float expected = bruteForce(instance, origin, dir, 100f, expectedNode);
+            boolean found = bvh.raycast(origin, dir, 100f, hit);
+            assertEquals(expected != Float.POSITIVE_INFINITY, found, "ray " + r);
+            if (found) {
+                hits++;
+                assertEquals(expected, hit.getDistance(), 1e-3f);
+                assertNotNull(hit.getCube());
+                assertSame(instance.getHierarchy().getNode(hit.getNodeIndex()), hit.getNode());
+            }
+        }
+        assertTrue(hits > 50, "too few hits to be meaningful: " + hits);
+    }
+
+    @Test
+    void maxDistanceLimitsHits() {
+        Model model = new Model();
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        root.addCube(new ModelCube(UUID.randomUUID(), "wall", new Vector3f(0, 0, 160), new Vector3f(16, 16, 176), new HashMap<>()));
+        model.addRoot(root);
+        CubeBvh bvh = new CubeBvh(model);
+
+        RayHit hit = new RayHit();
+        assertFalse(bvh.raycast(new Vector3f(0.5f, 0.5f, 0), new Vector3f(0, 0, 1), 5f, hit));
+        assertTrue(bvh.raycast(new Vector3f(0.5f, 0.5f, 0), new Vector3f(0, 0, 2), 15f, hit));
+        assertEquals(10f, hit.getDistance(), 1e-5f);
+        assertEquals("wall", hit.getCube().getName());
+        assertEquals("root", hit.getNode().getName());
+    }
+
+    @Test
+    void overlapsMatchesBruteForce() {
+        Random random = new Random(7);
+        Model model = randomModel(random, 30, 10);
+        ModelInstance instance = model.instantiate();
+        instance.setPosePosition(3, 16, 0, 0);
+        instance.updateWorldTransforms();
+        CubeBvh bvh = new CubeBvh(model);
+        bvh.refit(instance);
+
+        int[] results = new int[bvh.getCubeCount()];
+        Aabb cubeBox = new Aabb();
+        for (int q = 0; q < 100; q++) {
+            float x = random.nextFloat() * 8, y = random.nextFloat() * 8, z = random.nextFloat() * 8;
+            Aabb query = new Aabb(x, y, z, x + 1, y + 1, z + 1);
+            int found = bvh.overlaps(query, results);
+            Set<Integer> actual = new HashSet<>();
+            for (int i = 0; i < found; i++) {
+                actual.add(results[i]);
+            }
+            Set<Integer> expected = new HashSet<>();
+            for (int c = 0; c < bvh.getCubeCount(); c++) {
+                if (query.intersects(bvh.getCubeWorldBounds(c, cubeBox))) {
+                    expected.add(c);
+                }
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void emptyModelNeverHits() {
+        Model model = new Model();
+        model.addRoot(new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1)));
+        CubeBvh bvh = new CubeBvh(model);
+        assertFalse(bvh.raycast(new Vector3f(), new Vector3f(1, 0, 0), 100f, new RayHit()));
+        assertEquals(0, bvh.overlaps(new Aabb(-1, -1, -1, 1, 1, 1), new int[4]));
+    }
+}
@@ -0,0 +1,166 @@
+package com.tridimensity.spatial;
+
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelInstance;
+import com.tridimensity.model.ModelNode;
+import com.tridimensity.util.Aabb;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstanceGridTest {
+
+    private static Aabb randomBox(Random random, float range, float maxSize) {
+        float x = random.nextFloat() * range - range / 2;
+        float y = random.nextFloat() * 32;
+        float z = random.nextFloat() * range - range / 2;
+        float s = random.nextFloat() * maxSize;
+        return new Aabb(x, y, z, x + s, y + s * 2, z + s);
+    }
+
+    @Test
+    void queriesMatchBruteForceAcrossMovesAndRemovals() {
+        Random random = new Random(11);
+        InstanceGrid<String> grid = new InstanceGrid<>(4f);
+        List<Integer> handles = new ArrayList<>();
+        List<Aabb> boxes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // A few boxes are larger than a cell and land in the oversized list
+            Aabb box = randomBox(random, 200, i % 100 == 0 ? 20 : 3);
+            handles.add(grid.insert("e" + i, box));
+            boxes.add(box);
+        }
+        for (int i = 0; i < 1000; i++) {
+            int k = random.nextInt(handles.size());
+            Aabb box = randomBox(random, 200, 3);
+            grid.move(handles.get(k), box);
+            boxes.set(k, box);
+        }
+        for (int i = 0; i < 300; i++) {
+            int k = random.nextInt(handles.size());
+            grid.remove(handles.remove(k));
+            boxes.remove(k);
+        }
+        assertEquals(handles.size(), grid.size());
+
+        Set<Integer> actual = new HashSet<>();
+        SpatialSink<String> sink = (handle, value) -> assertTrue(actual.add(handle), "reported twice: " + handle);
+
+        for (int q = 0; q < 100; q++) {
+            Aabb query = randomBox(random, 200, q % 10 == 0 ? 150 : 10);
+            actual.clear();
+            int count = grid.queryBox(query, sink);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < handles.size(); i++) {
+                if (query.intersects(boxes.get(i))) {
+                    expected.add(handles.get(i));
+                }
+            }
+            assertEquals(expected, actual);
+            assertEquals(expected.size(), count);
+        }
+
+        for (int q = 0; q < 100; q++) {
+            float x = random.nextFloat() * 200 - 100, y = random.nextFloat() * 32, z = random.nextFloat() * 200 - 100;
+            float r = random.nextFloat() * 12;
+            actual.clear();
+            grid.queryRadius(x, y, z, r, sink);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < handles.size(); i++) {
+                Aabb b = boxes.get(i);
+                float dx = Math.max(Math.max(b.minX - x, 0), x - b.maxX);
+                float dy = Math.max(Math.max(b.minY - y, 0), y - b.maxY);
+                float dz = Math.max(Math.max(b.minZ - z, 0), z - b.maxZ);
+                if (dx * dx + dy * dy + dz * dz <= r * r) {
+                    expected.add(handles.get(i));
+                }
+            }
+            assertEquals(expected, actual);
+        }
+
+        Matrix4f viewProj = new Matrix4f()
+                .perspective((float) Math.toRadians(70), 16f / 9f, 0.1f, 60f)
+                .lookAt(0, 20, 0, 30, 10, 30, 0, 1, 0);
+        FrustumIntersection frustum = new FrustumIntersection(viewProj);
+        actual.clear();
+        grid.queryFrustum(frustum, sink);
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < handles.size(); i++) {
+            Aabb b = boxes.get(i);
+            if (frustum.testAab(b.minX, b.minY, b.minZ, b.maxX, b.maxY, b.maxZ)) {
+                expected.add(handles.get(i));
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void handlesAreRecycledAndValidated() {
+        InstanceGrid<String> grid = new InstanceGrid<>(2f);
+        int a = grid.insert("a", new Aabb(0, 0, 0, 1, 1, 1));
+        int b = grid.insert("b", new Aabb(10, 0, 0, 11, 1, 1));
+        grid.remove(a);
+        assertNull(grid.get(a));
+        assertThrows(IllegalArgumentException.class, () -> grid.move(a, new Aabb()));
+        assertThrows(IllegalArgumentException.class, () -> grid.remove(a));
+
+        int c = grid.insert("c", new Aabb(-5, 0, 0, -4, 1, 1));
+        assertEquals(a, c);
+        assertEquals("c", grid.get(c));
+        assertEquals("b", grid.get(b));
+        assertEquals(2, grid.size());
+
+        grid.clear();
+        assertEquals(0, grid.size());
+        assertEquals(0, grid.queryRadius(0, 0, 0, 100, (h, v) -> fail()));
+        assertThrows(IllegalArgumentException.class, () -> new InstanceGrid<String>(0f));
+    }
+
+    @Test
+    void negativeOrNanRadiusIsRejected() {
+        InstanceGrid<String> grid = new InstanceGrid<>(2f);
+        grid.insert("a", new Aabb(0, 0, 0, 1, 1, 1));
+        SpatialSink<String> ignore = (handle, value) -> { };
+        assertThrows(IllegalArgumentException.class, () -> grid.queryRadius(0, 0, 0, -1f, ignore));
+        assertThrows(IllegalArgumentException.class, () -> grid.queryRadius(0, 0, 0, Float.NaN, ignore));
+        assertEquals(1, grid.queryRadius(1, 1, 1, 0f, ignore));
+    }
+
+    @Test
+    void indexesInstanceWorldBounds() {
+        Model model = new Model();
+        ModelNode root = new ModelNode("root", new Vector3f(), new Vector3f(), new Vector3f(), new Vector3f(1, 1, 1));
+        root.addCube(new ModelCube(UUID.randomUUID(), "body", new Vector3f(-8, 0, -8), new Vector3f(8, 16, 8), new HashMap<>()));
+        model.addRoot(root);
+
+        InstanceGrid<ModelInstance> grid = new InstanceGrid<>(2f);
+        ModelInstance near = model.instantiate();
+        ModelInstance far = model.instantiate();
+        Aabb box = new Aabb();
+        grid.insert(near, near.getWorldBounds(box));
+        int farHandle = grid.insert(far, far.getWorldBounds(box).transform(new Matrix4f().translation(50, 0, 0), box));
+
+        List<ModelInstance> found = new ArrayList<>();
+        grid.queryRadius(0, 0, 0, 4f, (h, v) -> found.add(v));
+        assertEquals(List.of(near), found);
+
+        far.getWorldBounds(box);
+        grid.move(farHandle, box);
+        found.clear();
+        grid.queryRadius(0, 0, 0, 4f, (h, v) -> found.add(v));
+        assertEquals(2, found.size());
+    }
+}
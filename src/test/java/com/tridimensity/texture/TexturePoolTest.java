@@ -0,0 +1,210 @@
+package com.tridimensity.texture;
+
+import com.tridimensity.exception.ModelParseException;
+import com.tridimensity.io.BlockbenchLoader;
+import com.tridimensity.model.FaceDirection;
+import com.tridimensity.model.Model;
+import com.tridimensity.model.ModelCube;
+import com.tridimensity.model.ModelTexture;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TexturePoolTest {
+
+    private static byte[] bytes(long seed, int size) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static String dataUrl(byte[] data) {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(data);
+    }
+
+    private static Model load(String... sources) {
+        StringBuilder textures = new StringBuilder();
+        for (int i = 0; i < sources.length; i++) {
+            textures.append(i > 0 ? "," : "").append("""
+                {"name": "tex%d.png", "id": "%d", "uuid": "uuid-%d", "width": 32, "height": 16, "source": "%s"}
+                """.formatted(i, i, i, sources[i]));
+        }
+        String json = """
+            {
+                "textures": [%s],
+                "elements": [
+                    {
+                        "uuid": "e005f561-1234-4567-89ab-cdef01234567",
+                        "from": [0, 0, 0],
+                        "to": [16, 16, 16],
+                        "faces": {
+                            "north": {"uv": [0, 0, 16, 16], "texture": 1},
+                            "south": {"uv": [0, 0, 16, 16], "texture": null},
+                            "up": {"uv": [0, 0, 16, 16], "texture": "#0"}
+                        }
+                    }
+                ],
+                "outliner": [
+                    {"name": "root", "origin": [0, 0, 0], "children": ["e005f561-1234-4567-89ab-cdef01234567"]}
+                ]
+            }
+            """.formatted(textures);
+        return BlockbenchLoader.load(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void loaderRecordsMetadataAndPayloadRange() {
+        byte[] png = bytes(1, 100);
+        Model model = load(dataUrl(png), dataUrl(bytes(2, 10)));
+        assertEquals(2, model.getTextures().size());
+
+        ModelTexture texture = model.getTexture(0);
+        assertEquals("tex0.png", texture.getName());
+        assertEquals("0", texture.getId());
+        assertEquals(32, texture.getWidth());
+        assertEquals(16, texture.getUvHeight());
+        assertTrue(texture.isEmbedded());
+        assertNull(texture.getContentKey(), "loading must not decode");
+        String payload = texture.getSource().substring(texture.getDataOffset(), texture.getDataOffset() + texture.getDataLength());
+        assertArrayEquals(png, Base64.getDecoder().decode(payload));
+    }
+
+    @Test
+    void faceReferencesResolveToTextureIndices() {
+        Model model = load(dataUrl(bytes(1, 10)), dataUrl(bytes(2, 10)));
+        ModelCube cube = model.getRoots().get(0).getCubes().get(0);
+        assertEquals(1, model.getTextureIndex(cube, FaceDirection.NORTH));
+        assertEquals(-1, model.getTextureIndex(cube, FaceDirection.SOUTH));
+        assertEquals(0, model.getTextureIndex(cube, FaceDirection.UP));
+        assertEquals(-1, model.getTextureIndex(cube, FaceDirection.EAST));
+
+        assertEquals(1, model.resolveTexture("uuid-1"));
+        assertEquals(0, model.resolveTexture("tex0.png"));
+        assertEquals(-1, model.resolveTexture("7"));
+    }
+
+    @Test
+    void identicalContentIsDecodedOnceAcrossModels() {
+        byte[] shared = bytes(3, 5000);
+        Model first = load(dataUrl(shared), dataUrl(bytes(4, 64)));
+        Model second = load(dataUrl(bytes(5, 64)), dataUrl(shared));
+
+        // The loader keeps one copy of the base64 text for both models
+        assertSame(first.getTexture(0).getSource(), second.getTexture(1).getSource());
+
+        TexturePool pool = new TexturePool();
+        TextureData a = pool.acquire(first.getTexture(0));
+        TextureData b = pool.acquire(second.getTexture(1));
+        assertSame(a, b);
+        assertEquals(1, pool.getResidentCount());
+        assertTrue(a.getBytes().isDirect());
+        assertTrue(a.getBytes().isReadOnly());
+
+        byte[] decoded = new byte[a.getSize()];
+        a.getBytes().duplicate().get(decoded);
+        assertArrayEquals(shared, decoded);
+
+        TextureData other = pool.acquire(first.getTexture(1));
+        assertNotSame(a, other);
+        assertEquals(2, pool.getResidentCount());
+        assertEquals(5000 + 64, pool.getResidentBytes());
+
+        // Both holders must release before the bytes go back to the pool
+        pool.release(a);
+        assertEquals(2, pool.getResidentCount());
+        pool.release(b);
+        assertEquals(1, pool.getResidentCount());
+        assertTrue(pool.getPooledBytes() >= 5000);
+        assertThrows(IllegalStateException.class, () -> pool.release(a));
+        pool.release(other);
+    }
+
+    @Test
+    void releasedBuffersAreReused() {
+        Model model = load(dataUrl(bytes(6, 3000)), dataUrl(bytes(7, 3100)));
+        TexturePool pool = new TexturePool();
+        TextureData first = pool.acquire(model.getTexture(0));
+        ByteBuffer buffer = first.buffer;
+        pool.release(first);
+
+        TextureData second = pool.acquire(model.getTexture(1));
+        assertSame(buffer, second.buffer);
+        assertEquals(3100, second.getSize());
+        assertEquals(0L, pool.getPooledBytes());
+    }
+
+    @Test
+    void concurrentAcquiresShareIdenticalContent() throws Exception {
+        String[] sources = new String[8];
+        for (int i = 0; i < sources.length; i++) {
+            // Pairs of identical textures
+            sources[i] = dataUrl(bytes(20 + i / 2, 20_000));
+        }
+        TexturePool pool = new TexturePool();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 20; round++) {
+                Model[] models = new Model[sources.length];
+                for (int i = 0; i < models.length; i++) {
+                    models[i] = load(sources[i]);
+                }
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<TextureData>> futures = new ArrayList<>();
+                for (Model model : models) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return pool.acquire(model.getTexture(0));
+                    }));
+                }
+                start.countDown();
+                TextureData[] held = new TextureData[futures.size()];
+                for (int i = 0; i < held.length; i++) {
+                    held[i] = futures.get(i).get();
+                }
+                assertEquals(4, pool.getResidentCount());
+                for (int i = 0; i < held.length; i += 2) {
+                    assertSame(held[i], held[i + 1]);
+                    assertNotSame(held[i], held[(i + 2) % held.length]);
+                }
+                for (TextureData data : held) {
+                    pool.release(data);
+                }
+                assertEquals(0, pool.getResidentCount());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void decodesPaddingAndRejectsGarbage() {
+        for (int size = 0; size < 8; size++) {
+            byte[] data = bytes(size, size);
+            ByteBuffer dest = ByteBuffer.allocate(16);
+            String encoded = Base64.getEncoder().encodeToString(data);
+            TexturePool.decode(encoded, 0, encoded.length(), dest);
+            assertEquals(size, dest.position());
+            for (int i = 0; i < size; i++) {
+                assertEquals(data[i], dest.get(i));
+            }
+        }
+
+        ModelTexture broken = new ModelTexture("bad", "0", null, 0, 0, 16, 16, "data:image/png;base64,AA*A");
+        TexturePool pool = new TexturePool();
+        assertThrows(ModelParseException.class, () -> pool.acquire(broken));
+        assertThrows(IllegalArgumentException.class,
+                () -> pool.acquire(new ModelTexture("file", "0", null, 0, 0, 16, 16, "textures/file.png")));
+    }
+}